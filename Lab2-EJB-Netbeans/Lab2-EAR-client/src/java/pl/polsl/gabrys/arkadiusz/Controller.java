@@ -1,11 +1,27 @@
 package pl.polsl.gabrys.arkadiusz;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerAsyncRemote;
 import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseSessionRemote;
+import pl.polsl.gabrys.arkadiusz.shard.ShardIdGenerator;
+import pl.polsl.gabrys.arkadiusz.shard.ShardMap;
+import pl.polsl.gabrys.arkadiusz.shard.ShardRebalancer;
+import pl.polsl.gabrys.arkadiusz.shard.ShardedDatabaseManager;
+import pl.polsl.gabrys.arkadiusz.view.ScriptRunner;
 import pl.polsl.gabrys.arkadiusz.view.View;
 
 /**
@@ -16,7 +32,24 @@ import pl.polsl.gabrys.arkadiusz.view.View;
 public class Controller {
     
     /**
-     * Parses input arguments and controls the View object
+     * Prefix of the sharding system properties
+     */
+    private static final String SHARD_PROPERTY_PREFIX = "pl.polsl.gabrys.arkadiusz.shard.";
+    
+    /**
+     * Parses input arguments and controls the View object.
+     * Started with -b [File|-] [InFlight] runs the commands of the file or of the standard input
+     * without prompts and returns the error code of the first failed command.
+     * <p>
+     * When pl.polsl.gabrys.arkadiusz.shard.targets lists the JNDI names of several DatabaseManager
+     * deployments, each bound to its own database, the catalog is partitioned over them by
+     * ShardedDatabaseManager. The shard map is read from pl.polsl.gabrys.arkadiusz.shard.map
+     * (default shards.properties), which all clients must share, and is read again whenever
+     * the rebalancer stores a new version. pl.polsl.gabrys.arkadiusz.shard.node sets the id
+     * generator node, it is required and must differ between concurrently running clients.
+     * Started with -rebalance [RingShards] the authors are rebalanced over the first RingShards shards
+     * (default all), started with -move AuthorId Shard a single author is moved. The rebalancer
+     * has long flags only, the short ones belong to the View commands.
      * @param args the command line arguments
      */
     public static void main(String[] args) {
@@ -29,16 +62,54 @@ public class Controller {
             Logger.getLogger(Controller.class.getName()).log(Level.SEVERE, null, ex);
         }
         
+        List<DatabaseManagerRemote> shards = lookupShards(ic);
+        
+        if (args.length > 0 && (args[0].equals("-rebalance") || args[0].equals("-move")))
+            System.exit(runRebalancer(shards, args));
+        
         DatabaseManagerRemote db = null;
+        DatabaseManagerAsyncRemote asyncDb = null;
         
-        try {
-            db = (DatabaseManagerRemote) ic.lookup("DatabaseManager");
-        } catch (NamingException ex) {
-            Logger.getLogger(Controller.class.getName()).log(Level.SEVERE, null, ex);
+        if (shards.isEmpty()) {
+            try {
+                db = lookupDatabaseManager(ic, isConcurrentScript(args));
+            } catch (NamingException | IllegalArgumentException ex) {
+                Logger.getLogger(Controller.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            
+            try {
+                asyncDb = (DatabaseManagerAsyncRemote) ic.lookup("AsyncDatabaseManager");
+            } catch (NamingException ex) {
+                // concurrent lookups are optional, the view falls back to sequential calls
+                Logger.getLogger(Controller.class.getName()).log(Level.WARNING, null, ex);
+            }
+        } else {
+            Integer node = Integer.getInteger(SHARD_PROPERTY_PREFIX + "node");
+            
+            // two clients with the same node would generate the same ids
+            if (node == null) {
+                System.err.println("Sharding requires a node number unique among the clients in " + SHARD_PROPERTY_PREFIX + "node");
+                System.exit(1);
+            }
+            
+            // the asynchronous bean of a single deployment would bypass the shard map
+            try {
+                db = new ShardedDatabaseManager(shards, ShardMap.load(shardMapFile(), shards.size()), shardMapFile(),
+                        new ShardIdGenerator(node));
+            } catch (IOException | IllegalArgumentException ex) {
+                Logger.getLogger(Controller.class.getName()).log(Level.SEVERE, null, ex);
+                System.exit(1);
+            }
+        }
+        
+        if (args.length > 0 && (args[0].equals("-b") || args[0].equals("-batch"))) {
+            int errorCode = runScript(db, asyncDb, args);
+            close(db);
+            System.exit(errorCode);
         }
         
         // create a View class and pass command line arguments
-        View view = new View(db);
+        View view = new View(db, asyncDb);
         
         // print help message
         view.printHelp();
@@ -51,10 +122,151 @@ public class Controller {
             Integer errorCode = view.manageUserInput(args);
             
             if (Objects.equals(errorCode, view.ERROR_CODE_EXIT)) {
+                close(db);
                 // return error code to the shell
                 System.exit(view.ERROR_CODE_OK);
             }
         }
         
     }
+    
+    /**
+     * Looks up the database manager of a single deployment. The session bean keeps the
+     * read-your-writes window of this client, set by pl.polsl.gabrys.arkadiusz.read.window
+     * (milliseconds, default the window of the server). A script with several commands
+     * in flight uses the stateless bean, because the container serializes the calls of a session
+     * @param ic the initial context
+     * @param concurrent whether the calls are made by several threads
+     * @return the database manager
+     * @throws NamingException if the bean cannot be looked up
+     * @throws IllegalArgumentException if the read-your-writes window is negative
+     */
+    private static DatabaseManagerRemote lookupDatabaseManager(InitialContext ic, boolean concurrent) throws NamingException, IllegalArgumentException {
+        if (concurrent)
+            return (DatabaseManagerRemote) ic.lookup("DatabaseManager");
+        
+        DatabaseSessionRemote session = (DatabaseSessionRemote) ic.lookup("DatabaseSession");
+        Long window = Long.getLong("pl.polsl.gabrys.arkadiusz.read.window");
+        
+        if (window != null)
+            session.setReadYourWritesWindow(window);
+        
+        return session;
+    }
+    
+    /**
+     * Checks whether the command line runs a script with more than one command in flight
+     * @param args the command line arguments
+     * @return true if the script commands are run by several threads
+     */
+    private static boolean isConcurrentScript(String[] args) {
+        return args.length > 2 && (args[0].equals("-b") || args[0].equals("-batch")) && !args[2].trim().equals("1");
+    }
+    
+    /**
+     * Ends the server session of the database manager if it has one
+     * @param db the database manager or null
+     */
+    private static void close(DatabaseManagerRemote db) {
+        if (db instanceof DatabaseSessionRemote)
+            ((DatabaseSessionRemote) db).close();
+    }
+    
+    /**
+     * Looks up the shards listed in the pl.polsl.gabrys.arkadiusz.shard.targets system property
+     * @param ic the initial context
+     * @return the shards in the listed order, empty if sharding is not configured
+     */
+    private static List<DatabaseManagerRemote> lookupShards(InitialContext ic) {
+        List<DatabaseManagerRemote> shards = new ArrayList<>();
+        
+        for (String name: System.getProperty(SHARD_PROPERTY_PREFIX + "targets", "").split(",")) {
+            if (name.trim().isEmpty())
+                continue;
+            
+            try {
+                shards.add((DatabaseManagerRemote) ic.lookup(name.trim()));
+            } catch (NamingException ex) {
+                Logger.getLogger(Controller.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        
+        return shards;
+    }
+    
+    /**
+     * Returns the shard map file
+     * @return the path of the map file
+     */
+    private static Path shardMapFile() {
+        return Paths.get(System.getProperty(SHARD_PROPERTY_PREFIX + "map", "shards.properties"));
+    }
+    
+    /**
+     * Moves authors between the shards and updates the shard map file
+     * @param shards the shards
+     * @param args the command line arguments: -rebalance [RingShards] or -move AuthorId Shard
+     * @return the OK error code or the error code of a failed move
+     */
+    private static int runRebalancer(List<DatabaseManagerRemote> shards, String[] args) {
+        if (shards.isEmpty()) {
+            System.err.println("No shards are configured in " + SHARD_PROPERTY_PREFIX + "targets");
+            return 1;
+        }
+        
+        boolean move = args[0].equals("-move");
+        
+        if (move && args.length < 3) {
+            System.err.println("Usage: -move AuthorId Shard");
+            return 1;
+        }
+        
+        try {
+            ShardRebalancer rebalancer = new ShardRebalancer(shards, ShardMap.load(shardMapFile(), shards.size()), shardMapFile(), System.out);
+            
+            if (move) {
+                int books = rebalancer.moveAuthor(Long.parseLong(args[1]), Integer.parseInt(args[2]));
+                System.out.println("Author moved with " + books + " books");
+            } else {
+                int authors = rebalancer.rebalance(args.length > 1 ? Integer.parseInt(args[1]) : shards.size());
+                System.out.println(authors + " authors moved, ring of " + rebalancer.getMap().getShardCount() + " shards");
+            }
+            
+            return 0;
+        } catch (NumberFormatException ex) {
+            System.err.println("Author id, shard index and number of shards must be integer numbers");
+            return 1;
+        } catch (IOException | IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            return 2;
+        }
+    }
+    
+    /**
+     * Runs the commands of a script file or of the standard input
+     * @param db the database manager
+     * @param asyncDb the asynchronous database manager or null
+     * @param args the command line arguments: -b [File|-] [InFlight]
+     * @return the error code of the first failed command or the OK error code
+     */
+    private static int runScript(DatabaseManagerRemote db, DatabaseManagerAsyncRemote asyncDb, String[] args) {
+        String file = args.length > 1 ? args[1] : "-";
+        int inFlight;
+        
+        try {
+            inFlight = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        } catch (NumberFormatException ex) {
+            System.err.println("Number of commands in flight must be an integer number");
+            return 1;
+        }
+        
+        try (BufferedReader script = file.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            return new ScriptRunner(db, asyncDb, inFlight, System.out, System.err).run(script);
+        } catch (IOException | IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            return 2;
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package pl.polsl.gabrys.arkadiusz.load;
+
+import java.util.Random;
+
+/**
+ * Chooses the index of the entity used by the next operation
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public interface KeyDistribution {
+
+    /**
+     * Returns the next index
+     * @param random the random generator of the calling thread
+     * @return the index between 0 inclusive and the number of keys exclusive
+     */
+    int next(Random random);
+
+    /**
+     * Creates distribution in which every key is equally likely
+     * @param keys the number of keys
+     * @return the uniform distribution
+     * @throws IllegalArgumentException if the number of keys is not positive
+     */
+    static KeyDistribution uniform(int keys) throws IllegalArgumentException {
+        if (keys <= 0)
+            throw new IllegalArgumentException("Number of keys must be a positive number");
+
+        return random -> random.nextInt(keys);
+    }
+
+    /**
+     * Creates distribution in which the probability of the key with rank k is proportional
+     * to 1 / k^theta, hot keys are scattered over the whole key range
+     * @param keys the number of keys
+     * @param theta the skew, 0.99 is the usual choice
+     * @return the zipfian distribution
+     * @throws IllegalArgumentException if the number of keys is not positive or theta is not between 0 and 1
+     */
+    static KeyDistribution zipfian(int keys, double theta) throws IllegalArgumentException {
+        return new ZipfianDistribution(keys, theta);
+    }
+
+    /**
+     * Creates distribution with given name
+     * @param name the distribution name, uniform or zipfian
+     * @param keys the number of keys
+     * @param theta the skew of the zipfian distribution
+     * @return the distribution
+     * @throws IllegalArgumentException if the name is not known or the parameters are not valid
+     */
+    static KeyDistribution forName(String name, int keys, double theta) throws IllegalArgumentException {
+        switch (name) {
+            case "uniform":
+                return uniform(keys);
+            case "zipfian":
+                return zipfian(keys, theta);
+            default:
+                throw new IllegalArgumentException("Unknown key distribution: " + name);
+        }
+    }
+}
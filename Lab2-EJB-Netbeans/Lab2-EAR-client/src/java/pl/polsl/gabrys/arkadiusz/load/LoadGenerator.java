@@ -0,0 +1,254 @@
+package pl.polsl.gabrys.arkadiusz.load;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.ejb.embeddable.EJBContainer;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.memory.InMemoryDatabaseManager;
+import pl.polsl.gabrys.arkadiusz.statistics.LatencyHistogram;
+
+/**
+ * Headless multi-threaded load generator for DatabaseManagerRemote.
+ * Supported targets:
+ * jndi - the deployed DatabaseManager looked up with InitialContext, -D entries are passed as the JNDI environment;
+ * embedded - the EJB module started in javax.ejb.embeddable.EJBContainer in this JVM, -D entries are passed
+ * as the container properties, for example javax.ejb.embeddable.modules=Lab2-EAR-ejb.jar and, for GlassFish,
+ * org.glassfish.ejb.embedded.glassfish.configuration.file pointing to a domain.xml which defines jdbc/db and jdbc/db_read
+ * on an in-memory database such as jdbc:derby:memory:db;create=true. The read replica routing is tried locally
+ * with a second in-memory database standing in for the replica, for example jdbc/db_replica on
+ * jdbc:derby:memory:replica;createFrom=&lt;backup of the primary&gt;, selected with the JVM system property
+ * pl.polsl.gabrys.arkadiusz.read.replicas=jdbc/db_replica. The replica needs the tables of the primary, nothing
+ * creates them, and nothing is copied to it afterwards, so the replica reads of DatabaseSession, selected with
+ * --name DatabaseSession, don't see the writes, while the stateless DatabaseManager always reads from the primary;
+ * memory - InMemoryDatabaseManager in this JVM, the upper bound without remoting, transactions and JPA.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class LoadGenerator {
+
+    /**
+     * Reported percentiles
+     */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Hidden constructor of the main class
+     */
+    private LoadGenerator() { }
+
+    /**
+     * Parses the options, runs the load and prints the report
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        Options options = createOptions();
+        CommandLine commandLine;
+
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException pe) {
+            new HelpFormatter().printHelp("LoadGenerator", "\nDatabaseManagerRemote load generator", options, "\n" + pe.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        if (commandLine.hasOption("h")) {
+            new HelpFormatter().printHelp("LoadGenerator", "\nDatabaseManagerRemote load generator", options, "");
+            return;
+        }
+
+        EJBContainer container = null;
+
+        try {
+            int threads = Integer.parseInt(commandLine.getOptionValue("t", "8"));
+            long duration = Long.parseLong(commandLine.getOptionValue("d", "60"));
+            long warmup = Long.parseLong(commandLine.getOptionValue("w", "10"));
+            double rate = Double.parseDouble(commandLine.getOptionValue("r", "0"));
+            OperationMix mix = OperationMix.parse(commandLine.getOptionValue("m", "find=80,persist=5,merge=10,remove=5"));
+            String target = commandLine.getOptionValue("target", "jndi");
+            Properties properties = commandLine.getOptionProperties("D");
+
+            if (threads <= 0 || duration <= 0 || warmup < 0 || rate < 0)
+                throw new IllegalArgumentException("Threads and duration must be positive, warmup and rate cannot be negative");
+
+            DatabaseManagerRemote db;
+
+            switch (target) {
+                case "jndi":
+                    db = (DatabaseManagerRemote) new InitialContext(properties).lookup(commandLine.getOptionValue("name", "DatabaseManager"));
+                    break;
+                case "embedded":
+                    Map<String, Object> containerProperties = new HashMap<>();
+                    properties.stringPropertyNames().forEach(name -> containerProperties.put(name, properties.getProperty(name)));
+                    container = EJBContainer.createEJBContainer(containerProperties);
+                    db = (DatabaseManagerRemote) container.getContext().lookup(commandLine.getOptionValue("name",
+                            "java:global/Lab2-EAR-ejb/DatabaseManager!" + DatabaseManagerRemote.class.getName()));
+                    break;
+                case "memory":
+                    db = new InMemoryDatabaseManager();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown target: " + target);
+            }
+
+            System.out.println("Preparing workload...");
+            Workload workload = Workload.prepare(db,
+                    Integer.parseInt(commandLine.getOptionValue("a", "1000")),
+                    Integer.parseInt(commandLine.getOptionValue("b", "10000")),
+                    Integer.parseInt(commandLine.getOptionValue("s", "1000")),
+                    commandLine.getOptionValue("k", "uniform"),
+                    Double.parseDouble(commandLine.getOptionValue("theta", "0.99")));
+
+            try {
+                System.out.println("Running " + mix + " on " + threads + " threads, "
+                        + (rate > 0 ? rate + " calls/s (open loop)" : "closed loop") + ", "
+                        + workload.getAuthorCount() + " authors, " + workload.getBookCount() + " books, "
+                        + workload.getScratchBookCount() + " scratch books, "
+                        + commandLine.getOptionValue("k", "uniform") + " keys");
+
+                Map<Operation, OperationStats> stats = run(db, workload, mix, threads, rate, warmup, duration);
+                printReport(stats, duration, rate > 0);
+            } finally {
+                System.out.println("Removing " + workload.getAuthorCount() + " workload authors and their books...");
+                workload.cleanup(db);
+            }
+        } catch (IllegalArgumentException | NamingException | InterruptedException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(1);
+        } finally {
+            if (container != null)
+                container.close();
+        }
+    }
+
+    /**
+     * Runs the workers and waits for them
+     * @param db the database manager
+     * @param workload the entity ids used by the operations
+     * @param mix the operation mix
+     * @param threads the number of threads
+     * @param rate the total number of scheduled calls per second or 0 for the closed loop mode
+     * @param warmup the warmup in seconds
+     * @param duration the measurement in seconds
+     * @return the statistics by operation
+     * @throws InterruptedException if the thread was interrupted while waiting for the workers
+     */
+    static Map<Operation, OperationStats> run(DatabaseManagerRemote db, Workload workload, OperationMix mix,
+            int threads, double rate, long warmup, long duration) throws InterruptedException {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+        for (Operation operation: Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+
+        long interval = rate > 0 ? (long) (threads * 1e9 / rate) : 0;
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+        long endAt = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+        List<Thread> workers = new ArrayList<>(threads);
+
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(new Worker(db, workload, mix, stats, interval, measureFrom, endAt), "load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        for (Thread worker: workers) {
+            worker.join();
+        }
+
+        return stats;
+    }
+
+    /**
+     * Prints throughput and latency percentiles in milliseconds
+     * @param stats the statistics by operation
+     * @param duration the measurement in seconds
+     * @param corrected true if the latency was measured from the scheduled start
+     */
+    private static void printReport(Map<Operation, OperationStats> stats, long duration, boolean corrected) {
+        System.out.println();
+        System.out.println(String.format("%-8s %10s %10s %8s %8s %9s %9s %9s %9s %9s %9s",
+                "op", "calls", "calls/s", "errors", "skipped", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        long total = 0;
+
+        for (Map.Entry<Operation, OperationStats> entry: stats.entrySet()) {
+            OperationStats operation = entry.getValue();
+            long calls = operation.getLatency().getCount();
+
+            if (calls == 0 && operation.getSkipped() == 0)
+                continue;
+
+            total += calls;
+            printRow(entry.getKey().name().toLowerCase(), operation.getLatency(), duration,
+                    operation.getErrors(), operation.getSkipped());
+
+            if (corrected)
+                printRow("  service", operation.getService(), duration, operation.getErrors(), operation.getSkipped());
+        }
+
+        System.out.println();
+        System.out.println(String.format("total: %d calls, %.1f calls/s", total, (double) total / duration));
+        System.out.println(corrected
+                ? "Latency is measured from the scheduled start and includes queueing (coordinated omission corrected), service is the call time only."
+                : "Closed loop: latency is the call time only, use --rate for coordinated omission corrected latency.");
+    }
+
+    /**
+     * Prints single report row
+     * @param name the row name
+     * @param histogram the latencies
+     * @param duration the measurement in seconds
+     * @param errors the number of failed calls
+     * @param skipped the number of skipped calls
+     */
+    private static void printRow(String name, LatencyHistogram histogram, long duration, long errors, long skipped) {
+        long[] quantiles = histogram.getQuantiles(QUANTILES);
+        System.out.println(String.format("%-8s %10d %10.1f %8d %8d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f",
+                name, histogram.getCount(), (double) histogram.getCount() / duration, errors, skipped,
+                histogram.getMean() / 1e6, quantiles[0] / 1e6, quantiles[1] / 1e6, quantiles[2] / 1e6,
+                quantiles[3] / 1e6, histogram.getMax() / 1e6));
+    }
+
+    /**
+     * Creates the command line options
+     * @return the options
+     */
+    private static Options createOptions() {
+        Options options = new Options();
+        options.addOption(Option.builder("h").longOpt("help").desc("prints this help").build());
+        options.addOption(Option.builder("t").longOpt("threads").hasArg().argName("n").desc("number of threads, 8 by default").build());
+        options.addOption(Option.builder("d").longOpt("duration").hasArg().argName("seconds").desc("measurement time, 60 by default").build());
+        options.addOption(Option.builder("w").longOpt("warmup").hasArg().argName("seconds").desc("warmup time, not measured, 10 by default").build());
+        options.addOption(Option.builder("r").longOpt("rate").hasArg().argName("calls/s")
+                .desc("total scheduled calls per second (open loop), 0 runs the closed loop, 0 by default").build());
+        options.addOption(Option.builder("m").longOpt("mix").hasArg().argName("op=weight,...")
+                .desc("weights of the find, page, persist, merge and remove operations, find=80,persist=5,merge=10,remove=5 by default").build());
+        options.addOption(Option.builder("k").longOpt("keys").hasArg().argName("uniform|zipfian").desc("key distribution, uniform by default").build());
+        options.addOption(Option.builder().longOpt("theta").hasArg().argName("skew").desc("zipfian skew, 0.99 by default").build());
+        options.addOption(Option.builder("a").longOpt("authors").hasArg().argName("n")
+                .desc("number of authors created for the written books and removed after the run, 1000 by default").build());
+        options.addOption(Option.builder("b").longOpt("books").hasArg().argName("n")
+                .desc("number of books read, existing books are used first, 10000 by default").build());
+        options.addOption(Option.builder("s").longOpt("scratch").hasArg().argName("n")
+                .desc("number of books created for merges and removed after the run, 1000 by default").build());
+        options.addOption(Option.builder().longOpt("target").hasArg().argName("jndi|embedded|memory").desc("where the calls go, jndi by default").build());
+        options.addOption(Option.builder().longOpt("name").hasArg().argName("jndi name").desc("name of the DatabaseManager bean").build());
+        options.addOption(Option.builder("D").hasArgs().valueSeparator().argName("property=value")
+                .desc("JNDI environment or embedded container property").build());
+        return options;
+    }
+}
@@ -0,0 +1,102 @@
+package pl.polsl.gabrys.arkadiusz.load;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import pl.polsl.gabrys.arkadiusz.dto.BookEntry;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+
+/**
+ * Single remote call issued by the load generator
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public enum Operation {
+
+    /**
+     * Finds a book by id
+     */
+    FIND {
+        @Override
+        boolean execute(DatabaseManagerRemote db, Workload workload, Random random) {
+            db.findBookById(workload.nextBookId(random));
+            return true;
+        }
+    },
+
+    /**
+     * Reads a page of book views starting at a read book, the find queries run on
+     * the read-only persistence unit unless the server disables the separate reads
+     */
+    PAGE {
+        @Override
+        boolean execute(DatabaseManagerRemote db, Workload workload, Random random) {
+            db.findBookViewsAfter(workload.nextBookId(random) - 1, PAGE_SIZE);
+            return true;
+        }
+    },
+
+    /**
+     * Persists a new book of a workload author
+     */
+    PERSIST {
+        @Override
+        boolean execute(DatabaseManagerRemote db, Workload workload, Random random) {
+            BookEntry entry = new BookEntry("Load test book " + random.nextInt(1000000), 100L + random.nextInt(900),
+                    new Date(RELEASE_DATE), workload.nextAuthorId(random));
+            List<Long> ids = db.persistBooks(Collections.singletonList(entry));
+            workload.created(ids.get(0));
+            return true;
+        }
+    },
+
+    /**
+     * Updates a scratch book and moves it to another workload author,
+     * the books read by FIND and the existing data are never changed
+     */
+    MERGE {
+        @Override
+        boolean execute(DatabaseManagerRemote db, Workload workload, Random random) {
+            db.mergeBook(workload.nextScratchBookId(random), "Load test book " + random.nextInt(1000000),
+                    100L + random.nextInt(900), new Date(RELEASE_DATE), workload.nextAuthorId(random));
+            return true;
+        }
+    },
+
+    /**
+     * Removes a book persisted earlier by the PERSIST operation,
+     * the read and scratch books are never removed so the key space stays stable
+     */
+    REMOVE {
+        @Override
+        boolean execute(DatabaseManagerRemote db, Workload workload, Random random) {
+            Long id = workload.takeCreated();
+
+            if (id == null)
+                return false;
+
+            db.removeBook(id);
+            return true;
+        }
+    };
+
+    /**
+     * Release date of the generated books
+     */
+    private static final long RELEASE_DATE = 1136073600000L;
+
+    /**
+     * Number of book views read by the PAGE operation
+     */
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * Issues the remote call
+     * @param db the database manager
+     * @param workload the entity ids used by the operations
+     * @param random the random generator of the calling thread
+     * @return false if the operation was skipped because there was nothing to do
+     */
+    abstract boolean execute(DatabaseManagerRemote db, Workload workload, Random random);
+}
@@ -0,0 +1,110 @@
+package pl.polsl.gabrys.arkadiusz.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted choice of the next operation
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class OperationMix {
+
+    /**
+     * Operations with non zero weight
+     */
+    private final Operation[] operations;
+
+    /**
+     * Cumulative weights of the operations
+     */
+    private final int[] cumulative;
+
+    /**
+     * Weights by operation
+     */
+    private final Map<Operation, Integer> weights;
+
+    /**
+     * Initializes instance with given weights
+     * @param weights the non negative weights by operation
+     * @throws IllegalArgumentException if a weight is negative or all weights are 0
+     */
+    public OperationMix(Map<Operation, Integer> weights) throws IllegalArgumentException {
+        this.weights = new EnumMap<>(Operation.class);
+        int total = 0;
+
+        for (Map.Entry<Operation, Integer> weight: weights.entrySet()) {
+            if (weight.getValue() < 0)
+                throw new IllegalArgumentException("Operation weight cannot be negative");
+
+            if (weight.getValue() > 0) {
+                this.weights.put(weight.getKey(), weight.getValue());
+                total += weight.getValue();
+            }
+        }
+
+        if (total == 0)
+            throw new IllegalArgumentException("At least one operation must have positive weight");
+
+        operations = this.weights.keySet().toArray(new Operation[0]);
+        cumulative = new int[operations.length];
+        int sum = 0;
+
+        for (int i = 0; i < operations.length; i++) {
+            sum += this.weights.get(operations[i]);
+            cumulative[i] = sum;
+        }
+    }
+
+    /**
+     * Parses the mix, for example find=80,persist=5,merge=10,remove=5
+     * @param mix the comma separated list of operation=weight pairs
+     * @return the operation mix
+     * @throws IllegalArgumentException if the mix cannot be parsed
+     */
+    public static OperationMix parse(String mix) throws IllegalArgumentException {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+
+        for (String pair: mix.split(",")) {
+            String[] parts = pair.trim().split("=");
+
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Operation weight must be given as name=weight: " + pair);
+
+            try {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Operation weight must be a number: " + pair);
+            }
+        }
+
+        return new OperationMix(weights);
+    }
+
+    /**
+     * Chooses the next operation
+     * @param random the random generator of the calling thread
+     * @return the operation
+     */
+    public Operation next(Random random) {
+        int value = random.nextInt(cumulative[cumulative.length - 1]);
+
+        for (int i = 0; i < cumulative.length; i++) {
+            if (value < cumulative[i])
+                return operations[i];
+        }
+
+        return operations[operations.length - 1];
+    }
+
+    /**
+     * Formats the mix in the form of string
+     * @return the string representing the mix
+     */
+    @Override
+    public String toString() {
+        return weights.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package pl.polsl.gabrys.arkadiusz.load;
+
+import java.util.concurrent.atomic.LongAdder;
+import pl.polsl.gabrys.arkadiusz.statistics.LatencyHistogram;
+
+/**
+ * Latencies and counters of a single operation type
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class OperationStats {
+
+    /**
+     * Time from the intended start of the call to its end, which includes
+     * the time the call waited behind slower ones (coordinated omission corrected)
+     */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Time from the actual start of the call to its end
+     */
+    private final LatencyHistogram service = new LatencyHistogram();
+
+    /**
+     * Number of failed calls
+     */
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Number of skipped calls
+     */
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * Records completed call
+     * @param intendedStart the time at which the call should have started in nanoseconds
+     * @param start the time at which the call started in nanoseconds
+     * @param end the time at which the call ended in nanoseconds
+     * @param failed true if the call ended with an exception
+     */
+    public void record(long intendedStart, long start, long end, boolean failed) {
+        latency.record(end - intendedStart);
+        service.record(end - start);
+
+        if (failed)
+            errors.increment();
+    }
+
+    /**
+     * Records skipped call
+     */
+    public void skipped() {
+        skipped.increment();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public LatencyHistogram getService() {
+        return service;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getSkipped() {
+        return skipped.sum();
+    }
+}
@@ -0,0 +1,116 @@
+package pl.polsl.gabrys.arkadiusz.load;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+
+/**
+ * Issues operations from a single thread. In the open loop mode the calls
+ * follow a fixed schedule and latency is measured from the scheduled start,
+ * so a stalled call is charged for all calls it delayed. In the closed loop
+ * mode the next call starts as soon as the previous one ends.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+class Worker implements Runnable {
+
+    /**
+     * Database manager
+     */
+    private final DatabaseManagerRemote db;
+
+    /**
+     * Entity ids used by the operations
+     */
+    private final Workload workload;
+
+    /**
+     * Operation mix
+     */
+    private final OperationMix mix;
+
+    /**
+     * Statistics by operation, recorded only after the warmup
+     */
+    private final Map<Operation, OperationStats> stats;
+
+    /**
+     * Interval between scheduled calls in nanoseconds or 0 in the closed loop mode
+     */
+    private final long interval;
+
+    /**
+     * Time at which the measurement starts in nanoseconds
+     */
+    private final long measureFrom;
+
+    /**
+     * Time at which the run ends in nanoseconds
+     */
+    private final long endAt;
+
+    /**
+     * Initializes instance with given parameters
+     * @param db the database manager
+     * @param workload the entity ids used by the operations
+     * @param mix the operation mix
+     * @param stats the statistics by operation
+     * @param interval the interval between scheduled calls in nanoseconds or 0 in the closed loop mode
+     * @param measureFrom the time at which the measurement starts in nanoseconds
+     * @param endAt the time at which the run ends in nanoseconds
+     */
+    Worker(DatabaseManagerRemote db, Workload workload, OperationMix mix, Map<Operation, OperationStats> stats,
+            long interval, long measureFrom, long endAt) {
+        this.db = db;
+        this.workload = workload;
+        this.mix = mix;
+        this.stats = stats;
+        this.interval = interval;
+        this.measureFrom = measureFrom;
+        this.endAt = endAt;
+    }
+
+    /**
+     * Issues operations until the end of the run
+     */
+    @Override
+    public void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // threads start at random offsets, so the scheduled calls do not come in bursts
+        long next = System.nanoTime() + (interval > 0 ? random.nextLong(interval) : 0);
+
+        while (next < endAt) {
+            long now = System.nanoTime();
+
+            if (interval > 0 && now < next) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+
+            long intendedStart = interval > 0 ? next : now;
+            Operation operation = mix.next(random);
+            boolean failed = false;
+            boolean executed = true;
+            long start = System.nanoTime();
+
+            try {
+                executed = operation.execute(db, workload, random);
+            } catch (RuntimeException ex) {
+                failed = true;
+            }
+
+            long end = System.nanoTime();
+
+            if (intendedStart >= measureFrom) {
+                if (executed) {
+                    stats.get(operation).record(intendedStart, start, end, failed);
+                } else {
+                    stats.get(operation).skipped();
+                }
+            }
+
+            next = interval > 0 ? next + interval : end;
+        }
+    }
+}
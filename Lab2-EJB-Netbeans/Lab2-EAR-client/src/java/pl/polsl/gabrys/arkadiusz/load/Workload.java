@@ -0,0 +1,253 @@
+package pl.polsl.gabrys.arkadiusz.load;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.dto.BookEntry;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.interfaces.PageCursor;
+
+/**
+ * Entity ids used by the operations. Existing books are only read, the missing ones
+ * are created in bulk before the measurement starts. Writes go only to entities
+ * created by the workload: its own authors and the scratch books updated by merges.
+ * Every created book belongs to one of the workload authors, so cleanup removes
+ * all of them together with the authors and leaves the existing data untouched.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class Workload {
+
+    /**
+     * Ids of the authors created by the workload
+     */
+    private final long[] authorIds;
+
+    /**
+     * Ids of the books read by the operations
+     */
+    private final long[] bookIds;
+
+    /**
+     * Ids of the books created for the merge operations
+     */
+    private final long[] scratchBookIds;
+
+    /**
+     * Chooses authors
+     */
+    private final KeyDistribution authorKeys;
+
+    /**
+     * Chooses read books
+     */
+    private final KeyDistribution bookKeys;
+
+    /**
+     * Chooses scratch books
+     */
+    private final KeyDistribution scratchBookKeys;
+
+    /**
+     * Books persisted during the run which can be removed
+     */
+    private final ConcurrentLinkedQueue<Long> created = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Initializes instance with given parameters
+     * @param authorIds the ids of the authors created by the workload
+     * @param bookIds the ids of the read books
+     * @param scratchBookIds the ids of the books created for the merge operations
+     * @param distribution the key distribution name
+     * @param theta the skew of the zipfian distribution
+     * @throws IllegalArgumentException if there are no authors or books or the distribution is not valid
+     */
+    public Workload(long[] authorIds, long[] bookIds, long[] scratchBookIds, String distribution, double theta) throws IllegalArgumentException {
+        this.authorIds = authorIds;
+        this.bookIds = bookIds;
+        this.scratchBookIds = scratchBookIds;
+        this.authorKeys = KeyDistribution.forName(distribution, authorIds.length, theta);
+        this.bookKeys = KeyDistribution.forName(distribution, bookIds.length, theta);
+        this.scratchBookKeys = KeyDistribution.forName(distribution, scratchBookIds.length, theta);
+    }
+
+    /**
+     * Creates the workload authors and scratch books, reads the ids of existing books
+     * and persists the missing ones
+     * @param db the database manager
+     * @param authors the number of authors to create
+     * @param books the required number of read books
+     * @param scratchBooks the number of books to create for the merge operations
+     * @param distribution the key distribution name
+     * @param theta the skew of the zipfian distribution
+     * @return the workload
+     * @throws IllegalArgumentException if the numbers are not positive or the distribution is not valid
+     */
+    public static Workload prepare(DatabaseManagerRemote db, int authors, int books, int scratchBooks, String distribution, double theta)
+            throws IllegalArgumentException {
+        if (authors <= 0 || books <= 0 || scratchBooks <= 0)
+            throw new IllegalArgumentException("Number of authors, books and scratch books must be a positive number");
+
+        List<Long> authorIds = new ArrayList<>(authors);
+
+        while (authorIds.size() < authors) {
+            List<AuthorEntry> chunk = new ArrayList<>();
+
+            for (int i = authorIds.size(); i < authors && chunk.size() < DatabaseManagerRemote.MAX_BULK_SIZE; i++) {
+                chunk.add(new AuthorEntry("Load" + i, "Author" + i));
+            }
+
+            authorIds.addAll(db.persistAuthors(chunk));
+        }
+
+        List<Long> bookIds = new ArrayList<>(books);
+
+        for (List<BookView> page: PageCursor.bookViews(db, DatabaseManagerRemote.MAX_PAGE_SIZE)) {
+            for (BookView book: page) {
+                if (bookIds.size() < books)
+                    bookIds.add(book.getId());
+            }
+
+            if (bookIds.size() == books)
+                break;
+        }
+
+        Random random = new Random(books);
+        persistBooks(db, bookIds, books, "Load test book ", authorIds, random);
+
+        List<Long> scratchBookIds = new ArrayList<>(scratchBooks);
+        persistBooks(db, scratchBookIds, scratchBooks, "Load scratch book ", authorIds, random);
+
+        return new Workload(toArray(authorIds), toArray(bookIds), toArray(scratchBookIds), distribution, theta);
+    }
+
+    /**
+     * Removes the workload authors together with all books created by the workload
+     * @param db the database manager
+     * @return the number of removed authors
+     */
+    public int cleanup(DatabaseManagerRemote db) {
+        int removed = 0;
+
+        for (int from = 0; from < authorIds.length; from += DatabaseManagerRemote.MAX_BULK_SIZE) {
+            List<Long> chunk = new ArrayList<>();
+
+            for (int i = from; i < authorIds.length && chunk.size() < DatabaseManagerRemote.MAX_BULK_SIZE; i++) {
+                chunk.add(authorIds[i]);
+            }
+
+            removed += db.removeAuthorsCascading(chunk);
+        }
+
+        created.clear();
+        return removed;
+    }
+
+    /**
+     * Chooses a workload author
+     * @param random the random generator of the calling thread
+     * @return the author id
+     */
+    public long nextAuthorId(Random random) {
+        return authorIds[authorKeys.next(random)];
+    }
+
+    /**
+     * Chooses a read book
+     * @param random the random generator of the calling thread
+     * @return the book id
+     */
+    public long nextBookId(Random random) {
+        return bookIds[bookKeys.next(random)];
+    }
+
+    /**
+     * Chooses a scratch book
+     * @param random the random generator of the calling thread
+     * @return the book id
+     */
+    public long nextScratchBookId(Random random) {
+        return scratchBookIds[scratchBookKeys.next(random)];
+    }
+
+    /**
+     * Records a book persisted during the run
+     * @param id the book id
+     */
+    public void created(Long id) {
+        created.add(id);
+    }
+
+    /**
+     * Takes a book persisted during the run
+     * @return the book id or null if there is none
+     */
+    public Long takeCreated() {
+        return created.poll();
+    }
+
+    /**
+     * Returns the number of workload authors
+     * @return the number of authors
+     */
+    public int getAuthorCount() {
+        return authorIds.length;
+    }
+
+    /**
+     * Returns the number of read books
+     * @return the number of books
+     */
+    public int getBookCount() {
+        return bookIds.length;
+    }
+
+    /**
+     * Returns the number of scratch books
+     * @return the number of books
+     */
+    public int getScratchBookCount() {
+        return scratchBookIds.length;
+    }
+
+    /**
+     * Persists books of random workload authors until the list has given size
+     * @param db the database manager
+     * @param bookIds the list receiving the ids of the new books
+     * @param books the required size of the list
+     * @param title the title prefix of the new books
+     * @param authorIds the ids of the workload authors
+     * @param random the random generator
+     */
+    private static void persistBooks(DatabaseManagerRemote db, List<Long> bookIds, int books, String title, List<Long> authorIds, Random random) {
+        while (bookIds.size() < books) {
+            List<BookEntry> chunk = new ArrayList<>();
+
+            for (int i = bookIds.size(); i < books && chunk.size() < DatabaseManagerRemote.MAX_BULK_SIZE; i++) {
+                chunk.add(new BookEntry(title + i, 100L + random.nextInt(900),
+                        new Date(1136073600000L), authorIds.get(random.nextInt(authorIds.size()))));
+            }
+
+            bookIds.addAll(db.persistBooks(chunk));
+        }
+    }
+
+    /**
+     * Converts the list of ids to an array
+     * @param ids the list of ids
+     * @return the array of ids
+     */
+    private static long[] toArray(List<Long> ids) {
+        long[] array = new long[ids.size()];
+
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+
+        return array;
+    }
+}
@@ -0,0 +1,108 @@
+package pl.polsl.gabrys.arkadiusz.load;
+
+import java.util.Random;
+
+/**
+ * Zipfian distribution using the rejection free method of Gray et al.,
+ * "Quickly Generating Billion-Record Synthetic Databases", the same as YCSB.
+ * Ranks are scrambled with a multiplicative hash, so the hottest keys are not
+ * the oldest rows which would share the same database pages.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+class ZipfianDistribution implements KeyDistribution {
+
+    /**
+     * Number of keys
+     */
+    private final int keys;
+
+    /**
+     * Skew
+     */
+    private final double theta;
+
+    /**
+     * Precomputed 1 / (1 - theta)
+     */
+    private final double alpha;
+
+    /**
+     * Precomputed generalized harmonic number of the key count
+     */
+    private final double zetan;
+
+    /**
+     * Precomputed constant of the method
+     */
+    private final double eta;
+
+    /**
+     * Initializes instance with given parameters
+     * @param keys the number of keys
+     * @param theta the skew between 0 exclusive and 1 exclusive
+     * @throws IllegalArgumentException if the number of keys is not positive or theta is out of range
+     */
+    ZipfianDistribution(int keys, double theta) throws IllegalArgumentException {
+        if (keys <= 0)
+            throw new IllegalArgumentException("Number of keys must be a positive number");
+
+        if (theta <= 0.0 || theta >= 1.0)
+            throw new IllegalArgumentException("Zipfian theta must be between 0 and 1");
+
+        this.keys = keys;
+        this.theta = theta;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zetan = zeta(keys, theta);
+        this.eta = (1.0 - Math.pow(2.0 / keys, 1.0 - theta)) / (1.0 - zeta(2, theta) / zetan);
+    }
+
+    /**
+     * Returns the next index
+     * @param random the random generator of the calling thread
+     * @return the index between 0 inclusive and the number of keys exclusive
+     */
+    @Override
+    public int next(Random random) {
+        double u = random.nextDouble();
+        double uz = u * zetan;
+        long rank;
+
+        if (uz < 1.0) {
+            rank = 0;
+        } else if (uz < 1.0 + Math.pow(0.5, theta)) {
+            rank = 1;
+        } else {
+            rank = (long) (keys * Math.pow(eta * u - eta + 1.0, alpha));
+        }
+
+        return scramble(Math.min(rank, keys - 1));
+    }
+
+    /**
+     * Maps the rank to a key index
+     * @param rank the rank between 0 and the number of keys
+     * @return the key index
+     */
+    private int scramble(long rank) {
+        long hash = rank * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return (int) Math.floorMod(hash, (long) keys);
+    }
+
+    /**
+     * Calculates the generalized harmonic number
+     * @param n the number of terms
+     * @param theta the skew
+     * @return the sum of 1 / i^theta for i from 1 to n
+     */
+    private static double zeta(long n, double theta) {
+        double sum = 0.0;
+
+        for (long i = 1; i <= n; i++) {
+            sum += 1.0 / Math.pow(i, theta);
+        }
+
+        return sum;
+    }
+}
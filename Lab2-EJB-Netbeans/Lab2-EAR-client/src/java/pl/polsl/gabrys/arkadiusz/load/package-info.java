@@ -0,0 +1,8 @@
+/**
+ * Contains headless load generator driving DatabaseManagerRemote
+ *
+ * @since 1.0
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+package pl.polsl.gabrys.arkadiusz.load;
@@ -0,0 +1,357 @@
+package pl.polsl.gabrys.arkadiusz.view;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.interfaces.PageCursor;
+
+/**
+ * Streams all authors or books into a file, one chunk of entities at a time.
+ * Files ending with .jsonl or .json are written as JSON Lines, files ending
+ * with .tsv as tab separated values and all other files as comma separated
+ * values with a header line. The file is written under a temporary name and
+ * renamed when complete, so an interrupted export never looks finished.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class CatalogExporter {
+
+    /**
+     * Suffix of the file name used while the export is running
+     */
+    public static final String PART_SUFFIX = ".part";
+
+    /**
+     * Size of the output buffer in characters
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Minimum time between two progress reports
+     */
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Exported author fields by name
+     */
+    private static final Map<String, Function<AuthorView, Object>> AUTHOR_FIELDS = new LinkedHashMap<>();
+
+    /**
+     * Exported book fields by name
+     */
+    private static final Map<String, Function<BookView, Object>> BOOK_FIELDS = new LinkedHashMap<>();
+
+    static {
+        AUTHOR_FIELDS.put("type", a -> "Author");
+        AUTHOR_FIELDS.put("id", AuthorView::getId);
+        AUTHOR_FIELDS.put("name", AuthorView::getName);
+        AUTHOR_FIELDS.put("lastName", AuthorView::getLastName);
+
+        BOOK_FIELDS.put("type", b -> "Book");
+        BOOK_FIELDS.put("id", BookView::getId);
+        BOOK_FIELDS.put("title", BookView::getTitle);
+        BOOK_FIELDS.put("pages", BookView::getPages);
+        BOOK_FIELDS.put("releaseDate", BookView::getReleaseDate);
+        BOOK_FIELDS.put("authorId", BookView::getAuthorId);
+    }
+
+    /**
+     * Database manager providing the chunks
+     */
+    private final DatabaseManagerRemote databaseManager;
+
+    /**
+     * Number of entities requested per chunk
+     */
+    private final int chunkSize;
+
+    /**
+     * Stream for progress reports
+     */
+    private final PrintStream out;
+
+    /**
+     * Formatter of release dates, the same format is accepted by the import
+     */
+    private final DateFormat dateFormat = new SimpleDateFormat(CatalogImporter.DATE_FORMAT);
+
+    /**
+     * Initializes exporter with given parameters
+     * @param db the database manager
+     * @param chunkSize the number of entities requested per chunk, at most MAX_EXPORT_SIZE
+     * @param out the stream for progress reports
+     * @throws IllegalArgumentException if the database manager is null or the chunk size is not positive
+     */
+    public CatalogExporter(DatabaseManagerRemote db, int chunkSize, PrintStream out) throws IllegalArgumentException {
+        if (db == null)
+            throw new IllegalArgumentException("Database manager cannot be null");
+
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Chunk size must be a positive number");
+
+        this.databaseManager = db;
+        this.chunkSize = chunkSize;
+        this.out = out;
+    }
+
+    /**
+     * Returns the names of the author fields
+     * @return the field names in the default order
+     */
+    public static List<String> authorFields() {
+        return new ArrayList<>(AUTHOR_FIELDS.keySet());
+    }
+
+    /**
+     * Returns the names of the book fields
+     * @return the field names in the default order
+     */
+    public static List<String> bookFields() {
+        return new ArrayList<>(BOOK_FIELDS.keySet());
+    }
+
+    /**
+     * Exports all authors ordered by id
+     * @param file the target file
+     * @param fields the exported field names or null for all fields except type
+     * @return the number of exported authors
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if a field name is unknown
+     */
+    public long exportAuthors(Path file, List<String> fields) throws IOException, IllegalArgumentException {
+        return export(file, "authors", PageCursor.exportAuthorViews(databaseManager, chunkSize), select(AUTHOR_FIELDS, fields));
+    }
+
+    /**
+     * Exports all books ordered by id
+     * @param file the target file
+     * @param fields the exported field names or null for all fields except type
+     * @return the number of exported books
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if a field name is unknown
+     */
+    public long exportBooks(Path file, List<String> fields) throws IOException, IllegalArgumentException {
+        return export(file, "books", PageCursor.exportBookViews(databaseManager, chunkSize), select(BOOK_FIELDS, fields));
+    }
+
+    /**
+     * Resolves the requested field names, names are matched ignoring case
+     * @param <T> the entity type
+     * @param available the available fields
+     * @param names the requested names or null for all fields except type
+     * @return the selected fields in the requested order
+     * @throws IllegalArgumentException if a field name is unknown or no field is selected
+     */
+    private static <T> Map<String, Function<T, Object>> select(Map<String, Function<T, Object>> available, List<String> names) throws IllegalArgumentException {
+        Map<String, Function<T, Object>> selected = new LinkedHashMap<>();
+
+        if (names == null) {
+            selected.putAll(available);
+            selected.remove("type");
+            return selected;
+        }
+
+        for (String name: names) {
+            String field = null;
+
+            for (String candidate: available.keySet()) {
+                if (candidate.equalsIgnoreCase(name.trim()))
+                    field = candidate;
+            }
+
+            if (field == null)
+                throw new IllegalArgumentException("Unknown field " + name.trim() + ", available fields: " + String.join(",", available.keySet()));
+
+            selected.put(field, available.get(field));
+        }
+
+        if (selected.isEmpty())
+            throw new IllegalArgumentException("At least one field must be selected");
+
+        return selected;
+    }
+
+    /**
+     * Writes all entities of the cursor
+     * @param <T> the entity type
+     * @param file the target file
+     * @param description the plural name of the entities used in reports
+     * @param cursor the cursor over entity chunks
+     * @param fields the exported fields
+     * @return the number of exported entities
+     * @throws IOException if the file cannot be written
+     */
+    private <T> long export(Path file, String description, PageCursor<T> cursor, Map<String, Function<T, Object>> fields) throws IOException {
+        String fileName = file.getFileName().toString().toLowerCase();
+        boolean json = fileName.endsWith(".jsonl") || fileName.endsWith(".json");
+        CsvFormat csv = CsvFormat.forFile(fileName);
+        Path part = file.resolveSibling(file.getFileName() + PART_SUFFIX);
+        StringBuilder line = new StringBuilder(256);
+        long count = 0;
+        long startTime = System.nanoTime();
+        long reportTime = startTime;
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(part), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            if (!json) {
+                for (String name: fields.keySet()) {
+                    if (line.length() > 0)
+                        csv.appendSeparator(line);
+
+                    csv.appendField(line, name);
+                }
+
+                writer.append(line).append('\n');
+            }
+
+            for (List<T> chunk: cursor) {
+                for (T entity: chunk) {
+                    line.setLength(0);
+
+                    if (json) {
+                        appendJson(line, entity, fields);
+                    } else {
+                        appendCsv(line, csv, entity, fields);
+                    }
+
+                    writer.append(line).append('\n');
+                }
+
+                count += chunk.size();
+
+                if (System.nanoTime() - reportTime >= REPORT_INTERVAL) {
+                    reportTime = System.nanoTime();
+                    report(count + " " + description, startTime, reportTime, count);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(part);
+            throw ex;
+        }
+
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+        report("done: " + count + " " + description + " exported to " + file, startTime, System.nanoTime(), count);
+        return count;
+    }
+
+    /**
+     * Appends the entity as a delimited line
+     * @param <T> the entity type
+     * @param line the line being built
+     * @param csv the line format
+     * @param entity the entity
+     * @param fields the exported fields
+     */
+    private <T> void appendCsv(StringBuilder line, CsvFormat csv, T entity, Map<String, Function<T, Object>> fields) {
+        boolean first = true;
+
+        for (Function<T, Object> field: fields.values()) {
+            if (!first)
+                csv.appendSeparator(line);
+
+            Object value = field.apply(entity);
+            csv.appendField(line, value instanceof Date ? dateFormat.format((Date) value) : String.valueOf(value));
+            first = false;
+        }
+    }
+
+    /**
+     * Appends the entity as a JSON object
+     * @param <T> the entity type
+     * @param line the line being built
+     * @param entity the entity
+     * @param fields the exported fields
+     */
+    private <T> void appendJson(StringBuilder line, T entity, Map<String, Function<T, Object>> fields) {
+        line.append('{');
+
+        for (Map.Entry<String, Function<T, Object>> field: fields.entrySet()) {
+            if (line.length() > 1)
+                line.append(',');
+
+            appendJsonString(line, field.getKey());
+            line.append(':');
+            Object value = field.getValue().apply(entity);
+
+            if (value instanceof Number) {
+                line.append(value);
+            } else if (value instanceof Date) {
+                appendJsonString(line, dateFormat.format((Date) value));
+            } else if (value == null) {
+                line.append("null");
+            } else {
+                appendJsonString(line, value.toString());
+            }
+        }
+
+        line.append('}');
+    }
+
+    /**
+     * Appends the text as a JSON string literal
+     * @param line the line being built
+     * @param text the text
+     */
+    private static void appendJsonString(StringBuilder line, String text) {
+        line.append('"');
+
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+
+        line.append('"');
+    }
+
+    /**
+     * Prints the number of exported entities and the throughput
+     * @param stage the description of the current stage
+     * @param startTime the time of the export start
+     * @param now the current time
+     * @param count the number of exported entities
+     */
+    private void report(String stage, long startTime, long now, long count) {
+        double seconds = Math.max(now - startTime, 1) / 1e9;
+        out.println(String.format("%s, %.1f records/s", stage, count / seconds));
+    }
+}
@@ -0,0 +1,578 @@
+package pl.polsl.gabrys.arkadiusz.view;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.dto.BookEntry;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+
+/**
+ * Streams authors and books from a delimited file into the database.
+ * Every line is a single record:
+ * Author,Name,LastName[,Key] or Book,Title,Pages,yyyy.MM.dd,Author.
+ * The author of a book is the key of an author record of the same file or a database id,
+ * keys are mapped to the ids the authors got when they were persisted.
+ * Empty lines, lines starting with # and a header line starting with Type are skipped.
+ * Consecutive records of the same kind are sent in chunks through the bulk persist
+ * methods, each chunk in its own transaction, so only one chunk is held in memory.
+ * When the server rejects a chunk its records are sent one by one and only the
+ * rejected ones are skipped. Skipped lines are reported and written to a rejects file
+ * preceded by a comment with the reason, so the file can be corrected and imported.
+ * The number of the last line of the last committed chunk is kept in a progress file
+ * and the mapped author keys in a keys file next to the imported one, a repeated
+ * import of the same file continues after that line.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class CatalogImporter {
+
+    /**
+     * Format of the release dates
+     */
+    public static final String DATE_FORMAT = "yyyy.MM.dd";
+
+    /**
+     * Suffix of the progress file name
+     */
+    public static final String PROGRESS_SUFFIX = ".progress";
+
+    /**
+     * Suffix of the author keys file name
+     */
+    public static final String KEYS_SUFFIX = ".keys";
+
+    /**
+     * Suffix of the rejects file name
+     */
+    public static final String REJECTS_SUFFIX = ".rejected";
+
+    /**
+     * Minimum time between two progress reports
+     */
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Database manager receiving the chunks
+     */
+    private final DatabaseManagerRemote databaseManager;
+
+    /**
+     * Maximum number of records in a chunk
+     */
+    private final int chunkSize;
+
+    /**
+     * Stream for progress reports and rejected lines
+     */
+    private final PrintStream out;
+
+    /**
+     * Parser of release dates, strict so invalid dates are rejected
+     */
+    private final DateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+
+    /**
+     * Authors of the pending chunk
+     */
+    private final List<AuthorEntry> authorChunk = new ArrayList<>();
+
+    /**
+     * Keys of the authors of the pending chunk, null for authors without a key
+     */
+    private final List<String> authorKeyChunk = new ArrayList<>();
+
+    /**
+     * Books of the pending chunk
+     */
+    private final List<BookEntry> bookChunk = new ArrayList<>();
+
+    /**
+     * Numbers of the lines of the pending chunk records
+     */
+    private final List<Long> chunkLines = new ArrayList<>();
+
+    /**
+     * Lines of the pending chunk records
+     */
+    private final List<String> chunkText = new ArrayList<>();
+
+    /**
+     * Rejected lines not written to the rejects file yet, each preceded by the reason comment
+     */
+    private final List<String> pendingRejects = new ArrayList<>();
+
+    /**
+     * Author keys mapped to the ids of the persisted authors
+     */
+    private final Map<String, Long> authorKeys = new HashMap<>();
+
+    /**
+     * Author keys of the pending chunk persisted but not written to the keys file yet
+     */
+    private final List<String> pendingKeys = new ArrayList<>();
+
+    /**
+     * Progress file of the imported file
+     */
+    private Path progressFile;
+
+    /**
+     * Author keys file of the imported file
+     */
+    private Path keysFile;
+
+    /**
+     * Rejects file of the imported file
+     */
+    private Path rejectsFile;
+
+    /**
+     * Number of the last line of the pending chunk
+     */
+    private long pendingLine;
+
+    /**
+     * Number of the last line of the last committed chunk
+     */
+    private long committedLine;
+
+    /**
+     * Number of imported authors
+     */
+    private long authors;
+
+    /**
+     * Number of imported books
+     */
+    private long books;
+
+    /**
+     * Number of rejected lines
+     */
+    private long rejected;
+
+    /**
+     * Time of the import start
+     */
+    private long startTime;
+
+    /**
+     * Time of the last progress report
+     */
+    private long reportTime;
+
+    /**
+     * Initializes importer with given parameters
+     * @param db the database manager
+     * @param chunkSize the maximum number of records in a chunk
+     * @param out the stream for progress reports
+     * @throws IllegalArgumentException if the database manager is null or the chunk size is not between 1 and MAX_BULK_SIZE
+     */
+    public CatalogImporter(DatabaseManagerRemote db, int chunkSize, PrintStream out) throws IllegalArgumentException {
+        if (db == null)
+            throw new IllegalArgumentException("Database manager cannot be null");
+
+        if (chunkSize <= 0 || chunkSize > DatabaseManagerRemote.MAX_BULK_SIZE)
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + DatabaseManagerRemote.MAX_BULK_SIZE);
+
+        this.databaseManager = db;
+        this.chunkSize = chunkSize;
+        this.out = out;
+        this.dateFormat.setLenient(false);
+    }
+
+    /**
+     * Returns the progress file of the imported file
+     * @param file the imported file
+     * @return the progress file path
+     */
+    public static Path progressFile(Path file) {
+        return file.resolveSibling(file.getFileName() + PROGRESS_SUFFIX);
+    }
+
+    /**
+     * Returns the author keys file of the imported file
+     * @param file the imported file
+     * @return the author keys file path
+     */
+    public static Path keysFile(Path file) {
+        return file.resolveSibling(file.getFileName() + KEYS_SUFFIX);
+    }
+
+    /**
+     * Returns the rejects file of the imported file
+     * @param file the imported file
+     * @return the rejects file path
+     */
+    public static Path rejectsFile(Path file) {
+        return file.resolveSibling(file.getFileName() + REJECTS_SUFFIX);
+    }
+
+    /**
+     * Imports the file, continuing after the last committed line when a progress file exists.
+     * The progress and keys files are removed when the whole file has been imported,
+     * the rejects file is kept if any line was rejected.
+     * @param file the file to import
+     * @throws IOException if the imported, progress, keys or rejects file cannot be read or written
+     */
+    public void importFile(Path file) throws IOException {
+        progressFile = progressFile(file);
+        keysFile = keysFile(file);
+        rejectsFile = rejectsFile(file);
+        CsvFormat format = CsvFormat.forFile(file.getFileName().toString());
+        long resumeLine = readProgress(progressFile);
+
+        authorChunk.clear();
+        authorKeyChunk.clear();
+        bookChunk.clear();
+        chunkLines.clear();
+        chunkText.clear();
+        pendingRejects.clear();
+        pendingKeys.clear();
+        authorKeys.clear();
+        committedLine = pendingLine = resumeLine;
+        authors = books = rejected = 0;
+        startTime = reportTime = System.nanoTime();
+
+        if (resumeLine > 0) {
+            readKeys(keysFile, authorKeys);
+            out.println("Resuming after line " + resumeLine);
+        } else {
+            Files.deleteIfExists(keysFile);
+            Files.deleteIfExists(rejectsFile);
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (++lineNumber <= resumeLine)
+                    continue;
+
+                readRecord(format, line, lineNumber);
+                pendingLine = lineNumber;
+            }
+
+            flush();
+        } catch (RuntimeException ex) {
+            out.println("Import stopped, lines up to " + committedLine + " are committed,"
+                    + " run the same import again to continue");
+            throw ex;
+        }
+
+        Files.deleteIfExists(progressFile);
+        Files.deleteIfExists(keysFile);
+        report("done");
+
+        if (Files.exists(rejectsFile))
+            out.println("Rejected lines are written to " + rejectsFile);
+    }
+
+    /**
+     * Validates and converts a single line and adds it to the pending chunk,
+     * invalid lines are reported and skipped
+     * @param format the file format
+     * @param line the line
+     * @param lineNumber the line number
+     * @throws IOException if the progress, keys or rejects file cannot be written
+     */
+    private void readRecord(CsvFormat format, String line, long lineNumber) throws IOException {
+        String trimmed = line.trim();
+
+        if (trimmed.isEmpty() || trimmed.startsWith("#"))
+            return;
+
+        List<String> fields;
+
+        try {
+            fields = format.parse(line);
+        } catch (IllegalArgumentException ex) {
+            reject(lineNumber, line, ex.getMessage());
+            return;
+        }
+
+        String kind = fields.get(0).toLowerCase();
+
+        if (lineNumber == 1 && kind.equals("type"))
+            return;
+
+        switch (kind) {
+            case "author":
+                if (fields.size() < 3 || fields.size() > 4 || fields.get(1).isEmpty() || fields.get(2).isEmpty()) {
+                    reject(lineNumber, line, "expected Author,Name,LastName[,Key]");
+                    return;
+                }
+
+                String key = fields.size() == 4 && !fields.get(3).isEmpty() ? fields.get(3) : null;
+
+                if (key != null && (key.indexOf('\n') >= 0 || key.indexOf('\r') >= 0)) {
+                    reject(lineNumber, line, "author key cannot contain line breaks");
+                    return;
+                }
+
+                if (!bookChunk.isEmpty())
+                    flush();
+
+                authorChunk.add(new AuthorEntry(fields.get(1), fields.get(2)));
+                authorKeyChunk.add(key);
+                break;
+
+            case "book":
+                if (fields.size() != 5 || fields.get(1).isEmpty()) {
+                    reject(lineNumber, line, "expected Book,Title,Pages,Date,Author");
+                    return;
+                }
+
+                Long pages;
+                Date date;
+
+                try {
+                    pages = Long.parseLong(fields.get(2));
+                } catch (NumberFormatException ex) {
+                    reject(lineNumber, line, "pages must be an integer number");
+                    return;
+                }
+
+                if (pages < 0) {
+                    reject(lineNumber, line, "pages cannot be negative");
+                    return;
+                }
+
+                try {
+                    date = dateFormat.parse(fields.get(3));
+                } catch (java.text.ParseException ex) {
+                    reject(lineNumber, line, "wrong date format, expected " + DATE_FORMAT);
+                    return;
+                }
+
+                // the authors of the pending chunk get their ids only when it is persisted
+                if (!authorChunk.isEmpty())
+                    flush();
+
+                Long authorId = authorKeys.get(fields.get(4));
+
+                if (authorId == null) {
+                    try {
+                        authorId = Long.parseLong(fields.get(4));
+                    } catch (NumberFormatException ex) {
+                        reject(lineNumber, line, "author must be the key of an imported author or an integer id");
+                        return;
+                    }
+                }
+
+                bookChunk.add(new BookEntry(fields.get(1), pages, date, authorId));
+                break;
+
+            default:
+                reject(lineNumber, line, "unknown record type " + fields.get(0));
+                return;
+        }
+
+        chunkLines.add(lineNumber);
+        chunkText.add(line);
+        pendingLine = lineNumber;
+
+        if (authorChunk.size() + bookChunk.size() >= chunkSize)
+            flush();
+    }
+
+    /**
+     * Sends the pending chunk in a single transaction, writes the new author keys and
+     * the rejected lines and records the last read line as committed
+     * @throws IOException if the progress, keys or rejects file cannot be written
+     */
+    private void flush() throws IOException {
+        if (!authorChunk.isEmpty()) {
+            List<Long> ids = persist(authorChunk, databaseManager::persistAuthors);
+
+            for (int i = 0; i < ids.size(); ++i) {
+                if (ids.get(i) == null)
+                    continue;
+
+                ++authors;
+                String key = authorKeyChunk.get(i);
+
+                if (key != null) {
+                    authorKeys.put(key, ids.get(i));
+                    pendingKeys.add(key + "=" + ids.get(i));
+                }
+            }
+        } else if (!bookChunk.isEmpty()) {
+            for (Long id: persist(bookChunk, databaseManager::persistBooks)) {
+                if (id != null)
+                    ++books;
+            }
+        } else if (pendingRejects.isEmpty() && committedLine == pendingLine) {
+            return;
+        }
+
+        authorChunk.clear();
+        authorKeyChunk.clear();
+        bookChunk.clear();
+        chunkLines.clear();
+        chunkText.clear();
+
+        // keys and rejects are written before the progress, a crash in between only repeats them
+        if (!pendingKeys.isEmpty()) {
+            Files.write(keysFile, pendingKeys, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            pendingKeys.clear();
+        }
+
+        if (!pendingRejects.isEmpty()) {
+            Files.write(rejectsFile, pendingRejects, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            pendingRejects.clear();
+        }
+
+        committedLine = pendingLine;
+        writeProgress(progressFile, committedLine);
+
+        if (System.nanoTime() - reportTime >= REPORT_INTERVAL)
+            report("line " + committedLine);
+    }
+
+    /**
+     * Persists the pending chunk in a single call. When the server rejects the chunk,
+     * its records are persisted one by one and the rejected records are reported
+     * @param <T> the entry type
+     * @param chunk the entries of the pending chunk
+     * @param persist the bulk persist method
+     * @return the ids of the persisted entries in the order of the chunk, null for rejected entries
+     * @throws RuntimeException if a call fails for another reason than rejected values
+     */
+    private <T> List<Long> persist(List<T> chunk, Function<List<T>, List<Long>> persist) throws RuntimeException {
+        try {
+            return persist.apply(chunk);
+        } catch (RuntimeException ex) {
+            if (rejection(ex) == null)
+                throw ex;
+        }
+
+        List<Long> ids = new ArrayList<>(chunk.size());
+
+        for (int i = 0; i < chunk.size(); ++i) {
+            try {
+                ids.add(persist.apply(Collections.singletonList(chunk.get(i))).get(0));
+            } catch (RuntimeException ex) {
+                IllegalArgumentException cause = rejection(ex);
+
+                if (cause == null)
+                    throw ex;
+
+                reject(chunkLines.get(i), chunkText.get(i),
+                        cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName());
+                ids.add(null);
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Finds the IllegalArgumentException with which the server rejected the values,
+     * remote calls may deliver it wrapped in other exceptions
+     * @param ex the exception thrown by the call
+     * @return the rejection or null if the call failed for another reason
+     */
+    private static IllegalArgumentException rejection(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof IllegalArgumentException)
+                return (IllegalArgumentException) cause;
+        }
+
+        return null;
+    }
+
+    /**
+     * Reports the rejected line and adds it to the pending rejects
+     * @param lineNumber the line number
+     * @param line the rejected line
+     * @param reason the reason of rejection
+     */
+    private void reject(long lineNumber, String line, String reason) {
+        ++rejected;
+        out.println("line " + lineNumber + " rejected: " + reason);
+        pendingRejects.add("# line " + lineNumber + ": " + reason.replace('\n', ' ').replace('\r', ' '));
+        pendingRejects.add(line);
+    }
+
+    /**
+     * Prints the number of imported records and the throughput
+     * @param stage the description of the current stage
+     */
+    private void report(String stage) {
+        reportTime = System.nanoTime();
+        double seconds = Math.max(reportTime - startTime, 1) / 1e9;
+        out.println(String.format("%s: %d authors, %d books imported, %d rejected, %.1f records/s",
+                stage, authors, books, rejected, (authors + books) / seconds));
+    }
+
+    /**
+     * Reads the last committed line from the progress file
+     * @param progress the progress file
+     * @return the last committed line or 0 if there is no progress file
+     * @throws IOException if the progress file cannot be read or is damaged
+     */
+    private static long readProgress(Path progress) throws IOException {
+        if (!Files.exists(progress))
+            return 0;
+
+        List<String> lines = Files.readAllLines(progress, StandardCharsets.UTF_8);
+
+        try {
+            return lines.isEmpty() ? 0 : Long.parseLong(lines.get(0).trim());
+        } catch (NumberFormatException ex) {
+            throw new IOException("Damaged progress file " + progress, ex);
+        }
+    }
+
+    /**
+     * Reads the author keys written by the previous runs, later entries replace earlier ones
+     * @param keys the author keys file
+     * @param authorKeys the map receiving the ids by key
+     * @throws IOException if the keys file cannot be read or is damaged
+     */
+    private static void readKeys(Path keys, Map<String, Long> authorKeys) throws IOException {
+        if (!Files.exists(keys))
+            return;
+
+        for (String line: Files.readAllLines(keys, StandardCharsets.UTF_8)) {
+            int separator = line.lastIndexOf('=');
+
+            try {
+                authorKeys.put(line.substring(0, separator), Long.parseLong(line.substring(separator + 1)));
+            } catch (IndexOutOfBoundsException | NumberFormatException ex) {
+                throw new IOException("Damaged author keys file " + keys, ex);
+            }
+        }
+    }
+
+    /**
+     * Replaces the progress file, the new content is written to a temporary file
+     * and moved over the old one so a crash never leaves a partial file
+     * @param progress the progress file
+     * @param line the last committed line
+     * @throws IOException if the progress file cannot be written
+     */
+    private static void writeProgress(Path progress, long line) throws IOException {
+        Path temporary = progress.resolveSibling(progress.getFileName() + ".tmp");
+        Files.write(temporary, Collections.singletonList(Long.toString(line)), StandardCharsets.UTF_8);
+        Files.move(temporary, progress, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,178 @@
+package pl.polsl.gabrys.arkadiusz.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits delimited text lines into fields and builds lines from fields.
+ * Fields may be enclosed in double quotes, a quote inside a quoted field
+ * is written twice. Quoted fields cannot span lines when parsed
+ * so every record is a single line.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class CsvFormat {
+
+    /**
+     * Separator of comma separated files
+     */
+    public static final char COMMA = ',';
+
+    /**
+     * Separator of tab separated files
+     */
+    public static final char TAB = '\t';
+
+    /**
+     * Field separator
+     */
+    private final char separator;
+
+    /**
+     * Initializes format with given separator
+     * @param separator the field separator
+     * @throws IllegalArgumentException if the separator is a double quote or a line break
+     */
+    public CsvFormat(char separator) throws IllegalArgumentException {
+        if (separator == '"' || separator == '\n' || separator == '\r')
+            throw new IllegalArgumentException("Separator cannot be a quote or a line break");
+
+        this.separator = separator;
+    }
+
+    /**
+     * Chooses the format by the file name, files ending with .tsv are tab separated
+     * @param fileName the file name
+     * @return the format for the file
+     */
+    public static CsvFormat forFile(String fileName) {
+        return new CsvFormat(fileName.toLowerCase().endsWith(".tsv") ? TAB : COMMA);
+    }
+
+    /**
+     * Returns the field separator
+     * @return the separator
+     */
+    public char getSeparator() {
+        return separator;
+    }
+
+    /**
+     * Splits the line into fields, fields outside quotes are trimmed
+     * @param line the line without the line break
+     * @return the list of fields, a single empty field for an empty line
+     * @throws IllegalArgumentException if a quoted field is not terminated or is followed by other characters
+     */
+    public List<String> parse(String line) throws IllegalArgumentException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+
+        while (true) {
+            // skip blanks in front of the field, unless they are the separator
+            while (i < line.length() && line.charAt(i) != separator && Character.isWhitespace(line.charAt(i))) {
+                ++i;
+            }
+
+            if (i < line.length() && line.charAt(i) == '"') {
+                ++i;
+
+                while (true) {
+                    if (i >= line.length())
+                        throw new IllegalArgumentException("Unterminated quoted field");
+
+                    char c = line.charAt(i++);
+
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        ++i;
+                    } else {
+                        break;
+                    }
+                }
+
+                while (i < line.length() && line.charAt(i) != separator) {
+                    if (!Character.isWhitespace(line.charAt(i)))
+                        throw new IllegalArgumentException("Unexpected character after quoted field");
+
+                    ++i;
+                }
+
+                fields.add(field.toString());
+            } else {
+                int start = i;
+
+                while (i < line.length() && line.charAt(i) != separator) {
+                    ++i;
+                }
+
+                fields.add(line.substring(start, i).trim());
+            }
+
+            field.setLength(0);
+
+            if (i >= line.length())
+                return fields;
+
+            // skip the separator
+            ++i;
+        }
+    }
+
+    /**
+     * Appends the field separator
+     * @param line the line being built
+     */
+    public void appendSeparator(StringBuilder line) {
+        line.append(separator);
+    }
+
+    /**
+     * Appends the field, enclosed in quotes when it would not be parsed back unchanged
+     * @param line the line being built
+     * @param field the field value
+     */
+    public void appendField(StringBuilder line, String field) {
+        if (!needsQuotes(field)) {
+            line.append(field);
+            return;
+        }
+
+        line.append('"');
+
+        for (int i = 0; i < field.length(); ++i) {
+            char c = field.charAt(i);
+
+            if (c == '"')
+                line.append('"');
+
+            line.append(c);
+        }
+
+        line.append('"');
+    }
+
+    /**
+     * Checks whether the field contains separators, quotes, line breaks or surrounding blanks
+     * @param field the field value
+     * @return true if the field must be quoted
+     */
+    private boolean needsQuotes(String field) {
+        if (field.isEmpty())
+            return false;
+
+        if (Character.isWhitespace(field.charAt(0)) || Character.isWhitespace(field.charAt(field.length() - 1)))
+            return true;
+
+        for (int i = 0; i < field.length(); ++i) {
+            char c = field.charAt(i);
+
+            if (c == separator || c == '"' || c == '\n' || c == '\r')
+                return true;
+        }
+
+        return false;
+    }
+}
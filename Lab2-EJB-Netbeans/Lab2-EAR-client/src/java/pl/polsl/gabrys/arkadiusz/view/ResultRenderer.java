@@ -0,0 +1,409 @@
+package pl.polsl.gabrys.arkadiusz.view;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+
+/**
+ * Renders result rows through a large buffer which is flushed once per page,
+ * so a long listing costs a few console writes instead of one per row.
+ * Rows are built in a reused line buffer without String.format.
+ * Supported modes:
+ * RAW - the toString layout of the entities, values separated with semicolons;
+ * COLUMNS - aligned columns with a header, widths are taken from the first page;
+ * CSV - comma separated values with a header line.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ResultRenderer {
+
+    /**
+     * Output modes
+     */
+    public enum Mode {
+
+        /**
+         * Values separated with semicolons as printed by toString
+         */
+        RAW,
+
+        /**
+         * Aligned columns with a header
+         */
+        COLUMNS,
+
+        /**
+         * Comma separated values with a header line
+         */
+        CSV
+    }
+
+    /**
+     * Size of the output buffer in characters
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Space between columns in the COLUMNS mode
+     */
+    private static final String COLUMN_GAP = "  ";
+
+    /**
+     * Columns of authors
+     */
+    private static final List<String> AUTHOR_COLUMNS = Arrays.asList("id", "name", "lastName");
+
+    /**
+     * Columns of books
+     */
+    private static final List<String> BOOK_COLUMNS = Arrays.asList("id", "title", "pages", "releaseDate", "authorId");
+
+    /**
+     * Columns of author statistics
+     */
+    private static final List<String> STATISTICS_COLUMNS = Arrays.asList("id", "name", "lastName", "books",
+            "totalPages", "averagePages", "minPages", "maxPages", "firstRelease", "lastRelease");
+
+    /**
+     * Columns of book statistics
+     */
+    private static final List<String> BOOK_STATISTICS_COLUMNS = Arrays.asList("books", "totalPages", "averagePages",
+            "minPages", "maxPages", "firstRelease", "lastRelease");
+
+    /**
+     * Column of rows of other types
+     */
+    private static final List<String> VALUE_COLUMNS = Collections.singletonList("value");
+
+    /**
+     * Buffered output
+     */
+    private final PrintWriter writer;
+
+    /**
+     * Reused line buffer
+     */
+    private final StringBuilder line = new StringBuilder(256);
+
+    /**
+     * Reused cells of the current row
+     */
+    private final List<String> cells = new ArrayList<>();
+
+    /**
+     * Format of the CSV mode
+     */
+    private final CsvFormat csv = new CsvFormat(CsvFormat.COMMA);
+
+    /**
+     * Formatter of dates in the COLUMNS and CSV modes
+     */
+    private final DateFormat dateFormat = new SimpleDateFormat(CatalogImporter.DATE_FORMAT);
+
+    /**
+     * Last formatted date time, consecutive rows often share the date
+     */
+    private long lastDateTime = Long.MIN_VALUE;
+
+    /**
+     * Text of the last formatted date
+     */
+    private String lastDateText;
+
+    /**
+     * Current output mode
+     */
+    private Mode mode = Mode.RAW;
+
+    /**
+     * Row class of the printed header or null if no header was printed in the current result
+     */
+    private Class<?> headerType;
+
+    /**
+     * Column widths of the current result in the COLUMNS mode
+     */
+    private int[] widths;
+
+    /**
+     * Initializes renderer writing to given stream
+     * @param out the output stream
+     */
+    public ResultRenderer(OutputStream out) {
+        this.writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out), BUFFER_SIZE));
+    }
+
+    /**
+     * Returns the current output mode
+     * @return the mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets the output mode used from the next result
+     * @param mode the mode
+     * @throws IllegalArgumentException if the mode is null
+     */
+    public void setMode(Mode mode) throws IllegalArgumentException {
+        if (mode == null)
+            throw new IllegalArgumentException("Mode cannot be null");
+
+        this.mode = mode;
+        endResult();
+    }
+
+    /**
+     * Renders a page of rows and flushes it, so pages loaded one by one are
+     * printed while the following pages are still being fetched
+     * @param rows the rows
+     */
+    public void page(List<?> rows) {
+        for (Object row: rows) {
+            if (row == null)
+                continue;
+
+            if (row.getClass() != headerType) {
+                fillColumns(row);
+                startResult(row.getClass(), rows);
+            }
+
+            line.setLength(0);
+
+            if (mode == Mode.RAW) {
+                appendRaw(row);
+            } else {
+                fillCells(row);
+                appendCells();
+            }
+
+            writer.append(line).println();
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Renders a single row and flushes it
+     * @param row the row
+     */
+    public void row(Object row) {
+        page(Collections.singletonList(row));
+    }
+
+    /**
+     * Prints a message line between the rows and flushes it
+     * @param message the message
+     */
+    public void message(String message) {
+        writer.println(message);
+        writer.flush();
+    }
+
+    /**
+     * Ends the current result, the next row starts with a new header
+     */
+    public void endResult() {
+        headerType = null;
+        widths = null;
+        writer.flush();
+    }
+
+    /**
+     * Prints the header of a new result and computes the column widths from its first page
+     * @param type the row class
+     * @param firstPage the first page of rows
+     */
+    private void startResult(Class<?> type, List<?> firstPage) {
+        headerType = type;
+
+        if (mode == Mode.RAW)
+            return;
+
+        List<String> columns = new ArrayList<>(cells);
+
+        if (mode == Mode.COLUMNS) {
+            widths = new int[columns.size()];
+
+            for (int i = 0; i < widths.length; ++i) {
+                widths[i] = columns.get(i).length();
+            }
+
+            for (Object row: firstPage) {
+                if (row == null || row.getClass() != type)
+                    continue;
+
+                fillCells(row);
+
+                for (int i = 0; i < widths.length; ++i) {
+                    widths[i] = Math.max(widths[i], cells.get(i).length());
+                }
+            }
+        }
+
+        cells.clear();
+        cells.addAll(columns);
+        line.setLength(0);
+        appendCells();
+        writer.append(line).println();
+    }
+
+    /**
+     * Appends the cells in the current mode
+     */
+    private void appendCells() {
+        for (int i = 0; i < cells.size(); ++i) {
+            String cell = cells.get(i);
+
+            if (mode == Mode.CSV) {
+                if (i > 0)
+                    csv.appendSeparator(line);
+
+                csv.appendField(line, cell);
+            } else {
+                if (i > 0)
+                    line.append(COLUMN_GAP);
+
+                line.append(cell);
+
+                // the last column is not padded
+                for (int pad = i + 1 < cells.size() ? widths[i] - cell.length() : 0; pad > 0; --pad) {
+                    line.append(' ');
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the cells with the column names of the row
+     * @param row the row
+     */
+    private void fillColumns(Object row) {
+        cells.clear();
+
+        if (row instanceof AuthorView || row instanceof Author) {
+            cells.addAll(AUTHOR_COLUMNS);
+        } else if (row instanceof BookView || row instanceof Book) {
+            cells.addAll(BOOK_COLUMNS);
+        } else if (row instanceof AuthorStatistics) {
+            cells.addAll(STATISTICS_COLUMNS);
+        } else if (row instanceof BookStatistics) {
+            cells.addAll(BOOK_STATISTICS_COLUMNS);
+        } else {
+            cells.addAll(VALUE_COLUMNS);
+        }
+    }
+
+    /**
+     * Fills the cells with the values of the row
+     * @param row the row
+     */
+    private void fillCells(Object row) {
+        cells.clear();
+
+        if (row instanceof AuthorView) {
+            AuthorView author = (AuthorView) row;
+            cells.add(Long.toString(author.getId()));
+            cells.add(author.getName());
+            cells.add(author.getLastName());
+        } else if (row instanceof Author) {
+            Author author = (Author) row;
+            cells.add(String.valueOf(author.getId()));
+            cells.add(author.getName());
+            cells.add(author.getLastName());
+        } else if (row instanceof BookView) {
+            BookView book = (BookView) row;
+            cells.add(Long.toString(book.getId()));
+            cells.add(book.getTitle());
+            cells.add(Long.toString(book.getPages()));
+            cells.add(formatDate(book.getReleaseTime()));
+            cells.add(Long.toString(book.getAuthorId()));
+        } else if (row instanceof Book) {
+            Book book = (Book) row;
+            cells.add(String.valueOf(book.getId()));
+            cells.add(book.getTitle());
+            cells.add(String.valueOf(book.getPages()));
+            cells.add(book.getReleaseDate() == null ? "" : formatDate(book.getReleaseDate().getTime()));
+            cells.add(book.getAuthor() == null ? "" : String.valueOf(book.getAuthor().getId()));
+        } else if (row instanceof AuthorStatistics) {
+            AuthorStatistics statistics = (AuthorStatistics) row;
+            BookStatistics books = statistics.getBooks();
+            cells.add(Long.toString(statistics.getAuthorId()));
+            cells.add(statistics.getName());
+            cells.add(statistics.getLastName());
+            addBookStatistics(books);
+        } else if (row instanceof BookStatistics) {
+            addBookStatistics((BookStatistics) row);
+        } else {
+            cells.add(row.toString());
+        }
+    }
+
+    /**
+     * Adds the cells of book statistics
+     * @param books the book statistics
+     */
+    private void addBookStatistics(BookStatistics books) {
+        cells.add(Long.toString(books.getCount()));
+        cells.add(Long.toString(books.getTotalPages()));
+        cells.add(Double.toString(Math.round(books.getAveragePages() * 10) / 10.0));
+        cells.add(Long.toString(books.getMinPages()));
+        cells.add(Long.toString(books.getMaxPages()));
+        cells.add(books.getFirstRelease() == null ? "" : formatDate(books.getFirstRelease().getTime()));
+        cells.add(books.getLastRelease() == null ? "" : formatDate(books.getLastRelease().getTime()));
+    }
+
+    /**
+     * Appends the row in the toString layout of the entities
+     * @param row the row
+     */
+    private void appendRaw(Object row) {
+        if (row instanceof AuthorView) {
+            AuthorView author = (AuthorView) row;
+            line.append(author.getId()).append("; ").append(author.getName()).append("; ").append(author.getLastName());
+        } else if (row instanceof Author) {
+            Author author = (Author) row;
+            line.append(author.getId()).append("; ").append(author.getName()).append("; ").append(author.getLastName());
+        } else if (row instanceof BookView) {
+            BookView book = (BookView) row;
+            line.append(book.getId()).append("; ").append(book.getTitle()).append("; ").append(book.getPages())
+                    .append("; ").append(book.getReleaseDate()).append("; ").append(book.getAuthorId());
+        } else if (row instanceof Book) {
+            Book book = (Book) row;
+            line.append(book.getId()).append("; ").append(book.getTitle()).append("; ").append(book.getPages())
+                    .append("; ").append(book.getReleaseDate() != null ? book.getReleaseDate() : new Date())
+                    .append("; ").append(book.getAuthor() != null ? book.getAuthor().getId() : Long.valueOf(0));
+        } else {
+            line.append(row);
+        }
+    }
+
+    /**
+     * Formats the date, reusing the text of the previous date when it is the same
+     * @param time the date in milliseconds
+     * @return the formatted date
+     */
+    private String formatDate(long time) {
+        if (time != lastDateTime) {
+            lastDateText = dateFormat.format(new Date(time));
+            lastDateTime = time;
+        }
+
+        return lastDateText;
+    }
+}
@@ -0,0 +1,374 @@
+package pl.polsl.gabrys.arkadiusz.view;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerAsyncRemote;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.statistics.LatencyHistogram;
+
+/**
+ * Runs View commands read from a script, one command per line, for example
+ * -f Book Title "The Waste Lands". Empty lines and lines starting with # are
+ * skipped and -q ends the script. Up to inFlight commands run at the same time,
+ * every worker thread owns a View with its own parser, and the output of every
+ * command is buffered and printed in the script order. Commands which change the
+ * view state, such as output, wait until the commands before them are finished
+ * and every worker applies them before its next command, so they affect all
+ * following commands. Commands running at the same time must not depend on each
+ * other, so scripts which modify and read the same entities should use a single
+ * command in flight.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ScriptRunner {
+
+    /**
+     * Reported latency percentiles
+     */
+    private static final double[] QUANTILES = {0.5, 0.99};
+
+    /**
+     * Commands which change the state of the view instead of the database
+     */
+    private static final Set<String> VIEW_COMMANDS = Collections.singleton("output");
+
+    /**
+     * Database manager used by the commands
+     */
+    private final DatabaseManagerRemote databaseManager;
+
+    /**
+     * Asynchronous database manager used by the commands or null
+     */
+    private final DatabaseManagerAsyncRemote asyncDatabaseManager;
+
+    /**
+     * Maximum number of commands running at the same time
+     */
+    private final int inFlight;
+
+    /**
+     * Stream receiving the output of the commands
+     */
+    private final PrintStream out;
+
+    /**
+     * Stream receiving the timing report
+     */
+    private final PrintStream report;
+
+    /**
+     * Workers of the current thread
+     */
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    /**
+     * View state commands accepted so far in the script order, applied by every worker
+     */
+    private final List<String[]> viewCommands = new CopyOnWriteArrayList<>();
+
+    /**
+     * Initializes runner with given parameters
+     * @param db the database manager
+     * @param asyncDb the asynchronous database manager or null
+     * @param inFlight the maximum number of commands running at the same time
+     * @param out the stream receiving the output of the commands
+     * @param report the stream receiving the timing report
+     * @throws IllegalArgumentException if the database manager is null or inFlight is not positive
+     */
+    public ScriptRunner(DatabaseManagerRemote db, DatabaseManagerAsyncRemote asyncDb, int inFlight, PrintStream out, PrintStream report) throws IllegalArgumentException {
+        if (db == null)
+            throw new IllegalArgumentException("Database manager cannot be null");
+
+        if (inFlight <= 0)
+            throw new IllegalArgumentException("Number of commands in flight must be a positive number");
+
+        this.databaseManager = db;
+        this.asyncDatabaseManager = asyncDb;
+        this.inFlight = inFlight;
+        this.out = out;
+        this.report = report;
+    }
+
+    /**
+     * Runs all commands of the script and prints the timing report
+     * @param script the script reader
+     * @return the error code of the first failed command or the OK error code
+     * @throws IOException if the script cannot be read
+     */
+    public int run(BufferedReader script) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(inFlight);
+        Deque<Future<Result>> pending = new ArrayDeque<>();
+        Map<String, LatencyHistogram> latencies = new TreeMap<>();
+        Map<String, Integer> errors = new TreeMap<>();
+        Worker control = new Worker();
+        View view = control.view;
+        int errorCode = view.ERROR_CODE_OK;
+        long startTime = System.nanoTime();
+
+        try {
+            String line;
+
+            while ((line = script.readLine()) != null) {
+                String trimmed = line.trim();
+
+                if (trimmed.isEmpty() || trimmed.startsWith("#"))
+                    continue;
+
+                String[] args = tokenize(trimmed);
+                String command = view.commandName(args[0]);
+
+                if ("quit".equals(command))
+                    break;
+
+                if (VIEW_COMMANDS.contains(command)) {
+                    // a barrier, the earlier commands still use the previous view state
+                    while (!pending.isEmpty()) {
+                        errorCode = complete(pending.removeFirst(), latencies, errors, errorCode);
+                    }
+
+                    Result result = control.execute(command, args);
+
+                    if (result.errorCode == 0) {
+                        viewCommands.add(args);
+                        control.applied = viewCommands.size();
+                    }
+
+                    errorCode = record(result, latencies, errors, errorCode);
+                    continue;
+                }
+
+                // keep at most inFlight commands running, the oldest one is printed first
+                if (pending.size() >= inFlight)
+                    errorCode = complete(pending.removeFirst(), latencies, errors, errorCode);
+
+                pending.addLast(executor.submit(() -> workers.get().execute(command, args)));
+            }
+
+            while (!pending.isEmpty()) {
+                errorCode = complete(pending.removeFirst(), latencies, errors, errorCode);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        printReport(latencies, errors, System.nanoTime() - startTime);
+        return errorCode;
+    }
+
+    /**
+     * Splits the command line into arguments, text in double quotes is a single argument
+     * @param line the command line
+     * @return the arguments without quotes
+     */
+    public static String[] tokenize(String line) {
+        List<String> args = new ArrayList<>();
+        StringBuilder arg = new StringBuilder();
+        boolean quoted = false;
+        boolean started = false;
+
+        for (int i = 0; i < line.length(); ++i) {
+            char c = line.charAt(i);
+
+            if (c == '"') {
+                quoted = !quoted;
+                started = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (started)
+                    args.add(arg.toString());
+
+                arg.setLength(0);
+                started = false;
+            } else {
+                arg.append(c);
+                started = true;
+            }
+        }
+
+        if (started)
+            args.add(arg.toString());
+
+        return args.toArray(new String[args.size()]);
+    }
+
+    /**
+     * Waits for the command, prints its output and records its latency
+     * @param future the running command
+     * @param latencies the latencies by command name
+     * @param errors the numbers of failed commands by command name
+     * @param errorCode the error code so far
+     * @return the error code of the first failed command or the given one
+     */
+    private int complete(Future<Result> future, Map<String, LatencyHistogram> latencies, Map<String, Integer> errors, int errorCode) {
+        try {
+            return record(future.get(), latencies, errors, errorCode);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a command", ex);
+        }
+    }
+
+    /**
+     * Prints the output of the finished command and records its latency
+     * @param result the command result
+     * @param latencies the latencies by command name
+     * @param errors the numbers of failed commands by command name
+     * @param errorCode the error code so far
+     * @return the error code of the first failed command or the given one
+     */
+    private int record(Result result, Map<String, LatencyHistogram> latencies, Map<String, Integer> errors, int errorCode) {
+        out.write(result.output, 0, result.output.length);
+        out.flush();
+        latencies.computeIfAbsent(result.command, c -> new LatencyHistogram()).record(result.nanos);
+
+        if (result.errorCode != 0) {
+            errors.merge(result.command, 1, Integer::sum);
+
+            if (errorCode == 0)
+                return result.errorCode;
+        }
+
+        return errorCode;
+    }
+
+    /**
+     * Prints the wall time and the latency of every command kind in milliseconds
+     * @param latencies the latencies by command name
+     * @param errors the numbers of failed commands by command name
+     * @param wallTime the time of the whole script in nanoseconds
+     */
+    private void printReport(Map<String, LatencyHistogram> latencies, Map<String, Integer> errors, long wallTime) {
+        long total = 0;
+
+        report.println();
+        report.println(String.format("%-8s %8s %8s %9s %9s %9s %9s", "command", "count", "errors", "mean", "p50", "p99", "max"));
+
+        for (Map.Entry<String, LatencyHistogram> entry: latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            long[] quantiles = histogram.getQuantiles(QUANTILES);
+            total += histogram.getCount();
+            report.println(String.format("%-8s %8d %8d %9.3f %9.3f %9.3f %9.3f",
+                    entry.getKey(), histogram.getCount(), errors.getOrDefault(entry.getKey(), 0),
+                    histogram.getMean() / 1e6, quantiles[0] / 1e6, quantiles[1] / 1e6, histogram.getMax() / 1e6));
+        }
+
+        double seconds = wallTime / 1e9;
+        report.println(String.format("total: %d commands in %.3f s, %.1f commands/s, %d in flight",
+                total, seconds, total / Math.max(seconds, 1e-9), inFlight));
+    }
+
+    /**
+     * Result of a single command
+     */
+    private static class Result {
+
+        /**
+         * Command name used in the report
+         */
+        private final String command;
+
+        /**
+         * Error code returned by the command
+         */
+        private final int errorCode;
+
+        /**
+         * Buffered output of the command
+         */
+        private final byte[] output;
+
+        /**
+         * Duration of the command in nanoseconds
+         */
+        private final long nanos;
+
+        /**
+         * Initializes instance with given parameters
+         * @param command the command name
+         * @param errorCode the error code
+         * @param output the buffered output
+         * @param nanos the duration in nanoseconds
+         */
+        private Result(String command, int errorCode, byte[] output, long nanos) {
+            this.command = command;
+            this.errorCode = errorCode;
+            this.output = output;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * View and output buffer owned by a single worker thread
+     */
+    private class Worker {
+
+        /**
+         * Number of the view state commands applied to the view
+         */
+        private int applied;
+
+        /**
+         * Output buffer of the current command
+         */
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        /**
+         * Stream writing to the buffer
+         */
+        private final PrintStream stream = new PrintStream(buffer, true);
+
+        /**
+         * View writing to the buffer
+         */
+        private final View view = new View(databaseManager, asyncDatabaseManager, stream);
+
+        /**
+         * Runs the command and collects its output
+         * @param command the command name or null for an unknown command
+         * @param args the command arguments
+         * @return the command result
+         */
+        private Result execute(String command, String[] args) {
+            // the view state commands were checked when they were accepted, their output is dropped
+            while (applied < viewCommands.size()) {
+                view.manageUserInput(viewCommands.get(applied++));
+            }
+
+            buffer.reset();
+            long start = System.nanoTime();
+            int errorCode;
+
+            try {
+                errorCode = view.manageUserInput(args);
+            } catch (RuntimeException ex) {
+                stream.println(ex.getMessage());
+                errorCode = view.ERROR_CODE_UNKNOWN_ERROR;
+            }
+
+            long nanos = System.nanoTime() - start;
+            stream.flush();
+
+            if (view.ERROR_CODE_EXIT.equals(errorCode))
+                errorCode = view.ERROR_CODE_OK;
+
+            return new Result(command == null ? "unknown" : command, errorCode, buffer.toByteArray(), nanos);
+        }
+    }
+}
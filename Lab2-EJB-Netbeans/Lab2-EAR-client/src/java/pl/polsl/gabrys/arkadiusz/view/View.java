@@ -1,10 +1,21 @@
 package pl.polsl.gabrys.arkadiusz.view;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -13,7 +24,10 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.OptionGroup;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorStatistics;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerAsyncRemote;
 import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.interfaces.PageCursor;
 
 /**
  * Class provides CLI and interactive console interface
@@ -90,16 +104,28 @@ public class View {
     private final String HELP_FIND = "find\n"
             + "usage:\n"
             + "       find Author All\n"
-            + "       find Author Id <id>\n"
+            + "       find Author Id <id>[,<id>...]\n"
             + "       find Author Name <name>\n"
+            + "       find Author Search <text>\n"
             + "       find Book   All\n"
-            + "       find Book   Id <id>\n"
+            + "       find Book   Id <id>[,<id>...]\n"
             + "       find Book   Title <title>\n"
+            + "       find Book   Search <text>\n"
+            + "       find Book   Released <FromDate>,<ToDate>\n"
+            + "       find Book   Latest <Count>\n"
             + "\n"
             + "Finds all entities or entities with given value.\n"
+            + "Search matches beginnings of words ignoring case.\n"
+            + "Many ids separated with commas are looked up concurrently.\n"
+            + "Released lists books from the date range ordered by release date,\n"
+            + "Latest lists the given number of the most recent releases.\n"
             + "\n"
             + "Examples:\n"
             + "    EJB-Client -f Author Name Stephen\n"
+            + "    EJB-Client -f Book Search wast\n"
+            + "    EJB-Client -f Book Id 1,2,3\n"
+            + "    EJB-Client -f Book Released 1990.01.01,1991.12.31\n"
+            + "    EJB-Client -f Book Latest 10\n"
             + "    EJB-Client -find Book All\n";
     
     /**
@@ -130,6 +156,93 @@ public class View {
             + "    EJB-Client -r 1\n"
             + "    EJB-Client -remove 2\n";
     
+    /**
+     * Help message for stats option
+     */
+    private final String HELP_STATS = "stats\n"
+            + "usage:\n"
+            + "       stats Books\n"
+            + "       stats Authors\n"
+            + "       stats Author <Id>\n"
+            + "       stats Top    <Count>\n"
+            + "\n"
+            + "Shows aggregates computed by the database: number of books,\n"
+            + "sum, average and range of pages and range of release dates\n"
+            + "of all books, of every author, of one author or of the authors\n"
+            + "with the largest number of books.\n"
+            + "\n"
+            + "Examples:\n"
+            + "    EJB-Client -s Books\n"
+            + "    EJB-Client -s Author 1\n"
+            + "    EJB-Client -stats Top 10\n";
+    
+    /**
+     * Help message for import option
+     */
+    private final String HELP_IMPORT = "import\n"
+            + "usage:\n"
+            + "       import <File> [<ChunkSize>]\n"
+            + "\n"
+            + "Adds authors and books listed in a CSV file, or in a TSV file\n"
+            + "when the name ends with .tsv. Every line is a single record:\n"
+            + "    Author,<Name>,<LastName>[,<Key>]\n"
+            + "    Book,<Title>,<Pages>,<Date>,<Author>\n"
+            + "The Author of a book is the Key of an author from the same file\n"
+            + "or the id of an author already in the database.\n"
+            + "Fields containing separators are enclosed in double quotes.\n"
+            + "Records are sent in chunks of at most ChunkSize entities\n"
+            + "(default " + DatabaseManagerRemote.MAX_BULK_SIZE + "), each chunk in its own transaction.\n"
+            + "Invalid lines and records rejected by the server are reported,\n"
+            + "skipped and written to <File>.rejected. When the import stops\n"
+            + "the same command continues after the last committed chunk.\n"
+            + "\n"
+            + "Examples:\n"
+            + "    EJB-Client -i authors.csv\n"
+            + "    EJB-Client -import books.tsv 500\n";
+    
+    /**
+     * Help message for export option
+     */
+    private final String HELP_EXPORT = "export\n"
+            + "usage:\n"
+            + "       export Author <File> [<Field>[,<Field>...]]\n"
+            + "       export Book   <File> [<Field>[,<Field>...]]\n"
+            + "\n"
+            + "Writes all authors or books to a file ordered by id, as JSON Lines\n"
+            + "when the name ends with .jsonl or .json, as TSV when it ends\n"
+            + "with .tsv and as CSV with a header line otherwise.\n"
+            + "Author fields: " + String.join(",", CatalogExporter.authorFields()) + "\n"
+            + "Book fields:   " + String.join(",", CatalogExporter.bookFields()) + "\n"
+            + "All fields except type are written by default. The type field\n"
+            + "followed by the fields of the import command gives a file which\n"
+            + "can be imported again.\n"
+            + "\n"
+            + "Examples:\n"
+            + "    EJB-Client -e Author authors.jsonl\n"
+            + "    EJB-Client -export Book books.csv id,title,releaseDate\n"
+            + "    EJB-Client -export Book books.csv type,title,pages,releaseDate,authorId\n";
+    
+    /**
+     * Help message for output option
+     */
+    private final String HELP_OUTPUT = "output\n"
+            + "usage: output <Raw|Columns|Csv>\n"
+            + "\n"
+            + "Sets the layout of results printed by the following commands.\n"
+            + "Raw separates values with semicolons, Columns aligns values\n"
+            + "under a header and Csv prints comma separated values with\n"
+            + "a header line. Long listings are printed page by page as\n"
+            + "the pages arrive from the server.\n"
+            + "\n"
+            + "Examples:\n"
+            + "    EJB-Client -o Columns\n"
+            + "    EJB-Client -output Csv\n";
+    
+    /**
+     * Number of entities fetched from the server per page when listing all entities
+     */
+    private final int PAGE_SIZE = 100;
+    
     /**
      * Options structure for parsing
      */
@@ -139,19 +252,77 @@ public class View {
      * Database manager
      */
     private final DatabaseManagerRemote databaseManager;
+    
+    /**
+     * Asynchronous database manager, null when not available
+     */
+    private final DatabaseManagerAsyncRemote asyncDatabaseManager;
+    
+    /**
+     * Stream receiving the progress reports of imports and exports, all other output goes through the renderer
+     */
+    private final PrintStream out;
+    
+    /**
+     * Renderer of result rows
+     */
+    private final ResultRenderer renderer;
+    
+    /**
+     * Command line parser, reused by all commands of this view
+     */
+    private final CommandLineParser parser = new DefaultParser();
+    
+    /**
+     * Help formatter, reused by all commands of this view
+     */
+    private final HelpFormatter formatter = new HelpFormatter();
+    
+    /**
+     * Reader of the interactive input, created with the first read
+     */
+    private Scanner reader;
 
     /**
      * Creates options structure for parsing
+     * @param db the database manager
      * @throws IllegalArgumentException if the given database instance is null
      */
     public View(DatabaseManagerRemote db) throws IllegalArgumentException {
+        this(db, null);
+    }
+
+    /**
+     * Creates options structure for parsing
+     * @param db the database manager
+     * @param asyncDb the asynchronous database manager used for concurrent operations or null
+     * @throws IllegalArgumentException if the given database instance is null
+     */
+    public View(DatabaseManagerRemote db, DatabaseManagerAsyncRemote asyncDb) throws IllegalArgumentException {
+        this(db, asyncDb, System.out);
+    }
+
+    /**
+     * Creates options structure for parsing
+     * @param db the database manager
+     * @param asyncDb the asynchronous database manager used for concurrent operations or null
+     * @param out the stream receiving all output of the commands
+     * @throws IllegalArgumentException if the given database instance or stream is null
+     */
+    public View(DatabaseManagerRemote db, DatabaseManagerAsyncRemote asyncDb, PrintStream out) throws IllegalArgumentException {
         
         // check the database object
         if (db == null)
             throw new IllegalArgumentException("Database manager cannot be null");
         
-        // save database instance
+        if (out == null)
+            throw new IllegalArgumentException("Output stream cannot be null");
+        
+        // save database instances
         databaseManager = db;
+        asyncDatabaseManager = asyncDb;
+        this.out = out;
+        renderer = new ResultRenderer(out);
         
         // create options structure
         options = new Options();
@@ -207,6 +378,40 @@ public class View {
                 .desc("removes entity")
                 .build());
         
+        interactiveHelpCRUD.addOption(Option.builder("s")
+                .longOpt("stats")
+                .hasArgs()
+                .argName("args")
+                .numberOfArgs(2)
+                .optionalArg(true)
+                .desc("shows statistics")
+                .build());
+        
+        interactiveHelpCRUD.addOption(Option.builder("i")
+                .longOpt("import")
+                .hasArgs()
+                .argName("args")
+                .numberOfArgs(2)
+                .optionalArg(true)
+                .desc("imports entities from a file")
+                .build());
+        
+        interactiveHelpCRUD.addOption(Option.builder("e")
+                .longOpt("export")
+                .hasArgs()
+                .argName("args")
+                .numberOfArgs(3)
+                .optionalArg(true)
+                .desc("exports entities to a file")
+                .build());
+        
+        interactiveHelpCRUD.addOption(Option.builder("o")
+                .longOpt("output")
+                .hasArg()
+                .argName("mode")
+                .desc("sets the output layout")
+                .build());
+        
         interactiveHelpCRUD.setRequired(true);
         options.addOptionGroup(interactiveHelpCRUD);
     }
@@ -215,8 +420,17 @@ public class View {
      * Prints help message
      */
     public void printHelp() {
-        HelpFormatter formatter = new HelpFormatter();
-        formatter.printHelp("EJB-Client", "\nLibrary database CRUD", options, "");
+        printUsage("");
+    }
+    
+    /**
+     * Returns the long name of the command selected by given argument
+     * @param arg the option argument, for example -f or -find
+     * @return the long option name or null if there is no such command
+     */
+    public String commandName(String arg) {
+        Option option = options.getOption(arg);
+        return option == null ? null : option.getLongOpt();
     }
     
     /**
@@ -224,13 +438,14 @@ public class View {
      * @return the input arguments 
      */
     public String[] readArgs() {
-        Scanner reader = new Scanner(System.in);
+        if (reader == null)
+            reader = new Scanner(System.in);
         
-        System.out.println("\n");
-        System.out.println(">>> EJB-Client input arguments: ");
+        renderer.message("\n");
+        renderer.message(">>> EJB-Client input arguments: ");
         
         String input = "EJB-Client " + reader.nextLine();
-        System.out.println(input);
+        renderer.message(input);
         return input.split(" ");
     }
 
@@ -244,13 +459,11 @@ public class View {
         Integer errorCode = ERROR_CODE_OK;
         
         CommandLine commandLine;
-        HelpFormatter formatter = new HelpFormatter();
-        CommandLineParser parser = new DefaultParser();
         
         try {
             commandLine = parser.parse(options, args);
         } catch (ParseException pe) {
-            formatter.printHelp("EJB-Client", "\nLibrary database CRUD", options, "\n" + pe.getMessage());
+            printUsage("\n" + pe.getMessage());
             return ERROR_CODE_OPTION_ERROR;
         }
         
@@ -273,14 +486,40 @@ public class View {
             case "r":
                 errorCode = remove(selected);
                 break;
+            case "s":
+                errorCode = stats(selected);
+                break;
+            case "i":
+                errorCode = importFile(selected);
+                break;
+            case "e":
+                errorCode = exportFile(selected);
+                break;
+            case "o":
+                errorCode = output(selected);
+                break;
             case "q":
                 errorCode = ERROR_CODE_EXIT;
                 break;
         }
         
+        renderer.endResult();
         return errorCode;
     }
     
+    /**
+     * Prints the usage of all options through the renderer
+     * @param footer the text printed after the options
+     */
+    private void printUsage(String footer) {
+        StringWriter usage = new StringWriter();
+        PrintWriter writer = new PrintWriter(usage);
+        formatter.printHelp(writer, formatter.getWidth(), "EJB-Client", "\nLibrary database CRUD", options,
+                formatter.getLeftPadding(), formatter.getDescPadding(), footer);
+        writer.flush();
+        renderer.message(usage.toString());
+    }
+    
     /**
      * Manages help messages
      * @param option the one of CLI options
@@ -291,43 +530,59 @@ public class View {
         
         if (value == null || value.isEmpty())
         {
-            HelpFormatter formatter = new HelpFormatter();
-            formatter.printHelp("EJB-Client",
-                    "\nLibrary database CRUD",
-                    options,
-                    "\nFor details type -h with option name.");
+            printUsage("\nFor details type -h with option name.");
             return ERROR_CODE_OK;
         } else {
             
             switch(value) {
                 case "h":
                 case "help":
-                    System.out.println(HELP_HELP);
+                    renderer.message(HELP_HELP);
                     break;
                     
                 case "p":
                 case "persist":
-                    System.out.println(HELP_PERSIST);
+                    renderer.message(HELP_PERSIST);
                     break;
                     
                 case "f":
                 case "find":
-                    System.out.println(HELP_FIND);
+                    renderer.message(HELP_FIND);
                     break;
                     
                 case "m":
                 case "merge":
-                    System.out.println(HELP_MERGE);
+                    renderer.message(HELP_MERGE);
                     break;
                     
                 case "r":
                 case "remove":
-                    System.out.println(HELP_REMOVE);
+                    renderer.message(HELP_REMOVE);
+                    break;
+                    
+                case "s":
+                case "stats":
+                    renderer.message(HELP_STATS);
+                    break;
+                    
+                case "i":
+                case "import":
+                    renderer.message(HELP_IMPORT);
+                    break;
+                    
+                case "e":
+                case "export":
+                    renderer.message(HELP_EXPORT);
+                    break;
+                    
+                case "o":
+                case "output":
+                    renderer.message(HELP_OUTPUT);
                     break;
                     
                 default:
-                    System.out.println("UNKNOWN OPTION!\n");
-                    System.out.println(HELP_HELP);
+                    renderer.message("UNKNOWN OPTION!\n");
+                    renderer.message(HELP_HELP);
                     return ERROR_CODE_OPTION_ERROR;
             }
             
@@ -344,7 +599,7 @@ public class View {
         List<String> values = selected.getValuesList();
         
         if (values.size() < 2) {
-            System.out.println(HELP_PERSIST);
+            renderer.message(HELP_PERSIST);
             return ERROR_CODE_OPTION_ERROR;
         }
         
@@ -353,7 +608,7 @@ public class View {
             switch(entity) {
                 case "author":
                     if (values.size() < 3) {
-                        System.out.println(HELP_PERSIST);
+                        renderer.message(HELP_PERSIST);
                         return ERROR_CODE_OPTION_ERROR;
                     }
                     
@@ -365,7 +620,7 @@ public class View {
                     
                 case "book":
                     if (values.size() < 5) {
-                        System.out.println(HELP_PERSIST);
+                        renderer.message(HELP_PERSIST);
                         return ERROR_CODE_OPTION_ERROR;
                     }
                     
@@ -377,8 +632,8 @@ public class View {
                     try {
                         pages = Long.parseLong(values.get(2));
                     } catch (NumberFormatException ex) {
-                        System.out.println("Wrong nuber of pages parameter!\n");
-                        System.out.println(HELP_PERSIST);
+                        renderer.message("Wrong nuber of pages parameter!\n");
+                        renderer.message(HELP_PERSIST);
                         return ERROR_CODE_OPTION_ERROR;
                     }
                    
@@ -386,30 +641,30 @@ public class View {
                         DateFormat df = new SimpleDateFormat("yyyy.MM.dd");
                         date = df.parse(values.get(3));
                     } catch (java.text.ParseException ex) {
-                        System.out.println("Wrong date format!\n");
-                        System.out.println(HELP_PERSIST);
+                        renderer.message("Wrong date format!\n");
+                        renderer.message(HELP_PERSIST);
                         return ERROR_CODE_OPTION_ERROR;
                     }
                     
                     try {
                         authorId = Long.parseLong(values.get(4));
                     } catch (NumberFormatException ex) {
-                        System.out.println("Wrong author id!\n");
-                        System.out.println(HELP_PERSIST);
+                        renderer.message("Wrong author id!\n");
+                        renderer.message(HELP_PERSIST);
                         return ERROR_CODE_OPTION_ERROR;
                     }
                     
                     try {                
                         databaseManager.persistBook(title, pages, date, authorId);
                     } catch (IllegalArgumentException ex) {
-                        System.out.println(ex.getMessage());
+                        renderer.message(ex.getMessage());
                         return ERROR_CODE_OPTION_ERROR;
                     }
                     break;
                     
                 default:
-                    System.out.println("Wrong entity name!\n");
-                    System.out.println(HELP_PERSIST);
+                    renderer.message("Wrong entity name!\n");
+                    renderer.message(HELP_PERSIST);
 
                     return ERROR_CODE_OPTION_ERROR;
             }
@@ -427,7 +682,7 @@ public class View {
         List<String> values = selected.getValuesList();
         
         if (values.size() < 2) {
-            System.out.println(HELP_FIND);
+            renderer.message(HELP_FIND);
             return ERROR_CODE_OPTION_ERROR;
         }
         
@@ -438,36 +693,49 @@ public class View {
             case "author":               
 
                 if (key.equals("all")) {
-                    for (Object o: databaseManager.findAllAuthors()) {
-                        System.out.println(o.toString());
-                    }
+                    printPages(PageCursor.authorViews(databaseManager, PAGE_SIZE));
                 } else if (key.equals("id")) {
-                    Long id = null;
+                    List<Long> ids = new ArrayList<>();
                     
                     try {
-                        id = Long.parseLong(values.get(2));
+                        for (String id: values.get(2).split(",")) {
+                            ids.add(Long.parseLong(id.trim()));
+                        }
                     } catch (NumberFormatException ex) {
-                        System.out.println("Given id is not an integer number!\n");                        
+                        renderer.message("Given id is not an integer number!\n");                        
                         return ERROR_CODE_OPTION_ERROR;
                     }
                     
-                    Object o = databaseManager.findAuthorById(id);
+                    List<?> found;
                     
-                    if (o != null) {
-                        System.out.println(o.toString());
-                    } else {
-                        System.out.println("No author with given id found.\n");
+                    try {
+                        found = asyncDatabaseManager == null
+                                ? findByIds(ids, databaseManager::findAuthorById, null)
+                                : findByIds(ids, databaseManager::findAuthorById, asyncDatabaseManager::findAuthorById);
+                    } catch (IllegalArgumentException ex) {
+                        renderer.message(ex.getMessage());
+                        return ERROR_CODE_OPTION_ERROR;
+                    }
+                    
+                    for (Object o: found) {
+                        if (o != null) {
+                            renderer.row(o);
+                        } else {
+                            renderer.message("No author with given id found.\n");
+                        }
                     }
                     
                 } else if (key.equals("name")) {
                     String pattern = values.get(2).trim();
                     
-                    for (Object o: databaseManager.findAuthorsByName(pattern)) {
-                        System.out.println(o.toString());
-                    }
+                    renderer.page(databaseManager.findAuthorsByName(pattern));
+                } else if (key.equals("search")) {
+                    String text = values.get(2).replace("\"", "").trim();
+                    
+                    renderer.page(databaseManager.searchAuthors(text, PAGE_SIZE));
                 } else {
-                    System.out.println("Wrong search option!\n");
-                    System.out.println(HELP_FIND);
+                    renderer.message("Wrong search option!\n");
+                    renderer.message(HELP_FIND);
                     
                     return ERROR_CODE_OPTION_ERROR;
                 }
@@ -476,44 +744,97 @@ public class View {
 
             case "book":               
                 if (key.equals("all")) {
-                    for (Object o: databaseManager.findAllBooks()) {
-                        System.out.println(o.toString());
-                    }
+                    printPages(PageCursor.bookViews(databaseManager, PAGE_SIZE));
                 } else if (key.equals("id")) {
-                    Long id = null;
+                    List<Long> ids = new ArrayList<>();
                     
                     try {
-                        id = Long.parseLong(values.get(2));
+                        for (String id: values.get(2).split(",")) {
+                            ids.add(Long.parseLong(id.trim()));
+                        }
                     } catch (NumberFormatException ex) {
-                        System.out.println("Given id is not an integer number!\n");                        
+                        renderer.message("Given id is not an integer number!\n");                        
                         return ERROR_CODE_OPTION_ERROR;
                     }
                     
-                    Object o = databaseManager.findBookById(id);
+                    List<?> found;
                     
-                    if (o != null) {
-                        System.out.println(o.toString());
-                    } else {
-                        System.out.println("No book with given id found.\n");
+                    try {
+                        found = asyncDatabaseManager == null
+                                ? findByIds(ids, databaseManager::findBookById, null)
+                                : findByIds(ids, databaseManager::findBookById, asyncDatabaseManager::findBookById);
+                    } catch (IllegalArgumentException ex) {
+                        renderer.message(ex.getMessage());
+                        return ERROR_CODE_OPTION_ERROR;
+                    }
+                    
+                    for (Object o: found) {
+                        if (o != null) {
+                            renderer.row(o);
+                        } else {
+                            renderer.message("No book with given id found.\n");
+                        }
                     }
                     
                 } else if (key.equals("title")) {
                     String pattern = values.get(2).trim();
                     
-                    for (Object o: databaseManager.findBooksByTitle(pattern)) {
-                        System.out.println(o.toString());
+                    renderer.page(databaseManager.findBooksByTitle(pattern));
+                } else if (key.equals("search")) {
+                    String text = values.get(2).replace("\"", "").trim();
+                    
+                    renderer.page(databaseManager.searchBooks(text, PAGE_SIZE));
+                } else if (key.equals("released")) {
+                    String[] range = values.get(2).split(",");
+                    Date from;
+                    Date to;
+                    
+                    try {
+                        DateFormat df = new SimpleDateFormat("yyyy.MM.dd");
+                        from = df.parse(range[0].trim());
+                        to = df.parse(range[range.length - 1].trim());
+                    } catch (java.text.ParseException ex) {
+                        renderer.message("Wrong date format!\n");
+                        renderer.message(HELP_FIND);
+                        return ERROR_CODE_OPTION_ERROR;
+                    }
+                    
+                    printPages(PageCursor.booksReleasedBetween(databaseManager, from, to, PAGE_SIZE));
+                } else if (key.equals("latest")) {
+                    int count;
+                    
+                    try {
+                        count = Integer.parseInt(values.get(2).trim());
+                    } catch (NumberFormatException ex) {
+                        renderer.message("Given count is not an integer number!\n");
+                        return ERROR_CODE_OPTION_ERROR;
+                    }
+                    
+                    if (count <= 0) {
+                        renderer.message("Given count must be a positive number!\n");
+                        return ERROR_CODE_OPTION_ERROR;
+                    }
+                    
+                    // stop after the requested number of books instead of reading every page
+                    for (List<?> page: PageCursor.latestBooks(databaseManager, Math.min(count, PAGE_SIZE))) {
+                        renderer.page(page.subList(0, Math.min(count, page.size())));
+                        
+                        count -= page.size();
+                        
+                        if (count <= 0)
+                            break;
                     }
                 } else {
-                    System.out.println("Wrong search option!\n");
-                    System.out.println(HELP_FIND);
+                    renderer.message("Wrong search option!\n");
+                    renderer.message(HELP_FIND);
                     
                     return ERROR_CODE_OPTION_ERROR;
                 }
                 break;
 
             default:
-                System.out.println("Wrong entity name!\n");
-                System.out.println(HELP_FIND);
+                renderer.message("Wrong entity name!\n");
+                renderer.message(HELP_FIND);
 
                 return ERROR_CODE_OPTION_ERROR;
         }
@@ -521,6 +842,60 @@ public class View {
         return ERROR_CODE_OK;
     }
 
+    /**
+     * Finds entities with given ids, many ids are requested concurrently when
+     * the asynchronous lookup is available
+     * @param <T> the entity type
+     * @param ids the entity ids
+     * @param lookup the synchronous lookup
+     * @param asyncLookup the asynchronous lookup or null
+     * @return the found entities in the order of given ids, null for missing ones
+     * @throws IllegalArgumentException if any lookup fails
+     */
+    private <T> List<T> findByIds(List<Long> ids, Function<Long, T> lookup, Function<Long, Future<T>> asyncLookup) throws IllegalArgumentException {
+        List<T> found = new ArrayList<>(ids.size());
+        
+        if (asyncLookup == null || ids.size() == 1) {
+            for (Long id: ids) {
+                found.add(lookup.apply(id));
+            }
+            
+            return found;
+        }
+        
+        // issue all requests first so their round trips overlap
+        List<Future<T>> futures = new ArrayList<>(ids.size());
+        
+        for (Long id: ids) {
+            futures.add(asyncLookup.apply(id));
+        }
+        
+        try {
+            for (Future<T> future: futures) {
+                found.add(future.get());
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+            throw new IllegalArgumentException(message, cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Interrupted while waiting for results", ex);
+        }
+        
+        return found;
+    }
+
+    /**
+     * Prints all entities returned by the cursor, every page is printed as soon as it arrives
+     * @param cursor the cursor over entity pages
+     */
+    private void printPages(PageCursor<?> cursor) {
+        for (List<?> page: cursor) {
+            renderer.page(page);
+        }
+    }
+
     /**
      * Merges entity specified in parameters
      * @param selected the given parameters
@@ -534,7 +909,7 @@ public class View {
         List<String> values = selected.getValuesList();
         
         if (values.size() < 2) {
-            System.out.println(HELP_MERGE);
+            renderer.message(HELP_MERGE);
             return ERROR_CODE_OPTION_ERROR;
         }
         
@@ -542,14 +917,14 @@ public class View {
             entity = values.get(0).toLowerCase().trim();
             id = Long.parseLong(values.get(1));
         } catch (NumberFormatException ex) {
-            System.out.println("Id parameter is not an integer number!\n");
+            renderer.message("Id parameter is not an integer number!\n");
             return ERROR_CODE_OPTION_ERROR;
         }
 
         switch(entity) {
             case "author":
                 if (values.size() < 4) {
-                    System.out.println(HELP_MERGE);
+                    renderer.message(HELP_MERGE);
                     return ERROR_CODE_OPTION_ERROR;
                 }
 
@@ -559,14 +934,14 @@ public class View {
                 try {
                     databaseManager.mergeAuthor(id, name, lastName);
                 } catch (IllegalArgumentException ex) {
-                    System.out.println(ex.getMessage());
+                    renderer.message(ex.getMessage());
                     return ERROR_CODE_OPTION_ERROR;
                 }
                 break;
 
             case "book":
                 if (values.size() < 6) {
-                    System.out.println(HELP_MERGE);
+                    renderer.message(HELP_MERGE);
                     return ERROR_CODE_OPTION_ERROR;
                 }
 
@@ -578,8 +953,8 @@ public class View {
                 try {
                     pages = Long.parseLong(values.get(3));
                 } catch (NumberFormatException ex) {
-                    System.out.println("Wrong nuber of pages parameter!\n");
-                    System.out.println(HELP_MERGE);
+                    renderer.message("Wrong nuber of pages parameter!\n");
+                    renderer.message(HELP_MERGE);
                     return ERROR_CODE_OPTION_ERROR;
                 }
 
@@ -587,30 +962,30 @@ public class View {
                     DateFormat df = new SimpleDateFormat("yyyy.MM.dd");
                     date = df.parse(values.get(3));
                 } catch (java.text.ParseException ex) {
-                    System.out.println("Wrong date format!\n");
-                    System.out.println(HELP_MERGE);
+                    renderer.message("Wrong date format!\n");
+                    renderer.message(HELP_MERGE);
                     return ERROR_CODE_OPTION_ERROR;
                 }
 
                 try {
                     authorId = Long.parseLong(values.get(5));
                 } catch (NumberFormatException ex) {
-                    System.out.println("Author id is not an integer number!\n");
-                    System.out.println(HELP_MERGE);
+                    renderer.message("Author id is not an integer number!\n");
+                    renderer.message(HELP_MERGE);
                     return ERROR_CODE_OPTION_ERROR;
                 }
 
                 try {
                     databaseManager.mergeBook(id, title, pages, date, authorId);
                 } catch (IllegalArgumentException ex) {
-                    System.out.println(ex.getMessage());
+                    renderer.message(ex.getMessage());
                     return ERROR_CODE_OPTION_ERROR;
                 }
                 break;
 
             default:
-                System.out.println("Wrong entity name!\n");
-                System.out.println(HELP_MERGE);
+                renderer.message("Wrong entity name!\n");
+                renderer.message(HELP_MERGE);
 
                 return ERROR_CODE_OPTION_ERROR;
         }
@@ -631,7 +1006,7 @@ public class View {
         List<String> values = selected.getValuesList();
         
         if (values.size() < 2) {
-            System.out.println(HELP_REMOVE);
+            renderer.message(HELP_REMOVE);
             return ERROR_CODE_OPTION_ERROR;
         }
         
@@ -639,7 +1014,7 @@ public class View {
             entity = values.get(0).toLowerCase().trim();
             id = Long.parseLong(values.get(1));
         } catch (NumberFormatException ex) {
-            System.out.println("Id parameter is not an integer number!\n");
+            renderer.message("Id parameter is not an integer number!\n");
             return ERROR_CODE_OPTION_ERROR;
         }
 
@@ -648,7 +1023,7 @@ public class View {
                 try {
                     databaseManager.removeAuthor(id);
                 } catch (IllegalArgumentException ex) {
-                    System.out.println(ex.getMessage());
+                    renderer.message(ex.getMessage());
                     return ERROR_CODE_OPTION_ERROR;
                 }
                 break;
@@ -657,16 +1032,197 @@ public class View {
                 try {
                     databaseManager.removeBook(id);
                 } catch (IllegalArgumentException ex) {
-                    System.out.println(ex.getMessage());
+                    renderer.message(ex.getMessage());
                     return ERROR_CODE_OPTION_ERROR;
                 }
                 break;
 
             default:
-                System.out.println("Wrong entity name!\n");
-                System.out.println(HELP_REMOVE);
+                renderer.message("Wrong entity name!\n");
+                renderer.message(HELP_REMOVE);
+
+                return ERROR_CODE_OPTION_ERROR;
+        }
+        
+        return ERROR_CODE_OK;
+    }
+
+    /**
+     * Prints aggregates specified in parameters
+     * @param selected the given parameters
+     * @return the error code
+     */
+    private Integer stats(Option selected) {
+        List<String> values = selected.getValuesList();
+        
+        if (values == null || values.isEmpty()) {
+            renderer.message(HELP_STATS);
+            return ERROR_CODE_OPTION_ERROR;
+        }
+        
+        String scope = values.get(0).toLowerCase().trim();
+        
+        switch (scope) {
+            case "books":
+                renderer.row(databaseManager.getBookStatistics());
+                break;
+                
+            case "authors":
+                renderer.message("authors: " + databaseManager.countAuthors());
+                printPages(PageCursor.authorStatistics(databaseManager, PAGE_SIZE));
+                break;
+                
+            case "author":
+            case "top":
+                if (values.size() < 2) {
+                    renderer.message(HELP_STATS);
+                    return ERROR_CODE_OPTION_ERROR;
+                }
+                
+                Long number;
+                
+                try {
+                    number = Long.parseLong(values.get(1).trim());
+                } catch (NumberFormatException ex) {
+                    renderer.message("Given value is not an integer number!\n");
+                    return ERROR_CODE_OPTION_ERROR;
+                }
+                
+                try {
+                    if (scope.equals("author")) {
+                        AuthorStatistics statistics = databaseManager.getAuthorStatistics(number);
+                        if (statistics == null) {
+                            renderer.message("No author with given id found.\n");
+                        } else {
+                            renderer.row(statistics);
+                        }
+                    } else {
+                        renderer.page(databaseManager.findTopAuthorStatistics((int) Math.min(number, Integer.MAX_VALUE)));
+                    }
+                } catch (IllegalArgumentException ex) {
+                    renderer.message(ex.getMessage());
+                    return ERROR_CODE_OPTION_ERROR;
+                }
+                break;
+                
+            default:
+                renderer.message("Wrong statistics option!\n");
+                renderer.message(HELP_STATS);
+                
+                return ERROR_CODE_OPTION_ERROR;
+        }
+        
+        return ERROR_CODE_OK;
+    }
 
+    /**
+     * Sets the output layout specified in parameters
+     * @param selected the given parameters
+     * @return the error code
+     */
+    private Integer output(Option selected) {
+        String value = selected.getValue();
+        
+        if (value == null || value.trim().isEmpty()) {
+            renderer.message(HELP_OUTPUT);
+            return ERROR_CODE_OPTION_ERROR;
+        }
+        
+        try {
+            renderer.setMode(ResultRenderer.Mode.valueOf(value.trim().toUpperCase()));
+        } catch (IllegalArgumentException ex) {
+            renderer.message("Wrong output mode!\n");
+            renderer.message(HELP_OUTPUT);
+            return ERROR_CODE_OPTION_ERROR;
+        }
+        
+        return ERROR_CODE_OK;
+    }
+
+    /**
+     * Imports entities from the file specified in parameters
+     * @param selected the given parameters
+     * @return the error code
+     */
+    private Integer importFile(Option selected) {
+        List<String> values = selected.getValuesList();
+        
+        if (values == null || values.isEmpty()) {
+            renderer.message(HELP_IMPORT);
+            return ERROR_CODE_OPTION_ERROR;
+        }
+        
+        Path file = Paths.get(values.get(0).replace("\"", "").trim());
+        int chunkSize = DatabaseManagerRemote.MAX_BULK_SIZE;
+        
+        if (values.size() > 1) {
+            try {
+                chunkSize = Integer.parseInt(values.get(1).trim());
+            } catch (NumberFormatException ex) {
+                renderer.message("Given chunk size is not an integer number!\n");
                 return ERROR_CODE_OPTION_ERROR;
+            }
+        }
+        
+        try {
+            new CatalogImporter(databaseManager, chunkSize, out).importFile(file);
+        } catch (IllegalArgumentException ex) {
+            renderer.message(ex.getMessage());
+            return ERROR_CODE_OPTION_ERROR;
+        } catch (IOException ex) {
+            renderer.message("Cannot read " + file + ": " + ex.getMessage());
+            return ERROR_CODE_OPTION_ERROR;
+        } catch (RuntimeException ex) {
+            renderer.message(ex.getMessage());
+            return ERROR_CODE_UNKNOWN_ERROR;
+        }
+        
+        return ERROR_CODE_OK;
+    }
+
+    /**
+     * Exports entities to the file specified in parameters
+     * @param selected the given parameters
+     * @return the error code
+     */
+    private Integer exportFile(Option selected) {
+        List<String> values = selected.getValuesList();
+        
+        if (values == null || values.size() < 2) {
+            renderer.message(HELP_EXPORT);
+            return ERROR_CODE_OPTION_ERROR;
+        }
+        
+        String entity = values.get(0).toLowerCase().trim();
+        Path file = Paths.get(values.get(1).replace("\"", "").trim());
+        List<String> fields = values.size() > 2 ? Arrays.asList(values.get(2).split(",")) : null;
+        CatalogExporter exporter = new CatalogExporter(databaseManager, DatabaseManagerRemote.MAX_EXPORT_SIZE, out);
+        
+        try {
+            switch (entity) {
+                case "author":
+                    exporter.exportAuthors(file, fields);
+                    break;
+                    
+                case "book":
+                    exporter.exportBooks(file, fields);
+                    break;
+                    
+                default:
+                    renderer.message("Wrong entity name!\n");
+                    renderer.message(HELP_EXPORT);
+                    
+                    return ERROR_CODE_OPTION_ERROR;
+            }
+        } catch (IllegalArgumentException ex) {
+            renderer.message(ex.getMessage());
+            return ERROR_CODE_OPTION_ERROR;
+        } catch (IOException ex) {
+            renderer.message("Cannot write " + file + ": " + ex.getMessage());
+            return ERROR_CODE_OPTION_ERROR;
+        } catch (RuntimeException ex) {
+            renderer.message(ex.getMessage());
+            return ERROR_CODE_UNKNOWN_ERROR;
         }
         
         return ERROR_CODE_OK;
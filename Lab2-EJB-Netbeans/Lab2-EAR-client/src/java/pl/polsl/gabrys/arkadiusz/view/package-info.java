@@ -1,5 +1,6 @@
 /**
  * Contains View class which provides CLI and interactive console interface
+ * and the helpers it uses to import and export files
  *
  * @since 1.0
  * @author Arkadiusz Gabryś
@@ -0,0 +1,118 @@
+package pl.polsl.gabrys.arkadiusz.view;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.memory.InMemoryDatabaseManager;
+
+/**
+ * Tests of the exported file formats
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class CatalogExporterTest {
+
+    /**
+     * Folder of the exported files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Database with the exported authors
+     */
+    private InMemoryDatabaseManager db;
+
+    /**
+     * Adds authors whose names need escaping
+     */
+    @Before
+    public void setUp() {
+        db = new InMemoryDatabaseManager();
+        db.persistAuthors(Arrays.asList(
+                new AuthorEntry("Jan \"Janek\"", "Back\\slash"),
+                new AuthorEntry("Line\nbreak", "Tab\tand\u0001control"),
+                new AuthorEntry("Arkadiusz", "Gabryś, Jr.")));
+    }
+
+    /**
+     * Checks that JSON strings are escaped and every author is one line
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    public void exportsEscapedJsonLines() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("authors.jsonl");
+
+        assertEquals(3L, exporter(2).exportAuthors(file, null));
+        assertEquals(Arrays.asList(
+                "{\"id\":1,\"name\":\"Jan \\\"Janek\\\"\",\"lastName\":\"Back\\\\slash\"}",
+                "{\"id\":2,\"name\":\"Line\\nbreak\",\"lastName\":\"Tab\\tand\\u0001control\"}",
+                "{\"id\":3,\"name\":\"Arkadiusz\",\"lastName\":\"Gabryś, Jr.\"}"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + CatalogExporter.PART_SUFFIX)));
+    }
+
+    /**
+     * Checks that the exported CSV file is parsed back into the same fields
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    public void exportedCsvParsesBack() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("authors.csv");
+        exporter(1).exportAuthors(file, Arrays.asList("LASTNAME", "name"));
+
+        CsvFormat csv = CsvFormat.forFile(file.toString());
+        List<List<String>> rows = new ArrayList<>();
+
+        // the quoted line break continues the record on the next line
+        String pending = null;
+
+        for (String line: Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            pending = pending == null ? line : pending + "\n" + line;
+
+            try {
+                rows.add(csv.parse(pending));
+                pending = null;
+            } catch (IllegalArgumentException ex) {
+                // the record is not complete yet
+            }
+        }
+
+        assertEquals(Arrays.asList(
+                Arrays.asList("lastName", "name"),
+                Arrays.asList("Back\\slash", "Jan \"Janek\""),
+                Arrays.asList("Tab\tand\u0001control", "Line\nbreak"),
+                Arrays.asList("Gabryś, Jr.", "Arkadiusz")), rows);
+    }
+
+    /**
+     * Checks that unknown field names are rejected
+     * @throws IOException if the file cannot be written
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownField() throws IOException {
+        exporter(10).exportAuthors(folder.getRoot().toPath().resolve("authors.csv"), Arrays.asList("birthDate"));
+    }
+
+    /**
+     * Creates the exporter with silent progress reports
+     * @param chunkSize the number of authors per chunk
+     * @return the exporter
+     */
+    private CatalogExporter exporter(int chunkSize) {
+        return new CatalogExporter(db, chunkSize, new PrintStream(new ByteArrayOutputStream()));
+    }
+}
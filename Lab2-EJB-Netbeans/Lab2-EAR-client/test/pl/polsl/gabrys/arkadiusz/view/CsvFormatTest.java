@@ -0,0 +1,109 @@
+package pl.polsl.gabrys.arkadiusz.view;
+
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests of parsing and quoting delimited fields
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class CsvFormatTest {
+
+    /**
+     * Checks that unquoted fields are split at separators and trimmed
+     */
+    @Test
+    public void parsesPlainFields() {
+        CsvFormat csv = new CsvFormat(CsvFormat.COMMA);
+
+        assertEquals(Arrays.asList("a", "b c", "", "d"), csv.parse(" a , b c,,d "));
+        assertEquals(Arrays.asList(""), csv.parse(""));
+    }
+
+    /**
+     * Checks that quoted fields keep separators, blanks and doubled quotes
+     */
+    @Test
+    public void parsesQuotedFields() {
+        CsvFormat csv = new CsvFormat(CsvFormat.COMMA);
+
+        assertEquals(Arrays.asList("a, b", " c ", "say \"hi\""), csv.parse("\"a, b\", \" c \" ,\"say \"\"hi\"\"\""));
+    }
+
+    /**
+     * Checks that tab separated fields keep the blanks which are not tabs
+     */
+    @Test
+    public void parsesTabSeparatedFields() {
+        CsvFormat csv = CsvFormat.forFile("books.TSV");
+
+        assertEquals(CsvFormat.TAB, csv.getSeparator());
+        assertEquals(Arrays.asList("a,b", "", "c"), csv.parse("a,b\t\t c"));
+    }
+
+    /**
+     * Checks that every appended field is parsed back unchanged
+     */
+    @Test
+    public void appendedFieldsParseBack() {
+        List<String> fields = Arrays.asList("plain", "", "with, comma", "\"quoted\"", " padded ", "line\nbreak", "tab\tinside", "Gabryś");
+
+        for (char separator: new char[] {CsvFormat.COMMA, CsvFormat.TAB, ';'}) {
+            CsvFormat csv = new CsvFormat(separator);
+            StringBuilder line = new StringBuilder();
+
+            for (String field: fields) {
+                if (line.length() > 0)
+                    csv.appendSeparator(line);
+
+                csv.appendField(line, field);
+            }
+
+            assertEquals(fields, csv.parse(line.toString()));
+        }
+    }
+
+    /**
+     * Checks that only fields which need it are quoted
+     */
+    @Test
+    public void quotesOnlyWhenNeeded() {
+        CsvFormat csv = new CsvFormat(CsvFormat.COMMA);
+        StringBuilder line = new StringBuilder();
+
+        csv.appendField(line, "a b");
+        csv.appendSeparator(line);
+        csv.appendField(line, "a,b");
+        csv.appendSeparator(line);
+        csv.appendField(line, "a\"b");
+
+        assertEquals("a b,\"a,b\",\"a\"\"b\"", line.toString());
+    }
+
+    /**
+     * Checks that an unterminated quoted field is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnterminatedQuote() {
+        new CsvFormat(CsvFormat.COMMA).parse("\"abc");
+    }
+
+    /**
+     * Checks that characters after a quoted field are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTextAfterQuote() {
+        new CsvFormat(CsvFormat.COMMA).parse("\"abc\"d,e");
+    }
+
+    /**
+     * Checks that a quote cannot be the separator
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsQuoteSeparator() {
+        new CsvFormat('"');
+    }
+}
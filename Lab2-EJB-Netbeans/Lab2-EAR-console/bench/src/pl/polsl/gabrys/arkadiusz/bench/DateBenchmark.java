@@ -0,0 +1,115 @@
+package pl.polsl.gabrys.arkadiusz.bench;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+
+/**
+ * Measures the release date handling: parsing of the client input
+ * format, formatting and the defensive copies made by the views
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DateBenchmark {
+
+    /**
+     * Release date in the format read by the client
+     */
+    private static final String INPUT = "2006.01.01";
+
+    /**
+     * Format used by the client
+     */
+    private static final String PATTERN = "yyyy.MM.dd";
+
+    /**
+     * Formatter reused between calls
+     */
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(PATTERN);
+
+    /**
+     * Book with the release date
+     */
+    private Book book;
+
+    /**
+     * View of the book
+     */
+    private BookView view;
+
+    /**
+     * Prepares the book and its view
+     */
+    @Setup
+    public void setUp() {
+        book = Fixtures.author(1L, 1).getBooks().get(0);
+        view = new BookView(book.getId(), book.getTitle(), book.getPages(), book.getReleaseDate(), 1L);
+    }
+
+    /**
+     * Parses the date as the client does, with a new SimpleDateFormat per call
+     * @return the parsed date
+     * @throws ParseException if the input is not valid
+     */
+    @Benchmark
+    public Date parseSimpleDateFormat() throws ParseException {
+        return new SimpleDateFormat(PATTERN).parse(INPUT);
+    }
+
+    /**
+     * Parses the date with a shared immutable formatter
+     * @return the parsed date
+     */
+    @Benchmark
+    public LocalDate parseDateTimeFormatter() {
+        return LocalDate.parse(INPUT, formatter);
+    }
+
+    /**
+     * Formats the release date as Book.toString does
+     * @return the formatted date
+     */
+    @Benchmark
+    public String formatDateToString() {
+        return book.getReleaseDate().toString();
+    }
+
+    /**
+     * Reads the release date from the view, which returns a defensive copy
+     * @return the release date
+     */
+    @Benchmark
+    public Date viewReleaseDate() {
+        return view.getReleaseDate();
+    }
+
+    /**
+     * Reads the release date from the entity, which returns the stored instance
+     * @return the release date
+     */
+    @Benchmark
+    public Date entityReleaseDate() {
+        return book.getReleaseDate();
+    }
+}
@@ -0,0 +1,129 @@
+package pl.polsl.gabrys.arkadiusz.bench;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+
+/**
+ * Measures equals, hashCode and toString of the entities and
+ * putting a whole author books list into a hash set
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class EntityBenchmark {
+
+    /**
+     * Author with 1000 books
+     */
+    private Author author;
+
+    /**
+     * Different instance equal to author
+     */
+    private Author sameAuthor;
+
+    /**
+     * Single book of the author
+     */
+    private Book book;
+
+    /**
+     * Different instance equal to book
+     */
+    private Book sameBook;
+
+    /**
+     * Prepares the entities
+     */
+    @Setup
+    public void setUp() {
+        author = Fixtures.author(1L, 1000);
+        sameAuthor = Fixtures.author(1L, 0);
+        book = author.getBooks().get(0);
+        sameBook = Fixtures.book(book.getId(), sameAuthor);
+    }
+
+    /**
+     * Calculates author hash code
+     * @return the hash code
+     */
+    @Benchmark
+    public int authorHashCode() {
+        return author.hashCode();
+    }
+
+    /**
+     * Calculates book hash code
+     * @return the hash code
+     */
+    @Benchmark
+    public int bookHashCode() {
+        return book.hashCode();
+    }
+
+    /**
+     * Compares two equal authors
+     * @return the comparison result
+     */
+    @Benchmark
+    public boolean authorEquals() {
+        return author.equals(sameAuthor);
+    }
+
+    /**
+     * Compares two equal books
+     * @return the comparison result
+     */
+    @Benchmark
+    public boolean bookEquals() {
+        return book.equals(sameBook);
+    }
+
+    /**
+     * Formats author
+     * @return the formatted author
+     */
+    @Benchmark
+    public String authorToString() {
+        return author.toString();
+    }
+
+    /**
+     * Formats book
+     * @return the formatted book
+     */
+    @Benchmark
+    public String bookToString() {
+        return book.toString();
+    }
+
+    /**
+     * Puts all 1000 books of the author into a hash set
+     * @return the set of books
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Set<Book> booksHashSet() {
+        List<Book> books = author.getBooks();
+        return new HashSet<>(books);
+    }
+}
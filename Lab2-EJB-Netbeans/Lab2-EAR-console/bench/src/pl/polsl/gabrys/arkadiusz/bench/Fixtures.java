@@ -0,0 +1,132 @@
+package pl.polsl.gabrys.arkadiusz.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+
+/**
+ * Builds benchmark data and serializes it
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+final class Fixtures {
+
+    /**
+     * Release date shared by all generated books
+     */
+    static final Date RELEASE_DATE = new Date(1136073600000L);
+
+    /**
+     * Hidden constructor of the utility class
+     */
+    private Fixtures() { }
+
+    /**
+     * Creates author with given id and number of books, as loaded by the AUTHOR_WITH_BOOKS fetch plan
+     * @param id the author id, the books get consecutive ids starting at id * 100000
+     * @param books the number of books
+     * @return the author with the books list
+     */
+    static Author author(long id, int books) {
+        Author author = new Author("Stephen" + id, "King" + id);
+        setId(author, id);
+        List<Book> list = new ArrayList<>(books);
+
+        for (int i = 0; i < books; i++) {
+            list.add(book(id * 100000 + i, author));
+        }
+
+        author.setBooks(list);
+        return author;
+    }
+
+    /**
+     * Creates book with given id
+     * @param id the book id
+     * @param author the book author
+     * @return the book
+     */
+    static Book book(long id, Author author) {
+        Book book = new Book("The Dark Tower part " + id, 300L + id % 500, RELEASE_DATE, author);
+        setId(book, id);
+        return book;
+    }
+
+    /**
+     * Creates flat view of the author
+     * @param author the author
+     * @return the author view
+     */
+    static AuthorView view(Author author) {
+        return new AuthorView(author.getId(), author.getName(), author.getLastName());
+    }
+
+    /**
+     * Creates flat views of the author books
+     * @param author the author with the books list
+     * @return the book views
+     */
+    static List<BookView> views(Author author) {
+        List<BookView> views = new ArrayList<>(author.getBooks().size());
+
+        for (Book book: author.getBooks()) {
+            views.add(new BookView(book.getId(), book.getTitle(), book.getPages(), book.getReleaseDate(), author.getId()));
+        }
+
+        return views;
+    }
+
+    /**
+     * Serializes the object with Java serialization
+     * @param object the object
+     * @return the serialized form
+     * @throws IOException if the object cannot be serialized
+     */
+    static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes the object with Java serialization
+     * @param bytes the serialized form
+     * @return the object
+     * @throws IOException if the data is corrupted
+     * @throws ClassNotFoundException if the class of the object is not available
+     */
+    static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * Sets the generated id, which normally is assigned by the persistence provider
+     * @param entity the entity
+     * @param id the id
+     */
+    private static void setId(Object entity, long id) {
+        try {
+            Field field = entity.getClass().getDeclaredField("id");
+            field.setAccessible(true);
+            field.set(entity, id);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
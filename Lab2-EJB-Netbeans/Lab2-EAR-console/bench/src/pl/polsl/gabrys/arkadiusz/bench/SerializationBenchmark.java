@@ -0,0 +1,138 @@
+package pl.polsl.gabrys.arkadiusz.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+
+/**
+ * Measures Java serialization of single entities, of an author with
+ * the whole books graph and of the equivalent Externalizable views,
+ * which is what every remote call pays on both sides.
+ * The serialized sizes are printed by SerializedSizes.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    /**
+     * Number of books of the serialized author
+     */
+    @Param({"1", "100", "10000"})
+    public int books;
+
+    /**
+     * Author with the books graph
+     */
+    private Author author;
+
+    /**
+     * Single book
+     */
+    private Book book;
+
+    /**
+     * Author view followed by views of all books
+     */
+    private List<Object> views;
+
+    /**
+     * Serialized author graph
+     */
+    private byte[] authorBytes;
+
+    /**
+     * Serialized views
+     */
+    private byte[] viewBytes;
+
+    /**
+     * Prepares the entities and their serialized forms
+     * @throws IOException if the objects cannot be serialized
+     */
+    @Setup
+    public void setUp() throws IOException {
+        author = Fixtures.author(1L, books);
+        book = author.getBooks().get(0);
+        AuthorView authorView = Fixtures.view(author);
+        List<BookView> bookViews = Fixtures.views(author);
+        views = new ArrayList<>(bookViews.size() + 1);
+        views.add(authorView);
+        views.addAll(bookViews);
+        authorBytes = Fixtures.serialize(author);
+        viewBytes = Fixtures.serialize(views);
+    }
+
+    /**
+     * Serializes single book, which also carries its author and the author books list
+     * @return the serialized form
+     * @throws IOException if the book cannot be serialized
+     */
+    @Benchmark
+    public byte[] serializeBook() throws IOException {
+        return Fixtures.serialize(book);
+    }
+
+    /**
+     * Serializes the author with all books
+     * @return the serialized form
+     * @throws IOException if the author cannot be serialized
+     */
+    @Benchmark
+    public byte[] serializeAuthorGraph() throws IOException {
+        return Fixtures.serialize(author);
+    }
+
+    /**
+     * Deserializes the author with all books
+     * @return the author
+     * @throws IOException if the data is corrupted
+     * @throws ClassNotFoundException if the entity classes are not available
+     */
+    @Benchmark
+    public Object deserializeAuthorGraph() throws IOException, ClassNotFoundException {
+        return Fixtures.deserialize(authorBytes);
+    }
+
+    /**
+     * Serializes the views of the author and all books
+     * @return the serialized form
+     * @throws IOException if the views cannot be serialized
+     */
+    @Benchmark
+    public byte[] serializeViews() throws IOException {
+        return Fixtures.serialize(views);
+    }
+
+    /**
+     * Deserializes the views of the author and all books
+     * @return the views
+     * @throws IOException if the data is corrupted
+     * @throws ClassNotFoundException if the view classes are not available
+     */
+    @Benchmark
+    public Object deserializeViews() throws IOException, ClassNotFoundException {
+        return Fixtures.deserialize(viewBytes);
+    }
+}
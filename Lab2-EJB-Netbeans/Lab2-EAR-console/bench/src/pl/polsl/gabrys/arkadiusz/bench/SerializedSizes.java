@@ -0,0 +1,48 @@
+package pl.polsl.gabrys.arkadiusz.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+
+/**
+ * Prints Java serialization sizes of the entities and the views,
+ * JMH measures only time, the sizes are deterministic and are compared
+ * with bench/results/serialized-sizes.txt
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class SerializedSizes {
+
+    /**
+     * Numbers of books of the measured authors
+     */
+    private static final int[] BOOKS = {0, 1, 100, 10000};
+
+    /**
+     * Hidden constructor of the main class
+     */
+    private SerializedSizes() { }
+
+    /**
+     * Prints the sizes table
+     * @param args not used
+     * @throws IOException if the objects cannot be serialized
+     */
+    public static void main(String[] args) throws IOException {
+        System.out.println(String.format("%-8s %14s %14s %14s", "books", "author graph", "views", "bytes/book"));
+
+        for (int books: BOOKS) {
+            Author author = Fixtures.author(1L, books);
+            List<Object> views = new ArrayList<>();
+            views.add(Fixtures.view(author));
+            views.addAll(Fixtures.views(author));
+            int graph = Fixtures.serialize(author).length;
+            int flat = Fixtures.serialize(views).length;
+            System.out.println(String.format("%-8d %14d %14d %14s", books, graph, flat,
+                    books == 0 ? "-" : String.format("%.1f/%.1f", (double) graph / books, (double) flat / books)));
+        }
+
+        System.out.println(String.format("%-8s %14d", "book", Fixtures.serialize(Fixtures.author(1L, 1).getBooks().get(0)).length));
+    }
+}
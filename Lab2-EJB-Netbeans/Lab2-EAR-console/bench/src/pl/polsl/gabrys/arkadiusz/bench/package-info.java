@@ -0,0 +1,8 @@
+/**
+ * Contains JMH benchmarks of the model classes and data transfer objects
+ *
+ * @since 1.0
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+package pl.polsl.gabrys.arkadiusz.bench;
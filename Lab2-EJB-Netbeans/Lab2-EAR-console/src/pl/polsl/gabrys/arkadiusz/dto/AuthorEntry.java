@@ -0,0 +1,60 @@
+package pl.polsl.gabrys.arkadiusz.dto;
+
+import java.io.Serializable;
+
+/**
+ * Values of a new Author entity sent in bulk persist requests
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class AuthorEntry implements Serializable {
+
+    /**
+     * Id assigned by the caller or null to generate it
+     */
+    private final Long id;
+
+    /**
+     * Author name
+     */
+    private final String name;
+
+    /**
+     * Author last name
+     */
+    private final String lastName;
+
+    /**
+     * Initializes instance with given parameters
+     * @param name the author name
+     * @param lastName the author last name
+     */
+    public AuthorEntry(String name, String lastName) {
+        this(null, name, lastName);
+    }
+
+    /**
+     * Initializes instance with an id assigned by the caller, used when
+     * entities are copied between shards or their ids come from ShardIdGenerator
+     * @param id the author id or null to generate it
+     * @param name the author name
+     * @param lastName the author last name
+     */
+    public AuthorEntry(Long id, String name, String lastName) {
+        this.id = id;
+        this.name = name;
+        this.lastName = lastName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+}
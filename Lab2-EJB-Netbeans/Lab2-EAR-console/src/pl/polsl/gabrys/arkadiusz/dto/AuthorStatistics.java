@@ -0,0 +1,78 @@
+package pl.polsl.gabrys.arkadiusz.dto;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Aggregates of the books of a single author computed by the database
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class AuthorStatistics implements Serializable {
+
+    /**
+     * Author unique id
+     */
+    private final long authorId;
+
+    /**
+     * Author name
+     */
+    private final String name;
+
+    /**
+     * Author last name
+     */
+    private final String lastName;
+
+    /**
+     * Aggregates of the author books
+     */
+    private final BookStatistics books;
+
+    /**
+     * Initializes instance with the grouped values, SQL aggregates of an author without books are null
+     * @param authorId the author id
+     * @param name the author name
+     * @param lastName the author last name
+     * @param count the number of books
+     * @param totalPages the sum of pages or null
+     * @param averagePages the average number of pages or null
+     * @param minPages the smallest number of pages or null
+     * @param maxPages the largest number of pages or null
+     * @param firstRelease the earliest release date or null
+     * @param lastRelease the latest release date or null
+     */
+    public AuthorStatistics(Long authorId, String name, String lastName, Long count, Long totalPages, Double averagePages,
+            Long minPages, Long maxPages, Date firstRelease, Date lastRelease) {
+        this.authorId = authorId == null ? 0L : authorId;
+        this.name = name == null ? "" : name;
+        this.lastName = lastName == null ? "" : lastName;
+        this.books = new BookStatistics(count, totalPages, averagePages, minPages, maxPages, firstRelease, lastRelease);
+    }
+
+    public long getAuthorId() {
+        return authorId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public BookStatistics getBooks() {
+        return books;
+    }
+
+    /**
+     * Formats the author and the aggregates in the form of string
+     * @return the string representing the aggregates
+     */
+    @Override
+    public String toString() {
+        return authorId + "; " + name + "; " + lastName + "; " + books;
+    }
+}
@@ -0,0 +1,116 @@
+package pl.polsl.gabrys.arkadiusz.dto;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Flat read only view of an Author entity with compact serialized form.
+ * The books list is not included.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class AuthorView implements Externalizable {
+
+    /**
+     * Author unique id
+     */
+    private long id;
+
+    /**
+     * Author name
+     */
+    private String name;
+
+    /**
+     * Author last name
+     */
+    private String lastName;
+
+    /**
+     * Initializes empty instance, used only by deserialization
+     */
+    public AuthorView() {
+        this(0L, "", "");
+    }
+
+    /**
+     * Initializes instance with given parameters
+     * @param id the author id
+     * @param name the author name
+     * @param lastName the author last name
+     */
+    public AuthorView(Long id, String name, String lastName) {
+        this.id = id == null ? 0L : id;
+        this.name = name == null ? "" : name;
+        this.lastName = lastName == null ? "" : lastName;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * Writes the fields without any class or field descriptors
+     * @param out the stream to write the object to
+     * @throws IOException if any I/O error occurs
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeLong(id);
+        out.writeUTF(name);
+        out.writeUTF(lastName);
+    }
+
+    /**
+     * Reads the fields written by writeExternal
+     * @param in the stream to read data from
+     * @throws IOException if any I/O error occurs
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        id = in.readLong();
+        name = in.readUTF();
+        lastName = in.readUTF();
+    }
+
+    /**
+     * Compares current object with the given one
+     * @param obj the object to compare
+     * @return comparison result
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof AuthorView))
+            return false;
+
+        return ((AuthorView) obj).id == id;
+    }
+
+    /**
+     * Calculates hash code which represents current object
+     * @return the number which represents current object
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    /**
+     * Formats this view in the same way as the Author entity
+     * @return the string representing this view
+     */
+    @Override
+    public String toString() {
+        return id + "; " + name + "; " + lastName;
+    }
+}
@@ -0,0 +1,85 @@
+package pl.polsl.gabrys.arkadiusz.dto;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Values of a new Book entity sent in bulk persist requests
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class BookEntry implements Serializable {
+
+    /**
+     * Id assigned by the caller or null to generate it
+     */
+    private final Long id;
+
+    /**
+     * Book title
+     */
+    private final String title;
+
+    /**
+     * Number of pages in book
+     */
+    private final Long pages;
+
+    /**
+     * Book release date
+     */
+    private final Date releaseDate;
+
+    /**
+     * Id of the book author
+     */
+    private final Long authorId;
+
+    /**
+     * Initializes instance with given parameters
+     * @param title the book title
+     * @param pages the number of pages
+     * @param releaseDate the book release date
+     * @param authorId the book author id
+     */
+    public BookEntry(String title, Long pages, Date releaseDate, Long authorId) {
+        this(null, title, pages, releaseDate, authorId);
+    }
+
+    /**
+     * Initializes instance with an id assigned by the caller, used when
+     * entities are copied between shards or their ids come from ShardIdGenerator
+     * @param id the book id or null to generate it
+     * @param title the book title
+     * @param pages the number of pages
+     * @param releaseDate the book release date
+     * @param authorId the book author id
+     */
+    public BookEntry(Long id, String title, Long pages, Date releaseDate, Long authorId) {
+        this.id = id;
+        this.title = title;
+        this.pages = pages;
+        this.releaseDate = releaseDate;
+        this.authorId = authorId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Long getPages() {
+        return pages;
+    }
+
+    public Date getReleaseDate() {
+        return releaseDate;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+}
@@ -0,0 +1,114 @@
+package pl.polsl.gabrys.arkadiusz.dto;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Aggregates of a group of books computed by the database
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class BookStatistics implements Serializable {
+
+    /**
+     * Number of books
+     */
+    private final long count;
+
+    /**
+     * Sum of the pages of all books
+     */
+    private final long totalPages;
+
+    /**
+     * Average number of pages, 0 when there are no books
+     */
+    private final double averagePages;
+
+    /**
+     * Smallest number of pages, 0 when there are no books
+     */
+    private final long minPages;
+
+    /**
+     * Largest number of pages, 0 when there are no books
+     */
+    private final long maxPages;
+
+    /**
+     * Earliest release date or null when there are no books
+     */
+    private final Date firstRelease;
+
+    /**
+     * Latest release date or null when there are no books
+     */
+    private final Date lastRelease;
+
+    /**
+     * Initializes instance with the aggregate values, SQL aggregates of an empty group are null
+     * @param count the number of books
+     * @param totalPages the sum of pages or null
+     * @param averagePages the average number of pages or null
+     * @param minPages the smallest number of pages or null
+     * @param maxPages the largest number of pages or null
+     * @param firstRelease the earliest release date or null
+     * @param lastRelease the latest release date or null
+     */
+    public BookStatistics(Long count, Long totalPages, Double averagePages, Long minPages, Long maxPages, Date firstRelease, Date lastRelease) {
+        this.count = count == null ? 0L : count;
+        this.totalPages = totalPages == null ? 0L : totalPages;
+        this.averagePages = averagePages == null ? 0.0 : averagePages;
+        this.minPages = minPages == null ? 0L : minPages;
+        this.maxPages = maxPages == null ? 0L : maxPages;
+        this.firstRelease = firstRelease == null ? null : new Date(firstRelease.getTime());
+        this.lastRelease = lastRelease == null ? null : new Date(lastRelease.getTime());
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalPages() {
+        return totalPages;
+    }
+
+    public double getAveragePages() {
+        return averagePages;
+    }
+
+    public long getMinPages() {
+        return minPages;
+    }
+
+    public long getMaxPages() {
+        return maxPages;
+    }
+
+    /**
+     * Returns the earliest release date
+     * @return the copy of the date or null when there are no books
+     */
+    public Date getFirstRelease() {
+        return firstRelease == null ? null : new Date(firstRelease.getTime());
+    }
+
+    /**
+     * Returns the latest release date
+     * @return the copy of the date or null when there are no books
+     */
+    public Date getLastRelease() {
+        return lastRelease == null ? null : new Date(lastRelease.getTime());
+    }
+
+    /**
+     * Formats the aggregates in the form of string
+     * @return the string representing the aggregates
+     */
+    @Override
+    public String toString() {
+        return "books: " + count + "; pages: " + totalPages + "; average pages: " + String.format("%.1f", averagePages)
+                + "; min pages: " + minPages + "; max pages: " + maxPages
+                + "; first release: " + firstRelease + "; last release: " + lastRelease;
+    }
+}
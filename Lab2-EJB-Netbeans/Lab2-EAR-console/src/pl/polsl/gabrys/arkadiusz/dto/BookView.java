@@ -0,0 +1,156 @@
+package pl.polsl.gabrys.arkadiusz.dto;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Date;
+
+/**
+ * Flat read only view of a Book entity with compact serialized form.
+ * The author is represented only by its id.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class BookView implements Externalizable {
+
+    /**
+     * Book unique id
+     */
+    private long id;
+
+    /**
+     * Book title
+     */
+    private String title;
+
+    /**
+     * Number of pages in book
+     */
+    private long pages;
+
+    /**
+     * Book release date in milliseconds since the epoch
+     */
+    private long releaseTime;
+
+    /**
+     * Id of the book author
+     */
+    private long authorId;
+
+    /**
+     * Initializes empty instance, used only by deserialization
+     */
+    public BookView() {
+        this(0L, "", 0L, null, 0L);
+    }
+
+    /**
+     * Initializes instance with given parameters
+     * @param id the book id
+     * @param title the book title
+     * @param pages the number of pages
+     * @param releaseDate the book release date
+     * @param authorId the book author id
+     */
+    public BookView(Long id, String title, Long pages, Date releaseDate, Long authorId) {
+        this.id = id == null ? 0L : id;
+        this.title = title == null ? "" : title;
+        this.pages = pages == null ? 0L : pages;
+        this.releaseTime = releaseDate == null ? 0L : releaseDate.getTime();
+        this.authorId = authorId == null ? 0L : authorId;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    /**
+     * Returns a copy of the release date
+     * @return the book release date
+     */
+    public Date getReleaseDate() {
+        return new Date(releaseTime);
+    }
+
+    /**
+     * Returns the release date without creating a Date object
+     * @return the release date in milliseconds since the epoch
+     */
+    public long getReleaseTime() {
+        return releaseTime;
+    }
+
+    public long getAuthorId() {
+        return authorId;
+    }
+
+    /**
+     * Writes the fields without any class or field descriptors
+     * @param out the stream to write the object to
+     * @throws IOException if any I/O error occurs
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeLong(id);
+        out.writeUTF(title);
+        out.writeLong(pages);
+        out.writeLong(releaseTime);
+        out.writeLong(authorId);
+    }
+
+    /**
+     * Reads the fields written by writeExternal
+     * @param in the stream to read data from
+     * @throws IOException if any I/O error occurs
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        id = in.readLong();
+        title = in.readUTF();
+        pages = in.readLong();
+        releaseTime = in.readLong();
+        authorId = in.readLong();
+    }
+
+    /**
+     * Compares current object with the given one
+     * @param obj the object to compare
+     * @return comparison result
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof BookView))
+            return false;
+
+        return ((BookView) obj).id == id;
+    }
+
+    /**
+     * Calculates hash code which represents current object
+     * @return the number which represents current object
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    /**
+     * Formats this view in the same way as the Book entity read from the database,
+     * whose release date is a java.sql.Date printed as yyyy-mm-dd
+     * @return the string representing this view
+     */
+    @Override
+    public String toString() {
+        return String.format("%d; %s; %d; %s; %d", id, title, pages, new java.sql.Date(releaseTime), authorId);
+    }
+}
@@ -0,0 +1,82 @@
+package pl.polsl.gabrys.arkadiusz.dto;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the shared entity cache counters, entries removed after writes are
+ * counted as invalidations and the least recently used entries dropped by a full
+ * cache as evictions
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class CacheStatistics implements Serializable {
+
+    /**
+     * Number of lookups served by the shared cache
+     */
+    private final long hits;
+
+    /**
+     * Number of lookups which had to query the database
+     */
+    private final long misses;
+
+    /**
+     * Number of entries evicted after writes
+     */
+    private final long invalidations;
+
+    /**
+     * Number of entries dropped because the cache was full
+     */
+    private final long evictions;
+
+    /**
+     * Initializes instance with given parameters
+     * @param hits the number of lookups served by the shared cache
+     * @param misses the number of lookups which had to query the database
+     * @param invalidations the number of entries evicted after writes
+     * @param evictions the number of entries dropped because the cache was full
+     */
+    public CacheStatistics(long hits, long misses, long invalidations, long evictions) {
+        this.hits = hits;
+        this.misses = misses;
+        this.invalidations = invalidations;
+        this.evictions = evictions;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Calculates the part of lookups served by the shared cache
+     * @return the hit ratio between 0 and 1 or 0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Formats the counters in the form of string
+     * @return the string representing the counters
+     */
+    @Override
+    public String toString() {
+        return "hits: " + hits + "; misses: " + misses + "; invalidations: " + invalidations + "; evictions: " + evictions
+                + "; hit ratio: " + String.format("%.3f", getHitRatio());
+    }
+}
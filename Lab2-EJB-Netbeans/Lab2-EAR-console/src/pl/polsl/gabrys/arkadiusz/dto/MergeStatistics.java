@@ -0,0 +1,68 @@
+package pl.polsl.gabrys.arkadiusz.dto;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the optimistic merge counters
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class MergeStatistics implements Serializable {
+
+    /**
+     * Number of merge transactions started, including retries
+     */
+    private final long attempts;
+
+    /**
+     * Number of merge transactions rolled back because of a concurrent update
+     */
+    private final long conflicts;
+
+    /**
+     * Number of merges which failed after all attempts
+     */
+    private final long failures;
+
+    /**
+     * Initializes instance with given parameters
+     * @param attempts the number of merge transactions started
+     * @param conflicts the number of merge transactions rolled back because of a concurrent update
+     * @param failures the number of merges which failed after all attempts
+     */
+    public MergeStatistics(long attempts, long conflicts, long failures) {
+        this.attempts = attempts;
+        this.conflicts = conflicts;
+        this.failures = failures;
+    }
+
+    public long getAttempts() {
+        return attempts;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Calculates the part of merge transactions which ended with a conflict
+     * @return the conflict ratio between 0 and 1 or 0 if there were no attempts
+     */
+    public double getConflictRatio() {
+        return attempts == 0 ? 0.0 : (double) conflicts / attempts;
+    }
+
+    /**
+     * Formats the counters in the form of string
+     * @return the string representing the counters
+     */
+    @Override
+    public String toString() {
+        return "attempts: " + attempts + "; conflicts: " + conflicts + "; failures: " + failures
+                + "; conflict ratio: " + String.format("%.3f", getConflictRatio());
+    }
+}
@@ -0,0 +1,161 @@
+package pl.polsl.gabrys.arkadiusz.dto;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Snapshot of the latency and call counters of a single business method.
+ * Latencies are given in microseconds, the percentiles are upper bounds
+ * of the histogram buckets and are accurate to about 6 percent.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class MethodStatistics implements Serializable {
+
+    /**
+     * Method signature, for example findAuthorById(Long)
+     */
+    private final String method;
+
+    /**
+     * Number of completed calls
+     */
+    private final long calls;
+
+    /**
+     * Number of calls currently running
+     */
+    private final long inFlight;
+
+    /**
+     * Number of calls which ended with an exception by exception class name
+     */
+    private final Map<String, Long> errors;
+
+    /**
+     * Mean latency
+     */
+    private final double mean;
+
+    /**
+     * Median latency
+     */
+    private final long p50;
+
+    /**
+     * 90th percentile latency
+     */
+    private final long p90;
+
+    /**
+     * 99th percentile latency
+     */
+    private final long p99;
+
+    /**
+     * 99.9th percentile latency
+     */
+    private final long p999;
+
+    /**
+     * Maximum latency
+     */
+    private final long max;
+
+    /**
+     * Initializes instance with given parameters
+     * @param method the method signature
+     * @param calls the number of completed calls
+     * @param inFlight the number of calls currently running
+     * @param errors the number of failed calls by exception class name
+     * @param mean the mean latency in microseconds
+     * @param p50 the median latency in microseconds
+     * @param p90 the 90th percentile latency in microseconds
+     * @param p99 the 99th percentile latency in microseconds
+     * @param p999 the 99.9th percentile latency in microseconds
+     * @param max the maximum latency in microseconds
+     */
+    @ConstructorProperties({"method", "calls", "inFlight", "errors", "mean", "p50", "p90", "p99", "p999", "max"})
+    public MethodStatistics(String method, long calls, long inFlight, Map<String, Long> errors,
+            double mean, long p50, long p90, long p99, long p999, long max) {
+        this.method = method;
+        this.calls = calls;
+        this.inFlight = inFlight;
+        this.errors = Collections.unmodifiableMap(new TreeMap<>(errors));
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    public Map<String, Long> getErrors() {
+        return errors;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the total number of failed calls
+     * @return the number of calls which ended with an exception
+     */
+    public long getErrorCount() {
+        long count = 0;
+
+        for (Long errorCount: errors.values()) {
+            count += errorCount;
+        }
+
+        return count;
+    }
+
+    /**
+     * Formats the counters in the form of string
+     * @return the string representing the counters
+     */
+    @Override
+    public String toString() {
+        return method + ": calls: " + calls + "; errors: " + getErrorCount() + "; in flight: " + inFlight
+                + "; mean: " + String.format("%.1f", mean) + "us; p50: " + p50 + "us; p90: " + p90
+                + "us; p99: " + p99 + "us; p99.9: " + p999 + "us; max: " + max + "us"
+                + (errors.isEmpty() ? "" : "; " + errors);
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Contains serializable data transfer classes exchanged with remote interfaces
+ *
+ * @since 1.0
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+package pl.polsl.gabrys.arkadiusz.dto;
@@ -0,0 +1,81 @@
+package pl.polsl.gabrys.arkadiusz.interfaces;
+
+import java.util.List;
+import javax.ejb.Remote;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+
+/**
+ * Read only catalog served from an in-memory snapshot of all authors and books.
+ * The snapshot is replaced after every committed write made through
+ * DatabaseManagerRemote, lookups never query the database.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Remote
+public interface CatalogServiceRemote {
+
+    /**
+     * Returns the version of the current snapshot, incremented by every published write
+     * @return the snapshot version
+     */
+    long getVersion();
+
+    /**
+     * Finds author with given id
+     * @param id the author id
+     * @return the author or null if the author doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     */
+    AuthorView findAuthorById(Long id) throws IllegalArgumentException;
+
+    /**
+     * Finds authors with given name ignoring case, spacing and diacritics
+     * @param name the author name
+     * @return the list of authors ordered by id
+     * @throws IllegalArgumentException if the name is null
+     */
+    List<AuthorView> findAuthorsByName(String name) throws IllegalArgumentException;
+
+    /**
+     * Finds at most limit authors with id greater than lastId
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors, at most DatabaseManagerRemote.MAX_PAGE_SIZE
+     * @return the list of authors ordered by id
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    List<AuthorView> findAuthorViewsAfter(Long lastId, int limit) throws IllegalArgumentException;
+
+    /**
+     * Finds book with given id
+     * @param id the book id
+     * @return the book or null if the book doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     */
+    BookView findBookById(Long id) throws IllegalArgumentException;
+
+    /**
+     * Finds books with given title ignoring case, spacing and diacritics
+     * @param title the book title
+     * @return the list of books ordered by id
+     * @throws IllegalArgumentException if the title is null
+     */
+    List<BookView> findBooksByTitle(String title) throws IllegalArgumentException;
+
+    /**
+     * Finds books of the given author
+     * @param authorId the author id
+     * @return the list of books ordered by id
+     * @throws IllegalArgumentException if the author id is null
+     */
+    List<BookView> findBooksByAuthor(Long authorId) throws IllegalArgumentException;
+
+    /**
+     * Finds at most limit books with id greater than lastId
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books, at most DatabaseManagerRemote.MAX_PAGE_SIZE
+     * @return the list of books ordered by id
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    List<BookView> findBookViewsAfter(Long lastId, int limit) throws IllegalArgumentException;
+}
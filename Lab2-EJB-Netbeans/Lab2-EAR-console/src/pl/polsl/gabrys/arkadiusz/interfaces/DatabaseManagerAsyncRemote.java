@@ -0,0 +1,150 @@
+package pl.polsl.gabrys.arkadiusz.interfaces;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Future;
+import javax.ejb.Remote;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookEntry;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+
+/**
+ * Asynchronous companion of the DatabaseManagerRemote interface. Every call
+ * returns immediately and the operation runs on a server thread, so a client
+ * can keep many independent operations in flight and collect the results later.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Remote
+public interface DatabaseManagerAsyncRemote {
+
+    /**
+     * Finds Author entity by its id using the AUTHOR_ONLY fetch plan in the background
+     * @param id the entity id
+     * @return the future holding the entity with given id, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<Author> findAuthorById(Long id);
+
+    /**
+     * Returns all authors with given name using the AUTHOR_ONLY fetch plan in the background
+     * @param name the author name
+     * @return the future holding the list of authors with given name, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<List<Author>> findAuthorsByName(String name);
+
+    /**
+     * Returns flat views of the next page of authors ordered by id in the background
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page
+     * @return the future holding the list of at most limit author views with id greater than lastId, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<List<AuthorView>> findAuthorViewsAfter(Long lastId, int limit);
+
+    /**
+     * Finds authors whose name or last name words start with the words of given text in the background
+     * @param text the searched text
+     * @param limit the maximum number of authors
+     * @return the future holding the matching authors, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<List<AuthorView>> searchAuthors(String text, int limit);
+
+    /**
+     * Finds Book entity by its id using the BOOK_WITH_AUTHOR fetch plan in the background
+     * @param id the entity id
+     * @return the future holding the entity with given id, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<Book> findBookById(Long id);
+
+    /**
+     * Returns all books with given title using the BOOK_WITH_AUTHOR fetch plan in the background
+     * @param title the book title
+     * @return the future holding the list of books with given title, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<List<Book>> findBooksByTitle(String title);
+
+    /**
+     * Returns flat views of the next page of books ordered by id in the background
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page
+     * @return the future holding the list of at most limit book views with id greater than lastId, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<List<BookView>> findBookViewsAfter(Long lastId, int limit);
+
+    /**
+     * Finds books whose title words start with the words of given text in the background
+     * @param text the searched text
+     * @param limit the maximum number of books
+     * @return the future holding the matching books, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<List<BookView>> searchBooks(String text, int limit);
+
+    /**
+     * Adds new Author entity in the background
+     * @param name the author name
+     * @param lastName the author last name
+     * @return the future completed when the operation finishes, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<Void> persistAuthor(String name, String lastName);
+
+    /**
+     * Adds new Book entity in the background
+     * @param title the book title
+     * @param pages the number of book pages
+     * @param releaseDate the book release date
+     * @param authorId the book author id
+     * @return the future completed when the operation finishes, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<Void> persistBook(String title, Long pages, Date releaseDate, Long authorId);
+
+    /**
+     * Adds new Author entities in a single transaction in the background
+     * @param authors the values of the new authors, at most MAX_BULK_SIZE entries
+     * @return the future holding the ids of the new authors in the order of given entries, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<List<Long>> persistAuthors(List<AuthorEntry> authors);
+
+    /**
+     * Adds new Book entities in a single transaction in the background
+     * @param books the values of the new books, at most MAX_BULK_SIZE entries
+     * @return the future holding the ids of the new books in the order of given entries, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<List<Long>> persistBooks(List<BookEntry> books);
+
+    /**
+     * Updates given Author entity in the background
+     * @param id the author id
+     * @param name the new author name
+     * @param lastName the new author last name
+     * @return the future completed when the operation finishes, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<Void> mergeAuthor(Long id, String name, String lastName);
+
+    /**
+     * Updates given Book entity in the background
+     * @param id the book id
+     * @param title the new book title
+     * @param pages the new number of pages
+     * @param releaseDate the new release date
+     * @param authorId the id of the new author
+     * @return the future completed when the operation finishes, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<Void> mergeBook(Long id, String title, Long pages, Date releaseDate, Long authorId);
+
+    /**
+     * Removes Author entity in the background
+     * @param id the author id
+     * @return the future completed when the operation finishes, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<Void> removeAuthor(Long id);
+
+    /**
+     * Removes Book entity in the background
+     * @param id the book id
+     * @return the future completed when the operation finishes, its get method rethrows the exceptions of the synchronous method wrapped in ExecutionException
+     */
+    Future<Void> removeBook(Long id);
+
+}
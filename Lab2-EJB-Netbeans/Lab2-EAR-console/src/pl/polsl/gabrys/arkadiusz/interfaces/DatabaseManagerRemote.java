@@ -1,15 +1,27 @@
 package pl.polsl.gabrys.arkadiusz.interfaces;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import javax.ejb.Remote;
 import javax.persistence.LockTimeoutException;
+import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceException;
 import javax.persistence.PessimisticLockException;
 import javax.persistence.QueryTimeoutException;
 import javax.persistence.TransactionRequiredException;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookEntry;
+import pl.polsl.gabrys.arkadiusz.dto.BookStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.dto.CacheStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.MergeStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.MethodStatistics;
 import pl.polsl.gabrys.arkadiusz.model.Author;
 import pl.polsl.gabrys.arkadiusz.model.Book;
+import pl.polsl.gabrys.arkadiusz.model.FetchPlan;
 
 /**
  * DatabaseManager bean remote interfacee
@@ -18,17 +30,46 @@ import pl.polsl.gabrys.arkadiusz.model.Book;
  */
 @Remote
 public interface DatabaseManagerRemote {
-    
+
     /**
-     * Finds Author entity by its id
+     * The largest page size returned by the paginated find methods
+     */
+    int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * The largest number of entities accepted by a single bulk call
+     */
+    int MAX_BULK_SIZE = 10000;
+
+    /**
+     * The largest chunk size returned by the export methods
+     */
+    int MAX_EXPORT_SIZE = 10000;
+
+    /**
+     * Finds Author entity by its id using the AUTHOR_ONLY fetch plan
      * @param id the entity id
      * @return the entity with given id
      * @throws IllegalArgumentException if the id is null
      */
     Author findAuthorById(Long id) throws IllegalArgumentException;
+
+    /**
+     * Finds Author entity by its id using given fetch plan
+     * @param id the entity id
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the id or the plan is null or the plan does not apply to authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    Author findAuthorById(Long id, FetchPlan plan) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
         
     /**
-     * Returns all authors
+     * Returns all authors using the AUTHOR_ONLY fetch plan
      * @return the list with all authors
      * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
      * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
@@ -37,9 +78,22 @@ public interface DatabaseManagerRemote {
      * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
      */
     List<Author> findAllAuthors() throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
+
+    /**
+     * Returns all authors using given fetch plan
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list with all authors
+     * @throws IllegalArgumentException if the plan is null or does not apply to authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<Author> findAllAuthors(FetchPlan plan) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
     
     /**
-     * Returns all authors with given name
+     * Returns all authors with given name using the AUTHOR_ONLY fetch plan
      * @param name the author name
      * @return the list of authors with given name
      * @throws IllegalArgumentException if given class is not valid entity class for this operation
@@ -50,9 +104,53 @@ public interface DatabaseManagerRemote {
      * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
      */
     List<Author> findAuthorsByName(String name) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
-    
+
+    /**
+     * Returns all authors with given name using given fetch plan, the name is compared
+     * in the TextNormalizer form so case, spacing and diacritics are ignored
+     * @param name the author name
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list of authors with given name
+     * @throws IllegalArgumentException if the name or the plan is null or the plan does not apply to authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<Author> findAuthorsByName(String name, FetchPlan plan) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
+
+    /**
+     * Returns the next page of authors ordered by id using the AUTHOR_ONLY fetch plan
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit authors with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<Author> findAuthorsAfter(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
+
+    /**
+     * Returns the next page of authors ordered by id using given fetch plan
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list of at most limit authors with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number or the plan is null or does not apply to authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<Author> findAuthorsAfter(Long lastId, int limit, FetchPlan plan) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
+
      /**
-     * Finds Book entity by its id
+     * Finds Book entity by its id using the BOOK_WITH_AUTHOR fetch plan
      * @param id the entity id
      * @return the entity with given id
      * @throws IllegalArgumentException if the id is null
@@ -60,7 +158,7 @@ public interface DatabaseManagerRemote {
     Book findBookById(Long id) throws IllegalArgumentException;
     
     /**
-     * Returns all books
+     * Returns all books using the BOOK_WITH_AUTHOR fetch plan
      * @return the list with all books
      * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
      * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
@@ -71,7 +169,8 @@ public interface DatabaseManagerRemote {
     List<Book> findAllBooks() throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
     
     /**
-     * Returns al books with given title
+     * Returns al books with given title using the BOOK_WITH_AUTHOR fetch plan, the title is compared
+     * in the TextNormalizer form so case, spacing and diacritics are ignored
      * @param title the book title
      * @return the list of books with given title
      * @throws IllegalArgumentException if given class is not valid entity class for this operation
@@ -82,7 +181,190 @@ public interface DatabaseManagerRemote {
      * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
      */
     List<Book> findBooksByTitle(String title) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
-    
+
+    /**
+     * Returns the next page of books ordered by id using the BOOK_WITH_AUTHOR fetch plan
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit books with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<Book> findBooksAfter(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
+
+    /**
+     * Returns flat views of all authors ordered by id
+     * @return the list with views of all authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<AuthorView> findAllAuthorViews() throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
+
+    /**
+     * Returns flat views of the next page of authors ordered by id
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit author views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<AuthorView> findAuthorViewsAfter(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
+
+    /**
+     * Returns flat views of all books ordered by id
+     * @return the list with views of all books
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<BookView> findAllBookViews() throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
+
+    /**
+     * Returns flat views of the next page of books ordered by id
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<BookView> findBookViewsAfter(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException;
+
+    /**
+     * Returns flat views of the next chunk of authors ordered by id for exports,
+     * read without a transaction and with the JDBC fetch size matching the chunk
+     * @param lastId the id of the last author from the previous chunk or null for the first chunk
+     * @param limit the maximum number of authors in the chunk, values above MAX_EXPORT_SIZE are lowered to it
+     * @return the list of at most limit author views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<AuthorView> exportAuthorViews(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Returns flat views of the next chunk of books ordered by id for exports,
+     * read without a transaction and with the JDBC fetch size matching the chunk
+     * @param lastId the id of the last book from the previous chunk or null for the first chunk
+     * @param limit the maximum number of books in the chunk, values above MAX_EXPORT_SIZE are lowered to it
+     * @return the list of at most limit book views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<BookView> exportBookViews(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Returns flat views of the next page of books released in the given date range,
+     * ordered by release date and id. Pages are read from the release date index.
+     * @param from the first release date of the range
+     * @param to the last release date of the range
+     * @param lastReleaseDate the release date of the last book from the previous page or null for the first page
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views which follow the given book
+     * @throws IllegalArgumentException if the range bounds are null or the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<BookView> findBookViewsReleasedBetween(Date from, Date to, Date lastReleaseDate, Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Returns flat views of the next page of the latest releases, ordered by descending release date and id.
+     * Pages are read from the release date index.
+     * @param lastReleaseDate the release date of the last book from the previous page or null for the first page
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views released before the given book
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<BookView> findLatestBookViews(Date lastReleaseDate, Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Finds authors whose name or last name words start with the words of given text,
+     * ignoring case and diacritics. Served from the in-memory index without querying the database.
+     * @param text the searched text
+     * @param limit the maximum number of authors, values above MAX_PAGE_SIZE are lowered to it
+     * @return the matching authors, whole word matches and shorter names first
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    List<AuthorView> searchAuthors(String text, int limit) throws IllegalArgumentException;
+
+    /**
+     * Finds books whose title words start with the words of given text,
+     * ignoring case and diacritics. Served from the in-memory index without querying the database.
+     * @param text the searched text
+     * @param limit the maximum number of books, values above MAX_PAGE_SIZE are lowered to it
+     * @return the matching books, whole word matches and shorter titles first
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    List<BookView> searchBooks(String text, int limit) throws IllegalArgumentException;
+
+    /**
+     * Counts all authors
+     * @return the number of authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    long countAuthors() throws QueryTimeoutException, PersistenceException;
+
+    /**
+     * Aggregates all books with a single query
+     * @return the number of books, the sum, average and range of pages and the range of release dates
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    BookStatistics getBookStatistics() throws QueryTimeoutException, PersistenceException;
+
+    /**
+     * Aggregates the books of given author with a single grouped query
+     * @param authorId the author id
+     * @return the author book aggregates or null if the author doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    AuthorStatistics getAuthorStatistics(Long authorId) throws IllegalArgumentException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Aggregates the books of the next page of authors ordered by id, authors without books are included
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit author aggregates with author id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<AuthorStatistics> findAuthorStatisticsAfter(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Aggregates the books of the authors with the largest number of books
+     * @param limit the maximum number of authors, values above MAX_PAGE_SIZE are lowered to it
+     * @return the author aggregates ordered by descending number of books and then by author id
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    List<AuthorStatistics> findTopAuthorStatistics(int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException;
+
     /**
      * Adds new Author entity
      * @param name the author name
@@ -101,6 +383,26 @@ public interface DatabaseManagerRemote {
      * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
      */
     void persistBook(String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException, TransactionRequiredException;
+
+    /**
+     * Adds new Author entities in a single transaction, entries with an id keep it
+     * and the other entries get generated ids
+     * @param authors the values of the new authors, at most MAX_BULK_SIZE entries
+     * @return the ids of the new authors in the order of given entries
+     * @throws IllegalArgumentException if the list is null or longer than MAX_BULK_SIZE
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
+     */
+    List<Long> persistAuthors(List<AuthorEntry> authors) throws IllegalArgumentException, TransactionRequiredException;
+
+    /**
+     * Adds new Book entities in a single transaction, entries with an id keep it
+     * and the other entries get generated ids
+     * @param books the values of the new books, at most MAX_BULK_SIZE entries
+     * @return the ids of the new books in the order of given entries
+     * @throws IllegalArgumentException if the list is null or longer than MAX_BULK_SIZE, if any author id is null or if any author doesn't exists
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
+     */
+    List<Long> persistBooks(List<BookEntry> books) throws IllegalArgumentException, TransactionRequiredException;
     
     /**
      * Updates given Author entity
@@ -109,8 +411,9 @@ public interface DatabaseManagerRemote {
      * @param lastName the new author last name
      * @throws IllegalArgumentException if the author is a removed entity or if the id is null or the given author doesn't exists
      * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transactio
+     * @throws OptimisticLockException if the author was concurrently updated in all retry attempts
      */
-    void mergeAuthor(Long id, String name, String lastName) throws IllegalArgumentException, TransactionRequiredException;
+    void mergeAuthor(Long id, String name, String lastName) throws IllegalArgumentException, TransactionRequiredException, OptimisticLockException;
     
     /**
      * Updates given Book entity
@@ -121,8 +424,9 @@ public interface DatabaseManagerRemote {
      * @param authorId the id of the new author
      * @throws IllegalArgumentException if the book is a removed entity or if the id is null
      * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transactio
+     * @throws OptimisticLockException if the book was concurrently updated in all retry attempts
      */
-    void mergeBook(Long id, String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException, TransactionRequiredException;
+    void mergeBook(Long id, String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException, TransactionRequiredException, OptimisticLockException;
     
     /**
      * Removes Author entity
@@ -140,4 +444,84 @@ public interface DatabaseManagerRemote {
      */
     void removeBook(Long id) throws IllegalArgumentException, TransactionRequiredException;
 
+    /**
+     * Updates Author entity with a single UPDATE statement without loading it
+     * @param id the author id
+     * @param name the new author name
+     * @param lastName the new author last name
+     * @return the number of updated authors, 0 if the author doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    int updateAuthor(Long id, String name, String lastName) throws IllegalArgumentException, TransactionRequiredException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Updates Book entity with a single UPDATE statement without loading it or its author
+     * @param id the book id
+     * @param title the new book title
+     * @param pages the new number of pages
+     * @param releaseDate the new release date
+     * @param authorId the id of the new author
+     * @return the number of updated books, 0 if the book doesn't exists
+     * @throws IllegalArgumentException if the id or author id is null
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    int updateBook(Long id, String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException, TransactionRequiredException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Moves books to another author with a single UPDATE statement without loading them
+     * @param ids the book ids, at most MAX_BULK_SIZE entries
+     * @param authorId the id of the new author
+     * @return the number of updated books
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE or the author id is null
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    int updateBooksAuthor(Collection<Long> ids, Long authorId) throws IllegalArgumentException, TransactionRequiredException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Removes books with a single DELETE statement without loading them
+     * @param ids the book ids, at most MAX_BULK_SIZE entries
+     * @return the number of removed books
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    int removeBooks(Collection<Long> ids) throws IllegalArgumentException, TransactionRequiredException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Removes authors together with all of their books with two DELETE statements without loading them
+     * @param ids the author ids, at most MAX_BULK_SIZE entries
+     * @return the number of removed authors
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    int removeAuthorsCascading(Collection<Long> ids) throws IllegalArgumentException, TransactionRequiredException, QueryTimeoutException, PersistenceException;
+
+    /**
+     * Returns the shared entity cache counters
+     * @return the counters snapshot
+     */
+    CacheStatistics getCacheStatistics();
+
+    /**
+     * Returns the optimistic merge counters
+     * @return the counters snapshot
+     */
+    MergeStatistics getMergeStatistics();
+
+    /**
+     * Returns the latency and call counters of the business methods
+     * @return the list of counters ordered by method signature
+     */
+    List<MethodStatistics> getStatistics();
+
 }
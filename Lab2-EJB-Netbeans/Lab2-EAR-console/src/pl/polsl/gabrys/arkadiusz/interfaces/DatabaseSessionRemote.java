@@ -0,0 +1,28 @@
+package pl.polsl.gabrys.arkadiusz.interfaces;
+
+import javax.ejb.Remote;
+
+/**
+ * Database manager bound to a single client session. Reads which follow a committed
+ * write of the session are served by the primary database until the read-your-writes
+ * window of the session ends, so the session always sees its own writes even when
+ * the other reads go to replicas that apply them later. Calls of one session are
+ * serialized by the container.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Remote
+public interface DatabaseSessionRemote extends DatabaseManagerRemote {
+
+    /**
+     * Sets the time after a committed write during which the reads of the session go to the primary
+     * @param millis the window in milliseconds, 0 lets the reads use replicas at once
+     * @throws IllegalArgumentException if the window is negative
+     */
+    void setReadYourWritesWindow(long millis) throws IllegalArgumentException;
+
+    /**
+     * Ends the session and releases its server resources
+     */
+    void close();
+}
@@ -0,0 +1,278 @@
+package pl.polsl.gabrys.arkadiusz.interfaces;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+
+/**
+ * Iterates over all entities page by page using the keyset paginated
+ * remote methods, so only a single page is kept in memory at a time
+ * @param <T> the page element type
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class PageCursor<T> implements Iterable<List<T>> {
+
+    /**
+     * Loads single page of entities
+     * @param <T> the page element type
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+
+        /**
+         * Loads the page which follows the given key
+         * @param lastId the key of the last element from the previous page or null for the first page
+         * @param limit the maximum number of elements in the page
+         * @return the page with at most limit elements
+         */
+        List<T> load(Long lastId, int limit);
+    }
+
+    /**
+     * Loads single page of entities ordered by a key made of several values
+     * @param <T> the page element type
+     */
+    @FunctionalInterface
+    public interface SeekPageLoader<T> {
+
+        /**
+         * Loads the page which follows the given element
+         * @param last the last element from the previous page or null for the first page
+         * @param limit the maximum number of elements in the page
+         * @return the page with at most limit elements
+         */
+        List<T> load(T last, int limit);
+    }
+
+    /**
+     * The page loader
+     */
+    private final SeekPageLoader<T> loader;
+
+    /**
+     * Number of elements requested per page
+     */
+    private final int pageSize;
+
+    /**
+     * Initializes cursor with given parameters
+     * @param loader the page loader
+     * @param key the function which returns the key of an element
+     * @param pageSize the number of elements requested per page
+     * @throws IllegalArgumentException if the loader or key is null or the page size is not positive
+     */
+    public PageCursor(PageLoader<T> loader, Function<T, Long> key, int pageSize) throws IllegalArgumentException {
+        this(loader == null || key == null ? null : (last, limit) -> loader.load(last == null ? null : key.apply(last), limit), pageSize);
+    }
+
+    /**
+     * Initializes cursor which passes the whole last element of the previous page to the loader
+     * @param loader the page loader
+     * @param pageSize the number of elements requested per page
+     * @throws IllegalArgumentException if the loader is null or the page size is not positive
+     */
+    public PageCursor(SeekPageLoader<T> loader, int pageSize) throws IllegalArgumentException {
+        this(loader, pageSize, DatabaseManagerRemote.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Initializes cursor with given parameters
+     * @param loader the page loader
+     * @param pageSize the number of elements requested per page
+     * @param maxPageSize the largest page size accepted by the loader
+     * @throws IllegalArgumentException if the loader is null or the page size is not positive
+     */
+    private PageCursor(SeekPageLoader<T> loader, int pageSize, int maxPageSize) throws IllegalArgumentException {
+        if (loader == null)
+            throw new IllegalArgumentException("Page loader and key cannot be null");
+
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("Page size must be a positive number");
+
+        this.loader = loader;
+        this.pageSize = Math.min(pageSize, maxPageSize);
+    }
+
+    /**
+     * Creates cursor over all authors
+     * @param db the database manager
+     * @param pageSize the number of authors requested per page
+     * @return the cursor over all authors
+     */
+    public static PageCursor<Author> authors(DatabaseManagerRemote db, int pageSize) {
+        return new PageCursor<>(db::findAuthorsAfter, Author::getId, pageSize);
+    }
+
+    /**
+     * Creates cursor over all books
+     * @param db the database manager
+     * @param pageSize the number of books requested per page
+     * @return the cursor over all books
+     */
+    public static PageCursor<Book> books(DatabaseManagerRemote db, int pageSize) {
+        return new PageCursor<>(db::findBooksAfter, Book::getId, pageSize);
+    }
+
+    /**
+     * Creates cursor over flat views of all authors
+     * @param db the database manager
+     * @param pageSize the number of authors requested per page
+     * @return the cursor over all author views
+     */
+    public static PageCursor<AuthorView> authorViews(DatabaseManagerRemote db, int pageSize) {
+        return new PageCursor<>(db::findAuthorViewsAfter, AuthorView::getId, pageSize);
+    }
+
+    /**
+     * Creates cursor over flat views of all books
+     * @param db the database manager
+     * @param pageSize the number of books requested per page
+     * @return the cursor over all book views
+     */
+    public static PageCursor<BookView> bookViews(DatabaseManagerRemote db, int pageSize) {
+        return new PageCursor<>(db::findBookViewsAfter, BookView::getId, pageSize);
+    }
+
+    /**
+     * Creates cursor over flat views of all authors fetched in export chunks
+     * @param db the database manager
+     * @param pageSize the number of authors requested per chunk, at most MAX_EXPORT_SIZE
+     * @return the cursor over all author views
+     */
+    public static PageCursor<AuthorView> exportAuthorViews(DatabaseManagerRemote db, int pageSize) {
+        return new PageCursor<>((AuthorView last, int limit) -> db.exportAuthorViews(last == null ? null : last.getId(), limit),
+                pageSize, DatabaseManagerRemote.MAX_EXPORT_SIZE);
+    }
+
+    /**
+     * Creates cursor over flat views of all books fetched in export chunks
+     * @param db the database manager
+     * @param pageSize the number of books requested per chunk, at most MAX_EXPORT_SIZE
+     * @return the cursor over all book views
+     */
+    public static PageCursor<BookView> exportBookViews(DatabaseManagerRemote db, int pageSize) {
+        return new PageCursor<>((BookView last, int limit) -> db.exportBookViews(last == null ? null : last.getId(), limit),
+                pageSize, DatabaseManagerRemote.MAX_EXPORT_SIZE);
+    }
+
+    /**
+     * Creates cursor over the book aggregates of all authors
+     * @param db the database manager
+     * @param pageSize the number of authors requested per page
+     * @return the cursor over all author aggregates
+     */
+    public static PageCursor<AuthorStatistics> authorStatistics(DatabaseManagerRemote db, int pageSize) {
+        return new PageCursor<>(db::findAuthorStatisticsAfter, AuthorStatistics::getAuthorId, pageSize);
+    }
+
+    /**
+     * Creates cursor over books released in the given date range, ordered by release date and id
+     * @param db the database manager
+     * @param from the first release date of the range
+     * @param to the last release date of the range
+     * @param pageSize the number of books requested per page
+     * @return the cursor over the book views
+     */
+    public static PageCursor<BookView> booksReleasedBetween(DatabaseManagerRemote db, Date from, Date to, int pageSize) {
+        return new PageCursor<>((BookView last, int limit) -> db.findBookViewsReleasedBetween(from, to,
+                last == null ? null : last.getReleaseDate(), last == null ? null : last.getId(), limit), pageSize);
+    }
+
+    /**
+     * Creates cursor over all books starting with the latest releases
+     * @param db the database manager
+     * @param pageSize the number of books requested per page
+     * @return the cursor over the book views ordered by descending release date and id
+     */
+    public static PageCursor<BookView> latestBooks(DatabaseManagerRemote db, int pageSize) {
+        return new PageCursor<>((BookView last, int limit) -> db.findLatestBookViews(
+                last == null ? null : last.getReleaseDate(), last == null ? null : last.getId(), limit), pageSize);
+    }
+
+    /**
+     * Creates cursor over all authors of the catalog snapshot
+     * @param catalog the catalog service
+     * @param pageSize the number of authors requested per page
+     * @return the cursor over all author views
+     */
+    public static PageCursor<AuthorView> authorViews(CatalogServiceRemote catalog, int pageSize) {
+        return new PageCursor<>(catalog::findAuthorViewsAfter, AuthorView::getId, pageSize);
+    }
+
+    /**
+     * Creates cursor over all books of the catalog snapshot
+     * @param catalog the catalog service
+     * @param pageSize the number of books requested per page
+     * @return the cursor over all book views
+     */
+    public static PageCursor<BookView> bookViews(CatalogServiceRemote catalog, int pageSize) {
+        return new PageCursor<>(catalog::findBookViewsAfter, BookView::getId, pageSize);
+    }
+
+    /**
+     * Returns the number of elements requested per page
+     * @return the page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Starts a new iteration from the first page
+     * @return the iterator over consecutive pages
+     */
+    @Override
+    public Iterator<List<T>> iterator() {
+        return new Iterator<List<T>>() {
+
+            /**
+             * The page which will be returned by next call or null if not loaded yet
+             */
+            private List<T> page;
+
+            /**
+             * The last element returned so far
+             */
+            private T last;
+
+            /**
+             * Set when the last page was shorter than requested
+             */
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                if (page == null && !finished) {
+                    page = loader.load(last, pageSize);
+
+                    if (page.size() < pageSize)
+                        finished = true;
+
+                    if (page.isEmpty())
+                        page = null;
+                }
+
+                return page != null;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                List<T> result = page;
+                last = result.get(result.size() - 1);
+                page = null;
+                return result;
+            }
+        };
+    }
+}
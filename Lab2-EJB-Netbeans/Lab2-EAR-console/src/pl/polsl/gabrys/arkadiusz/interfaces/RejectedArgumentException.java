@@ -0,0 +1,24 @@
+package pl.polsl.gabrys.arkadiusz.interfaces;
+
+import javax.ejb.ApplicationException;
+
+/**
+ * Argument rejected by DatabaseSessionRemote. It is an application exception,
+ * so it rolls the transaction back and reaches the client as it is, and the
+ * container keeps the session, which it discards after a system exception.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@ApplicationException(rollback = true)
+@SuppressWarnings("serial")
+public class RejectedArgumentException extends IllegalArgumentException {
+
+    /**
+     * Initializes instance with given parameters
+     * @param message the detail message
+     * @param cause the rejected argument exception thrown by the business method
+     */
+    public RejectedArgumentException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,5 +1,5 @@
 /**
- * Contains remote interfaces
+ * Contains remote interfaces and helpers for iterating over their results
  *
  * @since 1.0
  * @author Arkadiusz Gabryś
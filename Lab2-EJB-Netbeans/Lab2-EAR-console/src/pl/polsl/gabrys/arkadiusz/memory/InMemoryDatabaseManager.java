@@ -0,0 +1,1457 @@
+package pl.polsl.gabrys.arkadiusz.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.persistence.PersistenceException;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookEntry;
+import pl.polsl.gabrys.arkadiusz.dto.BookStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.dto.CacheStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.MergeStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.MethodStatistics;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+import pl.polsl.gabrys.arkadiusz.model.FetchPlan;
+import pl.polsl.gabrys.arkadiusz.model.TextNormalizer;
+
+/**
+ * DatabaseManagerRemote implementation which keeps all entities in memory.
+ * It follows the argument checks and error messages of the DatabaseManager bean
+ * and serves as an upper bound reference for the load generator and benchmarks.
+ * <p>
+ * Entities are stored as immutable views in maps keyed by primitive ids,
+ * names and titles have secondary indexes. Readers never lock. Writers lock
+ * only the stripes of the ids they modify, books always before authors and
+ * both in ascending stripe order, so writers of unrelated entities do not wait.
+ * Readers may observe a bulk operation partially applied.
+ * Ids given by the callers of the bulk persists are not consecutive, so they
+ * are also kept in ordered sets which the paginated scans merge with the probed ids.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class InMemoryDatabaseManager implements DatabaseManagerRemote {
+
+    /**
+     * Number of lock stripes per entity type
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * Last assigned author id
+     */
+    private final AtomicLong lastAuthorId = new AtomicLong();
+
+    /**
+     * Last assigned book id
+     */
+    private final AtomicLong lastBookId = new AtomicLong();
+
+    /**
+     * Author ids given by callers, ordered for the paginated scans
+     */
+    private final ConcurrentSkipListSet<Long> assignedAuthorIds = new ConcurrentSkipListSet<>();
+
+    /**
+     * Book ids given by callers, ordered for the paginated scans
+     */
+    private final ConcurrentSkipListSet<Long> assignedBookIds = new ConcurrentSkipListSet<>();
+
+    /**
+     * Author ids the generator jumped over after a caller gave a larger id,
+     * by the first skipped id mapped to the given id which ends the range
+     */
+    private final ConcurrentSkipListMap<Long, Long> skippedAuthorIds = new ConcurrentSkipListMap<>();
+
+    /**
+     * Book ids the generator jumped over after a caller gave a larger id,
+     * by the first skipped id mapped to the given id which ends the range
+     */
+    private final ConcurrentSkipListMap<Long, Long> skippedBookIds = new ConcurrentSkipListMap<>();
+
+    /**
+     * Authors by id
+     */
+    private final LongConcurrentMap<AuthorView> authors = new LongConcurrentMap<>();
+
+    /**
+     * Books by id
+     */
+    private final LongConcurrentMap<BookView> books = new LongConcurrentMap<>();
+
+    /**
+     * Ids of authors by normalized name
+     */
+    private final ConcurrentMap<String, Set<Long>> authorsByName = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of books by normalized title
+     */
+    private final ConcurrentMap<String, Set<Long>> booksByTitle = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of books by author id, modified only under the author lock
+     */
+    private final LongConcurrentMap<Set<Long>> booksByAuthor = new LongConcurrentMap<>();
+
+    /**
+     * Books ordered by release date and id
+     */
+    private final ConcurrentSkipListSet<BookView> releases = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(BookView::getReleaseTime).thenComparingLong(BookView::getId));
+
+    /**
+     * Search index of author names and last names
+     */
+    private final TextIndex<AuthorView> authorText = new TextIndex<>(a -> a.getName() + " " + a.getLastName());
+
+    /**
+     * Search index of book titles
+     */
+    private final TextIndex<BookView> bookText = new TextIndex<>(BookView::getTitle);
+
+    /**
+     * Author lock stripes
+     */
+    private final ReentrantLock[] authorLocks = newLocks();
+
+    /**
+     * Book lock stripes
+     */
+    private final ReentrantLock[] bookLocks = newLocks();
+
+    /**
+     * Number of merge calls, merges never conflict in memory
+     */
+    private final LongAdder merges = new LongAdder();
+
+    /**
+     * Finds Author entity by its id using the AUTHOR_ONLY fetch plan
+     * @param id the entity id
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    public Author findAuthorById(Long id) throws IllegalArgumentException {
+        return findAuthorById(id, FetchPlan.AUTHOR_ONLY);
+    }
+
+    /**
+     * Finds Author entity by its id using given fetch plan
+     * @param id the entity id
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the id or the plan is null or the plan does not apply to authors
+     */
+    @Override
+    public Author findAuthorById(Long id, FetchPlan plan) throws IllegalArgumentException {
+        checkAuthorPlan(plan, "findById");
+        checkId(id);
+        AuthorView view = authors.get(id);
+        return view == null ? null : toAuthor(view, plan);
+    }
+
+    /**
+     * Returns all authors using the AUTHOR_ONLY fetch plan
+     * @return the list with all authors
+     */
+    @Override
+    public List<Author> findAllAuthors() {
+        return findAllAuthors(FetchPlan.AUTHOR_ONLY);
+    }
+
+    /**
+     * Returns all authors using given fetch plan
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list with all authors
+     * @throws IllegalArgumentException if the plan is null or does not apply to authors
+     */
+    @Override
+    public List<Author> findAllAuthors(FetchPlan plan) throws IllegalArgumentException {
+        checkAuthorPlan(plan, "findAll");
+        return toAuthors(findAllAuthorViews(), plan);
+    }
+
+    /**
+     * Returns all authors with given name using the AUTHOR_ONLY fetch plan
+     * @param name the author name
+     * @return the list of authors with given name
+     */
+    @Override
+    public List<Author> findAuthorsByName(String name) {
+        return findAuthorsByName(name, FetchPlan.AUTHOR_ONLY);
+    }
+
+    /**
+     * Returns all authors with given name using given fetch plan, the name is compared
+     * in the TextNormalizer form so case, spacing and diacritics are ignored
+     * @param name the author name
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list of authors with given name
+     * @throws IllegalArgumentException if the name or the plan is null or the plan does not apply to authors
+     */
+    @Override
+    public List<Author> findAuthorsByName(String name, FetchPlan plan) throws IllegalArgumentException {
+        if (name == null)
+            throw new IllegalArgumentException("Name cannot be null");
+
+        String key = TextNormalizer.normalize(name);
+        checkAuthorPlan(plan, "findByName");
+        List<AuthorView> views = lookup(authorsByName, key, authors, v -> TextNormalizer.normalize(v.getName()).equals(key));
+        return toAuthors(views, plan);
+    }
+
+    /**
+     * Returns the next page of authors ordered by id using the AUTHOR_ONLY fetch plan
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit authors with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<Author> findAuthorsAfter(Long lastId, int limit) throws IllegalArgumentException {
+        return findAuthorsAfter(lastId, limit, FetchPlan.AUTHOR_ONLY);
+    }
+
+    /**
+     * Returns the next page of authors ordered by id using given fetch plan
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list of at most limit authors with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number or the plan is null or does not apply to authors
+     */
+    @Override
+    public List<Author> findAuthorsAfter(Long lastId, int limit, FetchPlan plan) throws IllegalArgumentException {
+        checkAuthorPlan(plan, "findByIds");
+        return toAuthors(findAuthorViewsAfter(lastId, limit), plan);
+    }
+
+    /**
+     * Finds Book entity by its id using the BOOK_WITH_AUTHOR fetch plan
+     * @param id the entity id
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    public Book findBookById(Long id) throws IllegalArgumentException {
+        checkId(id);
+        BookView view = books.get(id);
+        return view == null ? null : toBooks(Collections.singletonList(view)).get(0);
+    }
+
+    /**
+     * Returns all books using the BOOK_WITH_AUTHOR fetch plan
+     * @return the list with all books
+     */
+    @Override
+    public List<Book> findAllBooks() {
+        return toBooks(findAllBookViews());
+    }
+
+    /**
+     * Returns all books with given title using the BOOK_WITH_AUTHOR fetch plan, the title is compared
+     * in the TextNormalizer form so case, spacing and diacritics are ignored
+     * @param title the book title
+     * @return the list of books with given title
+     * @throws IllegalArgumentException if the title is null
+     */
+    @Override
+    public List<Book> findBooksByTitle(String title) throws IllegalArgumentException {
+        if (title == null)
+            throw new IllegalArgumentException("Title cannot be null");
+
+        String key = TextNormalizer.normalize(title);
+        return toBooks(lookup(booksByTitle, key, books, v -> TextNormalizer.normalize(v.getTitle()).equals(key)));
+    }
+
+    /**
+     * Returns the next page of books ordered by id using the BOOK_WITH_AUTHOR fetch plan
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit books with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<Book> findBooksAfter(Long lastId, int limit) throws IllegalArgumentException {
+        return toBooks(findBookViewsAfter(lastId, limit));
+    }
+
+    /**
+     * Returns flat views of all authors ordered by id
+     * @return the list with all author views
+     */
+    @Override
+    public List<AuthorView> findAllAuthorViews() {
+        List<AuthorView> views = authors.values();
+        views.sort(Comparator.comparingLong(AuthorView::getId));
+        return views;
+    }
+
+    /**
+     * Returns the next page of author views ordered by id
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit author views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorView> findAuthorViewsAfter(Long lastId, int limit) throws IllegalArgumentException {
+        return scan(authors, lastAuthorId, skippedAuthorIds, assignedAuthorIds, lastId, checkLimit(limit));
+    }
+
+    /**
+     * Returns flat views of all books ordered by id
+     * @return the list with all book views
+     */
+    @Override
+    public List<BookView> findAllBookViews() {
+        List<BookView> views = books.values();
+        views.sort(Comparator.comparingLong(BookView::getId));
+        return views;
+    }
+
+    /**
+     * Returns the next page of book views ordered by id
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<BookView> findBookViewsAfter(Long lastId, int limit) throws IllegalArgumentException {
+        return scan(books, lastBookId, skippedBookIds, assignedBookIds, lastId, checkLimit(limit));
+    }
+
+    /**
+     * Returns flat views of the next chunk of authors ordered by id for exports
+     * @param lastId the id of the last author from the previous chunk or null for the first chunk
+     * @param limit the maximum number of authors in the chunk, values above MAX_EXPORT_SIZE are lowered to it
+     * @return the list of at most limit author views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorView> exportAuthorViews(Long lastId, int limit) throws IllegalArgumentException {
+        return scan(authors, lastAuthorId, skippedAuthorIds, assignedAuthorIds, lastId, checkLimit(limit, MAX_EXPORT_SIZE));
+    }
+
+    /**
+     * Returns flat views of the next chunk of books ordered by id for exports
+     * @param lastId the id of the last book from the previous chunk or null for the first chunk
+     * @param limit the maximum number of books in the chunk, values above MAX_EXPORT_SIZE are lowered to it
+     * @return the list of at most limit book views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<BookView> exportBookViews(Long lastId, int limit) throws IllegalArgumentException {
+        return scan(books, lastBookId, skippedBookIds, assignedBookIds, lastId, checkLimit(limit, MAX_EXPORT_SIZE));
+    }
+
+    /**
+     * Returns flat views of the next page of books released in the given date range,
+     * ordered by release date and id
+     * @param from the first release date of the range
+     * @param to the last release date of the range
+     * @param lastReleaseDate the release date of the last book from the previous page or null for the first page
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views which follow the given book
+     * @throws IllegalArgumentException if the range bounds are null or the limit is not a positive number
+     */
+    @Override
+    public List<BookView> findBookViewsReleasedBetween(Date from, Date to, Date lastReleaseDate, Long lastId, int limit) throws IllegalArgumentException {
+        if (from == null || to == null)
+            throw new IllegalArgumentException("Release date range cannot be null");
+
+        int max = checkLimit(limit);
+        BookView start = lastReleaseDate == null || lastReleaseDate.before(from)
+                ? releaseKey(from, Long.MIN_VALUE)
+                : releaseKey(lastReleaseDate, lastId == null ? 0L : lastId);
+        List<BookView> page = new ArrayList<>();
+
+        for (BookView book: releases.tailSet(start, false)) {
+            if (book.getReleaseTime() > to.getTime() || page.size() >= max)
+                break;
+
+            if (books.get(book.getId()) == book)
+                page.add(book);
+        }
+
+        return page;
+    }
+
+    /**
+     * Returns flat views of the next page of the latest releases, ordered by descending release date and id
+     * @param lastReleaseDate the release date of the last book from the previous page or null for the first page
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views released before the given book
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<BookView> findLatestBookViews(Date lastReleaseDate, Long lastId, int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit);
+        NavigableSet<BookView> before = lastReleaseDate == null
+                ? releases.descendingSet()
+                : releases.headSet(releaseKey(lastReleaseDate, lastId == null ? Long.MAX_VALUE : lastId), false).descendingSet();
+        List<BookView> page = new ArrayList<>();
+
+        for (BookView book: before) {
+            if (page.size() >= max)
+                break;
+
+            if (books.get(book.getId()) == book)
+                page.add(book);
+        }
+
+        return page;
+    }
+
+    /**
+     * Finds authors whose name or last name words start with the words of given text,
+     * ignoring case and diacritics
+     * @param text the searched text
+     * @param limit the maximum number of authors, values above MAX_PAGE_SIZE are lowered to it
+     * @return the matching authors, whole word matches and shorter names first
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorView> searchAuthors(String text, int limit) throws IllegalArgumentException {
+        return authorText.search(text, checkLimit(limit));
+    }
+
+    /**
+     * Finds books whose title words start with the words of given text,
+     * ignoring case and diacritics
+     * @param text the searched text
+     * @param limit the maximum number of books, values above MAX_PAGE_SIZE are lowered to it
+     * @return the matching books, whole word matches and shorter titles first
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<BookView> searchBooks(String text, int limit) throws IllegalArgumentException {
+        return bookText.search(text, checkLimit(limit));
+    }
+
+    /**
+     * Counts all authors
+     * @return the number of authors
+     */
+    @Override
+    public long countAuthors() {
+        return authors.size();
+    }
+
+    /**
+     * Aggregates all books
+     * @return the number of books, the sum, average and range of pages and the range of release dates
+     */
+    @Override
+    public BookStatistics getBookStatistics() {
+        return aggregate(books.values());
+    }
+
+    /**
+     * Aggregates the books of given author
+     * @param authorId the author id
+     * @return the author book aggregates or null if the author doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    public AuthorStatistics getAuthorStatistics(Long authorId) throws IllegalArgumentException {
+        checkId(authorId);
+        AuthorView author = authors.get(authorId);
+        return author == null ? null : statisticsOf(author);
+    }
+
+    /**
+     * Aggregates the books of the next page of authors ordered by id, authors without books are included
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit author aggregates with author id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorStatistics> findAuthorStatisticsAfter(Long lastId, int limit) throws IllegalArgumentException {
+        List<AuthorStatistics> page = new ArrayList<>();
+
+        for (AuthorView author: findAuthorViewsAfter(lastId, limit)) {
+            page.add(statisticsOf(author));
+        }
+
+        return page;
+    }
+
+    /**
+     * Aggregates the books of the authors with the largest number of books
+     * @param limit the maximum number of authors, values above MAX_PAGE_SIZE are lowered to it
+     * @return the author aggregates ordered by descending number of books and then by author id
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorStatistics> findTopAuthorStatistics(int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit);
+        List<AuthorStatistics> all = new ArrayList<>();
+
+        for (AuthorView author: authors.values()) {
+            all.add(statisticsOf(author));
+        }
+
+        all.sort(Comparator.<AuthorStatistics>comparingLong(a -> -a.getBooks().getCount())
+                .thenComparingLong(AuthorStatistics::getAuthorId));
+        return new ArrayList<>(all.subList(0, Math.min(max, all.size())));
+    }
+
+    /**
+     * Adds new Author entity
+     * @param name the author name
+     * @param lastName the author last name
+     */
+    @Override
+    public void persistAuthor(String name, String lastName) {
+        persistAuthors(Collections.singletonList(new AuthorEntry(name, lastName)));
+    }
+
+    /**
+     * Adds new Book entity
+     * @param title the book title
+     * @param pages the number of book pages
+     * @param releaseDate the book release date
+     * @param authorId the book author id
+     * @throws IllegalArgumentException if the author id is null or if the author doesn't exists
+     */
+    @Override
+    public void persistBook(String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException {
+        checkId(authorId);
+        persistBooks(Collections.singletonList(new BookEntry(title, pages, releaseDate, authorId)));
+    }
+
+    /**
+     * Adds new Author entities, entries with an id keep it and the other entries get generated ids
+     * @param authors the values of the new authors, at most MAX_BULK_SIZE entries
+     * @return the ids of the new authors in the order of given entries
+     * @throws IllegalArgumentException if the list is null or longer than MAX_BULK_SIZE or if any given id is not positive or already used
+     */
+    @Override
+    public List<Long> persistAuthors(List<AuthorEntry> authors) throws IllegalArgumentException {
+        checkBulkSize(authors);
+        List<Long> ids = new ArrayList<>(authors.size());
+
+        for (AuthorEntry entry: authors) {
+            ids.add(nextId(entry.getId(), lastAuthorId, skippedAuthorIds));
+        }
+
+        return locked(Collections.emptyList(), () -> ids, () -> {
+            checkUnused(ids, this.authors, "Author");
+
+            for (int i = 0; i < ids.size(); ++i) {
+                AuthorEntry entry = authors.get(i);
+                putAuthor(null, new AuthorView(ids.get(i), entry.getName(), entry.getLastName()));
+
+                if (entry.getId() != null)
+                    assignedAuthorIds.add(entry.getId());
+            }
+
+            return ids;
+        });
+    }
+
+    /**
+     * Adds new Book entities, all authors are checked before anything is added.
+     * Entries with an id keep it and the other entries get generated ids
+     * @param books the values of the new books, at most MAX_BULK_SIZE entries
+     * @return the ids of the new books in the order of given entries
+     * @throws IllegalArgumentException if the list is null or longer than MAX_BULK_SIZE, if any author id is null,
+     * if any author doesn't exists or if any given id is not positive or already used
+     */
+    @Override
+    public List<Long> persistBooks(List<BookEntry> books) throws IllegalArgumentException {
+        checkBulkSize(books);
+        Set<Long> authorIds = new HashSet<>();
+
+        for (BookEntry entry: books) {
+            if (entry.getAuthorId() == null)
+                throw new IllegalArgumentException("Author id cannot be null");
+
+            authorIds.add(entry.getAuthorId());
+        }
+
+        List<Long> ids = new ArrayList<>(books.size());
+
+        for (BookEntry entry: books) {
+            ids.add(nextId(entry.getId(), lastBookId, skippedBookIds));
+        }
+
+        return locked(ids, () -> authorIds, () -> {
+            authorIds.forEach(this::checkAuthorExists);
+            checkUnused(ids, this.books, "Book");
+
+            for (int i = 0; i < ids.size(); ++i) {
+                BookEntry entry = books.get(i);
+                putBook(null, newBookView(ids.get(i), entry.getTitle(), entry.getPages(), entry.getReleaseDate(), entry.getAuthorId()));
+
+                if (entry.getId() != null)
+                    assignedBookIds.add(entry.getId());
+            }
+
+            return ids;
+        });
+    }
+
+    /**
+     * Updates given Author entity
+     * @param id the author id
+     * @param name the new author name
+     * @param lastName the new author last name
+     * @throws IllegalArgumentException if the id is null or the given author doesn't exists
+     */
+    @Override
+    public void mergeAuthor(Long id, String name, String lastName) throws IllegalArgumentException {
+        checkId(id);
+        merges.increment();
+
+        locked(Collections.emptyList(), () -> Arrays.asList(id), () -> {
+            putAuthor(checkAuthorExists(id), new AuthorView(id, name, lastName));
+            return null;
+        });
+    }
+
+    /**
+     * Updates given Book entity
+     * @param id the book id
+     * @param title the new book title
+     * @param pages the new number of pages
+     * @param releaseDate the new release date
+     * @param authorId the id of the new author
+     * @throws IllegalArgumentException if the id or author id is null or if the book or the author doesn't exists
+     */
+    @Override
+    public void mergeBook(Long id, String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException {
+        checkId(id);
+        checkId(authorId);
+        merges.increment();
+
+        locked(Arrays.asList(id), () -> withAuthorsOf(Arrays.asList(id), authorId), () -> {
+            BookView old = books.get(id);
+
+            if (old == null)
+                throw new IllegalArgumentException("Book with id: " + id + " doesn't exists");
+
+            checkAuthorExists(authorId);
+            putBook(old, newBookView(id, title, pages, releaseDate, authorId));
+            return null;
+        });
+    }
+
+    /**
+     * Removes Author entity, like the database foreign key it fails while the author has books
+     * @param id the author id
+     * @throws IllegalArgumentException if the id is null or the author doesn't exists
+     * @throws PersistenceException if the author still has books
+     */
+    @Override
+    public void removeAuthor(Long id) throws IllegalArgumentException, PersistenceException {
+        checkId(id);
+
+        locked(Collections.emptyList(), () -> Arrays.asList(id), () -> {
+            AuthorView old = checkAuthorExists(id);
+
+            if (booksByAuthor.containsKey(id))
+                throw new PersistenceException("Author with id: " + id + " still has books");
+
+            deleteAuthor(old);
+            return null;
+        });
+    }
+
+    /**
+     * Removes Book entity
+     * @param id the book id
+     * @throws IllegalArgumentException if the id is null or the book doesn't exists
+     */
+    @Override
+    public void removeBook(Long id) throws IllegalArgumentException {
+        checkId(id);
+
+        locked(Arrays.asList(id), () -> withAuthorsOf(Arrays.asList(id), null), () -> {
+            BookView old = books.get(id);
+
+            if (old == null)
+                throw new IllegalArgumentException("Book with id: " + id + " doesn't exists");
+
+            deleteBook(old);
+            return null;
+        });
+    }
+
+    /**
+     * Updates Author entity without reading it first
+     * @param id the author id
+     * @param name the new author name
+     * @param lastName the new author last name
+     * @return the number of updated authors, 0 if the author doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    public int updateAuthor(Long id, String name, String lastName) throws IllegalArgumentException {
+        checkId(id);
+
+        return locked(Collections.emptyList(), () -> Arrays.asList(id), () -> {
+            AuthorView old = authors.get(id);
+
+            if (old == null)
+                return 0;
+
+            putAuthor(old, new AuthorView(id, name, lastName));
+            return 1;
+        });
+    }
+
+    /**
+     * Updates Book entity without reading it first
+     * @param id the book id
+     * @param title the new book title
+     * @param pages the new number of pages
+     * @param releaseDate the new release date
+     * @param authorId the id of the new author
+     * @return the number of updated books, 0 if the book doesn't exists
+     * @throws IllegalArgumentException if the id or author id is null or the author doesn't exists
+     */
+    @Override
+    public int updateBook(Long id, String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException {
+        if (id == null || authorId == null)
+            throw new IllegalArgumentException("Id cannot be null");
+
+        return locked(Arrays.asList(id), () -> withAuthorsOf(Arrays.asList(id), authorId), () -> {
+            BookView old = books.get(id);
+
+            if (old == null)
+                return 0;
+
+            checkAuthorExists(authorId);
+            putBook(old, newBookView(id, title, pages, releaseDate, authorId));
+            return 1;
+        });
+    }
+
+    /**
+     * Moves books to another author
+     * @param ids the book ids, at most MAX_BULK_SIZE entries
+     * @param authorId the id of the new author
+     * @return the number of updated books
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE, the author id is null or the author doesn't exists
+     */
+    @Override
+    public int updateBooksAuthor(Collection<Long> ids, Long authorId) throws IllegalArgumentException {
+        checkBulkSize(ids);
+
+        if (authorId == null)
+            throw new IllegalArgumentException("Author id cannot be null");
+
+        if (ids.isEmpty())
+            return 0;
+
+        return locked(ids, () -> withAuthorsOf(ids, authorId), () -> {
+            checkAuthorExists(authorId);
+            int updated = 0;
+
+            for (Long id: new HashSet<>(ids)) {
+                BookView old = id == null ? null : books.get(id);
+
+                if (old != null) {
+                    putBook(old, new BookView(id, old.getTitle(), old.getPages(), old.getReleaseDate(), authorId));
+                    ++updated;
+                }
+            }
+
+            return updated;
+        });
+    }
+
+    /**
+     * Removes books
+     * @param ids the book ids, at most MAX_BULK_SIZE entries
+     * @return the number of removed books
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     */
+    @Override
+    public int removeBooks(Collection<Long> ids) throws IllegalArgumentException {
+        checkBulkSize(ids);
+
+        if (ids.isEmpty())
+            return 0;
+
+        return locked(ids, () -> withAuthorsOf(ids, null), () -> {
+            int removed = 0;
+
+            for (Long id: new HashSet<>(ids)) {
+                BookView old = id == null ? null : books.get(id);
+
+                if (old != null) {
+                    deleteBook(old);
+                    ++removed;
+                }
+            }
+
+            return removed;
+        });
+    }
+
+    /**
+     * Removes authors together with all of their books, all book stripes are locked
+     * because the books of the authors are known only under the author locks
+     * @param ids the author ids, at most MAX_BULK_SIZE entries
+     * @return the number of removed authors
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     */
+    @Override
+    public int removeAuthorsCascading(Collection<Long> ids) throws IllegalArgumentException {
+        checkBulkSize(ids);
+
+        if (ids.isEmpty())
+            return 0;
+
+        return locked(null, () -> ids, () -> {
+            int removed = 0;
+
+            for (Long id: new HashSet<>(ids)) {
+                AuthorView old = id == null ? null : authors.get(id);
+
+                if (old == null)
+                    continue;
+
+                Set<Long> bookIds = booksByAuthor.get(id);
+
+                if (bookIds != null) {
+                    for (Long bookId: new ArrayList<>(bookIds)) {
+                        BookView book = books.get(bookId);
+
+                        if (book != null)
+                            deleteBook(book);
+                    }
+                }
+
+                deleteAuthor(old);
+                ++removed;
+            }
+
+            return removed;
+        });
+    }
+
+    /**
+     * Returns empty cache counters, there is no cache in front of the maps
+     * @return the counters snapshot
+     */
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return new CacheStatistics(0L, 0L, 0L, 0L);
+    }
+
+    /**
+     * Returns the merge counters, merges are serialized by the locks and never conflict
+     * @return the counters snapshot
+     */
+    @Override
+    public MergeStatistics getMergeStatistics() {
+        return new MergeStatistics(merges.sum(), 0L, 0L);
+    }
+
+    /**
+     * Returns an empty list, the calls are not measured so they stay an upper bound
+     * @return the empty list
+     */
+    @Override
+    public List<MethodStatistics> getStatistics() {
+        return new ArrayList<>();
+    }
+
+    /**
+     * Stores the author and updates the indexes, must be called under the author lock
+     * @param old the current author state or null for a new author
+     * @param author the new author state
+     */
+    private void putAuthor(AuthorView old, AuthorView author) {
+        long id = author.getId();
+        authors.put(id, author);
+
+        String key = TextNormalizer.normalize(author.getName());
+
+        if (old != null && !TextNormalizer.normalize(old.getName()).equals(key))
+            unindex(authorsByName, TextNormalizer.normalize(old.getName()), id);
+
+        index(authorsByName, key, id);
+        authorText.put(id, author);
+    }
+
+    /**
+     * Removes the author and its index entries, must be called under the author lock
+     * @param old the current author state
+     */
+    private void deleteAuthor(AuthorView old) {
+        long id = old.getId();
+        authors.remove(id);
+        unindex(authorsByName, TextNormalizer.normalize(old.getName()), id);
+        authorText.remove(id);
+
+        if (!assignedAuthorIds.isEmpty())
+            assignedAuthorIds.remove(id);
+    }
+
+    /**
+     * Stores the book and updates the indexes, must be called under the book lock
+     * and the locks of the old and new author
+     * @param old the current book state or null for a new book
+     * @param book the new book state
+     */
+    private void putBook(BookView old, BookView book) {
+        long id = book.getId();
+        books.put(id, book);
+
+        // readers skip release entries which are no longer the current state of the book
+        if (old != null)
+            releases.remove(old);
+
+        releases.add(book);
+
+        String key = TextNormalizer.normalize(book.getTitle());
+
+        if (old != null && !TextNormalizer.normalize(old.getTitle()).equals(key))
+            unindex(booksByTitle, TextNormalizer.normalize(old.getTitle()), id);
+
+        index(booksByTitle, key, id);
+
+        if (old == null || old.getAuthorId() != book.getAuthorId()) {
+            if (old != null)
+                unlinkBook(old);
+
+            booksByAuthor.computeIfAbsent(book.getAuthorId(), a -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+
+        bookText.put(id, book);
+    }
+
+    /**
+     * Removes the book and its index entries, must be called under the book and author locks
+     * @param old the current book state
+     */
+    private void deleteBook(BookView old) {
+        long id = old.getId();
+        books.remove(id);
+        releases.remove(old);
+        unindex(booksByTitle, TextNormalizer.normalize(old.getTitle()), id);
+        unlinkBook(old);
+        bookText.remove(id);
+
+        if (!assignedBookIds.isEmpty())
+            assignedBookIds.remove(id);
+    }
+
+    /**
+     * Removes the book from the books of its author, the set is dropped when it becomes empty
+     * so a present set always means the author has books
+     * @param book the book state
+     */
+    private void unlinkBook(BookView book) {
+        Set<Long> ids = booksByAuthor.get(book.getAuthorId());
+
+        if (ids != null) {
+            ids.remove(book.getId());
+
+            if (ids.isEmpty())
+                booksByAuthor.remove(book.getAuthorId());
+        }
+    }
+
+    /**
+     * Creates a book view with the defaults of the Book entity constructor
+     * @param id the book id
+     * @param title the book title
+     * @param pages the number of pages
+     * @param releaseDate the release date
+     * @param authorId the author id
+     * @return the book view
+     */
+    private static BookView newBookView(long id, String title, Long pages, Date releaseDate, Long authorId) {
+        return new BookView(id, title, pages == null ? 0L : pages, releaseDate == null ? new Date() : releaseDate, authorId);
+    }
+
+    /**
+     * Creates the release order search key
+     * @param releaseDate the release date
+     * @param id the book id
+     * @return the key comparable with the books in the release order
+     */
+    private static BookView releaseKey(Date releaseDate, long id) {
+        return new BookView(id, "", 0L, releaseDate, 0L);
+    }
+
+    /**
+     * Returns the author ids of the books extended with the additional author,
+     * must be called under the locks of the books
+     * @param bookIds the book ids
+     * @param authorId the additional author id or null
+     * @return the author ids
+     */
+    private List<Long> withAuthorsOf(Collection<Long> bookIds, Long authorId) {
+        Set<Long> authorIds = new HashSet<>();
+
+        for (Long id: bookIds) {
+            BookView book = id == null ? null : books.get(id);
+
+            if (book != null)
+                authorIds.add(book.getAuthorId());
+        }
+
+        if (authorId != null)
+            authorIds.add(authorId);
+
+        return new ArrayList<>(authorIds);
+    }
+
+    /**
+     * Returns the author or throws the DatabaseManager error for a missing author
+     * @param id the author id
+     * @return the author state
+     * @throws IllegalArgumentException if the author doesn't exists
+     */
+    private AuthorView checkAuthorExists(Long id) throws IllegalArgumentException {
+        AuthorView author = authors.get(id);
+
+        if (author == null)
+            throw new IllegalArgumentException("Author with id: " + id + " doesn't exists");
+
+        return author;
+    }
+
+    /**
+     * Returns the id of a new entity. A given id raises the generator past it, so the
+     * generator never returns it later, and the ids it jumps over are recorded for the scans
+     * @param given the id given by the caller or null
+     * @param last the last generated id
+     * @param skipped the ranges of ids the generator jumped over
+     * @return the given id or a generated one
+     */
+    private static long nextId(Long given, AtomicLong last, NavigableMap<Long, Long> skipped) {
+        if (given == null)
+            return last.incrementAndGet();
+
+        // non-positive ids are rejected by checkUnused
+        if (given > 0L) {
+            long previous = last.getAndAccumulate(given, Math::max);
+
+            if (given > previous + 1)
+                skipped.put(previous + 1, given);
+        }
+
+        return given;
+    }
+
+    /**
+     * Checks that the new ids are not used, must be called under the locks of the ids.
+     * Generated ids are checked too, an id given concurrently may have been generated
+     * before the generator was raised past it
+     * @param ids the given and generated ids of the new entities
+     * @param entities the entities by id
+     * @param type the entity type name used in the error message
+     * @throws IllegalArgumentException if any id is not positive, is used or occurs twice
+     */
+    private static void checkUnused(List<Long> ids, LongConcurrentMap<?> entities, String type) throws IllegalArgumentException {
+        Set<Long> unique = new HashSet<>();
+
+        for (Long id: ids) {
+            if (id <= 0L)
+                throw new IllegalArgumentException("Id must be a positive number");
+
+            if (entities.containsKey(id) || !unique.add(id))
+                throw new IllegalArgumentException(type + " with id: " + id + " already exists");
+        }
+    }
+
+    /**
+     * Runs the action under the locks of the books and then of the authors
+     * @param <T> the result type
+     * @param bookIds the book ids or null to lock all book stripes
+     * @param authorIds supplies the author ids once the books are locked
+     * @param action the action
+     * @return the action result
+     */
+    private <T> T locked(Collection<Long> bookIds, Supplier<Collection<Long>> authorIds, Supplier<T> action) {
+        boolean[] bookStripes = stripes(bookIds);
+        lock(bookLocks, bookStripes);
+
+        try {
+            boolean[] authorStripes = stripes(authorIds.get());
+            lock(authorLocks, authorStripes);
+
+            try {
+                return action.get();
+            } finally {
+                unlock(authorLocks, authorStripes);
+            }
+        } finally {
+            unlock(bookLocks, bookStripes);
+        }
+    }
+
+    /**
+     * Marks the stripes of given ids
+     * @param ids the ids or null for all stripes
+     * @return the marked stripes
+     */
+    private static boolean[] stripes(Collection<Long> ids) {
+        boolean[] stripes = new boolean[LOCK_STRIPES];
+
+        if (ids == null) {
+            Arrays.fill(stripes, true);
+            return stripes;
+        }
+
+        for (Long id: ids) {
+            if (id != null)
+                stripes[(int) (id ^ (id >>> 32)) & (LOCK_STRIPES - 1)] = true;
+        }
+
+        return stripes;
+    }
+
+    /**
+     * Locks the marked stripes in ascending order
+     * @param locks the locks
+     * @param stripes the marked stripes
+     */
+    private static void lock(ReentrantLock[] locks, boolean[] stripes) {
+        for (int i = 0; i < LOCK_STRIPES; ++i) {
+            if (stripes[i])
+                locks[i].lock();
+        }
+    }
+
+    /**
+     * Unlocks the marked stripes in descending order
+     * @param locks the locks
+     * @param stripes the marked stripes
+     */
+    private static void unlock(ReentrantLock[] locks, boolean[] stripes) {
+        for (int i = LOCK_STRIPES - 1; i >= 0; --i) {
+            if (stripes[i])
+                locks[i].unlock();
+        }
+    }
+
+    /**
+     * Creates the lock stripes
+     * @return the array of locks
+     */
+    private static ReentrantLock[] newLocks() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+        for (int i = 0; i < LOCK_STRIPES; ++i) {
+            locks[i] = new ReentrantLock();
+        }
+
+        return locks;
+    }
+
+    /**
+     * Adds the id to the index entry of the key
+     * @param index the index
+     * @param key the indexed key
+     * @param id the entity id
+     */
+    private static void index(ConcurrentMap<String, Set<Long>> index, String key, long id) {
+        index.compute(key, (k, ids) -> {
+            Set<Long> result = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            result.add(id);
+            return result;
+        });
+    }
+
+    /**
+     * Removes the id from the index entry of the key, empty entries are dropped
+     * @param index the index
+     * @param key the indexed key
+     * @param id the entity id
+     */
+    private static void unindex(ConcurrentMap<String, Set<Long>> index, String key, long id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Reads the entities of an index entry, entries are checked again
+     * because the index is updated after the entity map
+     * @param <T> the view type
+     * @param index the index
+     * @param key the indexed key
+     * @param entities the entities by id
+     * @param matches checks that the entity still has the indexed key
+     * @return the matching entities ordered by id
+     */
+    private static <T> List<T> lookup(ConcurrentMap<String, Set<Long>> index, String key,
+            LongConcurrentMap<T> entities, Predicate<T> matches) {
+        List<Long> ids = new ArrayList<>(index.getOrDefault(key, Collections.emptySet()));
+        Collections.sort(ids);
+        List<T> result = new ArrayList<>(ids.size());
+
+        for (Long id: ids) {
+            T entity = entities.get(id);
+
+            if (entity != null && matches.test(entity))
+                result.add(entity);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the page of entities following the last id, generated ids are assigned
+     * consecutively so they are found by probing the following ids, ids given
+     * by callers are read from their ordered set and merged in. The ranges the
+     * generator jumped over are not probed
+     * @param <T> the view type
+     * @param entities the entities by id
+     * @param lastAssigned the last generated id
+     * @param skipped the ranges of ids the generator jumped over
+     * @param assigned the ids given by callers
+     * @param lastId the id of the last entity from the previous page or null for the first page
+     * @param max the checked maximum number of entities in the page
+     * @return the page ordered by id
+     */
+    private static <T> List<T> scan(LongConcurrentMap<T> entities, AtomicLong lastAssigned, NavigableMap<Long, Long> skipped,
+            NavigableSet<Long> assigned, Long lastId, int max) {
+        long end = lastAssigned.get();
+        long after = Math.max(lastId == null ? 0L : lastId, 0L);
+        Iterator<Long> given = assigned.tailSet(after, false).iterator();
+        long next = given.hasNext() ? given.next() : Long.MAX_VALUE;
+        Long firstSkipped = skipped.floorKey(after + 1);
+        Iterator<Map.Entry<Long, Long>> ranges = skipped.tailMap(firstSkipped != null ? firstSkipped : after + 1).entrySet().iterator();
+        Map.Entry<Long, Long> range = ranges.hasNext() ? ranges.next() : null;
+        List<T> page = new ArrayList<>(Math.min(max, 64));
+
+        for (long id = after + 1; (id <= end || next != Long.MAX_VALUE) && page.size() < max; ++id) {
+            // jump over the gap before the next given id once the generated ids are exhausted
+            if (id > end) {
+                id = next;
+            } else if (range != null && id >= range.getKey()) {
+                // a skipped range holds only given ids, it ends with the given id which raised the generator
+                if (id < range.getValue())
+                    id = Math.min(next, range.getValue());
+
+                if (id >= range.getValue())
+                    range = ranges.hasNext() ? ranges.next() : null;
+            }
+
+            if (id == next)
+                next = given.hasNext() ? given.next() : Long.MAX_VALUE;
+
+            T entity = entities.get(id);
+
+            if (entity != null)
+                page.add(entity);
+        }
+
+        return page;
+    }
+
+    /**
+     * Returns the current books of the author
+     * @param authorId the author id
+     * @return the books ordered by id
+     */
+    private List<BookView> booksOf(long authorId) {
+        Set<Long> bookIds = booksByAuthor.get(authorId);
+        List<Long> ids = bookIds == null ? new ArrayList<>() : new ArrayList<>(bookIds);
+        Collections.sort(ids);
+        List<BookView> result = new ArrayList<>(ids.size());
+
+        for (Long id: ids) {
+            BookView book = books.get(id);
+
+            if (book != null && book.getAuthorId() == authorId)
+                result.add(book);
+        }
+
+        return result;
+    }
+
+    /**
+     * Aggregates the books of the author
+     * @param author the author state
+     * @return the author book aggregates
+     */
+    private AuthorStatistics statisticsOf(AuthorView author) {
+        BookStatistics owned = aggregate(booksOf(author.getId()));
+        return new AuthorStatistics(author.getId(), author.getName(), author.getLastName(),
+                owned.getCount(), owned.getTotalPages(), owned.getAveragePages(), owned.getMinPages(), owned.getMaxPages(),
+                owned.getFirstRelease(), owned.getLastRelease());
+    }
+
+    /**
+     * Aggregates given books in the same way as the SQL aggregate functions
+     * @param views the books
+     * @return the aggregates
+     */
+    private static BookStatistics aggregate(Collection<BookView> views) {
+        if (views.isEmpty())
+            return new BookStatistics(0L, null, null, null, null, null, null);
+
+        long total = 0L;
+        long minPages = Long.MAX_VALUE;
+        long maxPages = Long.MIN_VALUE;
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+
+        for (BookView view: views) {
+            total += view.getPages();
+            minPages = Math.min(minPages, view.getPages());
+            maxPages = Math.max(maxPages, view.getPages());
+            first = Math.min(first, view.getReleaseTime());
+            last = Math.max(last, view.getReleaseTime());
+        }
+
+        return new BookStatistics((long) views.size(), total, (double) total / views.size(),
+                minPages, maxPages, new Date(first), new Date(last));
+    }
+
+    /**
+     * Creates detached Author entities
+     * @param views the author states
+     * @param plan the fetch plan, AUTHOR_WITH_BOOKS fills the books lists
+     * @return the entities in the order of given views
+     */
+    private List<Author> toAuthors(List<AuthorView> views, FetchPlan plan) {
+        List<Author> result = new ArrayList<>(views.size());
+
+        for (AuthorView view: views) {
+            result.add(toAuthor(view, plan));
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates detached Author entity
+     * @param view the author state
+     * @param plan the fetch plan, AUTHOR_WITH_BOOKS fills the books list
+     * @return the entity
+     */
+    private Author toAuthor(AuthorView view, FetchPlan plan) {
+        Author author = new Author(view.getId(), view.getName(), view.getLastName(), null);
+
+        if (plan == FetchPlan.AUTHOR_WITH_BOOKS) {
+            for (BookView book: booksOf(view.getId())) {
+                author.getBooks().add(new Book(book.getId(), book.getTitle(), book.getPages(), book.getReleaseDate(), author));
+            }
+        }
+
+        return author;
+    }
+
+    /**
+     * Creates detached Book entities, books of the same author share the Author instance
+     * @param views the book states
+     * @return the entities in the order of given views
+     */
+    private List<Book> toBooks(List<BookView> views) {
+        Map<Long, Author> bookAuthors = new HashMap<>();
+        List<Book> result = new ArrayList<>(views.size());
+
+        for (BookView view: views) {
+            Author author = bookAuthors.computeIfAbsent(view.getAuthorId(), id -> {
+                AuthorView state = authors.get(id);
+                return state == null ? new Author(id, "", "", null) : toAuthor(state, FetchPlan.AUTHOR_ONLY);
+            });
+
+            result.add(new Book(view.getId(), view.getTitle(), view.getPages(), view.getReleaseDate(), author));
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks the entity id
+     * @param id the id
+     * @throws IllegalArgumentException if the id is null
+     */
+    private static void checkId(Long id) throws IllegalArgumentException {
+        if (id == null)
+            throw new IllegalArgumentException("Id cannot be null");
+    }
+
+    /**
+     * Checks the fetch plan of an author query
+     * @param plan the fetch plan
+     * @param query the base query name
+     * @throws IllegalArgumentException if the plan is null or does not apply to authors
+     */
+    private static void checkAuthorPlan(FetchPlan plan, String query) throws IllegalArgumentException {
+        if (plan == null)
+            throw new IllegalArgumentException("Fetch plan cannot be null");
+
+        plan.queryName(Author.class, query);
+    }
+
+    /**
+     * Checks the size of a bulk operation
+     * @param entries the collection of entries
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     */
+    private static void checkBulkSize(Collection<?> entries) throws IllegalArgumentException {
+        if (entries == null)
+            throw new IllegalArgumentException("Entries collection cannot be null");
+
+        if (entries.size() > MAX_BULK_SIZE)
+            throw new IllegalArgumentException("At most " + MAX_BULK_SIZE + " entries can be processed at once");
+    }
+
+    /**
+     * Checks the page limit and lowers it to MAX_PAGE_SIZE
+     * @param limit the requested limit
+     * @return the applied limit
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    private static int checkLimit(int limit) throws IllegalArgumentException {
+        return checkLimit(limit, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Checks the page limit and lowers it to given maximum
+     * @param limit the requested limit
+     * @param max the largest allowed limit
+     * @return the applied limit
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    private static int checkLimit(int limit, int max) throws IllegalArgumentException {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Page limit must be a positive number");
+
+        return Math.min(limit, max);
+    }
+}
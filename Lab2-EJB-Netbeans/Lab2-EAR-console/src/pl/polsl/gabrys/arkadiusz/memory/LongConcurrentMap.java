@@ -0,0 +1,467 @@
+package pl.polsl.gabrys.arkadiusz.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+
+/**
+ * Concurrent hash map keyed by primitive long values. Keys are stored in
+ * open addressing arrays without boxing. The table is split into segments,
+ * writers lock a single segment and readers do not lock at all unless
+ * they race with a writer of the same segment.
+ * The key 0 is reserved for empty slots, entity ids never use it.
+ * @param <V> the value type
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class LongConcurrentMap<V> {
+
+    /**
+     * Key marking an empty slot
+     */
+    private static final long EMPTY = 0L;
+
+    /**
+     * Initial number of slots of every segment
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Segments, their number is a power of two
+     */
+    private final Segment<V>[] segments;
+
+    /**
+     * Number of hash bits which are not used to select the segment
+     */
+    private final int segmentShift;
+
+    /**
+     * Initializes map with the number of segments suited to the available processors
+     */
+    public LongConcurrentMap() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Initializes map with given concurrency level
+     * @param concurrency the expected number of concurrent writers, rounded up to a power of two
+     * @throws IllegalArgumentException if the concurrency is not a positive number
+     */
+    @SuppressWarnings("unchecked")
+    public LongConcurrentMap(int concurrency) throws IllegalArgumentException {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("Concurrency must be a positive number");
+
+        int count = Integer.highestOneBit(Math.min(concurrency, 1 << 16) * 2 - 1);
+        segments = (Segment<V>[]) new Segment<?>[count];
+        segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+
+        for (int i = 0; i < count; ++i) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    /**
+     * Returns the value mapped to the key
+     * @param key the key
+     * @return the value or null if the key is not mapped
+     */
+    public V get(long key) {
+        if (key == EMPTY)
+            return null;
+
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * Checks whether the key is mapped
+     * @param key the key
+     * @return true if the key is mapped to some value
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the key to the value
+     * @param key the key, cannot be 0
+     * @param value the value, cannot be null
+     * @return the previous value or null if the key was not mapped
+     * @throws IllegalArgumentException if the key is 0 or the value is null
+     */
+    public V put(long key, V value) throws IllegalArgumentException {
+        if (key == EMPTY || value == null)
+            throw new IllegalArgumentException("Key cannot be 0 and value cannot be null");
+
+        int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value);
+    }
+
+    /**
+     * Maps the key to the value returned by the function unless the key is already mapped,
+     * the function is called under the segment lock at most once
+     * @param key the key, cannot be 0
+     * @param function the function creating the value
+     * @return the current or the created value
+     * @throws IllegalArgumentException if the key is 0 or the function returns null
+     */
+    public V computeIfAbsent(long key, LongFunction<V> function) throws IllegalArgumentException {
+        V value = get(key);
+
+        if (value != null)
+            return value;
+
+        if (key == EMPTY)
+            throw new IllegalArgumentException("Key cannot be 0");
+
+        int hash = hash(key);
+        return segmentFor(hash).computeIfAbsent(key, hash, function);
+    }
+
+    /**
+     * Removes the mapping of the key
+     * @param key the key
+     * @return the removed value or null if the key was not mapped
+     */
+    public V remove(long key) {
+        if (key == EMPTY)
+            return null;
+
+        int hash = hash(key);
+        return segmentFor(hash).remove(key, hash);
+    }
+
+    /**
+     * Returns the number of mappings, not atomic with respect to concurrent writers
+     * @return the number of mappings
+     */
+    public int size() {
+        int size = 0;
+
+        for (Segment<V> segment: segments) {
+            size += segment.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Copies all values, every segment is copied atomically
+     * but the copy is not atomic with respect to writers of other segments
+     * @return the list with all values in no particular order
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>();
+
+        for (Segment<V> segment: segments) {
+            segment.copyValues(values);
+        }
+
+        return values;
+    }
+
+    /**
+     * Removes all mappings
+     */
+    public void clear() {
+        for (Segment<V> segment: segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Mixes the key bits, the high bits select the segment and the low bits the slot
+     * @param key the key
+     * @return the hash
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the segment owning given hash
+     * @param hash the key hash
+     * @return the segment
+     */
+    private Segment<V> segmentFor(int hash) {
+        return segmentShift == 32 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    /**
+     * Linear probing table guarded by its own lock
+     * @param <V> the value type
+     */
+    private static final class Segment<V> extends StampedLock {
+
+        /**
+         * Keys of the slots, EMPTY for free slots
+         */
+        private long[] keys = new long[INITIAL_CAPACITY];
+
+        /**
+         * Values of the slots
+         */
+        private Object[] values = new Object[INITIAL_CAPACITY];
+
+        /**
+         * Number of used slots
+         */
+        private int size;
+
+        /**
+         * Finds the value, first without locking and again under the read lock
+         * if a writer modified the segment in the meantime
+         * @param key the key
+         * @param hash the key hash
+         * @return the value or null if the key is not mapped
+         */
+        V get(long key, int hash) {
+            long stamp = tryOptimisticRead();
+
+            if (stamp != 0L) {
+                V value = find(keys, values, key, hash);
+
+                if (validate(stamp))
+                    return value;
+            }
+
+            stamp = readLock();
+
+            try {
+                return find(keys, values, key, hash);
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Maps the key under the write lock
+         * @param key the key
+         * @param hash the key hash
+         * @param value the value
+         * @return the previous value or null if the key was not mapped
+         */
+        V put(long key, int hash, V value) {
+            long stamp = writeLock();
+
+            try {
+                return insert(key, hash, value);
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Maps the key to the computed value under the write lock unless it is already mapped
+         * @param key the key
+         * @param hash the key hash
+         * @param function the function creating the value
+         * @return the current or the created value
+         * @throws IllegalArgumentException if the function returns null
+         */
+        V computeIfAbsent(long key, int hash, LongFunction<V> function) throws IllegalArgumentException {
+            long stamp = writeLock();
+
+            try {
+                V value = find(keys, values, key, hash);
+
+                if (value == null) {
+                    value = function.apply(key);
+
+                    if (value == null)
+                        throw new IllegalArgumentException("Computed value cannot be null");
+
+                    insert(key, hash, value);
+                }
+
+                return value;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Removes the key under the write lock, the following slots of the
+         * probe sequence are shifted back so no tombstones are needed
+         * @param key the key
+         * @param hash the key hash
+         * @return the removed value or null if the key was not mapped
+         */
+        @SuppressWarnings("unchecked")
+        V remove(long key, int hash) {
+            long stamp = writeLock();
+
+            try {
+                int mask = keys.length - 1;
+                int slot = hash & mask;
+
+                while (keys[slot] != key) {
+                    if (keys[slot] == EMPTY)
+                        return null;
+
+                    slot = (slot + 1) & mask;
+                }
+
+                V old = (V) values[slot];
+                int hole = slot;
+
+                for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+                    int home = hash(keys[next]) & mask;
+
+                    // the entry may fill the hole only if the hole lies on its probe path
+                    if (((next - home) & mask) >= ((next - hole) & mask)) {
+                        keys[hole] = keys[next];
+                        values[hole] = values[next];
+                        hole = next;
+                    }
+                }
+
+                keys[hole] = EMPTY;
+                values[hole] = null;
+                --size;
+                return old;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Returns the number of used slots
+         * @return the number of mappings in this segment
+         */
+        int size() {
+            long stamp = readLock();
+
+            try {
+                return size;
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Appends all values of this segment to the list
+         * @param target the list to append to
+         */
+        @SuppressWarnings("unchecked")
+        void copyValues(List<V> target) {
+            long stamp = readLock();
+
+            try {
+                for (int i = 0; i < keys.length; ++i) {
+                    if (keys[i] != EMPTY)
+                        target.add((V) values[i]);
+                }
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Removes all mappings of this segment
+         */
+        void clear() {
+            long stamp = writeLock();
+
+            try {
+                keys = new long[INITIAL_CAPACITY];
+                values = new Object[INITIAL_CAPACITY];
+                size = 0;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Inserts or replaces the mapping, must be called under the write lock
+         * @param key the key
+         * @param hash the key hash
+         * @param value the value
+         * @return the previous value or null if the key was not mapped
+         */
+        @SuppressWarnings("unchecked")
+        private V insert(long key, int hash, V value) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    V old = (V) values[slot];
+                    values[slot] = value;
+                    return old;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = key;
+            values[slot] = value;
+
+            // keep the load factor at most 1/2 so probe sequences stay short
+            if (++size * 2 > keys.length)
+                resize();
+
+            return null;
+        }
+
+        /**
+         * Doubles the table, the new arrays are published only when fully filled
+         * so optimistic readers of the old arrays never see a partial table
+         */
+        private void resize() {
+            long[] newKeys = new long[keys.length * 2];
+            Object[] newValues = new Object[values.length * 2];
+            int mask = newKeys.length - 1;
+
+            for (int i = 0; i < keys.length; ++i) {
+                if (keys[i] != EMPTY) {
+                    int slot = hash(keys[i]) & mask;
+
+                    while (newKeys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+
+                    newKeys[slot] = keys[i];
+                    newValues[slot] = values[i];
+                }
+            }
+
+            keys = newKeys;
+            values = newValues;
+        }
+
+        /**
+         * Probes the arrays for the key, the number of probes is bounded
+         * so a reader racing with a writer always terminates
+         * @param <V> the value type
+         * @param keys the keys array
+         * @param values the values array
+         * @param key the key
+         * @param hash the key hash
+         * @return the value or null if the key was not found
+         */
+        @SuppressWarnings("unchecked")
+        private static <V> V find(long[] keys, Object[] values, long key, int hash) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+
+            for (int probes = 0; probes < keys.length; ++probes) {
+                long current = keys[slot];
+
+                if (current == key)
+                    return slot < values.length ? (V) values[slot] : null;
+
+                if (current == EMPTY)
+                    return null;
+
+                slot = (slot + 1) & mask;
+            }
+
+            return null;
+        }
+    }
+}
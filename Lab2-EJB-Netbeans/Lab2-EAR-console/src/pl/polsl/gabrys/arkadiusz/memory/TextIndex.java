@@ -0,0 +1,272 @@
+package pl.polsl.gabrys.arkadiusz.memory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import pl.polsl.gabrys.arkadiusz.model.TextNormalizer;
+
+/**
+ * Token and prefix index over a text of every entry.
+ * Reads never lock, writers of the same id must be serialized by the caller.
+ * Writers of different ids sharing a token update its id set under the lock stripe
+ * of the token, so a set is never dropped while another writer adds to it.
+ * @param <T> the indexed entry type
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class TextIndex<T> {
+
+    /**
+     * Number of token lock stripes, a power of two
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * Function returning the indexed text of an entry
+     */
+    private final Function<T, String> indexedText;
+
+    /**
+     * Indexed entries by id
+     */
+    private final LongConcurrentMap<T> entries = new LongConcurrentMap<>();
+
+    /**
+     * Ids of entries by folded tokens
+     */
+    private final ConcurrentNavigableMap<String, Set<Long>> tokens = new ConcurrentSkipListMap<>();
+
+    /**
+     * Token lock stripes
+     */
+    private final Object[] tokenLocks = new Object[LOCK_STRIPES];
+
+    /**
+     * Initializes index with given parameter
+     * @param indexedText the function returning the indexed text of an entry
+     */
+    public TextIndex(Function<T, String> indexedText) {
+        this.indexedText = indexedText;
+
+        for (int i = 0; i < LOCK_STRIPES; ++i) {
+            tokenLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Adds or replaces the indexed entry
+     * @param id the entry id
+     * @param entry the current entry state
+     */
+    public void put(long id, T entry) {
+        T old = entries.put(id, entry);
+
+        if (old != null)
+            unindex(id, indexedText.apply(old));
+
+        index(id, indexedText.apply(entry));
+    }
+
+    /**
+     * Removes the entry from the index
+     * @param id the entry id
+     */
+    public void remove(long id) {
+        T old = entries.remove(id);
+
+        if (old != null)
+            unindex(id, indexedText.apply(old));
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        entries.clear();
+        tokens.clear();
+    }
+
+    /**
+     * Finds entries whose text tokens start with every token of the given text
+     * @param text the searched text
+     * @param limit the maximum number of results
+     * @return the entries ordered by relevance
+     */
+    public List<T> search(String text, int limit) {
+        List<String> query = tokenize(text == null ? "" : text);
+
+        if (query.isEmpty() || limit <= 0)
+            return new ArrayList<>();
+
+        // the longest query token is usually the most selective one
+        String seed = Collections.max(query, Comparator.comparingInt(String::length));
+        List<Match<T>> matches = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+
+        for (Set<Long> ids: tokens.subMap(seed, true, seed + Character.MAX_VALUE, true).values()) {
+            for (Long id: ids) {
+                // an entry is reached once for every indexed token matching the seed
+                if (!visited.add(id))
+                    continue;
+
+                T entry = entries.get(id);
+
+                if (entry == null)
+                    continue;
+
+                String indexed = indexedText.apply(entry);
+                int score = score(query, tokenize(indexed));
+
+                if (score > 0)
+                    matches.add(new Match<>(entry, id, score, indexed.length()));
+            }
+        }
+
+        matches.sort(Comparator.<Match<T>>comparingInt(m -> -m.score)
+                .thenComparingInt(m -> m.length)
+                .thenComparingLong(m -> m.id));
+
+        List<T> result = new ArrayList<>();
+
+        for (Match<T> match: matches.subList(0, Math.min(limit, matches.size()))) {
+            result.add(match.entry);
+        }
+
+        return result;
+    }
+
+    /**
+     * Splits the text into folded tokens
+     * @param text the text to split
+     * @return the list of non empty tokens
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+
+        for (String token: TextNormalizer.fold(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty())
+                tokens.add(token);
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Scores the indexed tokens against the query, every query token
+     * must be a prefix of some indexed token, whole token matches score higher
+     * @param query the query tokens
+     * @param indexed the indexed tokens
+     * @return the score or 0 if some query token does not match
+     */
+    private static int score(List<String> query, List<String> indexed) {
+        int score = 0;
+
+        for (String token: query) {
+            int best = 0;
+
+            for (String candidate: indexed) {
+                if (candidate.equals(token)) {
+                    best = 2;
+                    break;
+                } else if (candidate.startsWith(token)) {
+                    best = 1;
+                }
+            }
+
+            if (best == 0)
+                return 0;
+
+            score += best;
+        }
+
+        return score;
+    }
+
+    /**
+     * Adds the id under all tokens of given text
+     * @param id the entry id
+     * @param text the indexed text
+     */
+    private void index(long id, String text) {
+        for (String token: tokenize(text)) {
+            synchronized (lockOf(token)) {
+                tokens.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Removes the id from all tokens of given text, tokens left without ids are dropped
+     * @param id the entry id
+     * @param text the indexed text
+     */
+    private void unindex(long id, String text) {
+        for (String token: tokenize(text)) {
+            // the skip list computes by retrying, so the removal of an empty set is guarded by the stripe
+            synchronized (lockOf(token)) {
+                Set<Long> ids = tokens.get(token);
+
+                if (ids != null && ids.remove(id) && ids.isEmpty())
+                    tokens.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Returns the lock stripe of the token
+     * @param token the folded token
+     * @return the lock guarding the id set of the token
+     */
+    private Object lockOf(String token) {
+        int hash = token.hashCode();
+        return tokenLocks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Single ranked search result
+     * @param <T> the entry type
+     */
+    private static class Match<T> {
+
+        /**
+         * Matched entry
+         */
+        private final T entry;
+
+        /**
+         * Matched entry id
+         */
+        private final long id;
+
+        /**
+         * Relevance score
+         */
+        private final int score;
+
+        /**
+         * Length of the indexed text, shorter texts rank higher
+         */
+        private final int length;
+
+        /**
+         * Initializes instance with given parameters
+         * @param entry the matched entry
+         * @param id the matched entry id
+         * @param score the relevance score
+         * @param length the length of the indexed text
+         */
+        private Match(T entry, long id, int score, int length) {
+            this.entry = entry;
+            this.id = id;
+            this.score = score;
+            this.length = length;
+        }
+    }
+}
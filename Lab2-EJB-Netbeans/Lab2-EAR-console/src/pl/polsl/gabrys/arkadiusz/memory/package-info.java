@@ -0,0 +1,9 @@
+/**
+ * Contains the in-memory DatabaseManagerRemote implementation and the
+ * concurrent data structures it is built from
+ *
+ * @since 1.0
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+package pl.polsl.gabrys.arkadiusz.memory;
@@ -4,15 +4,22 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.Version;
 
 /**
  * Class represents single Author entry in author table
@@ -20,11 +27,43 @@ import javax.persistence.OneToMany;
  * @version 1.0
  */
 @Entity
+@Cacheable
+@Table(indexes = @Index(name = "AUTHOR_NORMALIZEDNAME_IDX", columnList = "NORMALIZEDNAME"))
 @NamedQueries({
   @NamedQuery(name="Author.findAll",
               query="SELECT e FROM Author e"),
+  @NamedQuery(name="Author.findAllWithBooks",
+              query="SELECT DISTINCT e FROM Author e LEFT JOIN FETCH e.books"),
+  @NamedQuery(name="Author.findByIdWithBooks",
+              query="SELECT DISTINCT e FROM Author e LEFT JOIN FETCH e.books WHERE e.id = :id"),
+  @NamedQuery(name="Author.findByIds",
+              query="SELECT e FROM Author e WHERE e.id IN :ids"),
   @NamedQuery(name="Author.findByName",
-              query="SELECT e FROM Author e WHERE e.name = :name")
+              query="SELECT e FROM Author e WHERE e.normalizedName = :name"),
+  @NamedQuery(name="Author.findByNameWithBooks",
+              query="SELECT DISTINCT e FROM Author e LEFT JOIN FETCH e.books WHERE e.normalizedName = :name"),
+  @NamedQuery(name="Author.findAfter",
+              query="SELECT e FROM Author e WHERE e.id > :lastId ORDER BY e.id"),
+  @NamedQuery(name="Author.findViewsAfter",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.AuthorView(e.id, e.name, e.lastName) FROM Author e WHERE e.id > :lastId ORDER BY e.id"),
+  @NamedQuery(name="Author.findAllViews",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.AuthorView(e.id, e.name, e.lastName) FROM Author e ORDER BY e.id"),
+  @NamedQuery(name="Author.findIdsAfter",
+              query="SELECT e.id FROM Author e WHERE e.id > :lastId ORDER BY e.id"),
+  @NamedQuery(name="Author.findByIdsWithBooks",
+              query="SELECT DISTINCT e FROM Author e LEFT JOIN FETCH e.books WHERE e.id IN :ids ORDER BY e.id"),
+  @NamedQuery(name="Author.updateById",
+              query="UPDATE Author e SET e.version = e.version + 1, e.name = :name, e.normalizedName = :normalizedName, e.lastName = :lastName WHERE e.id = :id"),
+  @NamedQuery(name="Author.deleteByIds",
+              query="DELETE FROM Author e WHERE e.id IN :ids"),
+  @NamedQuery(name="Author.count",
+              query="SELECT COUNT(e) FROM Author e"),
+  @NamedQuery(name="Author.statisticsById",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.AuthorStatistics(e.id, e.name, e.lastName, COUNT(b), SUM(b.pages), AVG(b.pages), MIN(b.pages), MAX(b.pages), MIN(b.releaseDate), MAX(b.releaseDate)) FROM Author e LEFT JOIN e.books b WHERE e.id = :id GROUP BY e.id, e.name, e.lastName"),
+  @NamedQuery(name="Author.statisticsAfter",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.AuthorStatistics(e.id, e.name, e.lastName, COUNT(b), SUM(b.pages), AVG(b.pages), MIN(b.pages), MAX(b.pages), MIN(b.releaseDate), MAX(b.releaseDate)) FROM Author e LEFT JOIN e.books b WHERE e.id > :lastId GROUP BY e.id, e.name, e.lastName ORDER BY e.id"),
+  @NamedQuery(name="Author.statisticsByBookCount",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.AuthorStatistics(e.id, e.name, e.lastName, COUNT(b), SUM(b.pages), AVG(b.pages), MIN(b.pages), MAX(b.pages), MIN(b.releaseDate), MAX(b.releaseDate)) FROM Author e LEFT JOIN e.books b GROUP BY e.id, e.name, e.lastName ORDER BY COUNT(b) DESC, e.id")
 })
 public class Author implements Serializable {
     
@@ -33,7 +72,8 @@ public class Author implements Serializable {
      */
     @Id
     @Column(nullable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TableGenerator(name = "AuthorIdGenerator", table = "ID_GENERATOR", pkColumnValue = "Author", allocationSize = 500)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "AuthorIdGenerator")
     private Long id;
     
     /**
@@ -42,6 +82,13 @@ public class Author implements Serializable {
     @Column(nullable = false)
     private String name;
     
+    /**
+     * Author name in the lookup form of TextNormalizer, maintained on every
+     * persist and update so name lookups are index seeks
+     */
+    @Column(nullable = false)
+    private String normalizedName;
+    
     /**
      * Author last name
      */
@@ -49,9 +96,16 @@ public class Author implements Serializable {
     private String lastName;
     
     /**
-     * Author books
+     * Optimistic lock version, incremented by every update of the author
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    /**
+     * Author books, loaded only by the AUTHOR_WITH_BOOKS fetch plan
      */
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "author")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "author")
     private List<Book> books;
     
     /**
@@ -78,6 +132,7 @@ public class Author implements Serializable {
      */
     public Author(String name, String lastName, List<Book> books) {
         this.name = name == null ? "" : name;
+        this.normalizedName = TextNormalizer.normalize(this.name);
         this.lastName = lastName == null ? "" : lastName;
         
         if (books == null) {
@@ -87,16 +142,38 @@ public class Author implements Serializable {
         }
     }
 
+    /**
+     * Initializes detached instance with known id, used by implementations
+     * which do not go through the persistence context
+     * @param id the author id
+     * @param name the author name
+     * @param lastName the author last name
+     * @param books the author books list
+     */
+    public Author(Long id, String name, String lastName, List<Book> books) {
+        this(name, lastName, books);
+        this.id = id;
+    }
+
     public Long getId() {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
 
     public void setName(String name) {
         this.name = name;
+        this.normalizedName = TextNormalizer.normalize(name);
+    }
+
+    public String getNormalizedName() {
+        return normalizedName;
     }
 
     public String getLastName() {
@@ -115,6 +192,15 @@ public class Author implements Serializable {
         this.books = books;
     }
     
+    /**
+     * Recomputes the normalized name before the entity is written
+     */
+    @PrePersist
+    @PreUpdate
+    protected void normalize() {
+        normalizedName = TextNormalizer.normalize(name);
+    }
+    
     /**
      * Compares current object with the given one 
      * @param obj the object to compare
@@ -145,11 +231,11 @@ public class Author implements Serializable {
     }
     
     /**
-     * Calculates hash code which represents current object
+     * Calculates hash code which represents current object, consistent with equals
      * @return the number which represents current object
      */
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        return Objects.hashCode(this.getId());
     }
 }
@@ -3,18 +3,26 @@ package pl.polsl.gabrys.arkadiusz.model;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.Objects;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
 
 /**
  * Class represents single Book entry in book table
@@ -22,11 +30,49 @@ import javax.persistence.TemporalType;
  * @version 1.0
  */
 @Entity
+@Cacheable
 @NamedQueries({
   @NamedQuery(name="Book.findAll",
-              query="SELECT e FROM Book e"),
+              query="SELECT e FROM Book e JOIN FETCH e.author"),
+  @NamedQuery(name="Book.findById",
+              query="SELECT e FROM Book e JOIN FETCH e.author WHERE e.id = :id"),
+  @NamedQuery(name="Book.findIdsByAuthor",
+              query="SELECT e.id FROM Book e WHERE e.author.id = :authorId"),
   @NamedQuery(name="Book.findByTitle",
-              query="SELECT e FROM Book e WHERE e.title = :title")
+              query="SELECT e FROM Book e JOIN FETCH e.author WHERE e.normalizedTitle = :title"),
+  @NamedQuery(name="Book.findAfter",
+              query="SELECT e FROM Book e JOIN FETCH e.author WHERE e.id > :lastId ORDER BY e.id"),
+  @NamedQuery(name="Book.findViewsAfter",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.BookView(e.id, e.title, e.pages, e.releaseDate, e.author.id) FROM Book e WHERE e.id > :lastId ORDER BY e.id"),
+  @NamedQuery(name="Book.findAllViews",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.BookView(e.id, e.title, e.pages, e.releaseDate, e.author.id) FROM Book e ORDER BY e.id"),
+  @NamedQuery(name="Book.findViewsByIds",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.BookView(e.id, e.title, e.pages, e.releaseDate, e.author.id) FROM Book e WHERE e.id IN :ids"),
+  @NamedQuery(name="Book.findAuthorIdsByIds",
+              query="SELECT DISTINCT e.author.id FROM Book e WHERE e.id IN :ids"),
+  @NamedQuery(name="Book.findIdsByAuthors",
+              query="SELECT e.id FROM Book e WHERE e.author.id IN :authorIds"),
+  @NamedQuery(name="Book.updateById",
+              query="UPDATE Book e SET e.version = e.version + 1, e.title = :title, e.normalizedTitle = :normalizedTitle, e.pages = :pages, e.releaseDate = :releaseDate, e.author = :author WHERE e.id = :id"),
+  @NamedQuery(name="Book.updateAuthorByIds",
+              query="UPDATE Book e SET e.version = e.version + 1, e.author = :author WHERE e.id IN :ids"),
+  @NamedQuery(name="Book.deleteByIds",
+              query="DELETE FROM Book e WHERE e.id IN :ids"),
+  @NamedQuery(name="Book.deleteByAuthors",
+              query="DELETE FROM Book e WHERE e.author.id IN :authorIds"),
+  @NamedQuery(name="Book.findViewsReleasedBetween",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.BookView(e.id, e.title, e.pages, e.releaseDate, e.author.id) FROM Book e WHERE e.releaseDate >= :from AND e.releaseDate <= :to AND (e.releaseDate > :lastDate OR (e.releaseDate = :lastDate AND e.id > :lastId)) ORDER BY e.releaseDate, e.id"),
+  @NamedQuery(name="Book.findLatestViews",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.BookView(e.id, e.title, e.pages, e.releaseDate, e.author.id) FROM Book e ORDER BY e.releaseDate DESC, e.id DESC"),
+  @NamedQuery(name="Book.findLatestViewsBefore",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.BookView(e.id, e.title, e.pages, e.releaseDate, e.author.id) FROM Book e WHERE e.releaseDate < :lastDate OR (e.releaseDate = :lastDate AND e.id < :lastId) ORDER BY e.releaseDate DESC, e.id DESC"),
+  @NamedQuery(name="Book.statistics",
+              query="SELECT NEW pl.polsl.gabrys.arkadiusz.dto.BookStatistics(COUNT(e), SUM(e.pages), AVG(e.pages), MIN(e.pages), MAX(e.pages), MIN(e.releaseDate), MAX(e.releaseDate)) FROM Book e")
+})
+@Table(indexes = {
+  @Index(name="BOOK_RELEASEDATE_IDX", columnList="RELEASEDATE, ID"),
+  @Index(name="BOOK_AUTHOR_IDX", columnList="AUTHOR_ID"),
+  @Index(name="BOOK_NORMALIZEDTITLE_IDX", columnList="NORMALIZEDTITLE")
 })
 public class Book implements Serializable {
     
@@ -35,7 +81,8 @@ public class Book implements Serializable {
      */
     @Id
     @Column(nullable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TableGenerator(name = "BookIdGenerator", table = "ID_GENERATOR", pkColumnValue = "Book", allocationSize = 500)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "BookIdGenerator")
     private Long id;
     
     /**
@@ -44,6 +91,13 @@ public class Book implements Serializable {
     @Column(nullable = false)
     private String title;
     
+    /**
+     * Book title in the lookup form of TextNormalizer, maintained on every
+     * persist and update so title lookups are index seeks
+     */
+    @Column(nullable = false)
+    private String normalizedTitle;
+    
     /**
      * Number of pages in book
      */
@@ -51,17 +105,25 @@ public class Book implements Serializable {
     private Long pages;
     
     /**
-     * Book release date
+     * Book release date, indexed together with the id for range and latest releases queries
      */
     @Column(nullable = false)
     @Temporal(TemporalType.DATE)
     private Date releaseDate;
     
     /**
-     * Author of the book
+     * Optimistic lock version, incremented by every update of the book
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    /**
+     * Author of the book, always fetched together with the book by the BOOK_WITH_AUTHOR fetch plan,
+     * the foreign key is indexed for the per author queries
      */
     @JoinColumn(nullable = false)
-    @ManyToOne(cascade = CascadeType.PERSIST)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
     private Author author;
 
     /**
@@ -102,6 +164,8 @@ public class Book implements Serializable {
             this.title = title;
         }
         
+        this.normalizedTitle = TextNormalizer.normalize(this.title);
+        
         if (pages == null) {
             this.pages = 0L;
         } else {
@@ -117,16 +181,38 @@ public class Book implements Serializable {
         this.author = author;
     }
 
+    /**
+     * Initializes instance with an already assigned id
+     * @param id the book id
+     * @param title the book title
+     * @param pages the number of pages
+     * @param releaseDate the book release date
+     * @param author the book author
+     */
+    public Book(Long id, String title, Long pages, Date releaseDate, Author author) {
+        this(title, pages, releaseDate, author);
+        this.id = id;
+    }
+
     public Long getId() {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getTitle() {
         return title;
     }
 
     public void setTitle(String title) {
         this.title = title;
+        this.normalizedTitle = TextNormalizer.normalize(title);
+    }
+
+    public String getNormalizedTitle() {
+        return normalizedTitle;
     }
 
     public Long getPages() {
@@ -153,6 +239,15 @@ public class Book implements Serializable {
         this.author = author;
     }
     
+    /**
+     * Recomputes the normalized title before the entity is written
+     */
+    @PrePersist
+    @PreUpdate
+    protected void normalize() {
+        normalizedTitle = TextNormalizer.normalize(title);
+    }
+    
     /**
      * Compares current object with the given one
      * @param obj the object to compare
@@ -183,11 +278,11 @@ public class Book implements Serializable {
     }
     
     /**
-     * Calculates hash code which represents current object
+     * Calculates hash code which represents current object, consistent with equals
      * @return the number which represents current object
      */
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        return Objects.hashCode(this.getId());
     }
 }
@@ -0,0 +1,65 @@
+package pl.polsl.gabrys.arkadiusz.model;
+
+/**
+ * Named fetch plans which decide which associations are loaded together with
+ * the queried entities. Every plan is executed as a single JOIN FETCH query.
+ * Associations which are not part of the plan are not loaded and must not be
+ * accessed on the client side.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public enum FetchPlan {
+
+    /**
+     * Author fields only, the books list is not loaded
+     */
+    AUTHOR_ONLY(Author.class, ""),
+
+    /**
+     * Author together with all of the author books
+     */
+    AUTHOR_WITH_BOOKS(Author.class, "WithBooks"),
+
+    /**
+     * Book together with the author fields, the author books list is not loaded
+     */
+    BOOK_WITH_AUTHOR(Book.class, "");
+
+    /**
+     * Entity class the plan applies to
+     */
+    private final Class<?> entityClass;
+
+    /**
+     * Suffix appended to the named query names
+     */
+    private final String querySuffix;
+
+    /**
+     * Initializes plan with given parameters
+     * @param entityClass the entity class the plan applies to
+     * @param querySuffix the suffix appended to the named query names
+     */
+    private FetchPlan(Class<?> entityClass, String querySuffix) {
+        this.entityClass = entityClass;
+        this.querySuffix = querySuffix;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Returns the name of the named query which executes given query with this plan
+     * @param entityClass the queried entity class
+     * @param query the base query name, for example findAll
+     * @return the named query name
+     * @throws IllegalArgumentException if this plan does not apply to the given entity class
+     */
+    public String queryName(Class<?> entityClass, String query) throws IllegalArgumentException {
+        if (!this.entityClass.equals(entityClass))
+            throw new IllegalArgumentException("Fetch plan " + name() + " cannot be used for " + entityClass.getSimpleName() + " entities");
+
+        return entityClass.getSimpleName() + "." + query + querySuffix;
+    }
+}
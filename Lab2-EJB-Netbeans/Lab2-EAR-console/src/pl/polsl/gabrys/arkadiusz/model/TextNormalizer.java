@@ -0,0 +1,54 @@
+package pl.polsl.gabrys.arkadiusz.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes names and titles into the lookup form stored in the indexed
+ * shadow columns, so equal texts typed with different case, spacing or
+ * diacritics are found with a single index seek
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public final class TextNormalizer {
+
+    /**
+     * Combining marks left after the canonical decomposition
+     */
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Quotes and runs of whitespace
+     */
+    private static final Pattern SEPARATORS = Pattern.compile("[\"\\s]+");
+
+    /**
+     * Hidden constructor of the utility class
+     */
+    private TextNormalizer() { }
+
+    /**
+     * Case folds the text and strips diacritics
+     * @param text the text to fold
+     * @return the folded text
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        // the Polish l with stroke has no canonical decomposition
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).replace('ł', 'l');
+    }
+
+    /**
+     * Returns the lookup form of a name or title: folded, without quotes
+     * and with whitespace runs collapsed to single spaces
+     * @param text the text to normalize or null
+     * @return the normalized text, empty for null
+     */
+    public static String normalize(String text) {
+        if (text == null)
+            return "";
+
+        return SEPARATORS.matcher(fold(text)).replaceAll(" ").trim();
+    }
+}
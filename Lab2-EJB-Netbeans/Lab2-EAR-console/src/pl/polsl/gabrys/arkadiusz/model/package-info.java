@@ -1,5 +1,5 @@
 /**
- * Contains entity classes
+ * Contains entity classes and fetch plans used to load them
  *
  * @since 1.0
  * @author Arkadiusz Gabryś
@@ -0,0 +1,123 @@
+package pl.polsl.gabrys.arkadiusz.shard;
+
+/**
+ * Generates entity ids which are unique across all shards without asking any of them.
+ * An id is made of the milliseconds since 2020, the shard which stores the entity,
+ * the generating node and a sequence number within the millisecond. Every process
+ * which adds entities to the shards must use a different node number.
+ * Book ids carry the shard of their author, author ids carry shard 0 because
+ * authors are placed by the hash of their id. Ids below FIRST_ID were generated
+ * by a shard database before sharding was enabled and belong to the first shard.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ShardIdGenerator {
+
+    /**
+     * Number of sequence bits
+     */
+    private static final int SEQUENCE_BITS = 10;
+
+    /**
+     * Number of node bits
+     */
+    private static final int NODE_BITS = 6;
+
+    /**
+     * Number of shard bits
+     */
+    private static final int SHARD_BITS = 6;
+
+    /**
+     * Number of bits below the timestamp
+     */
+    private static final int TIME_SHIFT = SEQUENCE_BITS + NODE_BITS + SHARD_BITS;
+
+    /**
+     * The largest number of shards an id can address
+     */
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    /**
+     * The largest number of generating nodes
+     */
+    public static final int MAX_NODES = 1 << NODE_BITS;
+
+    /**
+     * The smallest generated id, about three days of timestamps after the epoch
+     */
+    public static final long FIRST_ID = 1L << 50;
+
+    /**
+     * Start of the timestamps, 2020-01-01T00:00:00Z in milliseconds
+     */
+    private static final long EPOCH = 1577836800000L;
+
+    /**
+     * Generating node number
+     */
+    private final int node;
+
+    /**
+     * Timestamp of the last generated id
+     */
+    private long lastMillis;
+
+    /**
+     * Sequence number of the last generated id within its millisecond
+     */
+    private long sequence;
+
+    /**
+     * Initializes generator with given node number
+     * @param node the node number between 0 and MAX_NODES - 1
+     * @throws IllegalArgumentException if the node number is out of range
+     */
+    public ShardIdGenerator(int node) throws IllegalArgumentException {
+        if (node < 0 || node >= MAX_NODES)
+            throw new IllegalArgumentException("Node number must be between 0 and " + (MAX_NODES - 1));
+
+        this.node = node;
+    }
+
+    /**
+     * Generates an author id
+     * @return the new id
+     */
+    public long next() {
+        return next(0);
+    }
+
+    /**
+     * Generates an id of an entity stored on given shard. The timestamp never goes back,
+     * when the sequence of a millisecond is used up the following millisecond is borrowed
+     * @param shard the shard index
+     * @return the new id
+     * @throws IllegalArgumentException if the shard index is out of range
+     */
+    public synchronized long next(int shard) throws IllegalArgumentException {
+        if (shard < 0 || shard >= MAX_SHARDS)
+            throw new IllegalArgumentException("Shard index must be between 0 and " + (MAX_SHARDS - 1));
+
+        long now = System.currentTimeMillis() - EPOCH;
+
+        if (now > lastMillis) {
+            lastMillis = now;
+            sequence = 0L;
+        } else if (++sequence >= 1L << SEQUENCE_BITS) {
+            ++lastMillis;
+            sequence = 0L;
+        }
+
+        return lastMillis << TIME_SHIFT | (long) shard << (SEQUENCE_BITS + NODE_BITS) | (long) node << SEQUENCE_BITS | sequence;
+    }
+
+    /**
+     * Returns the shard encoded in the id
+     * @param id the entity id
+     * @return the shard index, 0 for ids below FIRST_ID
+     */
+    public static int shardOf(long id) {
+        return id < FIRST_ID ? 0 : (int) (id >>> (SEQUENCE_BITS + NODE_BITS)) & (MAX_SHARDS - 1);
+    }
+}
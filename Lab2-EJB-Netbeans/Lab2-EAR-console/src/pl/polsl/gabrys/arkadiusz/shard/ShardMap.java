@@ -0,0 +1,312 @@
+package pl.polsl.gabrys.arkadiusz.shard;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps authors and books to the shards which store them. Every author is kept
+ * together with all of its books on one shard. Authors are placed on a consistent
+ * hash ring with VIRTUAL_NODES points per shard, so growing the ring from N to N + 1
+ * shards moves only about 1 / (N + 1) of the authors. Books are found by the shard
+ * encoded in their ids. Authors and books moved by ShardRebalancer away from
+ * those default shards are listed explicitly.
+ * <p>
+ * The map is stored as a properties file with the ring size in the shards key,
+ * the moved entities in the author.&lt;id&gt; and book.&lt;id&gt; keys and the version
+ * in the version key. Every store increments the version, so clients sharing the file
+ * can tell a newer map from the one they use.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ShardMap {
+
+    /**
+     * Number of ring points of every shard
+     */
+    static final int VIRTUAL_NODES = 128;
+
+    /**
+     * Number of shards on the ring
+     */
+    private final int shards;
+
+    /**
+     * Ring points in ascending order
+     */
+    private final long[] points;
+
+    /**
+     * Shard owning the ring point with the same index
+     */
+    private final int[] owners;
+
+    /**
+     * Shards of the authors stored away from their default shard
+     */
+    private final ConcurrentMap<Long, Integer> movedAuthors = new ConcurrentHashMap<>();
+
+    /**
+     * Shards of the books stored away from the shard encoded in their id
+     */
+    private final ConcurrentMap<Long, Integer> movedBooks = new ConcurrentHashMap<>();
+
+    /**
+     * Version of the map, incremented by every store
+     */
+    private volatile long version;
+
+    /**
+     * Initializes map with the ring of given size and no moved entities
+     * @param shards the number of shards on the ring
+     * @throws IllegalArgumentException if the number of shards is not between 1 and ShardIdGenerator.MAX_SHARDS
+     */
+    public ShardMap(int shards) throws IllegalArgumentException {
+        if (shards < 1 || shards > ShardIdGenerator.MAX_SHARDS)
+            throw new IllegalArgumentException("Number of shards must be between 1 and " + ShardIdGenerator.MAX_SHARDS);
+
+        this.shards = shards;
+        long[][] ring = new long[shards * VIRTUAL_NODES][];
+
+        // the points of a shard depend only on the shard index, so they stay put when the ring grows
+        for (int shard = 0; shard < shards; ++shard) {
+            for (int i = 0; i < VIRTUAL_NODES; ++i) {
+                ring[shard * VIRTUAL_NODES + i] = new long[] {mix((long) shard << 32 | i), shard};
+            }
+        }
+
+        Arrays.sort(ring, (a, b) -> Long.compare(a[0], b[0]));
+        points = new long[ring.length];
+        owners = new int[ring.length];
+
+        for (int i = 0; i < ring.length; ++i) {
+            points[i] = ring[i][0];
+            owners[i] = (int) ring[i][1];
+        }
+    }
+
+    /**
+     * Reads the map from the file
+     * @param file the map file
+     * @param shards the ring size used when the file doesn't exist
+     * @return the map read from the file or an empty map with the ring of given size
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains invalid entries
+     */
+    public static ShardMap load(Path file, int shards) throws IOException, IllegalArgumentException {
+        if (!Files.exists(file))
+            return new ShardMap(shards);
+
+        Properties properties = new Properties();
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        try {
+            ShardMap map = new ShardMap(Integer.parseInt(properties.getProperty("shards", Integer.toString(shards)).trim()));
+            map.version = Long.parseLong(properties.getProperty("version", "0").trim());
+
+            for (String key: properties.stringPropertyNames()) {
+                if (key.startsWith("author."))
+                    map.movedAuthors.put(Long.parseLong(key.substring(7)), map.checkShard(Integer.parseInt(properties.getProperty(key).trim())));
+                else if (key.startsWith("book."))
+                    map.movedBooks.put(Long.parseLong(key.substring(5)), map.checkShard(Integer.parseInt(properties.getProperty(key).trim())));
+            }
+
+            return map;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid shard map " + file + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Writes the map to the file under the next version, the file is replaced at once
+     * so readers never see a partial map
+     * @param file the map file
+     * @throws IOException if the file cannot be written
+     */
+    public void store(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        long next = version + 1;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write("version=" + next);
+            writer.newLine();
+            writer.write("shards=" + shards);
+            writer.newLine();
+
+            for (Map.Entry<Long, Integer> entry: new TreeMap<>(movedAuthors).entrySet()) {
+                writer.write("author." + entry.getKey() + "=" + entry.getValue());
+                writer.newLine();
+            }
+
+            for (Map.Entry<Long, Integer> entry: new TreeMap<>(movedBooks).entrySet()) {
+                writer.write("book." + entry.getKey() + "=" + entry.getValue());
+                writer.newLine();
+            }
+        }
+
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        version = next;
+    }
+
+    /**
+     * Returns the version of the map
+     * @return the version of the last stored or loaded map, 0 for a map which was never stored
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of shards on the ring
+     * @return the ring size
+     */
+    public int getShardCount() {
+        return shards;
+    }
+
+    /**
+     * Returns the shard of the ring point following the hash of the author id
+     * @param authorId the author id
+     * @return the shard index
+     */
+    public int ringShardOf(long authorId) {
+        int index = Arrays.binarySearch(points, mix(authorId));
+
+        if (index < 0)
+            index = -index - 1;
+
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * Returns the shard an author is stored on when it has not been moved, authors
+     * added before sharding was enabled stay on the first shard until they are moved
+     * @param authorId the author id
+     * @return the shard index
+     */
+    public int defaultShardOfAuthor(long authorId) {
+        return authorId < ShardIdGenerator.FIRST_ID ? 0 : ringShardOf(authorId);
+    }
+
+    /**
+     * Returns the shard which stores the author and its books
+     * @param authorId the author id
+     * @return the shard index
+     */
+    public int shardOfAuthor(long authorId) {
+        Integer moved = movedAuthors.get(authorId);
+        return moved != null ? moved : defaultShardOfAuthor(authorId);
+    }
+
+    /**
+     * Returns the shard which stores the book
+     * @param bookId the book id
+     * @return the shard index
+     */
+    public int shardOfBook(long bookId) {
+        Integer moved = movedBooks.get(bookId);
+        return moved != null ? moved : ShardIdGenerator.shardOf(bookId);
+    }
+
+    /**
+     * Records that the author and its books are stored on given shard,
+     * entries which point to the default shard are dropped
+     * @param authorId the author id
+     * @param shard the shard index
+     * @param bookIds the ids of the author books
+     * @throws IllegalArgumentException if the shard index is out of range
+     */
+    public void moveAuthor(long authorId, int shard, Collection<Long> bookIds) throws IllegalArgumentException {
+        checkShard(shard);
+
+        if (shard == defaultShardOfAuthor(authorId))
+            movedAuthors.remove(authorId);
+        else
+            movedAuthors.put(authorId, shard);
+
+        for (Long bookId: bookIds) {
+            if (shard == ShardIdGenerator.shardOf(bookId))
+                movedBooks.remove(bookId);
+            else
+                movedBooks.put(bookId, shard);
+        }
+    }
+
+    /**
+     * Creates a map with the ring of given size which stores every entity on the same
+     * shard as this map, so it is valid only once every author is on its ring shard
+     * or listed as moved
+     * @param shards the number of shards on the new ring
+     * @return the new map
+     * @throws IllegalArgumentException if the number of shards is not between 1 and ShardIdGenerator.MAX_SHARDS
+     */
+    public ShardMap resize(int shards) throws IllegalArgumentException {
+        ShardMap map = new ShardMap(shards);
+
+        for (Map.Entry<Long, Integer> entry: movedAuthors.entrySet()) {
+            if (entry.getValue() != map.defaultShardOfAuthor(entry.getKey()))
+                map.movedAuthors.put(entry.getKey(), map.checkShard(entry.getValue()));
+        }
+
+        map.movedBooks.putAll(movedBooks);
+        map.version = version;
+        return map;
+    }
+
+    /**
+     * Returns the authors stored away from their default shard
+     * @return the unmodifiable map of shard indexes by author id
+     */
+    public Map<Long, Integer> getMovedAuthors() {
+        return Collections.unmodifiableMap(movedAuthors);
+    }
+
+    /**
+     * Returns the books stored away from the shard encoded in their id
+     * @return the unmodifiable map of shard indexes by book id
+     */
+    public Map<Long, Integer> getMovedBooks() {
+        return Collections.unmodifiableMap(movedBooks);
+    }
+
+    /**
+     * Checks the shard index, moved entities may be on shards which are not on the ring yet
+     * @param shard the shard index
+     * @return the shard index
+     * @throws IllegalArgumentException if the shard index is out of range
+     */
+    private int checkShard(int shard) throws IllegalArgumentException {
+        if (shard < 0 || shard >= ShardIdGenerator.MAX_SHARDS)
+            throw new IllegalArgumentException("Shard index must be between 0 and " + (ShardIdGenerator.MAX_SHARDS - 1));
+
+        return shard;
+    }
+
+    /**
+     * Spreads the bits of the value over the whole range, the SplitMix64 finalizer
+     * @param value the value
+     * @return the hash
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,274 @@
+package pl.polsl.gabrys.arkadiusz.shard;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookEntry;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+import pl.polsl.gabrys.arkadiusz.model.FetchPlan;
+
+/**
+ * Moves authors together with their books between shards and keeps the shard map up to date.
+ * Authors are copied to the target shard with their ids, the map is stored so that the
+ * clients use the target shard from their next call, and only then the authors are removed
+ * from the source shard. A rebalance stores the map once for every page of copied authors.
+ * A move interrupted before the map is stored leaves a copy on the target shard which the
+ * next move replaces, one interrupted after it leaves a copy on the source shard which the
+ * next rebalance removes.
+ * <p>
+ * Writes of other clients to a moved author are lost while it is copied, so the tool
+ * is meant to be run while the clients don't write.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ShardRebalancer {
+
+    /**
+     * Shards by index
+     */
+    private final List<DatabaseManagerRemote> shards;
+
+    /**
+     * Map file or null if the map is kept only in memory
+     */
+    private final Path file;
+
+    /**
+     * Stream receiving a line for every moved author
+     */
+    private final PrintStream log;
+
+    /**
+     * Current placement of the authors and books
+     */
+    private ShardMap map;
+
+    /**
+     * Initializes rebalancer with given parameters
+     * @param shards the shards by index
+     * @param map the current placement of the authors and books
+     * @param file the map file stored before the source copies are removed or null
+     * @param log the stream receiving a line for every moved author
+     * @throws IllegalArgumentException if the shards, the map or the log are null
+     */
+    public ShardRebalancer(List<DatabaseManagerRemote> shards, ShardMap map, Path file, PrintStream log) throws IllegalArgumentException {
+        if (shards == null || shards.isEmpty() || map == null || log == null)
+            throw new IllegalArgumentException("Shards, shard map and log cannot be null");
+
+        this.shards = new ArrayList<>(shards);
+        this.map = map;
+        this.file = file;
+        this.log = log;
+    }
+
+    /**
+     * Returns the current placement of the authors and books
+     * @return the shard map
+     */
+    public ShardMap getMap() {
+        return map;
+    }
+
+    /**
+     * Moves the author with all of its books to given shard
+     * @param authorId the author id
+     * @param target the target shard index
+     * @return the number of moved books
+     * @throws IllegalArgumentException if the target shard is not configured or the author doesn't exists on any shard
+     * @throws IOException if the map file cannot be written
+     */
+    public int moveAuthor(long authorId, int target) throws IllegalArgumentException, IOException {
+        checkShard(target);
+        int source = map.shardOfAuthor(authorId);
+
+        if (source >= shards.size() || shards.get(source).findAuthorById(authorId) == null) {
+            source = -1;
+
+            for (int i = 0; i < shards.size() && source < 0; ++i) {
+                if (shards.get(i).findAuthorById(authorId) != null)
+                    source = i;
+            }
+        }
+
+        if (source < 0)
+            throw new IllegalArgumentException("Author with id: " + authorId + " doesn't exists");
+
+        if (source == target) {
+            record(authorId, source);
+            store();
+            return 0;
+        }
+
+        List<Long> bookIds = copy(authorId, source, target);
+        store();
+        removeSource(authorId, source, bookIds);
+        return bookIds.size();
+    }
+
+    /**
+     * Moves every author which is not on its shard of the ring with given size and then
+     * switches the map to that ring. Every shard is scanned, so authors stored on a shard
+     * the map doesn't expect are found too
+     * @param ringShards the number of shards on the new ring
+     * @return the number of moved authors
+     * @throws IllegalArgumentException if the ring is larger than the number of configured shards
+     * @throws IOException if the map file cannot be written
+     */
+    public int rebalance(int ringShards) throws IllegalArgumentException, IOException {
+        if (ringShards > shards.size())
+            throw new IllegalArgumentException("Ring cannot have more than the " + shards.size() + " configured shards");
+
+        ShardMap ring = new ShardMap(ringShards);
+        int moved = 0;
+
+        for (int source = 0; source < shards.size(); ++source) {
+            DatabaseManagerRemote shard = shards.get(source);
+            Long lastId = null;
+            List<AuthorView> page;
+
+            do {
+                page = shard.findAuthorViewsAfter(lastId, DatabaseManagerRemote.MAX_PAGE_SIZE);
+                Map<Long, List<Long>> copied = new LinkedHashMap<>();
+
+                for (AuthorView author: page) {
+                    long id = author.getId();
+                    int routed = map.shardOfAuthor(id);
+
+                    if (routed != source && routed < shards.size() && shards.get(routed).findAuthorById(id) != null) {
+                        // leftover of a move interrupted after the map was stored, the routed copy is current
+                        shard.removeAuthorsCascading(Collections.singletonList(id));
+                        log.printf("author %d: removed stale copy from shard %d%n", id, source);
+                        continue;
+                    }
+
+                    int target = ring.ringShardOf(id);
+
+                    if (target != source) {
+                        copied.put(id, copy(id, source, target));
+                    } else if (routed != source) {
+                        record(id, source);
+                    }
+                }
+
+                // the copies of the page become visible at once, the records wait for the final store
+                if (!copied.isEmpty()) {
+                    store();
+
+                    for (Map.Entry<Long, List<Long>> entry: copied.entrySet()) {
+                        removeSource(entry.getKey(), source, entry.getValue());
+                    }
+
+                    moved += copied.size();
+                }
+
+                if (!page.isEmpty())
+                    lastId = page.get(page.size() - 1).getId();
+            } while (page.size() == DatabaseManagerRemote.MAX_PAGE_SIZE);
+        }
+
+        map = map.resize(ringShards);
+        store();
+        return moved;
+    }
+
+    /**
+     * Copies the author with its books to the target shard and records the move in the map,
+     * the source copy is removed once the map is stored
+     * @param authorId the author id
+     * @param source the source shard index
+     * @param target the target shard index
+     * @return the ids of the copied books
+     * @throws IllegalArgumentException if the author doesn't exists on the source shard
+     */
+    private List<Long> copy(long authorId, int source, int target) throws IllegalArgumentException {
+        Author author = shards.get(source).findAuthorById(authorId, FetchPlan.AUTHOR_WITH_BOOKS);
+
+        if (author == null)
+            throw new IllegalArgumentException("Author with id: " + authorId + " doesn't exists");
+
+        DatabaseManagerRemote to = shards.get(target);
+
+        // drops the copy left by an interrupted move before the author is copied again
+        to.removeAuthorsCascading(Collections.singletonList(authorId));
+        to.persistAuthors(Collections.singletonList(new AuthorEntry(authorId, author.getName(), author.getLastName())));
+
+        List<Long> bookIds = new ArrayList<>();
+        List<BookEntry> chunk = new ArrayList<>();
+
+        for (Book book: author.getBooks()) {
+            bookIds.add(book.getId());
+            chunk.add(new BookEntry(book.getId(), book.getTitle(), book.getPages(), book.getReleaseDate(), authorId));
+
+            if (chunk.size() == DatabaseManagerRemote.MAX_BULK_SIZE) {
+                to.persistBooks(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+
+        if (!chunk.isEmpty())
+            to.persistBooks(chunk);
+
+        map.moveAuthor(authorId, target, bookIds);
+        return bookIds;
+    }
+
+    /**
+     * Removes the source copy of an author whose move is already stored in the map
+     * @param authorId the author id
+     * @param source the source shard index
+     * @param bookIds the ids of the moved books
+     */
+    private void removeSource(long authorId, int source, List<Long> bookIds) {
+        shards.get(source).removeAuthorsCascading(Collections.singletonList(authorId));
+        log.printf("author %d: shard %d -> %d, %d books%n", authorId, source, map.shardOfAuthor(authorId), bookIds.size());
+    }
+
+    /**
+     * Records in the map that the author and its books are stored on the shard they were found on,
+     * the record is written by the next store
+     * @param authorId the author id
+     * @param shard the shard index
+     */
+    private void record(long authorId, int shard) {
+        Author author = shards.get(shard).findAuthorById(authorId, FetchPlan.AUTHOR_WITH_BOOKS);
+
+        if (author == null)
+            return;
+
+        List<Long> bookIds = new ArrayList<>();
+
+        for (Book book: author.getBooks()) {
+            bookIds.add(book.getId());
+        }
+
+        map.moveAuthor(authorId, shard, bookIds);
+    }
+
+    /**
+     * Writes the map file if there is one
+     * @throws IOException if the map file cannot be written
+     */
+    private void store() throws IOException {
+        if (file != null)
+            map.store(file);
+    }
+
+    /**
+     * Checks the shard index
+     * @param shard the shard index
+     * @throws IllegalArgumentException if the shard is not configured
+     */
+    private void checkShard(int shard) throws IllegalArgumentException {
+        if (shard < 0 || shard >= shards.size())
+            throw new IllegalArgumentException("Shard index must be between 0 and " + (shards.size() - 1));
+    }
+}
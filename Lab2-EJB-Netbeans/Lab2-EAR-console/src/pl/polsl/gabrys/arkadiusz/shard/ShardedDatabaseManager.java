@@ -0,0 +1,1063 @@
+package pl.polsl.gabrys.arkadiusz.shard;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import javax.persistence.PersistenceException;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookEntry;
+import pl.polsl.gabrys.arkadiusz.dto.BookStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.dto.CacheStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.MergeStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.MethodStatistics;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+import pl.polsl.gabrys.arkadiusz.model.FetchPlan;
+
+/**
+ * DatabaseManagerRemote implementation which partitions the catalog over several shards.
+ * Every shard is a complete DatabaseManagerRemote, usually a DatabaseManager deployment
+ * whose Lab2-EJB persistence unit is bound to its own database. An author and all of its
+ * books are stored on the shard chosen by ShardMap, so the relationship, the fetch plans
+ * and the author statistics never span shards.
+ * <p>
+ * Calls which name an author or a book are sent to its shard only. Calls which scan
+ * the catalog are sent to all shards in parallel and their results are merged in the
+ * order of the single database, pages are cut to the requested limit after the merge.
+ * New entities get their ids from ShardIdGenerator before they are sent to a shard.
+ * Before every call the map file is checked and a map stored by ShardRebalancer under
+ * a newer version replaces the one in use, so running clients follow the moves.
+ * Writes which span shards are not atomic, the entities of every shard are written
+ * in a separate transaction. A book cannot be given to an author of another shard,
+ * the author has to be moved to the shard of the book with ShardRebalancer first.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ShardedDatabaseManager implements DatabaseManagerRemote {
+
+    /**
+     * Shards by index
+     */
+    private final List<DatabaseManagerRemote> shards;
+
+    /**
+     * Current placement of the authors and books
+     */
+    private volatile ShardMap current;
+
+    /**
+     * Map file checked before every call or null if the map is kept only in memory
+     */
+    private final Path file;
+
+    /**
+     * Identity and modification time of the map file the current map was checked against
+     */
+    private volatile List<Object> checkedStamp;
+
+    /**
+     * Generator of the new entity ids
+     */
+    private final ShardIdGenerator ids;
+
+    /**
+     * Threads calling the shards in parallel
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Initializes manager with given parameters
+     * @param shards the shards by index
+     * @param map the placement of the authors and books
+     * @param file the map file checked for newer versions before every call or null
+     * @param ids the generator of the new entity ids
+     * @throws IllegalArgumentException if the shards, the map or the generator are null or the map places entities on missing shards
+     */
+    public ShardedDatabaseManager(List<DatabaseManagerRemote> shards, ShardMap map, Path file, ShardIdGenerator ids) throws IllegalArgumentException {
+        if (shards == null || shards.isEmpty() || map == null || ids == null)
+            throw new IllegalArgumentException("Shards, shard map and id generator cannot be null");
+
+        checkMap(map, shards.size());
+        this.shards = new ArrayList<>(shards);
+        this.current = map;
+        this.file = file;
+        this.ids = ids;
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "shard-call");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Finds Author entity by its id using the AUTHOR_ONLY fetch plan
+     * @param id the entity id
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    public Author findAuthorById(Long id) throws IllegalArgumentException {
+        return findAuthorById(id, FetchPlan.AUTHOR_ONLY);
+    }
+
+    /**
+     * Finds Author entity by its id using given fetch plan
+     * @param id the entity id
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the id or the plan is null or the plan does not apply to authors
+     */
+    @Override
+    public Author findAuthorById(Long id, FetchPlan plan) throws IllegalArgumentException {
+        checkId(id);
+        return authorShard(id).findAuthorById(id, plan);
+    }
+
+    /**
+     * Returns all authors using the AUTHOR_ONLY fetch plan
+     * @return the list with all authors ordered by id
+     */
+    @Override
+    public List<Author> findAllAuthors() {
+        return findAllAuthors(FetchPlan.AUTHOR_ONLY);
+    }
+
+    /**
+     * Returns all authors using given fetch plan
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list with all authors ordered by id
+     * @throws IllegalArgumentException if the plan is null or does not apply to authors
+     */
+    @Override
+    public List<Author> findAllAuthors(FetchPlan plan) throws IllegalArgumentException {
+        return merge(callAll(shard -> shard.findAllAuthors(plan)), Comparator.comparing(Author::getId), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns all authors with given name using the AUTHOR_ONLY fetch plan
+     * @param name the author name
+     * @return the list of authors with given name ordered by id
+     * @throws IllegalArgumentException if the name is null
+     */
+    @Override
+    public List<Author> findAuthorsByName(String name) throws IllegalArgumentException {
+        return findAuthorsByName(name, FetchPlan.AUTHOR_ONLY);
+    }
+
+    /**
+     * Returns all authors with given name using given fetch plan, the name is compared
+     * in the TextNormalizer form so case, spacing and diacritics are ignored
+     * @param name the author name
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list of authors with given name ordered by id
+     * @throws IllegalArgumentException if the name or the plan is null or the plan does not apply to authors
+     */
+    @Override
+    public List<Author> findAuthorsByName(String name, FetchPlan plan) throws IllegalArgumentException {
+        if (name == null)
+            throw new IllegalArgumentException("Name cannot be null");
+
+        return merge(callAll(shard -> shard.findAuthorsByName(name, plan)), Comparator.comparing(Author::getId), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the next page of authors ordered by id using the AUTHOR_ONLY fetch plan
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit authors with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<Author> findAuthorsAfter(Long lastId, int limit) throws IllegalArgumentException {
+        return findAuthorsAfter(lastId, limit, FetchPlan.AUTHOR_ONLY);
+    }
+
+    /**
+     * Returns the next page of authors ordered by id using given fetch plan
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list of at most limit authors with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number or the plan is null or does not apply to authors
+     */
+    @Override
+    public List<Author> findAuthorsAfter(Long lastId, int limit, FetchPlan plan) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_PAGE_SIZE);
+        return merge(callAll(shard -> shard.findAuthorsAfter(lastId, max, plan)), Comparator.comparing(Author::getId), max);
+    }
+
+    /**
+     * Finds Book entity by its id using the BOOK_WITH_AUTHOR fetch plan
+     * @param id the entity id
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    public Book findBookById(Long id) throws IllegalArgumentException {
+        checkId(id);
+        return bookShard(id).findBookById(id);
+    }
+
+    /**
+     * Returns all books using the BOOK_WITH_AUTHOR fetch plan
+     * @return the list with all books ordered by id
+     */
+    @Override
+    public List<Book> findAllBooks() {
+        return merge(callAll(DatabaseManagerRemote::findAllBooks), Comparator.comparing(Book::getId), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns all books with given title using the BOOK_WITH_AUTHOR fetch plan, the title is compared
+     * in the TextNormalizer form so case, spacing and diacritics are ignored
+     * @param title the book title
+     * @return the list of books with given title ordered by id
+     * @throws IllegalArgumentException if the title is null
+     */
+    @Override
+    public List<Book> findBooksByTitle(String title) throws IllegalArgumentException {
+        if (title == null)
+            throw new IllegalArgumentException("Title cannot be null");
+
+        return merge(callAll(shard -> shard.findBooksByTitle(title)), Comparator.comparing(Book::getId), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the next page of books ordered by id using the BOOK_WITH_AUTHOR fetch plan
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit books with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<Book> findBooksAfter(Long lastId, int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_PAGE_SIZE);
+        return merge(callAll(shard -> shard.findBooksAfter(lastId, max)), Comparator.comparing(Book::getId), max);
+    }
+
+    /**
+     * Returns flat views of all authors ordered by id
+     * @return the list with all author views
+     */
+    @Override
+    public List<AuthorView> findAllAuthorViews() {
+        return merge(callAll(DatabaseManagerRemote::findAllAuthorViews), Comparator.comparingLong(AuthorView::getId), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the next page of author views ordered by id
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit author views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorView> findAuthorViewsAfter(Long lastId, int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_PAGE_SIZE);
+        return merge(callAll(shard -> shard.findAuthorViewsAfter(lastId, max)), Comparator.comparingLong(AuthorView::getId), max);
+    }
+
+    /**
+     * Returns flat views of all books ordered by id
+     * @return the list with all book views
+     */
+    @Override
+    public List<BookView> findAllBookViews() {
+        return merge(callAll(DatabaseManagerRemote::findAllBookViews), Comparator.comparingLong(BookView::getId), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the next page of book views ordered by id
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<BookView> findBookViewsAfter(Long lastId, int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_PAGE_SIZE);
+        return merge(callAll(shard -> shard.findBookViewsAfter(lastId, max)), Comparator.comparingLong(BookView::getId), max);
+    }
+
+    /**
+     * Returns flat views of the next chunk of authors ordered by id for exports
+     * @param lastId the id of the last author from the previous chunk or null for the first chunk
+     * @param limit the maximum number of authors in the chunk, values above MAX_EXPORT_SIZE are lowered to it
+     * @return the list of at most limit author views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorView> exportAuthorViews(Long lastId, int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_EXPORT_SIZE);
+        return merge(callAll(shard -> shard.exportAuthorViews(lastId, max)), Comparator.comparingLong(AuthorView::getId), max);
+    }
+
+    /**
+     * Returns flat views of the next chunk of books ordered by id for exports
+     * @param lastId the id of the last book from the previous chunk or null for the first chunk
+     * @param limit the maximum number of books in the chunk, values above MAX_EXPORT_SIZE are lowered to it
+     * @return the list of at most limit book views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<BookView> exportBookViews(Long lastId, int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_EXPORT_SIZE);
+        return merge(callAll(shard -> shard.exportBookViews(lastId, max)), Comparator.comparingLong(BookView::getId), max);
+    }
+
+    /**
+     * Returns flat views of the next page of books released in the given date range,
+     * ordered by release date and id
+     * @param from the first release date of the range
+     * @param to the last release date of the range
+     * @param lastReleaseDate the release date of the last book from the previous page or null for the first page
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views which follow the given book
+     * @throws IllegalArgumentException if the range bounds are null or the limit is not a positive number
+     */
+    @Override
+    public List<BookView> findBookViewsReleasedBetween(Date from, Date to, Date lastReleaseDate, Long lastId, int limit) throws IllegalArgumentException {
+        if (from == null || to == null)
+            throw new IllegalArgumentException("Release date range cannot be null");
+
+        int max = checkLimit(limit, MAX_PAGE_SIZE);
+        return merge(callAll(shard -> shard.findBookViewsReleasedBetween(from, to, lastReleaseDate, lastId, max)),
+                Comparator.comparingLong(BookView::getReleaseTime).thenComparingLong(BookView::getId), max);
+    }
+
+    /**
+     * Returns flat views of the next page of the latest releases, ordered by descending release date and id
+     * @param lastReleaseDate the release date of the last book from the previous page or null for the first page
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views released before the given book
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<BookView> findLatestBookViews(Date lastReleaseDate, Long lastId, int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_PAGE_SIZE);
+        return merge(callAll(shard -> shard.findLatestBookViews(lastReleaseDate, lastId, max)),
+                Comparator.comparingLong(BookView::getReleaseTime).thenComparingLong(BookView::getId).reversed(), max);
+    }
+
+    /**
+     * Finds authors whose name or last name words start with the words of given text,
+     * ignoring case and diacritics. The shards rank their own matches, the merged list
+     * takes the best remaining match of every shard in turn
+     * @param text the searched text
+     * @param limit the maximum number of authors, values above MAX_PAGE_SIZE are lowered to it
+     * @return the matching authors
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorView> searchAuthors(String text, int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_PAGE_SIZE);
+        return interleave(callAll(shard -> shard.searchAuthors(text, max)), max);
+    }
+
+    /**
+     * Finds books whose title words start with the words of given text,
+     * ignoring case and diacritics. The shards rank their own matches, the merged list
+     * takes the best remaining match of every shard in turn
+     * @param text the searched text
+     * @param limit the maximum number of books, values above MAX_PAGE_SIZE are lowered to it
+     * @return the matching books
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<BookView> searchBooks(String text, int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_PAGE_SIZE);
+        return interleave(callAll(shard -> shard.searchBooks(text, max)), max);
+    }
+
+    /**
+     * Counts all authors
+     * @return the number of authors
+     */
+    @Override
+    public long countAuthors() {
+        long count = 0L;
+
+        for (Long shardCount: callAll(DatabaseManagerRemote::countAuthors)) {
+            count += shardCount;
+        }
+
+        return count;
+    }
+
+    /**
+     * Aggregates all books from the aggregates of every shard
+     * @return the number of books, the sum, average and range of pages and the range of release dates
+     */
+    @Override
+    public BookStatistics getBookStatistics() {
+        long count = 0L;
+        long totalPages = 0L;
+        Long minPages = null;
+        Long maxPages = null;
+        Date first = null;
+        Date last = null;
+
+        for (BookStatistics statistics: callAll(DatabaseManagerRemote::getBookStatistics)) {
+            if (statistics.getCount() == 0L)
+                continue;
+
+            count += statistics.getCount();
+            totalPages += statistics.getTotalPages();
+            minPages = minPages == null ? statistics.getMinPages() : Math.min(minPages, statistics.getMinPages());
+            maxPages = maxPages == null ? statistics.getMaxPages() : Math.max(maxPages, statistics.getMaxPages());
+
+            if (first == null || statistics.getFirstRelease().before(first))
+                first = statistics.getFirstRelease();
+
+            if (last == null || statistics.getLastRelease().after(last))
+                last = statistics.getLastRelease();
+        }
+
+        return count == 0L
+                ? new BookStatistics(0L, null, null, null, null, null, null)
+                : new BookStatistics(count, totalPages, (double) totalPages / count, minPages, maxPages, first, last);
+    }
+
+    /**
+     * Aggregates the books of given author
+     * @param authorId the author id
+     * @return the author book aggregates or null if the author doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    public AuthorStatistics getAuthorStatistics(Long authorId) throws IllegalArgumentException {
+        checkId(authorId);
+        return authorShard(authorId).getAuthorStatistics(authorId);
+    }
+
+    /**
+     * Aggregates the books of the next page of authors ordered by id, authors without books are included
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit author aggregates with author id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorStatistics> findAuthorStatisticsAfter(Long lastId, int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_PAGE_SIZE);
+        return merge(callAll(shard -> shard.findAuthorStatisticsAfter(lastId, max)),
+                Comparator.comparingLong(AuthorStatistics::getAuthorId), max);
+    }
+
+    /**
+     * Aggregates the books of the authors with the largest number of books,
+     * the top authors of every shard are merged because an author never spans shards
+     * @param limit the maximum number of authors, values above MAX_PAGE_SIZE are lowered to it
+     * @return the author aggregates ordered by descending number of books and then by author id
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorStatistics> findTopAuthorStatistics(int limit) throws IllegalArgumentException {
+        int max = checkLimit(limit, MAX_PAGE_SIZE);
+        return merge(callAll(shard -> shard.findTopAuthorStatistics(max)),
+                Comparator.<AuthorStatistics>comparingLong(a -> -a.getBooks().getCount()).thenComparingLong(AuthorStatistics::getAuthorId), max);
+    }
+
+    /**
+     * Adds new Author entity on the ring shard of its new id
+     * @param name the author name
+     * @param lastName the author last name
+     */
+    @Override
+    public void persistAuthor(String name, String lastName) {
+        persistAuthors(Collections.singletonList(new AuthorEntry(name, lastName)));
+    }
+
+    /**
+     * Adds new Book entity on the shard of its author
+     * @param title the book title
+     * @param pages the number of book pages
+     * @param releaseDate the book release date
+     * @param authorId the book author id
+     * @throws IllegalArgumentException if the author id is null or if the author doesn't exists
+     */
+    @Override
+    public void persistBook(String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException {
+        checkId(authorId);
+        persistBooks(Collections.singletonList(new BookEntry(title, pages, releaseDate, authorId)));
+    }
+
+    /**
+     * Adds new Author entities, entries without an id get one from the id generator
+     * and every author is added on its ring shard, one transaction per shard
+     * @param authors the values of the new authors, at most MAX_BULK_SIZE entries
+     * @return the ids of the new authors in the order of given entries
+     * @throws IllegalArgumentException if the list is null or longer than MAX_BULK_SIZE
+     */
+    @Override
+    public List<Long> persistAuthors(List<AuthorEntry> authors) throws IllegalArgumentException {
+        checkBulkSize(authors);
+        List<AuthorEntry> entries = new ArrayList<>(authors.size());
+        List<Long> result = new ArrayList<>(authors.size());
+
+        for (AuthorEntry entry: authors) {
+            long id = entry.getId() == null ? ids.next() : entry.getId();
+            entries.add(new AuthorEntry(id, entry.getName(), entry.getLastName()));
+            result.add(id);
+        }
+
+        ShardMap map = map();
+        Map<Integer, List<AuthorEntry>> byShard = group(entries, entry -> map.shardOfAuthor(entry.getId()));
+        call(byShard.keySet(), index -> index, (shard, index) -> shard.persistAuthors(byShard.get(index)));
+        return result;
+    }
+
+    /**
+     * Adds new Book entities, entries without an id get one from the id generator
+     * and every book is added on the shard of its author, one transaction per shard
+     * @param books the values of the new books, at most MAX_BULK_SIZE entries
+     * @return the ids of the new books in the order of given entries
+     * @throws IllegalArgumentException if the list is null or longer than MAX_BULK_SIZE, if any author id is null or if any author doesn't exists
+     */
+    @Override
+    public List<Long> persistBooks(List<BookEntry> books) throws IllegalArgumentException {
+        checkBulkSize(books);
+        ShardMap map = map();
+        List<BookEntry> entries = new ArrayList<>(books.size());
+        List<Long> result = new ArrayList<>(books.size());
+
+        for (BookEntry entry: books) {
+            if (entry.getAuthorId() == null)
+                throw new IllegalArgumentException("Author id cannot be null");
+
+            long id = entry.getId() == null ? ids.next(map.shardOfAuthor(entry.getAuthorId())) : entry.getId();
+            entries.add(new BookEntry(id, entry.getTitle(), entry.getPages(), entry.getReleaseDate(), entry.getAuthorId()));
+            result.add(id);
+        }
+
+        Map<Integer, List<BookEntry>> byShard = group(entries, entry -> map.shardOfAuthor(entry.getAuthorId()));
+        call(byShard.keySet(), index -> index, (shard, index) -> shard.persistBooks(byShard.get(index)));
+        return result;
+    }
+
+    /**
+     * Updates given Author entity
+     * @param id the author id
+     * @param name the new author name
+     * @param lastName the new author last name
+     * @throws IllegalArgumentException if the id is null or the given author doesn't exists
+     */
+    @Override
+    public void mergeAuthor(Long id, String name, String lastName) throws IllegalArgumentException {
+        checkId(id);
+        authorShard(id).mergeAuthor(id, name, lastName);
+    }
+
+    /**
+     * Updates given Book entity
+     * @param id the book id
+     * @param title the new book title
+     * @param pages the new number of pages
+     * @param releaseDate the new release date
+     * @param authorId the id of the new author
+     * @throws IllegalArgumentException if the id or author id is null, if the book or the author doesn't exists
+     * or if the book and the author are stored on different shards
+     */
+    @Override
+    public void mergeBook(Long id, String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException {
+        checkId(id);
+        checkId(authorId);
+        sameShard(Collections.singletonList(id), authorId).mergeBook(id, title, pages, releaseDate, authorId);
+    }
+
+    /**
+     * Removes Author entity, like the database foreign key it fails while the author has books
+     * @param id the author id
+     * @throws IllegalArgumentException if the id is null or the author doesn't exists
+     */
+    @Override
+    public void removeAuthor(Long id) throws IllegalArgumentException {
+        checkId(id);
+        authorShard(id).removeAuthor(id);
+    }
+
+    /**
+     * Removes Book entity
+     * @param id the book id
+     * @throws IllegalArgumentException if the id is null or the book doesn't exists
+     */
+    @Override
+    public void removeBook(Long id) throws IllegalArgumentException {
+        checkId(id);
+        bookShard(id).removeBook(id);
+    }
+
+    /**
+     * Updates Author entity without reading it first
+     * @param id the author id
+     * @param name the new author name
+     * @param lastName the new author last name
+     * @return the number of updated authors, 0 if the author doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    public int updateAuthor(Long id, String name, String lastName) throws IllegalArgumentException {
+        checkId(id);
+        return authorShard(id).updateAuthor(id, name, lastName);
+    }
+
+    /**
+     * Updates Book entity without reading it first
+     * @param id the book id
+     * @param title the new book title
+     * @param pages the new number of pages
+     * @param releaseDate the new release date
+     * @param authorId the id of the new author
+     * @return the number of updated books, 0 if the book doesn't exists
+     * @throws IllegalArgumentException if the id or author id is null, if the author doesn't exists
+     * or if the book and the author are stored on different shards
+     */
+    @Override
+    public int updateBook(Long id, String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException {
+        if (id == null || authorId == null)
+            throw new IllegalArgumentException("Id cannot be null");
+
+        return sameShard(Collections.singletonList(id), authorId).updateBook(id, title, pages, releaseDate, authorId);
+    }
+
+    /**
+     * Moves books to another author stored on the same shard
+     * @param ids the book ids, at most MAX_BULK_SIZE entries
+     * @param authorId the id of the new author
+     * @return the number of updated books
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE, the author id is null,
+     * the author doesn't exists or any book is stored on another shard than the author
+     */
+    @Override
+    public int updateBooksAuthor(Collection<Long> ids, Long authorId) throws IllegalArgumentException {
+        checkBulkSize(ids);
+
+        if (authorId == null)
+            throw new IllegalArgumentException("Author id cannot be null");
+
+        return sameShard(ids, authorId).updateBooksAuthor(ids, authorId);
+    }
+
+    /**
+     * Removes books, the books of every shard are removed in a separate transaction
+     * @param ids the book ids, at most MAX_BULK_SIZE entries
+     * @return the number of removed books
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     */
+    @Override
+    public int removeBooks(Collection<Long> ids) throws IllegalArgumentException {
+        checkBulkSize(ids);
+        Map<Integer, List<Long>> byShard = group(withoutNulls(ids), map()::shardOfBook);
+        return sum(call(byShard.keySet(), index -> index, (shard, index) -> shard.removeBooks(byShard.get(index))));
+    }
+
+    /**
+     * Removes authors together with all of their books, the authors of every shard
+     * are removed in a separate transaction
+     * @param ids the author ids, at most MAX_BULK_SIZE entries
+     * @return the number of removed authors
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     */
+    @Override
+    public int removeAuthorsCascading(Collection<Long> ids) throws IllegalArgumentException {
+        checkBulkSize(ids);
+        Map<Integer, List<Long>> byShard = group(withoutNulls(ids), map()::shardOfAuthor);
+        return sum(call(byShard.keySet(), index -> index, (shard, index) -> shard.removeAuthorsCascading(byShard.get(index))));
+    }
+
+    /**
+     * Returns the cache counters summed over all shards
+     * @return the counters snapshot
+     */
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        long hits = 0L;
+        long misses = 0L;
+        long invalidations = 0L;
+        long evictions = 0L;
+
+        for (CacheStatistics statistics: callAll(DatabaseManagerRemote::getCacheStatistics)) {
+            hits += statistics.getHits();
+            misses += statistics.getMisses();
+            invalidations += statistics.getInvalidations();
+            evictions += statistics.getEvictions();
+        }
+
+        return new CacheStatistics(hits, misses, invalidations, evictions);
+    }
+
+    /**
+     * Returns the merge counters summed over all shards
+     * @return the counters snapshot
+     */
+    @Override
+    public MergeStatistics getMergeStatistics() {
+        long attempts = 0L;
+        long conflicts = 0L;
+        long failures = 0L;
+
+        for (MergeStatistics statistics: callAll(DatabaseManagerRemote::getMergeStatistics)) {
+            attempts += statistics.getAttempts();
+            conflicts += statistics.getConflicts();
+            failures += statistics.getFailures();
+        }
+
+        return new MergeStatistics(attempts, conflicts, failures);
+    }
+
+    /**
+     * Returns the latency statistics of every shard, the method names are prefixed
+     * with the shard index because latency quantiles cannot be merged
+     * @return the list of method statistics
+     */
+    @Override
+    public List<MethodStatistics> getStatistics() {
+        List<List<MethodStatistics>> all = callAll(DatabaseManagerRemote::getStatistics);
+        List<MethodStatistics> result = new ArrayList<>();
+
+        for (int i = 0; i < all.size(); ++i) {
+            for (MethodStatistics method: all.get(i)) {
+                result.add(new MethodStatistics(i + ":" + method.getMethod(), method.getCalls(), method.getInFlight(), method.getErrors(),
+                        method.getMean(), method.getP50(), method.getP90(), method.getP99(), method.getP999(), method.getMax()));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the current shard map. The map file is read again when it was replaced
+     * since the last check and its map is used when it has a newer version
+     * @return the shard map
+     * @throws PersistenceException if the map file cannot be read or places entities on missing shards
+     */
+    private ShardMap map() throws PersistenceException {
+        if (file == null)
+            return current;
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            List<Object> stamp = Arrays.asList(attributes.fileKey(), attributes.lastModifiedTime());
+
+            if (!stamp.equals(checkedStamp))
+                reload(stamp);
+        } catch (NoSuchFileException ex) {
+            // nothing was stored yet, the map given at start stays
+        } catch (IOException | IllegalArgumentException ex) {
+            throw new PersistenceException("Cannot read shard map " + file + ": " + ex.getMessage(), ex);
+        }
+
+        return current;
+    }
+
+    /**
+     * Reads the map file and replaces the current map if the file holds a newer version
+     * @param stamp the identity and modification time of the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains invalid entries or places entities on missing shards
+     */
+    private synchronized void reload(List<Object> stamp) throws IOException, IllegalArgumentException {
+        if (stamp.equals(checkedStamp))
+            return;
+
+        ShardMap stored = ShardMap.load(file, current.getShardCount());
+
+        if (stored.getVersion() > current.getVersion()) {
+            checkMap(stored, shards.size());
+            current = stored;
+        }
+
+        checkedStamp = stamp;
+    }
+
+    /**
+     * Checks that the map places entities only on configured shards
+     * @param map the shard map
+     * @param shards the number of configured shards
+     * @throws IllegalArgumentException if the map uses a shard which is not configured
+     */
+    private static void checkMap(ShardMap map, int shards) throws IllegalArgumentException {
+        if (map.getShardCount() > shards)
+            throw new IllegalArgumentException("Shard map ring has " + map.getShardCount() + " shards but only " + shards + " are configured");
+
+        for (Map<Long, Integer> moved: Arrays.asList(map.getMovedAuthors(), map.getMovedBooks())) {
+            for (int shard: moved.values()) {
+                if (shard >= shards)
+                    throw new IllegalArgumentException("Shard map uses shard " + shard + " but only " + shards + " are configured");
+            }
+        }
+    }
+
+    /**
+     * Returns the shard of the author
+     * @param authorId the author id
+     * @return the shard
+     */
+    private DatabaseManagerRemote authorShard(long authorId) {
+        return shards.get(map().shardOfAuthor(authorId));
+    }
+
+    /**
+     * Returns the shard of the book
+     * @param bookId the book id
+     * @return the shard
+     */
+    private DatabaseManagerRemote bookShard(long bookId) {
+        return shards.get(map().shardOfBook(bookId));
+    }
+
+    /**
+     * Returns the shard of the author after checking that the books are stored on it
+     * @param bookIds the book ids
+     * @param authorId the author id
+     * @return the shard
+     * @throws IllegalArgumentException if any book is stored on another shard
+     */
+    private DatabaseManagerRemote sameShard(Collection<Long> bookIds, long authorId) throws IllegalArgumentException {
+        ShardMap map = map();
+        int shard = map.shardOfAuthor(authorId);
+
+        for (Long bookId: bookIds) {
+            if (bookId != null && map.shardOfBook(bookId) != shard)
+                throw new IllegalArgumentException("Book with id: " + bookId + " is stored on another shard than author with id: "
+                        + authorId + ", move the author first");
+        }
+
+        return shards.get(shard);
+    }
+
+    /**
+     * Calls every shard in parallel
+     * @param <T> the result type
+     * @param call the call of a single shard
+     * @return the results in the order of the shards
+     */
+    private <T> List<T> callAll(Function<DatabaseManagerRemote, T> call) {
+        List<Integer> indexes = new ArrayList<>(shards.size());
+
+        for (int i = 0; i < shards.size(); ++i) {
+            indexes.add(i);
+        }
+
+        return call(indexes, index -> index, (shard, index) -> call.apply(shard));
+    }
+
+    /**
+     * Calls the shards of given keys in parallel, the last shard is called by the current thread
+     * @param <K> the key type
+     * @param <T> the result type
+     * @param keys the keys
+     * @param shardOf returns the shard index of a key
+     * @param call the call of the shard with the key
+     * @return the results in the order of the keys
+     * @throws PersistenceException if the current thread is interrupted while it waits for the shards
+     */
+    private <K, T> List<T> call(Collection<K> keys, ToIntFunction<K> shardOf, ShardCall<K, T> call) throws PersistenceException {
+        List<K> list = new ArrayList<>(keys);
+        List<Future<T>> futures = new ArrayList<>(list.size());
+
+        try {
+            for (int i = 0; i < list.size() - 1; ++i) {
+                K key = list.get(i);
+                futures.add(executor.submit(() -> call.apply(shards.get(shardOf.applyAsInt(key)), key)));
+            }
+
+            List<T> results = new ArrayList<>(list.size());
+            T last = list.isEmpty() ? null : call.apply(shards.get(shardOf.applyAsInt(list.get(list.size() - 1))), list.get(list.size() - 1));
+
+            for (Future<T> future: futures) {
+                results.add(future.get());
+            }
+
+            if (!list.isEmpty())
+                results.add(last);
+
+            return results;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+
+            if (ex.getCause() instanceof Error)
+                throw (Error) ex.getCause();
+
+            throw new PersistenceException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while waiting for the shards", ex);
+        } finally {
+            for (Future<T> future: futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Merges the sorted results of the shards
+     * @param <T> the element type
+     * @param results the results of the shards
+     * @param order the order of the merged list
+     * @param limit the maximum size of the merged list
+     * @return the merged list
+     */
+    private static <T> List<T> merge(List<List<T>> results, Comparator<? super T> order, int limit) {
+        List<T> merged = new ArrayList<>();
+
+        for (List<T> result: results) {
+            merged.addAll(result);
+        }
+
+        merged.sort(order);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    /**
+     * Merges the ranked results of the shards by taking the next element of every shard in turn
+     * @param <T> the element type
+     * @param results the results of the shards
+     * @param limit the maximum size of the merged list
+     * @return the merged list
+     */
+    private static <T> List<T> interleave(List<List<T>> results, int limit) {
+        List<T> merged = new ArrayList<>();
+
+        for (int rank = 0; merged.size() < limit; ++rank) {
+            boolean found = false;
+
+            for (List<T> result: results) {
+                if (rank < result.size() && merged.size() < limit) {
+                    merged.add(result.get(rank));
+                    found = true;
+                }
+            }
+
+            if (!found)
+                break;
+        }
+
+        return merged;
+    }
+
+    /**
+     * Groups the elements by shard keeping their order
+     * @param <E> the element type
+     * @param elements the elements
+     * @param shardOf returns the shard index of an element
+     * @return the elements by shard index
+     */
+    private static <E> Map<Integer, List<E>> group(Collection<E> elements, ToIntFunction<E> shardOf) {
+        Map<Integer, List<E>> groups = new TreeMap<>();
+
+        for (E element: elements) {
+            groups.computeIfAbsent(shardOf.applyAsInt(element), shard -> new ArrayList<>()).add(element);
+        }
+
+        return groups;
+    }
+
+    /**
+     * Copies the ids without the null ones, which the shards would skip anyway
+     * @param ids the ids
+     * @return the list of ids
+     */
+    private static List<Long> withoutNulls(Collection<Long> ids) {
+        List<Long> result = new ArrayList<>(ids.size());
+
+        for (Long id: ids) {
+            if (id != null)
+                result.add(id);
+        }
+
+        return result;
+    }
+
+    /**
+     * Sums the counts returned by the shards
+     * @param counts the counts
+     * @return the sum
+     */
+    private static int sum(List<Integer> counts) {
+        int sum = 0;
+
+        for (int count: counts) {
+            sum += count;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Checks the entity id
+     * @param id the id
+     * @throws IllegalArgumentException if the id is null
+     */
+    private static void checkId(Long id) throws IllegalArgumentException {
+        if (id == null)
+            throw new IllegalArgumentException("Id cannot be null");
+    }
+
+    /**
+     * Checks the size of a bulk operation
+     * @param entries the collection of entries
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     */
+    private static void checkBulkSize(Collection<?> entries) throws IllegalArgumentException {
+        if (entries == null)
+            throw new IllegalArgumentException("Entries collection cannot be null");
+
+        if (entries.size() > MAX_BULK_SIZE)
+            throw new IllegalArgumentException("At most " + MAX_BULK_SIZE + " entries can be processed at once");
+    }
+
+    /**
+     * Checks the page limit and lowers it to given maximum
+     * @param limit the requested limit
+     * @param max the largest allowed limit
+     * @return the applied limit
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    private static int checkLimit(int limit, int max) throws IllegalArgumentException {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Page limit must be a positive number");
+
+        return Math.min(limit, max);
+    }
+
+    /**
+     * Call of a single shard on behalf of a key
+     * @param <K> the key type
+     * @param <T> the result type
+     */
+    private interface ShardCall<K, T> {
+
+        /**
+         * Calls the shard
+         * @param shard the shard
+         * @param key the key
+         * @return the result
+         */
+        T apply(DatabaseManagerRemote shard, K key);
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Contains the DatabaseManagerRemote implementation which partitions authors
+ * and their books over several shards, the shard map and the rebalancing tool
+ *
+ * @since 1.0
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+package pl.polsl.gabrys.arkadiusz.shard;
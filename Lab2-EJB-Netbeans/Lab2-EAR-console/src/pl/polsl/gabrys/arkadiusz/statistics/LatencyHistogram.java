@@ -0,0 +1,155 @@
+package pl.polsl.gabrys.arkadiusz.statistics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of durations in nanoseconds.
+ * Every power of two range is split into 16 equal buckets, so the
+ * reported values are at most about 6 percent above the recorded ones.
+ * Recording is a single atomic increment and never allocates.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of bits used to split every power of two range
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * Number of buckets per power of two range
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Number of buckets covering all non negative long values
+     */
+    private static final int BUCKETS = SUB_BUCKETS * (Long.SIZE - SUB_BUCKET_BITS);
+
+    /**
+     * Bucket counters
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Number of recorded values
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Sum of recorded values
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Largest recorded value
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Records single duration
+     * @param nanos the duration in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        buckets.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns the number of recorded values
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the mean of recorded values
+     * @return the mean in nanoseconds or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Returns the largest recorded value
+     * @return the largest value in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the values below which the given parts of recorded values fall,
+     * all quantiles are read from a single pass over the buckets
+     * @param quantiles the ascending quantiles between 0 and 1
+     * @return the upper bounds of the buckets containing the quantiles in nanoseconds
+     */
+    public long[] getQuantiles(double... quantiles) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        long[] values = new long[quantiles.length];
+
+        if (total == 0)
+            return values;
+
+        long largest = max.get();
+        long seen = 0;
+        int bucket = -1;
+
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1L, (long) Math.ceil(quantiles[q] * total));
+
+            while (seen < rank && bucket < BUCKETS - 1) {
+                seen += counts[++bucket];
+            }
+
+            values[q] = Math.min(upperBound(bucket), largest);
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the bucket of the value
+     * @param value the non negative value
+     * @return the bucket index
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - 1 - SUB_BUCKET_BITS;
+        return SUB_BUCKETS * (shift + 1) + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Returns the largest value of the bucket
+     * @param index the bucket index
+     * @return the largest value which falls into the bucket
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        if (index >= BUCKETS - 1)
+            return Long.MAX_VALUE;
+
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = SUB_BUCKETS + index % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
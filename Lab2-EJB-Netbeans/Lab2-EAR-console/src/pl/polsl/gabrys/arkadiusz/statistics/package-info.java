@@ -0,0 +1,8 @@
+/**
+ * Contains lock-free latency recording shared by the server and the clients
+ *
+ * @since 1.0
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+package pl.polsl.gabrys.arkadiusz.statistics;
@@ -0,0 +1,95 @@
+package pl.polsl.gabrys.arkadiusz.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+
+/**
+ * Tests of the ids and keyset pages of the in-memory database manager
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class InMemoryDatabaseManagerTest {
+
+    /**
+     * Checks that generated ids skip past given ids
+     */
+    @Test
+    public void generatedIdsSkipGivenIds() {
+        InMemoryDatabaseManager db = new InMemoryDatabaseManager();
+
+        assertEquals(Arrays.asList(1L, 5L, 6L), db.persistAuthors(Arrays.asList(
+                new AuthorEntry("a", "a"), new AuthorEntry(5L, "b", "b"), new AuthorEntry("c", "c"))));
+        assertEquals(Arrays.asList(1000L, 1001L, 3L), db.persistAuthors(Arrays.asList(
+                new AuthorEntry(1000L, "d", "d"), new AuthorEntry("e", "e"), new AuthorEntry(3L, "f", "f"))));
+    }
+
+    /**
+     * Checks that a given id which is used or repeated rejects the whole bulk
+     */
+    @Test
+    public void usedIdRejectsBulk() {
+        InMemoryDatabaseManager db = new InMemoryDatabaseManager();
+        db.persistAuthors(Arrays.asList(new AuthorEntry(2L, "a", "a")));
+
+        try {
+            db.persistAuthors(Arrays.asList(new AuthorEntry("b", "b"), new AuthorEntry(2L, "c", "c")));
+            fail("Used id accepted");
+        } catch (IllegalArgumentException ex) {
+            assertEquals(1L, db.countAuthors());
+        }
+
+        try {
+            db.persistAuthors(Arrays.asList(new AuthorEntry(9L, "b", "b"), new AuthorEntry(9L, "c", "c")));
+            fail("Repeated id accepted");
+        } catch (IllegalArgumentException ex) {
+            assertEquals(1L, db.countAuthors());
+        }
+    }
+
+    /**
+     * Checks that the keyset pages list given and generated ids in order and jump over the unused ranges
+     */
+    @Test
+    public void keysetPagesListEveryId() {
+        InMemoryDatabaseManager db = new InMemoryDatabaseManager();
+        List<Long> ids = new ArrayList<>();
+        ids.addAll(db.persistAuthors(Arrays.asList(new AuthorEntry("a", "a"), new AuthorEntry(1L << 50, "b", "b"))));
+        ids.addAll(db.persistAuthors(Arrays.asList(new AuthorEntry("c", "c"), new AuthorEntry(7L, "d", "d"))));
+        ids.sort(null);
+
+        List<Long> paged = new ArrayList<>();
+        Long lastId = null;
+        List<AuthorView> page;
+
+        do {
+            page = db.findAuthorViewsAfter(lastId, 1);
+
+            for (AuthorView author: page) {
+                paged.add(author.getId());
+                lastId = author.getId();
+            }
+        } while (!page.isEmpty());
+
+        assertEquals(ids, paged);
+    }
+
+    /**
+     * Checks that a removed author is not found
+     */
+    @Test
+    public void removedAuthorIsNotFound() {
+        InMemoryDatabaseManager db = new InMemoryDatabaseManager();
+        Long id = db.persistAuthors(Arrays.asList(new AuthorEntry("a", "a"))).get(0);
+
+        db.removeAuthor(id);
+        assertNull(db.findAuthorById(id));
+        assertEquals(0L, db.countAuthors());
+    }
+}
@@ -0,0 +1,118 @@
+package pl.polsl.gabrys.arkadiusz.memory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of the map with primitive long keys
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class LongConcurrentMapTest {
+
+    /**
+     * Checks putting, replacing, finding and removing mappings
+     */
+    @Test
+    public void putGetRemove() {
+        LongConcurrentMap<String> map = new LongConcurrentMap<>(1);
+
+        assertNull(map.put(5L, "five"));
+        assertEquals("five", map.put(5L, "FIVE"));
+        assertEquals("FIVE", map.get(5L));
+        assertTrue(map.containsKey(5L));
+        assertFalse(map.containsKey(6L));
+        assertNull(map.get(0L));
+        assertEquals("FIVE", map.remove(5L));
+        assertNull(map.remove(5L));
+        assertEquals(0, map.size());
+    }
+
+    /**
+     * Checks that the segments grow and keep every mapping, negative keys included
+     */
+    @Test
+    public void growsAndKeepsMappings() {
+        LongConcurrentMap<Long> map = new LongConcurrentMap<>(2);
+
+        for (long key = -5000L; key <= 5000L; ++key) {
+            if (key != 0L)
+                map.put(key, key * 2);
+        }
+
+        assertEquals(10000, map.size());
+
+        for (long key = -5000L; key <= 5000L; key += 2) {
+            if (key != 0L)
+                assertEquals(Long.valueOf(key * 2), map.remove(key));
+        }
+
+        for (long key = -4999L; key <= 5000L; key += 2) {
+            assertEquals(Long.valueOf(key * 2), map.get(key));
+        }
+
+        assertEquals(5000, map.size());
+        List<Long> values = map.values();
+        Collections.sort(values);
+        assertEquals(Long.valueOf(-9998L), values.get(0));
+        assertEquals(Long.valueOf(9998L), values.get(values.size() - 1));
+    }
+
+    /**
+     * Checks that the key 0 and null values are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyKey() {
+        new LongConcurrentMap<String>().put(0L, "zero");
+    }
+
+    /**
+     * Checks that null values are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullValue() {
+        new LongConcurrentMap<String>().put(1L, null);
+    }
+
+    /**
+     * Checks that concurrent callers of computeIfAbsent create the value only once
+     * @throws Exception if a worker fails
+     */
+    @Test
+    public void computeIfAbsentCreatesOnce() throws Exception {
+        LongConcurrentMap<Object> map = new LongConcurrentMap<>(4);
+        AtomicInteger created = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+
+            for (int i = 0; i < 64; ++i) {
+                results.add(executor.submit(() -> map.computeIfAbsent(42L, key -> {
+                    created.incrementAndGet();
+                    return new Object();
+                })));
+            }
+
+            Object first = results.get(0).get();
+
+            for (Future<Object> result: results) {
+                assertTrue(first == result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, created.get());
+    }
+}
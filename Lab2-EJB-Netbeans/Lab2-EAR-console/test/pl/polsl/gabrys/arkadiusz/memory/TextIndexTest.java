@@ -0,0 +1,73 @@
+package pl.polsl.gabrys.arkadiusz.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of the token index
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class TextIndexTest {
+
+    /**
+     * Checks that an entry is found by its words and their prefixes and lost after removal
+     */
+    @Test
+    public void searchByWordsAndPrefixes() {
+        TextIndex<String> index = new TextIndex<>(text -> text);
+
+        index.put(1L, "Pan Tadeusz");
+        index.put(2L, "Pan Wołodyjowski");
+
+        assertEquals(2, index.search("pan", 10).size());
+        assertEquals(1, index.search("tad", 10).size());
+
+        index.remove(1L);
+
+        assertTrue(index.search("tadeusz", 10).isEmpty());
+        assertEquals(1, index.search("pan", 10).size());
+    }
+
+    /**
+     * Checks that concurrent writers of different ids sharing a word never lose an id
+     * @throws Exception if a writer fails
+     */
+    @Test
+    public void concurrentWritersSharingWordKeepEveryId() throws Exception {
+        final int threads = 8;
+        final int rounds = 10000;
+        TextIndex<String> index = new TextIndex<>(text -> text);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> writers = new ArrayList<>();
+
+        for (int t = 0; t < threads; ++t) {
+            final long id = t + 1;
+
+            // every writer empties and refills the set of the shared word, the last put stays
+            writers.add(executor.submit(() -> {
+                for (int round = 0; round < rounds; ++round) {
+                    index.put(id, "shared word" + id);
+                    index.remove(id);
+                }
+
+                index.put(id, "shared word" + id);
+            }));
+        }
+
+        for (Future<?> writer: writers) {
+            writer.get();
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(threads, index.search("shared", threads * 2).size());
+    }
+}
@@ -0,0 +1,74 @@
+package pl.polsl.gabrys.arkadiusz.shard;
+
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of the generator of shard aware ids
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ShardIdGeneratorTest {
+
+    /**
+     * Checks that the ids encode their shard and grow within every shard
+     */
+    @Test
+    public void idsEncodeShardAndGrow() {
+        ShardIdGenerator generator = new ShardIdGenerator(7);
+        long[] previous = new long[ShardIdGenerator.MAX_SHARDS];
+
+        for (int i = 0; i < 5000; ++i) {
+            int shard = i % ShardIdGenerator.MAX_SHARDS;
+            long id = generator.next(shard);
+
+            assertTrue(id >= ShardIdGenerator.FIRST_ID);
+            assertTrue(id > previous[shard]);
+            assertEquals(shard, ShardIdGenerator.shardOf(id));
+            previous[shard] = id;
+        }
+    }
+
+    /**
+     * Checks that generators of different nodes never produce the same id
+     */
+    @Test
+    public void nodesDoNotCollide() {
+        ShardIdGenerator first = new ShardIdGenerator(0);
+        ShardIdGenerator second = new ShardIdGenerator(ShardIdGenerator.MAX_NODES - 1);
+        Set<Long> ids = new HashSet<>();
+
+        for (int i = 0; i < 3000; ++i) {
+            assertTrue(ids.add(first.next()));
+            assertTrue(ids.add(second.next()));
+        }
+    }
+
+    /**
+     * Checks that ids from before sharding belong to the first shard
+     */
+    @Test
+    public void oldIdsBelongToFirstShard() {
+        assertEquals(0, ShardIdGenerator.shardOf(1L));
+        assertEquals(0, ShardIdGenerator.shardOf(ShardIdGenerator.FIRST_ID - 1));
+    }
+
+    /**
+     * Checks that node numbers out of range are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNodeOutOfRange() {
+        new ShardIdGenerator(ShardIdGenerator.MAX_NODES);
+    }
+
+    /**
+     * Checks that shard indexes out of range are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsShardOutOfRange() {
+        new ShardIdGenerator(0).next(ShardIdGenerator.MAX_SHARDS);
+    }
+}
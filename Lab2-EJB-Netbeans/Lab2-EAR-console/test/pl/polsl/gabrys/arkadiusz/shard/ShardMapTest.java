@@ -0,0 +1,140 @@
+package pl.polsl.gabrys.arkadiusz.shard;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the placement of authors and books and of the map file
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ShardMapTest {
+
+    /**
+     * Folder of the map files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Checks that growing the ring moves only the authors which go to the new shard
+     */
+    @Test
+    public void growingRingMovesFewAuthors() {
+        ShardMap four = new ShardMap(4);
+        ShardMap five = new ShardMap(5);
+        ShardIdGenerator ids = new ShardIdGenerator(0);
+        int[] counts = new int[5];
+        int moved = 0;
+
+        for (int i = 0; i < 10000; ++i) {
+            long id = ids.next();
+            int before = four.ringShardOf(id);
+            int after = five.ringShardOf(id);
+
+            if (before != after) {
+                assertEquals(4, after);
+                ++moved;
+            }
+
+            ++counts[after];
+        }
+
+        // about a fifth of the authors moves and every shard gets a fair share
+        assertTrue(moved > 1200 && moved < 2800);
+
+        for (int count: counts) {
+            assertTrue(count > 1200 && count < 2800);
+        }
+    }
+
+    /**
+     * Checks that authors from before sharding stay on the first shard
+     */
+    @Test
+    public void oldAuthorsStayOnFirstShard() {
+        ShardMap map = new ShardMap(8);
+
+        for (long id = 1L; id < 100L; ++id) {
+            assertEquals(0, map.shardOfAuthor(id));
+        }
+    }
+
+    /**
+     * Checks that moving an author places its books with it and moving it back drops the entries
+     */
+    @Test
+    public void moveAuthorAndBack() {
+        ShardMap map = new ShardMap(2);
+        ShardIdGenerator ids = new ShardIdGenerator(0);
+        long authorId = ids.next();
+        int home = map.shardOfAuthor(authorId);
+        long bookId = ids.next(home);
+
+        map.moveAuthor(authorId, 1 - home, Collections.singletonList(bookId));
+        assertEquals(1 - home, map.shardOfAuthor(authorId));
+        assertEquals(1 - home, map.shardOfBook(bookId));
+
+        map.moveAuthor(authorId, home, Collections.singletonList(bookId));
+        assertEquals(home, map.shardOfAuthor(authorId));
+        assertEquals(home, map.shardOfBook(bookId));
+        assertTrue(map.getMovedAuthors().isEmpty());
+        assertTrue(map.getMovedBooks().isEmpty());
+    }
+
+    /**
+     * Checks that the stored map is read back with every entry and that every store increments the version
+     * @throws IOException if the map file cannot be written or read
+     */
+    @Test
+    public void storeAndLoad() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("shards.properties");
+        ShardMap map = new ShardMap(3);
+        map.moveAuthor(7L, 2, Arrays.asList(8L, 9L));
+
+        assertEquals(0L, map.getVersion());
+        map.store(file);
+        map.store(file);
+        assertEquals(2L, map.getVersion());
+
+        ShardMap loaded = ShardMap.load(file, 1);
+        assertEquals(3, loaded.getShardCount());
+        assertEquals(2L, loaded.getVersion());
+        assertEquals(2, loaded.shardOfAuthor(7L));
+        assertEquals(2, loaded.shardOfBook(9L));
+        assertEquals(0, loaded.shardOfBook(10L));
+        assertEquals(2L, loaded.resize(4).getVersion());
+    }
+
+    /**
+     * Checks that a missing file gives an empty map of given size
+     * @throws IOException if the map file cannot be read
+     */
+    @Test
+    public void missingFileGivesEmptyMap() throws IOException {
+        ShardMap map = ShardMap.load(folder.getRoot().toPath().resolve("missing.properties"), 6);
+
+        assertEquals(6, map.getShardCount());
+        assertEquals(0L, map.getVersion());
+    }
+
+    /**
+     * Checks that entries on shards out of range are rejected
+     * @throws IOException if the map file cannot be written or read
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidShard() throws IOException {
+        Path file = folder.newFile("invalid.properties").toPath();
+        Files.write(file, Collections.singletonList("author.5=" + ShardIdGenerator.MAX_SHARDS), StandardCharsets.UTF_8);
+        ShardMap.load(file, 2);
+    }
+}
@@ -0,0 +1,168 @@
+package pl.polsl.gabrys.arkadiusz.shard;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookEntry;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.memory.InMemoryDatabaseManager;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.FetchPlan;
+
+/**
+ * Tests of the sharded database manager over in-memory shards
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ShardedDatabaseManagerTest {
+
+    /**
+     * Number of shards
+     */
+    private static final int SHARDS = 3;
+
+    /**
+     * Folder of the map file
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The shards
+     */
+    private List<DatabaseManagerRemote> shards;
+
+    /**
+     * The map file
+     */
+    private Path file;
+
+    /**
+     * Creates empty shards
+     */
+    @Before
+    public void setUp() {
+        shards = new ArrayList<>();
+
+        for (int i = 0; i < SHARDS; ++i) {
+            shards.add(new InMemoryDatabaseManager());
+        }
+
+        file = folder.getRoot().toPath().resolve("shards.properties");
+    }
+
+    /**
+     * Checks that the keyset pages merged from all shards list every author once in id order
+     */
+    @Test
+    public void keysetPagesMergeShards() {
+        ShardedDatabaseManager db = new ShardedDatabaseManager(shards, new ShardMap(SHARDS), file, new ShardIdGenerator(0));
+        List<Long> ids = persistAuthors(db, 500);
+
+        for (DatabaseManagerRemote shard: shards) {
+            assertTrue(shard.countAuthors() > 0);
+        }
+
+        List<Long> paged = new ArrayList<>();
+        Long lastId = null;
+        List<AuthorView> page;
+
+        do {
+            page = db.findAuthorViewsAfter(lastId, 7);
+
+            for (AuthorView author: page) {
+                paged.add(author.getId());
+                lastId = author.getId();
+            }
+        } while (page.size() == 7);
+
+        List<Long> expected = new ArrayList<>(ids);
+        expected.sort(null);
+        assertEquals(expected, paged);
+        assertEquals(500L, db.countAuthors());
+    }
+
+    /**
+     * Checks that books go to the shard of their author and are found by id
+     */
+    @Test
+    public void booksFollowTheirAuthor() {
+        ShardedDatabaseManager db = new ShardedDatabaseManager(shards, new ShardMap(SHARDS), file, new ShardIdGenerator(0));
+        List<Long> authorIds = persistAuthors(db, 30);
+        List<BookEntry> books = new ArrayList<>();
+
+        for (Long authorId: authorIds) {
+            books.add(new BookEntry("Title " + authorId, 100L, new Date(0L), authorId));
+        }
+
+        List<Long> bookIds = db.persistBooks(books);
+
+        for (int i = 0; i < bookIds.size(); ++i) {
+            assertEquals(authorIds.get(i), db.findBookById(bookIds.get(i)).getAuthor().getId());
+            assertEquals(1, db.findAuthorById(authorIds.get(i), FetchPlan.AUTHOR_WITH_BOOKS).getBooks().size());
+        }
+    }
+
+    /**
+     * Checks that a running client reads the map stored by the rebalancer and finds the moved authors
+     * @throws IOException if the map file cannot be written
+     */
+    @Test
+    public void runningClientSeesRebalancedMap() throws IOException {
+        ShardedDatabaseManager writer = new ShardedDatabaseManager(shards, new ShardMap(1), file, new ShardIdGenerator(0));
+        List<Long> ids = persistAuthors(writer, 300);
+        ShardedDatabaseManager reader = new ShardedDatabaseManager(shards, ShardMap.load(file, 1), file, new ShardIdGenerator(1));
+        ShardRebalancer rebalancer = new ShardRebalancer(shards, ShardMap.load(file, 1), file, new PrintStream(new ByteArrayOutputStream()));
+
+        assertTrue(rebalancer.rebalance(SHARDS) > 0);
+        assertTrue(shards.get(SHARDS - 1).countAuthors() > 0);
+
+        for (Long id: ids) {
+            Author author = reader.findAuthorById(id);
+            assertNotNull(author);
+        }
+    }
+
+    /**
+     * Checks that a map placing entities on missing shards is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMapWithMissingShards() {
+        new ShardedDatabaseManager(shards, new ShardMap(SHARDS + 1), file, new ShardIdGenerator(0));
+    }
+
+    /**
+     * Adds authors in bulks of 100
+     * @param db the database manager
+     * @param count the number of authors
+     * @return the ids of the new authors
+     */
+    private static List<Long> persistAuthors(DatabaseManagerRemote db, int count) {
+        List<Long> ids = new ArrayList<>();
+
+        for (int i = 0; i < count; i += 100) {
+            List<AuthorEntry> authors = new ArrayList<>();
+
+            for (int j = i; j < Math.min(count, i + 100); ++j) {
+                authors.add(new AuthorEntry("Name" + j, "LastName" + j));
+            }
+
+            ids.addAll(db.persistAuthors(authors));
+        }
+
+        return ids;
+    }
+}
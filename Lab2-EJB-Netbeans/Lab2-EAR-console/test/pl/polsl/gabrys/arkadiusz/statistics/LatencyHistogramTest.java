@@ -0,0 +1,87 @@
+package pl.polsl.gabrys.arkadiusz.statistics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of the histogram buckets and quantiles
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Checks that small values have buckets of their own
+     */
+    @Test
+    public void smallValuesAreExact() {
+        for (long value = 0; value < 16; ++value) {
+            assertEquals(value, LatencyHistogram.index(value));
+            assertEquals(value, LatencyHistogram.upperBound(LatencyHistogram.index(value)));
+        }
+    }
+
+    /**
+     * Checks that every value falls into a bucket whose upper bound is at most about 6 percent above it
+     */
+    @Test
+    public void bucketsBoundValuesClosely() {
+        for (long value = 16; value > 0 && value < Long.MAX_VALUE / 2; value = value * 3 / 2 + 7) {
+            int index = LatencyHistogram.index(value);
+            long upper = LatencyHistogram.upperBound(index);
+
+            assertTrue(value + " above its bucket", value <= upper);
+            assertTrue(value + " below its bucket", value > LatencyHistogram.upperBound(index - 1));
+            assertTrue(value + " bucket too wide", upper - value <= value / 16);
+        }
+    }
+
+    /**
+     * Checks that the bucket of a power of two starts right after the previous bucket
+     */
+    @Test
+    public void bucketsAreContiguous() {
+        for (int shift = 4; shift < 62; ++shift) {
+            long value = 1L << shift;
+            assertEquals(value - 1, LatencyHistogram.upperBound(LatencyHistogram.index(value) - 1));
+        }
+    }
+
+    /**
+     * Checks the quantiles, the mean and the maximum of recorded values
+     */
+    @Test
+    public void quantilesOfRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long value = 1; value <= 100; ++value) {
+            histogram.record(value * 1000L);
+        }
+
+        histogram.record(-5L);
+
+        assertEquals(101L, histogram.getCount());
+        assertEquals(100000L, histogram.getMax());
+        assertEquals(5050000.0 / 101, histogram.getMean(), 1e-6);
+
+        long[] quantiles = histogram.getQuantiles(0.0, 0.5, 0.99, 1.0);
+        assertEquals(0L, quantiles[0]);
+        assertTrue(quantiles[1] >= 50000L && quantiles[1] <= 53125L);
+        assertTrue(quantiles[2] >= 99000L && quantiles[2] <= 100000L);
+        assertEquals(100000L, quantiles[3]);
+    }
+
+    /**
+     * Checks that an empty histogram reports zeros
+     */
+    @Test
+    public void emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0.0, histogram.getMean(), 0.0);
+        assertArrayEquals(new long[] {0L, 0L}, histogram.getQuantiles(0.5, 0.99));
+    }
+}
@@ -0,0 +1,1362 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import javax.ejb.EJB;
+import javax.ejb.EJBException;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityManager;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.persistence.PessimisticLockException;
+import javax.persistence.Query;
+import javax.persistence.QueryTimeoutException;
+import javax.persistence.TemporalType;
+import javax.persistence.TransactionRequiredException;
+import javax.persistence.TypedQuery;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorEntry;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookEntry;
+import pl.polsl.gabrys.arkadiusz.dto.BookStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.dto.CacheStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.MergeStatistics;
+import pl.polsl.gabrys.arkadiusz.dto.MethodStatistics;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+import pl.polsl.gabrys.arkadiusz.model.FetchPlan;
+import pl.polsl.gabrys.arkadiusz.model.TextNormalizer;
+
+/**
+ * Provides CRUD implementation for entities, shared by the DatabaseManager and
+ * DatabaseSession beans. This class is not a bean, the subclasses carry the bean
+ * annotations and decide where the reads go.
+ * The query based find methods run without a JTA transaction on the Lab2-EJB-Read
+ * persistence unit and return read-only entities which are not registered for change
+ * tracking. Writes go to the Lab2-EJB primary unit.
+ * Lookups by id stay on the transactional unit, they are served from its shared cache.
+ * Setting the pl.polsl.gabrys.arkadiusz.read.separate system property to false runs the
+ * find methods on the transactional unit, so both paths can be compared with the same load.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public abstract class AbstractDatabaseManager implements DatabaseManagerRemote {
+
+    /**
+     * Whether the find methods use the read-only persistence unit
+     */
+    private static final boolean SEPARATE_READS = Boolean.parseBoolean(System.getProperty("pl.polsl.gabrys.arkadiusz.read.separate", "true"));
+
+    /**
+     * Entity manager instance
+     */
+    @PersistenceContext(name="Lab2-EJB", unitName="Lab2-EJB")
+    private EntityManager entityManager;
+
+    /**
+     * Router choosing the replica which serves a read
+     */
+    @EJB
+    private ReplicaRouter replicaRouter;
+
+    /**
+     * Shared entity cache manager
+     */
+    @EJB
+    private EntityCacheManager cacheManager;
+
+    /**
+     * In-memory index over author names and book titles
+     */
+    @EJB
+    private SearchIndex searchIndex;
+
+    /**
+     * Executor running merges in separate transactions with retries after version conflicts
+     */
+    @EJB
+    private OptimisticRetryExecutor retryExecutor;
+
+    /**
+     * Registry of the latency metrics recorded by LatencyInterceptor
+     */
+    @EJB
+    private PerformanceMonitor performanceMonitor;
+
+    /**
+     * Class constructor
+     */
+    protected AbstractDatabaseManager() { }
+
+    /**
+     * Finds Author entity by its id using the AUTHOR_ONLY fetch plan
+     * @param id the entity id
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public Author findAuthorById(Long id) throws IllegalArgumentException {
+        return find(Author.class, id);
+    }
+
+    /**
+     * Finds Author entity by its id using given fetch plan
+     * @param id the entity id
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the id or the plan is null or the plan does not apply to authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public Author findAuthorById(Long id, FetchPlan plan) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        String namedQuery = authorQueryName(plan, "findById");
+        
+        if (plan == FetchPlan.AUTHOR_ONLY) {
+            return find(Author.class, id);
+        }
+        
+        if (id == null)
+            throw new IllegalArgumentException("Id cannot be null");
+        
+        return read(em -> {
+            TypedQuery<Author> query = readQuery(em, namedQuery, Author.class);
+            query.setParameter("id", id);
+            List<Author> result = query.getResultList();
+            return result.isEmpty() ? null : result.get(0);
+        });
+    }
+
+    /**
+     * Returns all authors using the AUTHOR_ONLY fetch plan
+     * @return the list with all authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<Author> findAllAuthors() throws QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+      return findAll(Author.class);
+    }
+
+    /**
+     * Returns all authors using given fetch plan
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list with all authors
+     * @throws IllegalArgumentException if the plan is null or does not apply to authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<Author> findAllAuthors(FetchPlan plan) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        String namedQuery = authorQueryName(plan, "findAll");
+        return read(em -> readQuery(em, namedQuery, Author.class).getResultList());
+    }
+
+    /**
+     * Returns all authors with given name using the AUTHOR_ONLY fetch plan
+     * @param name the author name
+     * @return the list of authors with given name
+     * @throws IllegalArgumentException if given class is not valid entity class for this operation
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<Author> findAuthorsByName(String name) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        return findAuthorsByName(name, FetchPlan.AUTHOR_ONLY);
+    }
+
+    /**
+     * Returns all authors with given name using given fetch plan, the name is compared
+     * in the TextNormalizer form so case, spacing and diacritics are ignored
+     * @param name the author name
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list of authors with given name
+     * @throws IllegalArgumentException if the name or the plan is null or the plan does not apply to authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<Author> findAuthorsByName(String name, FetchPlan plan) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        if (name == null)
+            throw new IllegalArgumentException("Name cannot be null");
+        
+        String namedQuery = authorQueryName(plan, "findByName");
+        return read(em -> {
+            TypedQuery<Author> query = readQuery(em, namedQuery, Author.class);
+            query.setParameter("name", TextNormalizer.normalize(name));
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Returns the next page of authors ordered by id using the AUTHOR_ONLY fetch plan
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit authors with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<Author> findAuthorsAfter(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        return findAfter(Author.class, lastId, limit);
+    }
+
+    /**
+     * Returns the next page of authors ordered by id using given fetch plan
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @param plan the AUTHOR_ONLY or AUTHOR_WITH_BOOKS fetch plan
+     * @return the list of at most limit authors with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number or the plan is null or does not apply to authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<Author> findAuthorsAfter(Long lastId, int limit, FetchPlan plan) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        String namedQuery = authorQueryName(plan, "findByIds");
+        
+        if (plan == FetchPlan.AUTHOR_ONLY) {
+            return findAfter(Author.class, lastId, limit);
+        }
+        
+        int max = checkLimit(limit);
+        
+        return read(em -> {
+            // the row limit cannot be applied to a collection join, so select the page ids first
+            TypedQuery<Long> idsQuery = em.createNamedQuery("Author.findIdsAfter", Long.class);
+            idsQuery.setParameter("lastId", lastId == null ? 0L : lastId);
+            idsQuery.setMaxResults(max);
+            List<Long> ids = idsQuery.getResultList();
+            
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
+            }
+            
+            TypedQuery<Author> query = readQuery(em, namedQuery, Author.class);
+            query.setParameter("ids", ids);
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Finds Book entity by its id using the BOOK_WITH_AUTHOR fetch plan
+     * @param id the entity id
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public Book findBookById(Long id) throws IllegalArgumentException {
+        Book entity = cacheManager.findCached(entityManager, Book.class, id);
+        
+        if (entity == null) {
+            // a miss loads the book together with its author with a single join fetch query
+            TypedQuery<Book> query = entityManager.createNamedQuery(FetchPlan.BOOK_WITH_AUTHOR.queryName(Book.class, "findById"), Book.class);
+            query.setParameter("id", id);
+            List<Book> result = query.getResultList();
+            return result.isEmpty() ? null : result.get(0);
+        }
+        
+        // resolve the lazy author from the shared cache so it is sent together with the book
+        entity.getAuthor().getId();
+        return entity;
+    }
+
+    /**
+     * Returns all books using the BOOK_WITH_AUTHOR fetch plan
+     * @return the list with all books
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<Book> findAllBooks() throws QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+      return findAll(Book.class);
+    }
+
+    /**
+     * Returns al books with given title using the BOOK_WITH_AUTHOR fetch plan, the title is compared
+     * in the TextNormalizer form so case, spacing and diacritics are ignored
+     * @param title the book title
+     * @return the list of books with given title
+     * @throws IllegalArgumentException if given class is not valid entity class for this operation
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<Book> findBooksByTitle(String title) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        if (title == null)
+            throw new IllegalArgumentException("Title cannot be null");
+        
+        return read(em -> {
+            TypedQuery<Book> query = readQuery(em, "Book.findByTitle", Book.class);
+            query.setParameter("title", TextNormalizer.normalize(title));
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Returns the next page of books ordered by id using the BOOK_WITH_AUTHOR fetch plan
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit books with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<Book> findBooksAfter(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        return findAfter(Book.class, lastId, limit);
+    }
+
+    /**
+     * Returns flat views of all authors ordered by id
+     * @return the list with views of all authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<AuthorView> findAllAuthorViews() throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        return read(em -> em.createNamedQuery("Author.findAllViews", AuthorView.class).getResultList());
+    }
+
+    /**
+     * Returns flat views of the next page of authors ordered by id
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit author views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<AuthorView> findAuthorViewsAfter(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        return findPage("Author.findViewsAfter", AuthorView.class, lastId, limit);
+    }
+
+    /**
+     * Returns flat views of all books ordered by id
+     * @return the list with views of all books
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<BookView> findAllBookViews() throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        return read(em -> em.createNamedQuery("Book.findAllViews", BookView.class).getResultList());
+    }
+
+    /**
+     * Returns flat views of the next page of books ordered by id
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<BookView> findBookViewsAfter(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        return findPage("Book.findViewsAfter", BookView.class, lastId, limit);
+    }
+
+    /**
+     * Returns flat views of the next chunk of authors ordered by id for exports,
+     * read without a transaction and with the JDBC fetch size matching the chunk
+     * @param lastId the id of the last author from the previous chunk or null for the first chunk
+     * @param limit the maximum number of authors in the chunk, values above MAX_EXPORT_SIZE are lowered to it
+     * @return the list of at most limit author views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<AuthorView> exportAuthorViews(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException {
+        return findExportChunk("Author.findViewsAfter", AuthorView.class, lastId, limit);
+    }
+
+    /**
+     * Returns flat views of the next chunk of books ordered by id for exports,
+     * read without a transaction and with the JDBC fetch size matching the chunk
+     * @param lastId the id of the last book from the previous chunk or null for the first chunk
+     * @param limit the maximum number of books in the chunk, values above MAX_EXPORT_SIZE are lowered to it
+     * @return the list of at most limit book views with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<BookView> exportBookViews(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException {
+        return findExportChunk("Book.findViewsAfter", BookView.class, lastId, limit);
+    }
+
+    /**
+     * Returns flat views of the next page of books released in the given date range,
+     * ordered by release date and id. Pages are read from the release date index.
+     * @param from the first release date of the range
+     * @param to the last release date of the range
+     * @param lastReleaseDate the release date of the last book from the previous page or null for the first page
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views which follow the given book
+     * @throws IllegalArgumentException if the range bounds are null or the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<BookView> findBookViewsReleasedBetween(Date from, Date to, Date lastReleaseDate, Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException {
+        if (from == null || to == null)
+            throw new IllegalArgumentException("Release date range cannot be null");
+        
+        int max = checkLimit(limit);
+        
+        return read(em -> {
+            TypedQuery<BookView> query = em.createNamedQuery("Book.findViewsReleasedBetween", BookView.class);
+            query.setParameter("from", from, TemporalType.DATE);
+            query.setParameter("to", to, TemporalType.DATE);
+            // the first page starts with the books released on the first day of the range
+            query.setParameter("lastDate", lastReleaseDate == null ? from : lastReleaseDate, TemporalType.DATE);
+            query.setParameter("lastId", lastReleaseDate == null || lastId == null ? 0L : lastId);
+            query.setMaxResults(max);
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Returns flat views of the next page of the latest releases, ordered by descending release date and id.
+     * Pages are read from the release date index.
+     * @param lastReleaseDate the release date of the last book from the previous page or null for the first page
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit book views released before the given book
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<BookView> findLatestBookViews(Date lastReleaseDate, Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException {
+        int max = checkLimit(limit);
+        
+        return read(em -> {
+            TypedQuery<BookView> query;
+            
+            if (lastReleaseDate == null) {
+                query = em.createNamedQuery("Book.findLatestViews", BookView.class);
+            } else {
+                query = em.createNamedQuery("Book.findLatestViewsBefore", BookView.class);
+                query.setParameter("lastDate", lastReleaseDate, TemporalType.DATE);
+                query.setParameter("lastId", lastId == null ? Long.MAX_VALUE : lastId);
+            }
+            
+            query.setMaxResults(max);
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Finds authors whose name or last name words start with the words of given text,
+     * ignoring case and diacritics. Served from the in-memory index without querying the database.
+     * @param text the searched text
+     * @param limit the maximum number of authors, values above MAX_PAGE_SIZE are lowered to it
+     * @return the matching authors, whole word matches and shorter names first
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<AuthorView> searchAuthors(String text, int limit) throws IllegalArgumentException {
+        return searchIndex.searchAuthors(text, checkLimit(limit));
+    }
+
+    /**
+     * Finds books whose title words start with the words of given text,
+     * ignoring case and diacritics. Served from the in-memory index without querying the database.
+     * @param text the searched text
+     * @param limit the maximum number of books, values above MAX_PAGE_SIZE are lowered to it
+     * @return the matching books, whole word matches and shorter titles first
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    @Override
+    public List<BookView> searchBooks(String text, int limit) throws IllegalArgumentException {
+        return searchIndex.searchBooks(text, checkLimit(limit));
+    }
+
+    /**
+     * Counts all authors
+     * @return the number of authors
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public long countAuthors() throws QueryTimeoutException, PersistenceException {
+        return read(em -> em.createNamedQuery("Author.count", Long.class).getSingleResult());
+    }
+
+    /**
+     * Aggregates all books with a single query
+     * @return the number of books, the sum, average and range of pages and the range of release dates
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public BookStatistics getBookStatistics() throws QueryTimeoutException, PersistenceException {
+        return read(em -> em.createNamedQuery("Book.statistics", BookStatistics.class).getSingleResult());
+    }
+
+    /**
+     * Aggregates the books of given author with a single grouped query
+     * @param authorId the author id
+     * @return the author book aggregates or null if the author doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public AuthorStatistics getAuthorStatistics(Long authorId) throws IllegalArgumentException, QueryTimeoutException, PersistenceException {
+        if (authorId == null)
+            throw new IllegalArgumentException("Id cannot be null");
+        
+        return read(em -> {
+            TypedQuery<AuthorStatistics> query = em.createNamedQuery("Author.statisticsById", AuthorStatistics.class);
+            query.setParameter("id", authorId);
+            List<AuthorStatistics> result = query.getResultList();
+            return result.isEmpty() ? null : result.get(0);
+        });
+    }
+
+    /**
+     * Aggregates the books of the next page of authors ordered by id, authors without books are included
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit author aggregates with author id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<AuthorStatistics> findAuthorStatisticsAfter(Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException {
+        return findPage("Author.statisticsAfter", AuthorStatistics.class, lastId, limit);
+    }
+
+    /**
+     * Aggregates the books of the authors with the largest number of books
+     * @param limit the maximum number of authors, values above MAX_PAGE_SIZE are lowered to it
+     * @return the author aggregates ordered by descending number of books and then by author id
+     * @throws IllegalArgumentException if the limit is not a positive number
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<AuthorStatistics> findTopAuthorStatistics(int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException {
+        int max = checkLimit(limit);
+        
+        return read(em -> {
+            TypedQuery<AuthorStatistics> query = em.createNamedQuery("Author.statisticsByBookCount", AuthorStatistics.class);
+            query.setMaxResults(max);
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Adds new Author entity
+     * @param name the author name
+     * @param lastName the author last name
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
+     */
+    @Override
+    public void persistAuthor(String name, String lastName) throws TransactionRequiredException {
+        recordWrite();
+        Author entity = new Author(name, lastName);
+        persist(entity);
+    }
+
+    /**
+     * Adds new Book entity
+     * @param title the book title
+     * @param pages the number of book pages
+     * @param releaseDate the book release date
+     * @param authorId the book author id
+     * @throws IllegalArgumentException if the author id is null or if the author doesn't exists
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
+     */
+    @Override
+    public void persistBook(String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException, TransactionRequiredException {
+        recordWrite();
+        Author author = findAuthorById(authorId);
+        
+        if (author == null) {
+            throw new IllegalArgumentException("Author with id: " + authorId + " doesn't exists");
+        }
+        
+        Book entity = new Book(title, pages, releaseDate, author);
+        persist(entity);
+    }
+
+    /**
+     * Adds new Author entities in a single transaction, the inserts are sent in JDBC batches.
+     * Entries with an id keep it, the table generator assigns the others
+     * @param authors the values of the new authors, at most MAX_BULK_SIZE entries
+     * @return the ids of the new authors in the order of given entries
+     * @throws IllegalArgumentException if the list is null or longer than MAX_BULK_SIZE
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
+     */
+    @Override
+    public List<Long> persistAuthors(List<AuthorEntry> authors) throws IllegalArgumentException, TransactionRequiredException {
+        recordWrite();
+        checkBulkSize(authors);
+        List<Long> ids = new ArrayList<>(authors.size());
+        
+        for (AuthorEntry entry: authors) {
+            Author entity = entry.getId() == null
+                    ? new Author(entry.getName(), entry.getLastName())
+                    : new Author(entry.getId(), entry.getName(), entry.getLastName(), null);
+            persist(entity);
+            ids.add(entity.getId());
+        }
+        
+        return ids;
+    }
+
+    /**
+     * Adds new Book entities in a single transaction, the inserts are sent in JDBC batches
+     * and all referenced authors are loaded with a single query.
+     * Entries with an id keep it, the table generator assigns the others
+     * @param books the values of the new books, at most MAX_BULK_SIZE entries
+     * @return the ids of the new books in the order of given entries
+     * @throws IllegalArgumentException if the list is null or longer than MAX_BULK_SIZE, if any author id is null or if any author doesn't exists
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
+     */
+    @Override
+    public List<Long> persistBooks(List<BookEntry> books) throws IllegalArgumentException, TransactionRequiredException {
+        recordWrite();
+        checkBulkSize(books);
+        Set<Long> authorIds = new HashSet<>();
+        
+        for (BookEntry entry: books) {
+            if (entry.getAuthorId() == null)
+                throw new IllegalArgumentException("Author id cannot be null");
+            
+            authorIds.add(entry.getAuthorId());
+        }
+        
+        Map<Long, Author> authors = new HashMap<>();
+        
+        if (!authorIds.isEmpty()) {
+            TypedQuery<Author> query = entityManager.createNamedQuery("Author.findByIds", Author.class);
+            query.setParameter("ids", new ArrayList<>(authorIds));
+            
+            for (Author author: query.getResultList()) {
+                authors.put(author.getId(), author);
+            }
+        }
+        
+        // validate every entry before anything is persisted
+        for (Long authorId: authorIds) {
+            if (!authors.containsKey(authorId)) {
+                throw new IllegalArgumentException("Author with id: " + authorId + " doesn't exists");
+            }
+        }
+        
+        List<Long> ids = new ArrayList<>(books.size());
+        
+        for (BookEntry entry: books) {
+            Author author = authors.get(entry.getAuthorId());
+            Book entity = entry.getId() == null
+                    ? new Book(entry.getTitle(), entry.getPages(), entry.getReleaseDate(), author)
+                    : new Book(entry.getId(), entry.getTitle(), entry.getPages(), entry.getReleaseDate(), author);
+            persist(entity);
+            ids.add(entity.getId());
+        }
+        
+        return ids;
+    }
+
+    /**
+     * Updates given Author entity
+     * @param id the author id
+     * @param name the new author name
+     * @param lastName the new author last name
+     * @throws IllegalArgumentException if the author is a removed entity or if the id is null or the given author doesn't exists
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transactio
+     * @throws OptimisticLockException if the author was concurrently updated in all retry attempts
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void mergeAuthor(Long id, String name, String lastName) throws IllegalArgumentException, TransactionRequiredException, OptimisticLockException {
+      retry(() -> {
+        Author entity = findAuthorById(id);
+        entity.setName(name);
+        entity.setLastName(lastName);
+        merge(entity);
+        evictAuthor(id);
+        return null;
+      });
+      recordWrite();
+    }
+
+    /**
+     * Updates given Book entity
+     * @param id the book id
+     * @param title the new book title
+     * @param pages the new number of pages
+     * @param releaseDate the new release date
+     * @param authorId the id of the new author
+     * @throws IllegalArgumentException if the book is a removed entity or if the id is null
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transactio
+     * @throws OptimisticLockException if the book was concurrently updated in all retry attempts
+     */
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void mergeBook(Long id, String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException, TransactionRequiredException, OptimisticLockException {
+      retry(() -> {
+        Book entity = findBookById(id);
+        Long oldAuthorId = entity.getAuthor().getId();
+        Author author = findAuthorById(authorId);
+        entity.setTitle(title);
+        entity.setPages(pages);
+        entity.setReleaseDate(releaseDate);
+        entity.setAuthor(author);
+        merge(entity);
+        cacheManager.evictAfterCompletion(Book.class, Arrays.asList(id));
+        cacheManager.evictAfterCompletion(Author.class, Arrays.asList(oldAuthorId, authorId));
+        return null;
+      });
+      recordWrite();
+    }
+
+    /**
+     * Removes Author entity
+     * @param id the author id
+     * @throws IllegalArgumentException if the instance is a detached entity
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
+     */
+    @Override
+    public void removeAuthor(Long id) throws IllegalArgumentException, TransactionRequiredException {
+      recordWrite();
+      Author entity = findAuthorById(id);
+      remove(entity);
+      evictAuthor(id);
+    }
+
+    /**
+     * Removes Book entity
+     * @param id the book id
+     * @throws IllegalArgumentException if the instance is a detached entity
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
+     */
+    @Override
+    public void removeBook(Long id) throws IllegalArgumentException, TransactionRequiredException {
+      recordWrite();
+      Book entity = findBookById(id);
+      remove(entity);
+      cacheManager.evictAfterCompletion(Book.class, Arrays.asList(id));
+      cacheManager.evictAfterCompletion(Author.class, Arrays.asList(entity.getAuthor().getId()));
+    }
+
+    /**
+     * Updates Author entity with a single UPDATE statement without loading it
+     * @param id the author id
+     * @param name the new author name
+     * @param lastName the new author last name
+     * @return the number of updated authors, 0 if the author doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    public int updateAuthor(Long id, String name, String lastName) throws IllegalArgumentException, TransactionRequiredException, QueryTimeoutException, PersistenceException {
+        recordWrite();
+        
+        if (id == null)
+            throw new IllegalArgumentException("Id cannot be null");
+        
+        Query query = entityManager.createNamedQuery("Author.updateById");
+        query.setParameter("id", id);
+        query.setParameter("name", name);
+        query.setParameter("normalizedName", TextNormalizer.normalize(name));
+        query.setParameter("lastName", lastName);
+        int updated = query.executeUpdate();
+        
+        if (updated > 0) {
+            evictAuthor(id);
+            AuthorView view = new AuthorView(id, name, lastName);
+            CatalogChanges.pending().putAuthor(view);
+        }
+        
+        return updated;
+    }
+
+    /**
+     * Updates Book entity with a single UPDATE statement without loading it or its author
+     * @param id the book id
+     * @param title the new book title
+     * @param pages the new number of pages
+     * @param releaseDate the new release date
+     * @param authorId the id of the new author
+     * @return the number of updated books, 0 if the book doesn't exists
+     * @throws IllegalArgumentException if the id or author id is null
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    public int updateBook(Long id, String title, Long pages, Date releaseDate, Long authorId) throws IllegalArgumentException, TransactionRequiredException, QueryTimeoutException, PersistenceException {
+        recordWrite();
+        
+        if (id == null || authorId == null)
+            throw new IllegalArgumentException("Id cannot be null");
+        
+        List<Long> ids = Arrays.asList(id);
+        List<Long> authorIds = findAuthorIdsOfBooks(ids);
+        
+        Query query = entityManager.createNamedQuery("Book.updateById");
+        query.setParameter("id", id);
+        query.setParameter("title", title);
+        query.setParameter("normalizedTitle", TextNormalizer.normalize(title));
+        query.setParameter("pages", pages);
+        query.setParameter("releaseDate", releaseDate, TemporalType.DATE);
+        query.setParameter("author", entityManager.getReference(Author.class, authorId));
+        int updated = query.executeUpdate();
+        
+        if (updated > 0) {
+            authorIds.add(authorId);
+            cacheManager.evictAfterCompletion(Book.class, ids);
+            cacheManager.evictAfterCompletion(Author.class, authorIds);
+            BookView view = new BookView(id, title, pages, releaseDate, authorId);
+            CatalogChanges.pending().putBook(view);
+        }
+        
+        return updated;
+    }
+
+    /**
+     * Moves books to another author with a single UPDATE statement without loading them
+     * @param ids the book ids, at most MAX_BULK_SIZE entries
+     * @param authorId the id of the new author
+     * @return the number of updated books
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE or the author id is null
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    public int updateBooksAuthor(Collection<Long> ids, Long authorId) throws IllegalArgumentException, TransactionRequiredException, QueryTimeoutException, PersistenceException {
+        recordWrite();
+        checkBulkSize(ids);
+        
+        if (authorId == null)
+            throw new IllegalArgumentException("Author id cannot be null");
+        
+        if (ids.isEmpty())
+            return 0;
+        
+        List<Long> bookIds = new ArrayList<>(ids);
+        List<Long> authorIds = findAuthorIdsOfBooks(bookIds);
+        
+        Query query = entityManager.createNamedQuery("Book.updateAuthorByIds");
+        query.setParameter("ids", bookIds);
+        query.setParameter("author", entityManager.getReference(Author.class, authorId));
+        int updated = query.executeUpdate();
+        
+        authorIds.add(authorId);
+        cacheManager.evictAfterCompletion(Book.class, bookIds);
+        cacheManager.evictAfterCompletion(Author.class, authorIds);
+        
+        TypedQuery<BookView> views = entityManager.createNamedQuery("Book.findViewsByIds", BookView.class);
+        views.setParameter("ids", bookIds);
+        List<BookView> updatedViews = views.getResultList();
+        updatedViews.forEach(CatalogChanges.pending()::putBook);
+        
+        return updated;
+    }
+
+    /**
+     * Removes books with a single DELETE statement without loading them
+     * @param ids the book ids, at most MAX_BULK_SIZE entries
+     * @return the number of removed books
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    public int removeBooks(Collection<Long> ids) throws IllegalArgumentException, TransactionRequiredException, QueryTimeoutException, PersistenceException {
+        recordWrite();
+        checkBulkSize(ids);
+        
+        if (ids.isEmpty())
+            return 0;
+        
+        List<Long> bookIds = new ArrayList<>(ids);
+        List<Long> authorIds = findAuthorIdsOfBooks(bookIds);
+        
+        Query query = entityManager.createNamedQuery("Book.deleteByIds");
+        query.setParameter("ids", bookIds);
+        int removed = query.executeUpdate();
+        
+        cacheManager.evictAfterCompletion(Book.class, bookIds);
+        cacheManager.evictAfterCompletion(Author.class, authorIds);
+        bookIds.forEach(CatalogChanges.pending()::removeBook);
+        
+        return removed;
+    }
+
+    /**
+     * Removes authors together with all of their books with two DELETE statements without loading them
+     * @param ids the author ids, at most MAX_BULK_SIZE entries
+     * @return the number of removed authors
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    @Override
+    public int removeAuthorsCascading(Collection<Long> ids) throws IllegalArgumentException, TransactionRequiredException, QueryTimeoutException, PersistenceException {
+        recordWrite();
+        checkBulkSize(ids);
+        
+        if (ids.isEmpty())
+            return 0;
+        
+        List<Long> authorIds = new ArrayList<>(ids);
+        
+        TypedQuery<Long> booksQuery = entityManager.createNamedQuery("Book.findIdsByAuthors", Long.class);
+        booksQuery.setParameter("authorIds", authorIds);
+        List<Long> bookIds = booksQuery.getResultList();
+        
+        Query deleteBooks = entityManager.createNamedQuery("Book.deleteByAuthors");
+        deleteBooks.setParameter("authorIds", authorIds);
+        deleteBooks.executeUpdate();
+        
+        Query deleteAuthors = entityManager.createNamedQuery("Author.deleteByIds");
+        deleteAuthors.setParameter("ids", authorIds);
+        int removed = deleteAuthors.executeUpdate();
+        
+        cacheManager.evictAfterCompletion(Book.class, bookIds);
+        cacheManager.evictAfterCompletion(Author.class, authorIds);
+        bookIds.forEach(CatalogChanges.pending()::removeBook);
+        authorIds.forEach(CatalogChanges.pending()::removeAuthor);
+        
+        return removed;
+    }
+
+    /**
+     * Returns the shared entity cache counters
+     * @return the counters snapshot
+     */
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return cacheManager.getStatistics();
+    }
+
+    /**
+     * Returns the optimistic merge counters
+     * @return the counters snapshot
+     */
+    @Override
+    public MergeStatistics getMergeStatistics() {
+        return retryExecutor.getStatistics();
+    }
+
+    /**
+     * Returns the latency and call counters of the business methods
+     * @return the list of counters ordered by method signature
+     */
+    @Override
+    public List<MethodStatistics> getStatistics() {
+        return performanceMonitor.getStatistics();
+    }
+
+    /**
+     * Runs the read-modify-write operation in its own transaction and repeats it
+     * after version conflicts according to the OptimisticRetryExecutor policy
+     * @param <T> the result type
+     * @param operation the operation
+     * @return the operation result
+     * @throws OptimisticLockException if the operation conflicted in all attempts
+     */
+    private <T> T retry(Supplier<T> operation) throws OptimisticLockException {
+        try {
+            return retryExecutor.execute(operation);
+        } catch (EJBException e) {
+            throw OptimisticRetryExecutor.unwrap(e);
+        }
+    }
+
+    /**
+     * Evicts the author and all of the author books from the shared cache
+     * once the current transaction completes, cached books keep a reference
+     * to the cached author state
+     * @param id the author id
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    private void evictAuthor(Long id) throws QueryTimeoutException, PersistenceException {
+        TypedQuery<Long> query = entityManager.createNamedQuery("Book.findIdsByAuthor", Long.class);
+        query.setParameter("authorId", id);
+        List<Long> bookIds = query.getResultList();
+        
+        cacheManager.evictAfterCompletion(Author.class, Arrays.asList(id));
+        cacheManager.evictAfterCompletion(Book.class, bookIds);
+    }
+
+    /**
+     * Returns the distinct ids of the authors of given books
+     * @param bookIds the book ids
+     * @return the modifiable list of author ids
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    private List<Long> findAuthorIdsOfBooks(List<Long> bookIds) throws QueryTimeoutException, PersistenceException {
+        TypedQuery<Long> query = entityManager.createNamedQuery("Book.findAuthorIdsByIds", Long.class);
+        query.setParameter("ids", bookIds);
+        return new ArrayList<>(query.getResultList());
+    }
+
+    /**
+     * Checks the number of entries passed to a bulk operation
+     * @param entries the bulk operation entries
+     * @throws IllegalArgumentException if the collection is null or longer than MAX_BULK_SIZE
+     */
+    private void checkBulkSize(Collection<?> entries) throws IllegalArgumentException {
+        if (entries == null)
+            throw new IllegalArgumentException("Entries collection cannot be null");
+        
+        if (entries.size() > MAX_BULK_SIZE)
+            throw new IllegalArgumentException("At most " + MAX_BULK_SIZE + " entries can be processed at once");
+    }
+
+    /**
+     * Finds entity by its id in the shared cache and queries the database only after a miss
+     * @param <T> the entity type
+     * @param objectClass the entity class
+     * @param tId the entity id
+     * @return the entity with given id
+     * @throws IllegalArgumentException if the first argument does not denote an entity type or the second argument is is null
+     */
+    private <T> T find(Class<T> objectClass, Long tId) throws IllegalArgumentException {
+        T entity = cacheManager.findCached(entityManager, objectClass, tId);
+        return entity != null ? entity : entityManager.find(objectClass, tId);
+    }
+
+    /**
+     * Adds new entity
+     * @param <T> the entity type
+     * @param t the eintity instance
+     * @throws EntityExistsException if the entity already exists. (If the entity already exists, the EntityExistsException may be thrown when the persist operation is invoked, or the EntityExistsException or another PersistenceException may be thrown at flush or commit time.)
+     * @throws IllegalArgumentException if the instance is not an entity
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
+     */
+    private <T> void persist(T t) throws EntityExistsException, IllegalArgumentException, TransactionRequiredException {
+        entityManager.persist(t);
+    }
+
+    /**
+     * Updates given entity
+     * @param <T> the entity type
+     * @param t the entity instance
+     * @return the chenged entity instance
+     * @throws IllegalArgumentException if instance is not an entity or is a removed entity
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transactio
+     */
+    private <T> T merge(T t) throws IllegalArgumentException, TransactionRequiredException {
+        return entityManager.merge(t);
+    }
+
+    /**
+     * Removes given entity
+     * @param <T> the entity type
+     * @param t the entity instance
+     * @throws IllegalArgumentException if the instance is not an entity or is a detached entity
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type PersistenceContextType.TRANSACTION and there is no transaction
+     */
+    private <T> void remove(T t) throws IllegalArgumentException, TransactionRequiredException {
+        entityManager.remove(t);
+    }
+
+    /**
+     * Returns all entities of given entity class
+     * @param <T> the entity type
+     * @param objectClass the entity class
+     * @return the list of with all entities
+     * @throws IllegalArgumentException if given class is not valid entity class for this operation
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    private <T> List<T> findAll(Class<T> objectClass) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        String namedQuery = objectClass.getName() + ".findAll";
+        String[] split = namedQuery.split("\\.");
+        String name = split[split.length - 2] + "." + split[split.length -1];
+        return read(em -> readQuery(em, name, objectClass).getResultList());
+    }
+
+    /**
+     * Returns the page of entities of given entity class which follows the given id
+     * @param <T> the entity type
+     * @param objectClass the entity class
+     * @param lastId the id of the last entity from the previous page or null for the first page
+     * @param limit the maximum number of entities in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit entities with id greater than lastId ordered by id
+     * @throws IllegalArgumentException if the limit is not a positive number or given class is not valid entity class for this operation
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    private <T> List<T> findAfter(Class<T> objectClass, Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        return findPage(objectClass.getSimpleName() + ".findAfter", objectClass, lastId, limit);
+    }
+
+    /**
+     * Returns the page of results of given keyset query which follows the given id
+     * @param <T> the result type
+     * @param namedQuery the name of the query ordered by id with the lastId parameter
+     * @param resultClass the result class
+     * @param lastId the id of the last result from the previous page or null for the first page
+     * @param limit the maximum number of results in the page, values above MAX_PAGE_SIZE are lowered to it
+     * @return the list of at most limit results with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number or the query is not defined
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws TransactionRequiredException if a lock mode has been set and there is no transaction
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    private <T> List<T> findPage(String namedQuery, Class<T> resultClass, Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, TransactionRequiredException, PessimisticLockException, LockTimeoutException, PersistenceException {
+        int max = checkLimit(limit);
+        
+        return read(em -> {
+            TypedQuery<T> query = readQuery(em, namedQuery, resultClass);
+            query.setParameter("lastId", lastId == null ? 0L : lastId);
+            query.setMaxResults(max);
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Returns the export chunk of results of given keyset query which follows the given id,
+     * the rows are fetched from the JDBC driver in a single round trip
+     * @param <T> the result type
+     * @param namedQuery the name of the query ordered by id with the lastId parameter
+     * @param resultClass the result class
+     * @param lastId the id of the last result from the previous chunk or null for the first chunk
+     * @param limit the maximum number of results in the chunk, values above MAX_EXPORT_SIZE are lowered to it
+     * @return the list of at most limit results with id greater than lastId
+     * @throws IllegalArgumentException if the limit is not a positive number or the query is not defined
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction is rolled back
+     */
+    private <T> List<T> findExportChunk(String namedQuery, Class<T> resultClass, Long lastId, int limit) throws IllegalArgumentException, QueryTimeoutException, PersistenceException {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Page limit must be a positive number");
+        
+        int max = Math.min(limit, MAX_EXPORT_SIZE);
+        
+        return read(em -> {
+            TypedQuery<T> query = readQuery(em, namedQuery, resultClass);
+            query.setParameter("lastId", lastId == null ? 0L : lastId);
+            query.setHint("eclipselink.jdbc.fetch-size", max);
+            query.setMaxResults(max);
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Runs the read operation of a find method
+     * @param <T> the result type
+     * @param operation the operation which queries the entity manager
+     * @return the operation result
+     */
+    protected abstract <T> T read(Function<EntityManager, T> operation);
+
+    /**
+     * Records a write of the client, called by every write method before it changes the database
+     */
+    protected abstract void recordWrite();
+
+    /**
+     * Runs the read operation on a new entity manager of the read-only unit on its own
+     * data source, the non-XA pool of the primary database, so it sees every committed write.
+     * The entity manager is closed when the operation returns.
+     * @param <T> the result type
+     * @param operation the operation which queries the entity manager
+     * @return the operation result
+     */
+    protected <T> T readFromPrimary(Function<EntityManager, T> operation) {
+        if (!SEPARATE_READS)
+            return operation.apply(entityManager);
+        
+        EntityManager reader = replicaRouter.createPrimaryEntityManager();
+        
+        try {
+            return operation.apply(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Runs the read operation on a new entity manager of the replica chosen by the router,
+     * or on the primary during the read-your-writes window of the client.
+     * The entity manager is closed when the operation returns.
+     * @param <T> the result type
+     * @param client the client key
+     * @param operation the operation which queries the entity manager
+     * @return the operation result
+     */
+    protected <T> T readFromReplica(String client, Function<EntityManager, T> operation) {
+        if (!SEPARATE_READS)
+            return operation.apply(entityManager);
+        
+        ReplicaSelector.Replica<Map<String, Object>> replica = replicaRouter.acquire(client);
+        
+        if (replica == null)
+            return operation.apply(entityManager);
+        
+        try {
+            EntityManager reader = replicaRouter.createEntityManager(replica);
+            
+            try {
+                return operation.apply(reader);
+            } finally {
+                reader.close();
+            }
+        } finally {
+            replicaRouter.release(replica);
+        }
+    }
+
+    /**
+     * Returns the router choosing the replica which serves a read
+     * @return the replica router
+     */
+    protected ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+
+    /**
+     * Creates the named entity query which returns read-only entities,
+     * they are neither copied nor registered for change tracking
+     * @param <T> the result type
+     * @param em the entity manager
+     * @param namedQuery the query name
+     * @param resultClass the result class
+     * @return the query
+     * @throws IllegalArgumentException if the query is not defined or its results are not of the given class
+     */
+    private static <T> TypedQuery<T> readQuery(EntityManager em, String namedQuery, Class<T> resultClass) throws IllegalArgumentException {
+        TypedQuery<T> query = em.createNamedQuery(namedQuery, resultClass);
+        query.setHint("eclipselink.read-only", "True");
+        return query;
+    }
+
+    /**
+     * Returns the name of the named query which executes given author query with given plan
+     * @param plan the fetch plan
+     * @param query the base query name
+     * @return the named query name
+     * @throws IllegalArgumentException if the plan is null or does not apply to authors
+     */
+    private static String authorQueryName(FetchPlan plan, String query) throws IllegalArgumentException {
+        if (plan == null)
+            throw new IllegalArgumentException("Fetch plan cannot be null");
+        
+        return plan.queryName(Author.class, query);
+    }
+
+    /**
+     * Checks the limit of returned results
+     * @param limit the requested limit
+     * @return the limit lowered to MAX_PAGE_SIZE
+     * @throws IllegalArgumentException if the limit is not a positive number
+     */
+    private int checkLimit(int limit) throws IllegalArgumentException {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Page limit must be a positive number");
+        
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,71 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+
+/**
+ * Default entity listener registered in META-INF/orm.xml which passes
+ * committed entity changes to the in-memory SearchIndex and CatalogService
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class CatalogChangeListener {
+
+    /**
+     * Records persisted entity
+     * @param entity the persisted entity
+     */
+    @PostPersist
+    public void persisted(Object entity) {
+        changed(entity, false);
+    }
+
+    /**
+     * Records updated entity
+     * @param entity the updated entity
+     */
+    @PostUpdate
+    public void updated(Object entity) {
+        changed(entity, false);
+    }
+
+    /**
+     * Records removed entity
+     * @param entity the removed entity
+     */
+    @PostRemove
+    public void removed(Object entity) {
+        changed(entity, true);
+    }
+
+    /**
+     * Records the change in the changes of the current transaction
+     * @param entity the changed entity
+     * @param removed true if the entity was removed
+     */
+    private void changed(Object entity, boolean removed) {
+        if (entity instanceof Author) {
+            Author author = (Author) entity;
+
+            if (removed) {
+                CatalogChanges.pending().removeAuthor(author.getId());
+            } else {
+                CatalogChanges.pending().putAuthor(new AuthorView(author.getId(), author.getName(), author.getLastName()));
+            }
+        } else if (entity instanceof Book) {
+            Book book = (Book) entity;
+
+            if (removed) {
+                CatalogChanges.pending().removeBook(book.getId());
+            } else {
+                CatalogChanges.pending().putBook(new BookView(book.getId(), book.getTitle(), book.getPages(),
+                        book.getReleaseDate(), book.getAuthor().getId()));
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+
+/**
+ * Catalog changes made by a single transaction. The changes are collected
+ * while the transaction runs and published to SearchIndex and CatalogService
+ * together once it commits, rolled back changes are dropped.
+ * Only the last change of every entity is kept. Both beans register themselves
+ * on startup, because the changes are also recorded and published while the
+ * transaction commits, outside of any bean invocation, where the java:module
+ * names cannot be resolved.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+final class CatalogChanges {
+
+    /**
+     * Key of the pending changes in the transaction synchronization registry
+     */
+    private static final Object RESOURCE_KEY = CatalogChanges.class;
+
+    /**
+     * Search index receiving the changes, null until the bean starts
+     */
+    private static volatile SearchIndex searchIndex;
+
+    /**
+     * Catalog snapshot receiving the changes, null until the bean starts
+     */
+    private static volatile CatalogService catalogService;
+
+    /**
+     * Changed authors by id, null value marks removed author
+     */
+    private final Map<Long, AuthorView> authors = new LinkedHashMap<>();
+
+    /**
+     * Changed books by id, null value marks removed book
+     */
+    private final Map<Long, BookView> books = new LinkedHashMap<>();
+
+    /**
+     * Set when there is no transaction and every change is published at once
+     */
+    private final boolean immediate;
+
+    /**
+     * Initializes instance with given parameter
+     * @param immediate true if every change should be published at once
+     */
+    private CatalogChanges(boolean immediate) {
+        this.immediate = immediate;
+    }
+
+    /**
+     * Sets the search index receiving the published changes
+     * @param index the business object of the search index or null when it stops
+     */
+    static void setSearchIndex(SearchIndex index) {
+        searchIndex = index;
+    }
+
+    /**
+     * Sets the catalog snapshot receiving the published changes
+     * @param catalog the catalog service or null when it stops
+     */
+    static void setCatalogService(CatalogService catalog) {
+        catalogService = catalog;
+    }
+
+    /**
+     * Returns the changes of the current transaction, registering them
+     * for publication on commit when called for the first time
+     * @return the pending changes
+     */
+    static CatalogChanges pending() {
+        TransactionSynchronizationRegistry registry = lookup("java:comp/TransactionSynchronizationRegistry");
+
+        if (registry == null || registry.getTransactionStatus() != Status.STATUS_ACTIVE)
+            return new CatalogChanges(true);
+
+        CatalogChanges changes = (CatalogChanges) registry.getResource(RESOURCE_KEY);
+
+        if (changes != null)
+            return changes;
+
+        final CatalogChanges created = new CatalogChanges(false);
+        registry.putResource(RESOURCE_KEY, created);
+        registry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() { }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED)
+                    created.publish();
+            }
+        });
+
+        return created;
+    }
+
+    /**
+     * Records added or updated author
+     * @param author the current author state
+     */
+    void putAuthor(AuthorView author) {
+        authors.put(author.getId(), author);
+        publishIfImmediate();
+    }
+
+    /**
+     * Records removed author
+     * @param id the author id
+     */
+    void removeAuthor(long id) {
+        authors.put(id, null);
+        publishIfImmediate();
+    }
+
+    /**
+     * Records added or updated book
+     * @param book the current book state
+     */
+    void putBook(BookView book) {
+        books.put(book.getId(), book);
+        publishIfImmediate();
+    }
+
+    /**
+     * Records removed book
+     * @param id the book id
+     */
+    void removeBook(long id) {
+        books.put(id, null);
+        publishIfImmediate();
+    }
+
+    /**
+     * Returns the changed authors
+     * @return the unmodifiable map of authors by id, null value marks removed author
+     */
+    Map<Long, AuthorView> getAuthors() {
+        return Collections.unmodifiableMap(authors);
+    }
+
+    /**
+     * Returns the changed books
+     * @return the unmodifiable map of books by id, null value marks removed book
+     */
+    Map<Long, BookView> getBooks() {
+        return Collections.unmodifiableMap(books);
+    }
+
+    /**
+     * Publishes the change at once when there is no transaction
+     */
+    private void publishIfImmediate() {
+        if (immediate)
+            publish();
+    }
+
+    /**
+     * Applies the changes to the search index and the catalog snapshot
+     */
+    private void publish() {
+        if (authors.isEmpty() && books.isEmpty())
+            return;
+
+        SearchIndex index = searchIndex;
+        CatalogService catalog = catalogService;
+
+        if (index != null) {
+            for (Map.Entry<Long, AuthorView> author: authors.entrySet()) {
+                if (author.getValue() == null) {
+                    index.removeAuthor(author.getKey());
+                } else {
+                    index.putAuthor(author.getValue());
+                }
+            }
+
+            for (Map.Entry<Long, BookView> book: books.entrySet()) {
+                if (book.getValue() == null) {
+                    index.removeBook(book.getKey());
+                } else {
+                    index.putBook(book.getValue());
+                }
+            }
+        }
+
+        if (catalog != null)
+            catalog.publish(getAuthors(), getBooks());
+
+        authors.clear();
+        books.clear();
+    }
+
+    /**
+     * Looks up the object with given JNDI name
+     * @param <T> the object type
+     * @param name the JNDI name
+     * @return the object or null if the lookup failed
+     */
+    private static <T> T lookup(String name) {
+        try {
+            return InitialContext.doLookup(name);
+        } catch (NamingException ex) {
+            Logger.getLogger(CatalogChanges.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.LocalBean;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.interfaces.CatalogServiceRemote;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseManagerRemote;
+import pl.polsl.gabrys.arkadiusz.model.TextNormalizer;
+
+/**
+ * Catalog lookups served from an immutable snapshot of all authors and books.
+ * Readers only dereference the current snapshot and never lock.
+ * Committed changes are published by CatalogChanges, every publication builds
+ * a new snapshot from the previous one and replaces it atomically. The snapshot
+ * maps are persistent trees, a publication copies only the paths to the changed
+ * entries and the groups they leave or join and shares everything else.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Singleton(mappedName = "CatalogService")
+@Startup
+@LocalBean
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class CatalogService implements CatalogServiceRemote {
+
+    /**
+     * Number of rows read per query while loading the snapshot
+     */
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    /**
+     * Entity manager instance
+     */
+    @PersistenceContext(name = "Lab2-EJB", unitName = "Lab2-EJB")
+    private EntityManager entityManager;
+
+    /**
+     * Current snapshot
+     */
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    /**
+     * Serializes publications, so no change is lost between two concurrent writers
+     */
+    private final Object publishLock = new Object();
+
+    /**
+     * Authors changed while the first snapshot is loading, null once it is loaded
+     */
+    private Map<Long, AuthorView> loadingAuthors;
+
+    /**
+     * Books changed while the first snapshot is loading, null once it is loaded
+     */
+    private Map<Long, BookView> loadingBooks;
+
+    /**
+     * Starts receiving the committed changes, loads all authors and books into
+     * the first snapshot and replays the changes committed during the load
+     */
+    @PostConstruct
+    public void load() {
+        synchronized (publishLock) {
+            loadingAuthors = new LinkedHashMap<>();
+            loadingBooks = new LinkedHashMap<>();
+        }
+
+        // the changes are received before the load, so none committed while it runs is lost;
+        // the instance itself is registered, so the publications do not wait for this method
+        CatalogChanges.setCatalogService(this);
+
+        Map<Long, AuthorView> authors = new LinkedHashMap<>();
+        Map<Long, BookView> books = new LinkedHashMap<>();
+
+        for (AuthorView author: SearchIndex.loadAll(entityManager, "Author.findViewsAfter", AuthorView.class, AuthorView::getId)) {
+            authors.put(author.getId(), author);
+        }
+
+        for (BookView book: SearchIndex.loadAll(entityManager, "Book.findViewsAfter", BookView.class, BookView::getId)) {
+            books.put(book.getId(), book);
+        }
+
+        synchronized (publishLock) {
+            Snapshot current = snapshot.get();
+
+            // a replayed change is either already loaded or newer than the loaded state
+            snapshot.set(current.apply(authors, books).apply(loadingAuthors, loadingBooks).withVersion(current.version + 1));
+            loadingAuthors = null;
+            loadingBooks = null;
+        }
+    }
+
+    /**
+     * Stops receiving the committed changes
+     */
+    @PreDestroy
+    public void unload() {
+        CatalogChanges.setCatalogService(null);
+    }
+
+    /**
+     * Builds the snapshot with committed changes and makes it current,
+     * the changes committed while the first snapshot is loading are kept for replay
+     * @param changedAuthors the changed authors by id, null value marks removed author
+     * @param changedBooks the changed books by id, null value marks removed book
+     */
+    public void publish(Map<Long, AuthorView> changedAuthors, Map<Long, BookView> changedBooks) {
+        synchronized (publishLock) {
+            if (loadingAuthors != null) {
+                loadingAuthors.putAll(changedAuthors);
+                loadingBooks.putAll(changedBooks);
+                return;
+            }
+
+            Snapshot current = snapshot.get();
+            snapshot.set(current.apply(changedAuthors, changedBooks).withVersion(current.version + 1));
+        }
+    }
+
+    /**
+     * Returns the version of the current snapshot, incremented by every published write
+     * @return the snapshot version
+     */
+    @Override
+    public long getVersion() {
+        return snapshot.get().version;
+    }
+
+    /**
+     * Finds author with given id
+     * @param id the author id
+     * @return the author or null if the author doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    public AuthorView findAuthorById(Long id) throws IllegalArgumentException {
+        if (id == null)
+            throw new IllegalArgumentException("Id cannot be null");
+
+        return snapshot.get().authors.get(id);
+    }
+
+    /**
+     * Finds authors with given name ignoring case, spacing and diacritics
+     * @param name the author name
+     * @return the list of authors ordered by id
+     * @throws IllegalArgumentException if the name is null
+     */
+    @Override
+    public List<AuthorView> findAuthorsByName(String name) throws IllegalArgumentException {
+        if (name == null)
+            throw new IllegalArgumentException("Name cannot be null");
+
+        return copy(snapshot.get().authorsByName.get(TextNormalizer.normalize(name)));
+    }
+
+    /**
+     * Finds at most limit authors with id greater than lastId
+     * @param lastId the id of the last author from the previous page or null for the first page
+     * @param limit the maximum number of authors, at most DatabaseManagerRemote.MAX_PAGE_SIZE
+     * @return the list of authors ordered by id
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    @Override
+    public List<AuthorView> findAuthorViewsAfter(Long lastId, int limit) throws IllegalArgumentException {
+        return page(snapshot.get().authors, lastId, limit);
+    }
+
+    /**
+     * Finds book with given id
+     * @param id the book id
+     * @return the book or null if the book doesn't exists
+     * @throws IllegalArgumentException if the id is null
+     */
+    @Override
+    public BookView findBookById(Long id) throws IllegalArgumentException {
+        if (id == null)
+            throw new IllegalArgumentException("Id cannot be null");
+
+        return snapshot.get().books.get(id);
+    }
+
+    /**
+     * Finds books with given title ignoring case, spacing and diacritics
+     * @param title the book title
+     * @return the list of books ordered by id
+     * @throws IllegalArgumentException if the title is null
+     */
+    @Override
+    public List<BookView> findBooksByTitle(String title) throws IllegalArgumentException {
+        if (title == null)
+            throw new IllegalArgumentException("Title cannot be null");
+
+        return copy(snapshot.get().booksByTitle.get(TextNormalizer.normalize(title)));
+    }
+
+    /**
+     * Finds books of the given author
+     * @param authorId the author id
+     * @return the list of books ordered by id
+     * @throws IllegalArgumentException if the author id is null
+     */
+    @Override
+    public List<BookView> findBooksByAuthor(Long authorId) throws IllegalArgumentException {
+        if (authorId == null)
+            throw new IllegalArgumentException("Author id cannot be null");
+
+        return copy(snapshot.get().booksByAuthor.get(authorId));
+    }
+
+    /**
+     * Finds at most limit books with id greater than lastId
+     * @param lastId the id of the last book from the previous page or null for the first page
+     * @param limit the maximum number of books, at most DatabaseManagerRemote.MAX_PAGE_SIZE
+     * @return the list of books ordered by id
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    @Override
+    public List<BookView> findBookViewsAfter(Long lastId, int limit) throws IllegalArgumentException {
+        return page(snapshot.get().books, lastId, limit);
+    }
+
+    /**
+     * Returns the page of views following the given id
+     * @param <T> the view type
+     * @param entries the views by id
+     * @param lastId the id of the last view from the previous page or null for the first page
+     * @param limit the maximum number of views
+     * @return the list of views ordered by id
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    private static <T> List<T> page(PersistentSortedMap<Long, T> entries, Long lastId, int limit) throws IllegalArgumentException {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Page limit must be a positive number");
+
+        return entries.valuesAfter(lastId, Math.min(limit, DatabaseManagerRemote.MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Copies the snapshot list, so it can be returned to the caller
+     * @param <T> the view type
+     * @param entries the snapshot list or null
+     * @return the modifiable copy
+     */
+    private static <T> List<T> copy(List<T> entries) {
+        return entries == null ? new ArrayList<>() : new ArrayList<>(entries);
+    }
+
+    /**
+     * Returns the groups with the view moved from the group of its old state to the group of its new state,
+     * only these two groups are copied
+     * @param <K> the group key type
+     * @param <T> the view type
+     * @param groups the groups of views ordered by id
+     * @param key the function returning the group key of a view
+     * @param id the function returning the id of a view
+     * @param old the old view or null if it was added
+     * @param current the new view or null if it was removed
+     * @return the new groups
+     */
+    private static <K extends Comparable<? super K>, T> PersistentSortedMap<K, List<T>> regroup(
+            PersistentSortedMap<K, List<T>> groups, Function<T, K> key, ToLongFunction<T> id, T old, T current) {
+        if (old != null) {
+            K oldKey = key.apply(old);
+            List<T> group = new ArrayList<>(groups.get(oldKey));
+            group.remove(position(group, id, id.applyAsLong(old)));
+            groups = group.isEmpty() ? groups.remove(oldKey) : groups.put(oldKey, Collections.unmodifiableList(group));
+        }
+
+        if (current != null) {
+            K newKey = key.apply(current);
+            List<T> existing = groups.get(newKey);
+            List<T> group = existing == null ? new ArrayList<>(1) : new ArrayList<>(existing);
+            group.add(-position(group, id, id.applyAsLong(current)) - 1, current);
+            groups = groups.put(newKey, Collections.unmodifiableList(group));
+        }
+
+        return groups;
+    }
+
+    /**
+     * Binary searches the group ordered by id
+     * @param <T> the view type
+     * @param group the views ordered by id
+     * @param id the function returning the id of a view
+     * @param searched the searched id
+     * @return the index of the view or (-(insertion point) - 1) if there is no such view
+     */
+    private static <T> int position(List<T> group, ToLongFunction<T> id, long searched) {
+        int low = 0;
+        int high = group.size() - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = id.applyAsLong(group.get(middle));
+
+            if (middleId < searched) {
+                low = middle + 1;
+            } else if (middleId > searched) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    /**
+     * Immutable catalog state, never modified once published
+     */
+    private static final class Snapshot {
+
+        /**
+         * Snapshot without any entries
+         */
+        private static final Snapshot EMPTY = new Snapshot(0L, PersistentSortedMap.empty(), PersistentSortedMap.empty(),
+                PersistentSortedMap.empty(), PersistentSortedMap.empty(), PersistentSortedMap.empty());
+
+        /**
+         * Snapshot version
+         */
+        private final long version;
+
+        /**
+         * Authors by id
+         */
+        private final PersistentSortedMap<Long, AuthorView> authors;
+
+        /**
+         * Books by id
+         */
+        private final PersistentSortedMap<Long, BookView> books;
+
+        /**
+         * Authors by normalized name, every group ordered by id
+         */
+        private final PersistentSortedMap<String, List<AuthorView>> authorsByName;
+
+        /**
+         * Books by normalized title, every group ordered by id
+         */
+        private final PersistentSortedMap<String, List<BookView>> booksByTitle;
+
+        /**
+         * Books by author id, every group ordered by id
+         */
+        private final PersistentSortedMap<Long, List<BookView>> booksByAuthor;
+
+        /**
+         * Initializes instance with given parameters
+         * @param version the snapshot version
+         * @param authors the authors by id
+         * @param books the books by id
+         * @param authorsByName the authors by normalized name
+         * @param booksByTitle the books by normalized title
+         * @param booksByAuthor the books by author id
+         */
+        private Snapshot(long version, PersistentSortedMap<Long, AuthorView> authors, PersistentSortedMap<Long, BookView> books,
+                PersistentSortedMap<String, List<AuthorView>> authorsByName, PersistentSortedMap<String, List<BookView>> booksByTitle,
+                PersistentSortedMap<Long, List<BookView>> booksByAuthor) {
+            this.version = version;
+            this.authors = authors;
+            this.books = books;
+            this.authorsByName = authorsByName;
+            this.booksByTitle = booksByTitle;
+            this.booksByAuthor = booksByAuthor;
+        }
+
+        /**
+         * Returns the snapshot with given changes, this snapshot is not changed
+         * @param changedAuthors the changed authors by id, null value marks removed author
+         * @param changedBooks the changed books by id, null value marks removed book
+         * @return the new snapshot of the same version
+         */
+        private Snapshot apply(Map<Long, AuthorView> changedAuthors, Map<Long, BookView> changedBooks) {
+            PersistentSortedMap<Long, AuthorView> newAuthors = authors;
+            PersistentSortedMap<Long, BookView> newBooks = books;
+            PersistentSortedMap<String, List<AuthorView>> newAuthorsByName = authorsByName;
+            PersistentSortedMap<String, List<BookView>> newBooksByTitle = booksByTitle;
+            PersistentSortedMap<Long, List<BookView>> newBooksByAuthor = booksByAuthor;
+
+            for (Map.Entry<Long, AuthorView> change: changedAuthors.entrySet()) {
+                AuthorView old = newAuthors.get(change.getKey());
+                AuthorView current = change.getValue();
+                newAuthors = current == null ? newAuthors.remove(change.getKey()) : newAuthors.put(change.getKey(), current);
+                newAuthorsByName = regroup(newAuthorsByName, a -> TextNormalizer.normalize(a.getName()), AuthorView::getId, old, current);
+            }
+
+            for (Map.Entry<Long, BookView> change: changedBooks.entrySet()) {
+                BookView old = newBooks.get(change.getKey());
+                BookView current = change.getValue();
+                newBooks = current == null ? newBooks.remove(change.getKey()) : newBooks.put(change.getKey(), current);
+                newBooksByTitle = regroup(newBooksByTitle, b -> TextNormalizer.normalize(b.getTitle()), BookView::getId, old, current);
+                newBooksByAuthor = regroup(newBooksByAuthor, BookView::getAuthorId, BookView::getId, old, current);
+            }
+
+            return new Snapshot(version, newAuthors, newBooks, newAuthorsByName, newBooksByTitle, newBooksByAuthor);
+        }
+
+        /**
+         * Returns the snapshot with the same entries and given version
+         * @param newVersion the version
+         * @return the new snapshot
+         */
+        private Snapshot withVersion(long newVersion) {
+            return new Snapshot(newVersion, authors, books, authorsByName, booksByTitle, booksByAuthor);
+        }
+    }
+}
@@ -0,0 +1,542 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Samples the JDBC connection pool every 10 seconds through the REST monitoring API
+ * of the GlassFish administration server, publishes the wait time, utilization and
+ * leak counters as the pl.polsl.gabrys.arkadiusz:type=ConnectionPoolStatistics MXBean
+ * and adjusts the max-pool-size and steady-pool-size of the pool within the configured
+ * bounds through the REST management API, the pool takes them over without a restart.
+ * The AMX MBeans are not used, GlassFish 4.1 fails to read the pool statistics through
+ * them (Invalid method on invoke).
+ * The statistics are available only with the jdbc-connection-pool monitoring level
+ * set to HIGH, the leak counter also needs connection-leak-timeout-in-seconds.
+ * The pool reports no distribution of the waits for a connection, only the wait of
+ * the last request it served, the average and the longest wait since it started,
+ * so these values are published as they are and no percentile is derived from them.
+ * The administration server is configured with system properties:
+ * pl.polsl.gabrys.arkadiusz.pool.adminUrl (default http://localhost:4848),
+ * pl.polsl.gabrys.arkadiusz.pool.adminUser and pl.polsl.gabrys.arkadiusz.pool.adminPassword
+ * (basic authentication, none by default).
+ * The bounds are configured with system properties:
+ * pl.polsl.gabrys.arkadiusz.pool.name (default db_pool),
+ * pl.polsl.gabrys.arkadiusz.pool.minSize (lower bound of max-pool-size, default 8),
+ * pl.polsl.gabrys.arkadiusz.pool.maxSize (upper bound of max-pool-size, default 32, the max-pool-size of setup/sun-resources.xml),
+ * pl.polsl.gabrys.arkadiusz.pool.minSteady (lower bound of steady-pool-size, default 2),
+ * pl.polsl.gabrys.arkadiusz.pool.targetWait (wait of the last request in milliseconds above which the pool grows, default 20),
+ * pl.polsl.gabrys.arkadiusz.pool.shrinkAfter (number of calm samples before the pool shrinks, default 6),
+ * pl.polsl.gabrys.arkadiusz.pool.steadyHold (minimum number of samples between steady-pool-size changes, default 6)
+ * and pl.polsl.gabrys.arkadiusz.pool.resize (default true).
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class ConnectionPoolMonitor {
+
+    /**
+     * Name of the registered MXBean
+     */
+    static final String OBJECT_NAME = "pl.polsl.gabrys.arkadiusz:type=ConnectionPoolStatistics";
+
+    /**
+     * Prefix of the configuration system properties
+     */
+    private static final String PROPERTY_PREFIX = "pl.polsl.gabrys.arkadiusz.pool.";
+
+    /**
+     * Timeout of the connection to the administration server and of its response in milliseconds
+     */
+    private static final int ADMIN_TIMEOUT = 2000;
+
+    /**
+     * Logger of sampling problems and potential leaks
+     */
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPoolMonitor.class.getName());
+
+    /**
+     * Name of the monitored pool
+     */
+    private final String poolName = System.getProperty(PROPERTY_PREFIX + "name", "db_pool");
+
+    /**
+     * Address of the administration server
+     */
+    private final String adminUrl = System.getProperty(PROPERTY_PREFIX + "adminUrl", "http://localhost:4848");
+
+    /**
+     * Basic authorization header of the administration server or null if it needs no login
+     */
+    private final String adminAuthorization = authorization(System.getProperty(PROPERTY_PREFIX + "adminUser"),
+            System.getProperty(PROPERTY_PREFIX + "adminPassword", ""));
+
+    /**
+     * Policy deciding the pool sizes
+     */
+    private final PoolSizingPolicy policy = new PoolSizingPolicy(
+            Integer.getInteger(PROPERTY_PREFIX + "minSize", 8),
+            Integer.getInteger(PROPERTY_PREFIX + "maxSize", 32),
+            Integer.getInteger(PROPERTY_PREFIX + "minSteady", 2),
+            Long.getLong(PROPERTY_PREFIX + "targetWait", 20L),
+            Integer.getInteger(PROPERTY_PREFIX + "shrinkAfter", 6),
+            Integer.getInteger(PROPERTY_PREFIX + "steadyHold", 6));
+
+    /**
+     * Whether the pool sizes are adjusted after every sample
+     */
+    private volatile boolean resizeEnabled = Boolean.parseBoolean(System.getProperty(PROPERTY_PREFIX + "resize", "true"));
+
+    /**
+     * Whether the last sample could read the monitoring statistics
+     */
+    private volatile boolean available;
+
+    /**
+     * Current maximum pool size
+     */
+    private volatile int maxPoolSize;
+
+    /**
+     * Current steady pool size
+     */
+    private volatile int steadyPoolSize;
+
+    /**
+     * Connections in use at the last sample
+     */
+    private volatile long connectionsUsed;
+
+    /**
+     * Idle connections at the last sample
+     */
+    private volatile long connectionsFree;
+
+    /**
+     * Callers waiting for a connection at the last sample
+     */
+    private volatile long waitQueueLength;
+
+    /**
+     * Wait of the last request served before the last sample in milliseconds
+     */
+    private volatile long lastWaitMillis;
+
+    /**
+     * Average wait of the requests served since the pool started in milliseconds
+     */
+    private volatile long averageWaitMillis;
+
+    /**
+     * Longest wait of a request served since the pool started in milliseconds
+     */
+    private volatile long maxWaitMillis;
+
+    /**
+     * Timed out connection requests since the last reset
+     */
+    private volatile long timedOutRequests;
+
+    /**
+     * Potential connection leaks since the last reset
+     */
+    private volatile long potentialLeaks;
+
+    /**
+     * Pool size changes since the last reset
+     */
+    private volatile long resizeCount;
+
+    /**
+     * Pool counters of the previous sample, null before the first one
+     */
+    private long[] previous;
+
+    /**
+     * Registers the MXBean in the platform MBean server
+     */
+    @PostConstruct
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+
+            server.registerMBean(new ConnectionPoolStatistics(this), name);
+        } catch (JMException ex) {
+            LOGGER.log(Level.WARNING, null, ex);
+        }
+    }
+
+    /**
+     * Unregisters the MXBean, so a redeployed application can register it again
+     */
+    @PreDestroy
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (JMException ex) {
+            LOGGER.log(Level.WARNING, null, ex);
+        }
+    }
+
+    /**
+     * Reads the pool statistics and adjusts the pool sizes
+     */
+    @Schedule(second = "*/10", minute = "*", hour = "*", persistent = false)
+    public synchronized void sample() {
+        try {
+            JsonObject stats = entity(get("/monitoring/domain/server/resources/" + poolName));
+            JsonObject config = entity(get(configPath()));
+
+            // the statistics are missing while the monitoring level of the pool is OFF
+            if (!stats.containsKey("numconnacquired")) {
+                available = false;
+                return;
+            }
+
+            maxPoolSize = Integer.parseInt(config.getString("maxPoolSize"));
+            steadyPoolSize = Integer.parseInt(config.getString("steadyPoolSize"));
+            connectionsUsed = statistic(stats, "numconnused", "current");
+            connectionsFree = statistic(stats, "numconnfree", "current");
+            waitQueueLength = statistic(stats, "waitqueuelength", "count");
+            averageWaitMillis = statistic(stats, "averageconnwaittime", "count");
+            maxWaitMillis = statistic(stats, "connrequestwaittime", "highwatermark");
+            long lastWait = statistic(stats, "connrequestwaittime", "current");
+
+            long[] counters = {
+                statistic(stats, "numconnacquired", "count"),
+                statistic(stats, "numconntimedout", "count"),
+                statistic(stats, "numpotentialconnleak", "count")
+            };
+
+            available = true;
+
+            // the first sample only sets the base of the interval counters
+            if (previous == null || counters[0] < previous[0]) {
+                previous = counters;
+                return;
+            }
+
+            // the last wait belongs to an older interval when no request was served in this one
+            long timedOut = Math.max(0, counters[1] - previous[1]);
+            long leaks = Math.max(0, counters[2] - previous[2]);
+            lastWaitMillis = counters[0] > previous[0] ? lastWait : 0L;
+            previous = counters;
+
+            timedOutRequests += timedOut;
+            potentialLeaks += leaks;
+
+            if (leaks > 0)
+                LOGGER.log(Level.WARNING, "{0} potential connection leaks in pool {1}", new Object[] {leaks, poolName});
+
+            if (resizeEnabled)
+                resize(timedOut);
+        } catch (IOException | JsonException | ClassCastException | NumberFormatException ex) {
+            available = false;
+            LOGGER.log(Level.FINE, null, ex);
+        }
+    }
+
+    /**
+     * Applies the sizes chosen by the policy
+     * @param timedOut the number of requests which timed out during the last interval
+     * @throws IOException if the configuration cannot be changed
+     */
+    private void resize(long timedOut) throws IOException {
+        int newMax = policy.nextMaxPoolSize(maxPoolSize, connectionsUsed, waitQueueLength, lastWaitMillis, timedOut);
+        int newSteady = policy.nextSteadyPoolSize(steadyPoolSize, connectionsUsed, newMax);
+
+        if (newMax == maxPoolSize && newSteady == steadyPoolSize)
+            return;
+
+        post(configPath(), "maxPoolSize=" + newMax + "&steadyPoolSize=" + newSteady);
+
+        LOGGER.log(Level.INFO, "Pool {0} resized from {1}/{2} to {3}/{4} (steady/max), {5} used, {6} waiting",
+                new Object[] {poolName, steadyPoolSize, maxPoolSize, newSteady, newMax, connectionsUsed, waitQueueLength});
+
+        maxPoolSize = newMax;
+        steadyPoolSize = newSteady;
+        ++resizeCount;
+    }
+
+    /**
+     * Returns the REST management path of the pool configuration
+     * @return the path
+     * @throws IOException if the pool name cannot be encoded
+     */
+    private String configPath() throws IOException {
+        return "/management/domain/resources/jdbc-connection-pool/" + URLEncoder.encode(poolName, "UTF-8");
+    }
+
+    /**
+     * Reads a resource of the administration server
+     * @param path the resource path
+     * @return the JSON response
+     * @throws IOException if the resource cannot be read
+     */
+    private JsonObject get(String path) throws IOException {
+        return send(open(path), null);
+    }
+
+    /**
+     * Changes attributes of a resource of the administration server
+     * @param path the resource path
+     * @param form the url encoded attributes
+     * @return the JSON response
+     * @throws IOException if the attributes cannot be changed
+     */
+    private JsonObject post(String path, String form) throws IOException {
+        HttpURLConnection connection = open(path);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        // the administration server refuses changes without this header
+        connection.setRequestProperty("X-Requested-By", "GlassFish");
+        return send(connection, form);
+    }
+
+    /**
+     * Opens the connection to a resource of the administration server
+     * @param path the resource path
+     * @return the connection
+     * @throws IOException if the connection cannot be opened
+     */
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(adminUrl + path).openConnection();
+        connection.setConnectTimeout(ADMIN_TIMEOUT);
+        connection.setReadTimeout(ADMIN_TIMEOUT);
+        connection.setRequestProperty("Accept", "application/json");
+
+        if (adminAuthorization != null)
+            connection.setRequestProperty("Authorization", adminAuthorization);
+
+        return connection;
+    }
+
+    /**
+     * Sends the request and reads its JSON response
+     * @param connection the opened connection
+     * @param body the request body or null
+     * @return the JSON response
+     * @throws IOException if the request fails or is not successful
+     */
+    private static JsonObject send(HttpURLConnection connection, String body) throws IOException {
+        try {
+            if (body != null) {
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK)
+                throw new IOException(connection.getURL() + " returned " + connection.getResponseCode());
+
+            try (InputStream in = connection.getInputStream(); JsonReader reader = Json.createReader(in)) {
+                return reader.readObject();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Returns the entity of a REST response
+     * @param response the JSON response
+     * @return the entity, empty if the response has none
+     */
+    private static JsonObject entity(JsonObject response) {
+        JsonObject properties = response.getJsonObject("extraProperties");
+        JsonObject entity = properties == null ? null : properties.getJsonObject("entity");
+        return entity == null ? Json.createObjectBuilder().build() : entity;
+    }
+
+    /**
+     * Reads a single value of a monitoring statistic
+     * @param stats the statistics of the pool
+     * @param name the statistic name
+     * @param key the value name, count for counters and current or highwatermark for ranges
+     * @return the value
+     * @throws IOException if the statistic has no such value
+     */
+    private static long statistic(JsonObject stats, String name, String key) throws IOException {
+        JsonObject statistic = stats.getJsonObject(name);
+
+        if (statistic == null || !statistic.containsKey(key))
+            throw new IOException("Statistic " + name + " has no " + key + " value");
+
+        return statistic.getJsonNumber(key).longValue();
+    }
+
+    /**
+     * Creates the basic authorization header
+     * @param user the administrator name or null
+     * @param password the administrator password
+     * @return the header value or null if no user is given
+     */
+    private static String authorization(String user, String password) {
+        if (user == null || user.isEmpty())
+            return null;
+
+        return "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the name of the monitored pool
+     * @return the pool name
+     */
+    public String getPoolName() {
+        return poolName;
+    }
+
+    /**
+     * Checks whether the last sample could read the pool monitoring statistics
+     * @return true if the statistics are available
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Returns the current maximum pool size
+     * @return the maximum number of connections
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Returns the current steady pool size
+     * @return the number of connections kept open while idle
+     */
+    public int getSteadyPoolSize() {
+        return steadyPoolSize;
+    }
+
+    /**
+     * Returns the number of connections in use at the last sample
+     * @return the number of used connections
+     */
+    public long getConnectionsUsed() {
+        return connectionsUsed;
+    }
+
+    /**
+     * Returns the number of open idle connections at the last sample
+     * @return the number of free connections
+     */
+    public long getConnectionsFree() {
+        return connectionsFree;
+    }
+
+    /**
+     * Returns the number of callers waiting for a connection at the last sample
+     * @return the wait queue length
+     */
+    public long getWaitQueueLength() {
+        return waitQueueLength;
+    }
+
+    /**
+     * Returns the wait of the last request served during the last sample interval
+     * @return the wait in milliseconds, 0 if no request was served
+     */
+    public long getLastWaitMillis() {
+        return lastWaitMillis;
+    }
+
+    /**
+     * Returns the average wait of the requests served since the pool started
+     * @return the wait in whole milliseconds
+     */
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    /**
+     * Returns the longest wait of a request served since the pool started
+     * @return the wait in milliseconds
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Returns the number of connection requests which timed out since the last reset
+     * @return the number of timed out requests
+     */
+    public long getTimedOutRequests() {
+        return timedOutRequests;
+    }
+
+    /**
+     * Returns the number of potential connection leaks since the last reset
+     * @return the number of potential leaks
+     */
+    public long getPotentialLeaks() {
+        return potentialLeaks;
+    }
+
+    /**
+     * Returns the number of pool size changes since the last reset
+     * @return the number of resizes
+     */
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Checks whether the pool is resized automatically
+     * @return true if the sizes are adjusted after every sample
+     */
+    public boolean isResizeEnabled() {
+        return resizeEnabled;
+    }
+
+    /**
+     * Enables or disables the automatic resizing
+     * @param enabled true to adjust the sizes after every sample
+     */
+    public void setResizeEnabled(boolean enabled) {
+        resizeEnabled = enabled;
+    }
+
+    /**
+     * Drops the accumulated counters
+     */
+    public synchronized void reset() {
+        timedOutRequests = 0;
+        potentialLeaks = 0;
+        resizeCount = 0;
+    }
+}
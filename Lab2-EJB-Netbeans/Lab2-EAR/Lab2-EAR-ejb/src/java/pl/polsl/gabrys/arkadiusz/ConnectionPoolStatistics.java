@@ -0,0 +1,176 @@
+package pl.polsl.gabrys.arkadiusz;
+
+/**
+ * MXBean exposing the pool state sampled by ConnectionPoolMonitor
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+class ConnectionPoolStatistics implements ConnectionPoolStatisticsMXBean {
+
+    /**
+     * Pool sampler
+     */
+    private final ConnectionPoolMonitor monitor;
+
+    /**
+     * Initializes instance with given parameter
+     * @param monitor the pool sampler
+     */
+    ConnectionPoolStatistics(ConnectionPoolMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Returns the name of the monitored pool
+     * @return the pool name
+     */
+    @Override
+    public String getPoolName() {
+        return monitor.getPoolName();
+    }
+
+    /**
+     * Checks whether the last sample could read the pool monitoring statistics
+     * @return true if the statistics are available, false if the pool is not
+     * deployed or the jdbc-connection-pool monitoring level is OFF
+     */
+    @Override
+    public boolean isAvailable() {
+        return monitor.isAvailable();
+    }
+
+    /**
+     * Returns the current maximum pool size
+     * @return the maximum number of connections
+     */
+    @Override
+    public int getMaxPoolSize() {
+        return monitor.getMaxPoolSize();
+    }
+
+    /**
+     * Returns the current steady pool size
+     * @return the number of connections kept open while idle
+     */
+    @Override
+    public int getSteadyPoolSize() {
+        return monitor.getSteadyPoolSize();
+    }
+
+    /**
+     * Returns the number of connections in use at the last sample
+     * @return the number of used connections
+     */
+    @Override
+    public long getConnectionsUsed() {
+        return monitor.getConnectionsUsed();
+    }
+
+    /**
+     * Returns the number of open idle connections at the last sample
+     * @return the number of free connections
+     */
+    @Override
+    public long getConnectionsFree() {
+        return monitor.getConnectionsFree();
+    }
+
+    /**
+     * Returns the used connections divided by the maximum pool size
+     * @return the utilization between 0 and 1
+     */
+    @Override
+    public double getUtilization() {
+        int maxPoolSize = monitor.getMaxPoolSize();
+        return maxPoolSize > 0 ? (double) monitor.getConnectionsUsed() / maxPoolSize : 0.0;
+    }
+
+    /**
+     * Returns the number of callers waiting for a connection at the last sample
+     * @return the wait queue length
+     */
+    @Override
+    public long getWaitQueueLength() {
+        return monitor.getWaitQueueLength();
+    }
+
+    /**
+     * Returns the wait of the last request served during the last sample interval
+     * @return the wait in milliseconds, 0 if no request was served
+     */
+    @Override
+    public long getLastWaitMillis() {
+        return monitor.getLastWaitMillis();
+    }
+
+    /**
+     * Returns the average wait of the requests served since the pool started
+     * @return the wait in whole milliseconds
+     */
+    @Override
+    public long getAverageWaitMillis() {
+        return monitor.getAverageWaitMillis();
+    }
+
+    /**
+     * Returns the longest wait of a request served since the pool started
+     * @return the wait in milliseconds
+     */
+    @Override
+    public long getMaxWaitMillis() {
+        return monitor.getMaxWaitMillis();
+    }
+
+    /**
+     * Returns the number of connection requests which timed out since the last reset
+     * @return the number of timed out requests
+     */
+    @Override
+    public long getTimedOutRequests() {
+        return monitor.getTimedOutRequests();
+    }
+
+    /**
+     * Returns the number of potential connection leaks reported by the pool since the last reset
+     * @return the number of potential leaks
+     */
+    @Override
+    public long getPotentialLeaks() {
+        return monitor.getPotentialLeaks();
+    }
+
+    /**
+     * Returns the number of pool size changes since the last reset
+     * @return the number of resizes
+     */
+    @Override
+    public long getResizeCount() {
+        return monitor.getResizeCount();
+    }
+
+    /**
+     * Checks whether the pool is resized automatically
+     * @return true if the sizes are adjusted after every sample
+     */
+    @Override
+    public boolean isResizeEnabled() {
+        return monitor.isResizeEnabled();
+    }
+
+    /**
+     * Enables or disables the automatic resizing, the statistics are sampled in both cases
+     * @param enabled true to adjust the sizes after every sample
+     */
+    @Override
+    public void setResizeEnabled(boolean enabled) {
+        monitor.setResizeEnabled(enabled);
+    }
+
+    /**
+     * Drops the accumulated counters
+     */
+    @Override
+    public void reset() {
+        monitor.reset();
+    }
+}
@@ -0,0 +1,112 @@
+package pl.polsl.gabrys.arkadiusz;
+
+/**
+ * Management interface with the sampled state of the JDBC connection pool
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public interface ConnectionPoolStatisticsMXBean {
+
+    /**
+     * Returns the name of the monitored pool
+     * @return the pool name
+     */
+    String getPoolName();
+
+    /**
+     * Checks whether the last sample could read the pool monitoring statistics
+     * @return true if the statistics are available, false if the pool is not deployed,
+     * the jdbc-connection-pool monitoring level is OFF or the administration server cannot be reached
+     */
+    boolean isAvailable();
+
+    /**
+     * Returns the current maximum pool size
+     * @return the maximum number of connections
+     */
+    int getMaxPoolSize();
+
+    /**
+     * Returns the current steady pool size
+     * @return the number of connections kept open while idle
+     */
+    int getSteadyPoolSize();
+
+    /**
+     * Returns the number of connections in use at the last sample
+     * @return the number of used connections
+     */
+    long getConnectionsUsed();
+
+    /**
+     * Returns the number of open idle connections at the last sample
+     * @return the number of free connections
+     */
+    long getConnectionsFree();
+
+    /**
+     * Returns the used connections divided by the maximum pool size
+     * @return the utilization between 0 and 1
+     */
+    double getUtilization();
+
+    /**
+     * Returns the number of callers waiting for a connection at the last sample
+     * @return the wait queue length
+     */
+    long getWaitQueueLength();
+
+    /**
+     * Returns the wait of the last request served during the last sample interval
+     * @return the wait in milliseconds, 0 if no request was served
+     */
+    long getLastWaitMillis();
+
+    /**
+     * Returns the average wait of the requests served since the pool started. The pool
+     * reports no distribution of the waits, so no percentile is available
+     * @return the wait in whole milliseconds
+     */
+    long getAverageWaitMillis();
+
+    /**
+     * Returns the longest wait of a request served since the pool started
+     * @return the wait in milliseconds
+     */
+    long getMaxWaitMillis();
+
+    /**
+     * Returns the number of connection requests which timed out since the last reset
+     * @return the number of timed out requests
+     */
+    long getTimedOutRequests();
+
+    /**
+     * Returns the number of potential connection leaks reported by the pool since the last reset
+     * @return the number of potential leaks
+     */
+    long getPotentialLeaks();
+
+    /**
+     * Returns the number of pool size changes since the last reset
+     * @return the number of resizes
+     */
+    long getResizeCount();
+
+    /**
+     * Checks whether the pool is resized automatically
+     * @return true if the sizes are adjusted after every sample
+     */
+    boolean isResizeEnabled();
+
+    /**
+     * Enables or disables the automatic resizing, the statistics are sampled in both cases
+     * @param enabled true to adjust the sizes after every sample
+     */
+    void setResizeEnabled(boolean enabled);
+
+    /**
+     * Drops the accumulated counters
+     */
+    void reset();
+}
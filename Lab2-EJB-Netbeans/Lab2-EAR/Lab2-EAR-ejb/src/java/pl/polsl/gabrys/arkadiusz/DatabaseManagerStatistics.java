@@ -0,0 +1,72 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.List;
+import pl.polsl.gabrys.arkadiusz.dto.MethodStatistics;
+
+/**
+ * MXBean exposing the metrics held by PerformanceMonitor
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+class DatabaseManagerStatistics implements DatabaseManagerStatisticsMXBean {
+
+    /**
+     * Metrics registry
+     */
+    private final PerformanceMonitor monitor;
+
+    /**
+     * Initializes instance with given parameter
+     * @param monitor the metrics registry
+     */
+    DatabaseManagerStatistics(PerformanceMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Returns the counters of all called methods
+     * @return the list of counters ordered by method signature
+     */
+    @Override
+    public List<MethodStatistics> getMethods() {
+        return monitor.getStatistics();
+    }
+
+    /**
+     * Returns the total number of completed calls
+     * @return the number of completed calls of all methods
+     */
+    @Override
+    public long getTotalCalls() {
+        long calls = 0;
+
+        for (MethodStatistics method: monitor.getStatistics()) {
+            calls += method.getCalls();
+        }
+
+        return calls;
+    }
+
+    /**
+     * Returns the total number of failed calls
+     * @return the number of failed calls of all methods
+     */
+    @Override
+    public long getTotalErrors() {
+        long errors = 0;
+
+        for (MethodStatistics method: monitor.getStatistics()) {
+            errors += method.getErrorCount();
+        }
+
+        return errors;
+    }
+
+    /**
+     * Drops all recorded metrics
+     */
+    @Override
+    public void reset() {
+        monitor.reset();
+    }
+}
@@ -0,0 +1,35 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.List;
+import pl.polsl.gabrys.arkadiusz.dto.MethodStatistics;
+
+/**
+ * Management interface with latency statistics of DatabaseManager business methods
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public interface DatabaseManagerStatisticsMXBean {
+
+    /**
+     * Returns the counters of all called methods
+     * @return the list of counters ordered by method signature
+     */
+    List<MethodStatistics> getMethods();
+
+    /**
+     * Returns the total number of completed calls
+     * @return the number of completed calls of all methods
+     */
+    long getTotalCalls();
+
+    /**
+     * Returns the total number of failed calls
+     * @return the number of failed calls of all methods
+     */
+    long getTotalErrors();
+
+    /**
+     * Drops all recorded metrics
+     */
+    void reset();
+}
@@ -0,0 +1,104 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.ejb.Remove;
+import javax.ejb.Stateful;
+import javax.ejb.StatefulTimeout;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptors;
+import javax.interceptor.InvocationContext;
+import javax.persistence.EntityManager;
+import pl.polsl.gabrys.arkadiusz.interfaces.DatabaseSessionRemote;
+import pl.polsl.gabrys.arkadiusz.interfaces.RejectedArgumentException;
+
+/**
+ * Database manager bound to a single client, whose find methods read from the
+ * replicas chosen by ReplicaRouter. The session is keyed by a random id, so the
+ * reads which follow its committed writes go to the primary for its read-your-writes
+ * window while the reads of other sessions keep using the replicas.
+ * Rejected arguments reach the client as RejectedArgumentException, an application
+ * exception, so they roll the transaction back without discarding the session.
+ * The container serializes the calls of one session, clients which run independent
+ * operations concurrently use the stateless DatabaseManager.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Stateful(mappedName = "DatabaseSession")
+@StatefulTimeout(value = 30, unit = TimeUnit.MINUTES)
+@Interceptors(LatencyInterceptor.class)
+public class DatabaseSession extends AbstractDatabaseManager implements DatabaseSessionRemote {
+
+    /**
+     * Key of the session used for the read-your-writes window
+     */
+    private final String sessionId = UUID.randomUUID().toString();
+
+    /**
+     * Read-your-writes window in milliseconds or null for the default window of the router
+     */
+    private Long readYourWritesWindow;
+
+    /**
+     * Class constructor
+     */
+    public DatabaseSession() { }
+
+    /**
+     * Sets the time after a committed write during which the reads of the session go to the primary
+     * @param millis the window in milliseconds, 0 lets the reads use replicas at once
+     * @throws IllegalArgumentException if the window is negative
+     */
+    @Override
+    public void setReadYourWritesWindow(long millis) throws IllegalArgumentException {
+        if (millis < 0)
+            throw new IllegalArgumentException("Read-your-writes window cannot be negative");
+
+        readYourWritesWindow = millis;
+    }
+
+    /**
+     * Ends the session and releases its server resources
+     */
+    @Remove
+    @Override
+    public void close() { }
+
+    /**
+     * Runs the read operation on a replica, or on the primary during the read-your-writes window of the session
+     * @param <T> the result type
+     * @param operation the operation which queries the entity manager
+     * @return the operation result
+     */
+    @Override
+    protected <T> T read(Function<EntityManager, T> operation) {
+        return readFromReplica(sessionId, operation);
+    }
+
+    /**
+     * Starts the read-your-writes window of the session once the current transaction commits
+     */
+    @Override
+    protected void recordWrite() {
+        ReplicaRouter router = getReplicaRouter();
+        router.recordWriteAfterCompletion(sessionId, readYourWritesWindow != null ? readYourWritesWindow : router.getDefaultWindow());
+    }
+
+    /**
+     * Turns rejected arguments into the application exception, which keeps the session
+     * @param context the invocation context
+     * @return the business method result
+     * @throws Exception the exception thrown by the business method
+     */
+    @AroundInvoke
+    protected Object rejectArguments(InvocationContext context) throws Exception {
+        try {
+            return context.proceed();
+        } catch (RejectedArgumentException ex) {
+            throw ex;
+        } catch (IllegalArgumentException ex) {
+            throw new RejectedArgumentException(ex.getMessage(), ex);
+        }
+    }
+}
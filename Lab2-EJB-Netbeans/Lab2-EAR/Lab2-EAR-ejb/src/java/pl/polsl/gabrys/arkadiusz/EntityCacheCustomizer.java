@@ -0,0 +1,22 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import org.eclipse.persistence.config.DescriptorCustomizer;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+
+/**
+ * Gives the cached entities the bounded least recently used shared cache, registered
+ * for Author and Book in persistence.xml, the size comes from eclipselink.cache.size
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class EntityCacheCustomizer implements DescriptorCustomizer {
+
+    /**
+     * Replaces the shared cache type of the entity
+     * @param descriptor the descriptor of the entity
+     */
+    @Override
+    public void customize(ClassDescriptor descriptor) {
+        descriptor.setIdentityMapClass(EvictionCountingIdentityMap.class);
+    }
+}
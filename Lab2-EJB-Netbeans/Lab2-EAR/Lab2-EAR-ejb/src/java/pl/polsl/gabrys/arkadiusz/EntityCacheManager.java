@@ -0,0 +1,153 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import pl.polsl.gabrys.arkadiusz.dto.CacheStatistics;
+
+/**
+ * Keeps the shared entity cache of the Lab2-EJB persistence unit consistent
+ * after writes and counts its hits, misses, invalidations and evictions
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class EntityCacheManager {
+
+    /**
+     * Hints of the lookups which read the shared cache only and never query the database
+     */
+    private static final Map<String, Object> CACHE_ONLY = Collections.singletonMap("eclipselink.cache-usage", "CheckCacheOnly");
+
+    /**
+     * Entity manager factory which owns the shared cache
+     */
+    @PersistenceUnit(unitName = "Lab2-EJB")
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Registry used to evict entries once the current transaction completes
+     */
+    @Resource
+    private TransactionSynchronizationRegistry synchronizationRegistry;
+
+    /**
+     * Number of lookups served by the shared cache
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of lookups which had to query the database
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Number of entries evicted after writes
+     */
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Finds the entity in the shared cache without querying the database and counts the lookup.
+     * The hit is decided by the entity the cache returns, so an eviction running at the same
+     * time cannot make a lookup which queries the database count as a hit
+     * @param <T> the entity type
+     * @param entityManager the entity manager of the Lab2-EJB persistence unit
+     * @param entityClass the entity class
+     * @param id the entity id
+     * @return the cached entity or null if it is not in the shared cache
+     * @throws IllegalArgumentException if the id is null
+     */
+    public <T> T findCached(EntityManager entityManager, Class<T> entityClass, Long id) throws IllegalArgumentException {
+        if (id == null)
+            throw new IllegalArgumentException("Id cannot be null");
+
+        T entity = entityManager.find(entityClass, id, CACHE_ONLY);
+
+        if (entity != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+
+        return entity;
+    }
+
+    /**
+     * Evicts entities with given ids when the current transaction completes,
+     * so no concurrent reader can put the old state back before the commit
+     * @param entityClass the entity class
+     * @param ids the entity ids, null values are ignored
+     */
+    public void evictAfterCompletion(final Class<?> entityClass, Collection<Long> ids) {
+        final List<Long> evicted = new ArrayList<>();
+
+        for (Long id: ids) {
+            if (id != null)
+                evicted.add(id);
+        }
+
+        if (evicted.isEmpty())
+            return;
+
+        if (synchronizationRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            evict(entityClass, evicted);
+            return;
+        }
+
+        synchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() { }
+
+            @Override
+            public void afterCompletion(int status) {
+                evict(entityClass, evicted);
+            }
+        });
+    }
+
+    /**
+     * Returns the current counters
+     * @return the counters snapshot
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), invalidations.sum(), EvictionCountingIdentityMap.getEvictions());
+    }
+
+    /**
+     * Evicts entities with given ids immediately
+     * @param entityClass the entity class
+     * @param ids the entity ids
+     */
+    private void evict(Class<?> entityClass, List<Long> ids) {
+        Cache cache = getCache();
+
+        for (Long id: ids) {
+            cache.evict(entityClass, id);
+        }
+
+        invalidations.add(ids.size());
+    }
+
+    /**
+     * Returns the shared cache of the persistence unit
+     * @return the shared cache
+     */
+    private Cache getCache() {
+        return entityManagerFactory.getCache();
+    }
+}
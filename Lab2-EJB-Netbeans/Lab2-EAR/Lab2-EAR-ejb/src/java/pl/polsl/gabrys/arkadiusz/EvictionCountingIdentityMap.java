@@ -0,0 +1,56 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.internal.identitymaps.CacheIdentityMap;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+
+/**
+ * Shared cache of a fixed number of entities which drops the least recently used
+ * entity when a new one does not fit and counts the dropped entities. Unlike the
+ * soft and weak caches it never holds more entities than its size, whatever the
+ * garbage collector does
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@SuppressWarnings("serial")
+public class EvictionCountingIdentityMap extends CacheIdentityMap {
+
+    /**
+     * Number of entities dropped by all caches of this type
+     */
+    private static final LongAdder EVICTIONS = new LongAdder();
+
+    /**
+     * Initializes cache with given size, called by EclipseLink
+     * @param size the maximum number of entities
+     * @param descriptor the descriptor of the cached entity
+     * @param session the session owning the cache
+     * @param isolated whether the cache belongs to an isolated session
+     */
+    public EvictionCountingIdentityMap(int size, ClassDescriptor descriptor, AbstractSession session, boolean isolated) {
+        super(size, descriptor, session, isolated);
+    }
+
+    /**
+     * Returns the number of entities dropped because a cache was full
+     * @return the number of evictions since the application started
+     */
+    public static long getEvictions() {
+        return EVICTIONS.sum();
+    }
+
+    /**
+     * Drops the least recently used entities until the cache fits its size,
+     * the same loop as in CacheIdentityMap with every dropped entity counted
+     */
+    @Override
+    protected void ensureFixedSize() {
+        synchronized (first) {
+            while (getMaxSize() > 0 && getSize() > getMaxSize()) {
+                remove(last.getPrevious());
+                EVICTIONS.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import javax.ejb.EJB;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.InvocationContext;
+
+/**
+ * Records latency, in flight and error counts of every intercepted business method
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class LatencyInterceptor {
+
+    /**
+     * Metrics registry
+     */
+    @EJB
+    private PerformanceMonitor monitor;
+
+    /**
+     * Measures the business method call
+     * @param context the invocation context
+     * @return the business method result
+     * @throws Exception the exception thrown by the business method
+     */
+    @AroundInvoke
+    public Object measure(InvocationContext context) throws Exception {
+        MethodMetrics metrics = monitor.getMetrics(context.getMethod());
+        Throwable error = null;
+        metrics.started();
+        long start = System.nanoTime();
+
+        try {
+            return context.proceed();
+        } catch (Exception | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.finished(System.nanoTime() - start, error);
+        }
+    }
+}
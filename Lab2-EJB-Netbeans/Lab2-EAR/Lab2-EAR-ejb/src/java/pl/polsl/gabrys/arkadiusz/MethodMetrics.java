@@ -0,0 +1,92 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import pl.polsl.gabrys.arkadiusz.dto.MethodStatistics;
+import pl.polsl.gabrys.arkadiusz.statistics.LatencyHistogram;
+
+/**
+ * Lock-free latency and call counters of a single business method
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class MethodMetrics {
+
+    /**
+     * Method signature
+     */
+    private final String method;
+
+    /**
+     * Latencies of completed calls
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Number of calls currently running
+     */
+    private final LongAdder inFlight = new LongAdder();
+
+    /**
+     * Number of failed calls by exception class name
+     */
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    /**
+     * Initializes instance with given parameter
+     * @param method the method signature
+     */
+    MethodMetrics(String method) {
+        this.method = method;
+    }
+
+    /**
+     * Records the start of a call
+     */
+    void started() {
+        inFlight.increment();
+    }
+
+    /**
+     * Records the end of a call
+     * @param nanos the call duration in nanoseconds
+     * @param error the exception thrown by the call or null if it succeeded
+     */
+    void finished(long nanos, Throwable error) {
+        inFlight.decrement();
+        latencies.record(nanos);
+
+        if (error != null)
+            errors.computeIfAbsent(error.getClass().getName(), e -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the current counters
+     * @return the counters snapshot with latencies in microseconds
+     */
+    MethodStatistics getStatistics() {
+        long[] quantiles = latencies.getQuantiles(0.5, 0.9, 0.99, 0.999);
+        Map<String, Long> errorCounts = new HashMap<>();
+
+        for (Map.Entry<String, LongAdder> error: errors.entrySet()) {
+            errorCounts.put(error.getKey(), error.getValue().sum());
+        }
+
+        return new MethodStatistics(method, latencies.getCount(), inFlight.sum(), errorCounts,
+                latencies.getMean() / 1000.0, micros(quantiles[0]), micros(quantiles[1]),
+                micros(quantiles[2]), micros(quantiles[3]), micros(latencies.getMax()));
+    }
+
+    /**
+     * Converts nanoseconds to microseconds
+     * @param nanos the duration in nanoseconds
+     * @return the duration in microseconds
+     */
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,182 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.EJBException;
+import javax.ejb.LocalBean;
+import javax.ejb.SessionContext;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceContext;
+import pl.polsl.gabrys.arkadiusz.dto.MergeStatistics;
+
+/**
+ * Runs read-modify-write operations in separate transactions and repeats
+ * them when a concurrent update of the same entity wins the version check.
+ * No row locks are held, the conflicting transaction is rolled back and the
+ * operation reads the current state again in a new one.
+ * The policy is configured with system properties:
+ * pl.polsl.gabrys.arkadiusz.merge.attempts (default 5),
+ * pl.polsl.gabrys.arkadiusz.merge.backoff (first backoff in milliseconds, default 5)
+ * and pl.polsl.gabrys.arkadiusz.merge.maxBackoff (default 200).
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Singleton
+@LocalBean
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class OptimisticRetryExecutor {
+
+    /**
+     * Prefix of the configuration system properties
+     */
+    private static final String PROPERTY_PREFIX = "pl.polsl.gabrys.arkadiusz.merge.";
+
+    /**
+     * Maximum number of transactions started for a single operation
+     */
+    private final int maxAttempts = Math.max(1, Integer.getInteger(PROPERTY_PREFIX + "attempts", 5));
+
+    /**
+     * Backoff before the first retry in milliseconds, doubled before every next one
+     */
+    private final long backoff = Math.max(0L, Long.getLong(PROPERTY_PREFIX + "backoff", 5L));
+
+    /**
+     * Upper bound of the backoff in milliseconds
+     */
+    private final long maxBackoff = Math.max(backoff, Long.getLong(PROPERTY_PREFIX + "maxBackoff", 200L));
+
+    /**
+     * Entity manager joined to the transaction of the current attempt
+     */
+    @PersistenceContext(name = "Lab2-EJB", unitName = "Lab2-EJB")
+    private EntityManager entityManager;
+
+    /**
+     * Context used to call attempt through the container, so it gets a new transaction
+     */
+    @Resource
+    private SessionContext context;
+
+    /**
+     * Number of started transactions
+     */
+    private final LongAdder attempts = new LongAdder();
+
+    /**
+     * Number of transactions rolled back because of a version conflict
+     */
+    private final LongAdder conflicts = new LongAdder();
+
+    /**
+     * Number of operations which failed after all attempts
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Executes the operation, retrying it in a new transaction after every version conflict
+     * @param <T> the result type
+     * @param operation the operation which reads and updates entities
+     * @return the operation result
+     * @throws OptimisticLockException if the operation conflicted in all attempts
+     * @throws RuntimeException the exception thrown by the operation
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public <T> T execute(Supplier<T> operation) throws OptimisticLockException, RuntimeException {
+        OptimisticRetryExecutor self = context.getBusinessObject(OptimisticRetryExecutor.class);
+        long delay = backoff;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                attempts.increment();
+                return self.attempt(operation);
+            } catch (EJBException e) {
+                OptimisticLockException conflict = findConflict(e);
+
+                if (conflict == null)
+                    throw unwrap(e);
+
+                conflicts.increment();
+
+                if (attempt >= maxAttempts) {
+                    failures.increment();
+                    throw conflict;
+                }
+            }
+
+            sleep(delay);
+            delay = Math.min(delay * 2, maxBackoff);
+        }
+    }
+
+    /**
+     * Executes the operation once in a new transaction and flushes it,
+     * so the version check fails inside of this call
+     * @param <T> the result type
+     * @param operation the operation which reads and updates entities
+     * @return the operation result
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public <T> T attempt(Supplier<T> operation) {
+        T result = operation.get();
+        entityManager.flush();
+        return result;
+    }
+
+    /**
+     * Returns the current counters
+     * @return the counters snapshot
+     */
+    public MergeStatistics getStatistics() {
+        return new MergeStatistics(attempts.sum(), conflicts.sum(), failures.sum());
+    }
+
+    /**
+     * Returns the exception thrown by the bean method instead of the container wrapper
+     * @param e the exception thrown by the container
+     * @return the original runtime exception or the given one if there is none
+     */
+    static RuntimeException unwrap(EJBException e) {
+        Exception cause = e.getCausedByException();
+        return cause instanceof RuntimeException ? (RuntimeException) cause : e;
+    }
+
+    /**
+     * Finds the version conflict in the chain of causes
+     * @param e the exception thrown by the container
+     * @return the conflict or null if the exception has another cause
+     */
+    private static OptimisticLockException findConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException)
+                return (OptimisticLockException) cause;
+        }
+
+        return null;
+    }
+
+    /**
+     * Waits before the next attempt, the delay is randomized so the
+     * conflicting callers do not retry at the same time again
+     * @param delay the upper bound of the delay in milliseconds
+     */
+    private static void sleep(long delay) {
+        if (delay <= 0)
+            return;
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(delay / 2, delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EJBException(e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import pl.polsl.gabrys.arkadiusz.dto.MethodStatistics;
+
+/**
+ * Holds the latency metrics recorded by LatencyInterceptor and publishes
+ * them as the pl.polsl.gabrys.arkadiusz:type=DatabaseManagerStatistics MXBean
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class PerformanceMonitor {
+
+    /**
+     * Name of the registered MXBean
+     */
+    static final String OBJECT_NAME = "pl.polsl.gabrys.arkadiusz:type=DatabaseManagerStatistics";
+
+    /**
+     * Metrics by intercepted method
+     */
+    private final ConcurrentMap<Method, MethodMetrics> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the MXBean in the platform MBean server
+     */
+    @PostConstruct
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+
+            server.registerMBean(new DatabaseManagerStatistics(this), name);
+        } catch (JMException ex) {
+            Logger.getLogger(PerformanceMonitor.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+
+    /**
+     * Unregisters the MXBean, so a redeployed application can register it again
+     */
+    @PreDestroy
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (JMException ex) {
+            Logger.getLogger(PerformanceMonitor.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+
+    /**
+     * Returns the metrics of given method, creating them on the first call
+     * @param method the intercepted method
+     * @return the method metrics
+     */
+    public MethodMetrics getMetrics(Method method) {
+        MethodMetrics methodMetrics = metrics.get(method);
+
+        if (methodMetrics != null)
+            return methodMetrics;
+
+        return metrics.computeIfAbsent(method, m -> new MethodMetrics(signature(m)));
+    }
+
+    /**
+     * Returns the counters of all called methods
+     * @return the list of counters ordered by method signature
+     */
+    public List<MethodStatistics> getStatistics() {
+        List<MethodStatistics> statistics = new ArrayList<>();
+
+        for (MethodMetrics methodMetrics: metrics.values()) {
+            statistics.add(methodMetrics.getStatistics());
+        }
+
+        statistics.sort(Comparator.comparing(MethodStatistics::getMethod));
+        return statistics;
+    }
+
+    /**
+     * Drops all recorded metrics
+     */
+    public void reset() {
+        metrics.clear();
+    }
+
+    /**
+     * Formats the method name with simple names of parameter types
+     * @param method the method
+     * @return the signature, for example findAuthorById(Long)
+     */
+    private static String signature(Method method) {
+        StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        Class<?>[] types = method.getParameterTypes();
+
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0)
+                signature.append(',');
+
+            signature.append(types[i].getSimpleName());
+        }
+
+        return signature.append(')').toString();
+    }
+}
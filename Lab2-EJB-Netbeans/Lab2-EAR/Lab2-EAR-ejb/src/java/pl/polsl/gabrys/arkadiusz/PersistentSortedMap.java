@@ -0,0 +1,306 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable sorted map, a balanced (AVL) tree whose updates copy only the nodes
+ * on the path to the changed key and share all other nodes with the previous map.
+ * An update costs O(log n) time and memory and never changes the maps already
+ * handed to readers, so they can be read without locking. Values cannot be null.
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+final class PersistentSortedMap<K extends Comparable<? super K>, V> {
+
+    /**
+     * Empty map
+     */
+    @SuppressWarnings("rawtypes")
+    private static final PersistentSortedMap EMPTY = new PersistentSortedMap<>(null, 0);
+
+    /**
+     * Root node or null if the map is empty
+     */
+    private final Node<K, V> root;
+
+    /**
+     * Number of entries
+     */
+    private final int size;
+
+    /**
+     * Initializes instance with given parameters
+     * @param root the root node or null
+     * @param size the number of entries
+     */
+    private PersistentSortedMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K extends Comparable<? super K>, V> PersistentSortedMap<K, V> empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the number of entries
+     * @return the size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value of given key
+     * @param key the key
+     * @return the value or null if there is no such key
+     */
+    V get(K key) {
+        Node<K, V> node = root;
+
+        while (node != null) {
+            int order = key.compareTo(node.key);
+
+            if (order == 0)
+                return node.value;
+
+            node = order < 0 ? node.left : node.right;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the map with given key mapped to given value
+     * @param key the key
+     * @param value the value
+     * @return the new map, this map is not changed
+     */
+    PersistentSortedMap<K, V> put(K key, V value) {
+        return new PersistentSortedMap<>(put(root, key, value), get(key) == null ? size + 1 : size);
+    }
+
+    /**
+     * Returns the map without given key
+     * @param key the key
+     * @return the new map or this map if there is no such key
+     */
+    PersistentSortedMap<K, V> remove(K key) {
+        if (get(key) == null)
+            return this;
+
+        return new PersistentSortedMap<>(remove(root, key), size - 1);
+    }
+
+    /**
+     * Returns at most limit values with keys greater than given key, in key order
+     * @param after the key preceding the returned values or null to start with the first value
+     * @param limit the maximum number of values
+     * @return the list of values
+     */
+    List<V> valuesAfter(K after, int limit) {
+        List<V> values = new ArrayList<>(Math.min(limit, size));
+        collect(root, after, limit, values);
+        return values;
+    }
+
+    /**
+     * Adds the values of the subtree with keys greater than given key
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param node the subtree root or null
+     * @param after the key preceding the collected values or null
+     * @param limit the maximum number of collected values
+     * @param values the collected values
+     */
+    private static <K extends Comparable<? super K>, V> void collect(Node<K, V> node, K after, int limit, List<V> values) {
+        if (node == null || values.size() >= limit)
+            return;
+
+        // the left subtree and the node itself precede the key when the node does not follow it
+        if (after == null || node.key.compareTo(after) > 0) {
+            collect(node.left, after, limit, values);
+
+            if (values.size() < limit)
+                values.add(node.value);
+        }
+
+        collect(node.right, after, limit, values);
+    }
+
+    /**
+     * Returns the subtree with given key mapped to given value
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param node the subtree root or null
+     * @param key the key
+     * @param value the value
+     * @return the new subtree root
+     */
+    private static <K extends Comparable<? super K>, V> Node<K, V> put(Node<K, V> node, K key, V value) {
+        if (node == null)
+            return new Node<>(key, value, null, null);
+
+        int order = key.compareTo(node.key);
+
+        if (order < 0)
+            return balance(node.key, node.value, put(node.left, key, value), node.right);
+
+        if (order > 0)
+            return balance(node.key, node.value, node.left, put(node.right, key, value));
+
+        return new Node<>(key, value, node.left, node.right);
+    }
+
+    /**
+     * Returns the subtree without given key
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param node the subtree root or null
+     * @param key the key
+     * @return the new subtree root or null if it is empty
+     */
+    private static <K extends Comparable<? super K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null)
+            return null;
+
+        int order = key.compareTo(node.key);
+
+        if (order < 0)
+            return balance(node.key, node.value, remove(node.left, key), node.right);
+
+        if (order > 0)
+            return balance(node.key, node.value, node.left, remove(node.right, key));
+
+        if (node.left == null)
+            return node.right;
+
+        if (node.right == null)
+            return node.left;
+
+        // the removed node is replaced with the first node of its right subtree
+        Node<K, V> next = node.right;
+
+        while (next.left != null) {
+            next = next.left;
+        }
+
+        return balance(next.key, next.value, node.left, removeFirst(node.right));
+    }
+
+    /**
+     * Returns the subtree without its first node
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param node the subtree root
+     * @return the new subtree root or null if it is empty
+     */
+    private static <K extends Comparable<? super K>, V> Node<K, V> removeFirst(Node<K, V> node) {
+        if (node.left == null)
+            return node.right;
+
+        return balance(node.key, node.value, removeFirst(node.left), node.right);
+    }
+
+    /**
+     * Creates the node with given subtrees, rotating them when their heights differ by more than one
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param key the node key
+     * @param value the node value
+     * @param left the left subtree or null
+     * @param right the right subtree or null
+     * @return the balanced subtree root
+     */
+    private static <K extends Comparable<? super K>, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right))
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+
+            return new Node<>(left.right.key, left.right.value,
+                    new Node<>(left.key, left.value, left.left, left.right.left),
+                    new Node<>(key, value, left.right.right, right));
+        }
+
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left))
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+
+            return new Node<>(right.left.key, right.left.value,
+                    new Node<>(key, value, left, right.left.left),
+                    new Node<>(right.key, right.value, right.left.right, right.right));
+        }
+
+        return new Node<>(key, value, left, right);
+    }
+
+    /**
+     * Returns the height of the subtree
+     * @param node the subtree root or null
+     * @return the height, 0 for an empty subtree
+     */
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Immutable tree node
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    private static final class Node<K, V> {
+
+        /**
+         * Node key
+         */
+        private final K key;
+
+        /**
+         * Node value
+         */
+        private final V value;
+
+        /**
+         * Subtree of smaller keys or null
+         */
+        private final Node<K, V> left;
+
+        /**
+         * Subtree of greater keys or null
+         */
+        private final Node<K, V> right;
+
+        /**
+         * Height of the subtree rooted in this node
+         */
+        private final int height;
+
+        /**
+         * Initializes instance with given parameters
+         * @param key the node key
+         * @param value the node value
+         * @param left the subtree of smaller keys or null
+         * @param right the subtree of greater keys or null
+         */
+        private Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+        }
+    }
+}
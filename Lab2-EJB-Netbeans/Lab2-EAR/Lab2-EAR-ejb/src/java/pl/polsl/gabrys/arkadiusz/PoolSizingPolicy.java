@@ -0,0 +1,164 @@
+package pl.polsl.gabrys.arkadiusz;
+
+/**
+ * Decides the connection pool sizes from periodic samples of the pool.
+ * The maximum size grows as soon as callers wait for connections and shrinks
+ * only after a number of calm samples with low utilization, so short bursts
+ * get connections quickly and the pool does not oscillate. The steady size
+ * follows the smoothed number of used connections, so an idle pool keeps
+ * only a few open database connections. It changes only when the smoothed
+ * value leaves a deadband around the current size and a number of samples
+ * passed since the previous change, because every change makes the pool
+ * open or close connections.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+class PoolSizingPolicy {
+
+    /**
+     * Weight of the newest sample in the smoothed number of used connections
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * Utilization below which a sample counts as calm
+     */
+    private static final double LOW_UTILIZATION = 0.5;
+
+    /**
+     * Lower bound of the maximum pool size
+     */
+    private final int minPoolSize;
+
+    /**
+     * Upper bound of the maximum pool size
+     */
+    private final int maxPoolSize;
+
+    /**
+     * Lower bound of the steady pool size
+     */
+    private final int minSteadySize;
+
+    /**
+     * Wait for a connection in milliseconds above which the pool grows
+     */
+    private final double targetWaitMillis;
+
+    /**
+     * Number of consecutive calm samples after which the pool shrinks
+     */
+    private final int shrinkAfter;
+
+    /**
+     * Minimum number of samples between two changes of the steady size
+     */
+    private final int steadyHold;
+
+    /**
+     * Smoothed number of used connections
+     */
+    private double smoothedUsed = -1;
+
+    /**
+     * Number of consecutive calm samples
+     */
+    private int calmSamples;
+
+    /**
+     * Number of samples since the last change of the steady size
+     */
+    private int steadySamples;
+
+    /**
+     * Initializes policy with given bounds
+     * @param minPoolSize the lower bound of the maximum pool size
+     * @param maxPoolSize the upper bound of the maximum pool size
+     * @param minSteadySize the lower bound of the steady pool size
+     * @param targetWaitMillis the wait in milliseconds above which the pool grows
+     * @param shrinkAfter the number of calm samples after which the pool shrinks
+     * @param steadyHold the minimum number of samples between two changes of the steady size
+     * @throws IllegalArgumentException if the bounds are not positive or not ordered
+     */
+    PoolSizingPolicy(int minPoolSize, int maxPoolSize, int minSteadySize, double targetWaitMillis, int shrinkAfter, int steadyHold)
+            throws IllegalArgumentException {
+        if (minPoolSize <= 0 || maxPoolSize < minPoolSize)
+            throw new IllegalArgumentException("Pool size bounds must be positive and ordered");
+
+        if (minSteadySize < 0 || minSteadySize > minPoolSize)
+            throw new IllegalArgumentException("Minimum steady size must be between 0 and the minimum pool size");
+
+        this.minPoolSize = minPoolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.minSteadySize = minSteadySize;
+        this.targetWaitMillis = targetWaitMillis;
+        this.shrinkAfter = Math.max(1, shrinkAfter);
+        this.steadyHold = Math.max(1, steadyHold);
+    }
+
+    /**
+     * Returns the maximum pool size for the next interval
+     * @param currentMax the current maximum pool size
+     * @param used the number of connections in use
+     * @param waiting the number of callers waiting for a connection
+     * @param waitMillis the wait of the last request served during the last interval
+     * @param timedOut the number of requests which timed out during the last interval
+     * @return the new maximum pool size within the bounds
+     */
+    int nextMaxPoolSize(int currentMax, long used, long waiting, long waitMillis, long timedOut) {
+        int step = Math.max(2, currentMax / 4);
+
+        if (waiting > 0 || timedOut > 0 || waitMillis > targetWaitMillis) {
+            calmSamples = 0;
+            return clamp(currentMax + (int) Math.max(step, Math.min(waiting, maxPoolSize)), minPoolSize, maxPoolSize);
+        }
+
+        if (used >= currentMax * LOW_UTILIZATION) {
+            calmSamples = 0;
+            return clamp(currentMax, minPoolSize, maxPoolSize);
+        }
+
+        if (++calmSamples < shrinkAfter)
+            return clamp(currentMax, minPoolSize, maxPoolSize);
+
+        // keep twice the connections in use, so the next burst does not wait at once
+        calmSamples = 0;
+        return clamp(Math.max(currentMax - step, (int) used * 2), minPoolSize, maxPoolSize);
+    }
+
+    /**
+     * Returns the steady pool size for the next interval. The current size is kept while the
+     * smoothed number of used connections differs from it by at most a quarter, but at least
+     * two connections, or fewer samples than the hold passed since the previous change.
+     * Only a smaller maximum size forces the change at once
+     * @param currentSteady the current steady pool size
+     * @param used the number of connections in use
+     * @param maxSize the maximum pool size of the next interval
+     * @return the new steady pool size, not greater than the maximum size
+     */
+    int nextSteadyPoolSize(int currentSteady, long used, int maxSize) {
+        smoothedUsed = smoothedUsed < 0 ? used : smoothedUsed + SMOOTHING * (used - smoothedUsed);
+        int target = clamp((int) Math.ceil(smoothedUsed), minSteadySize, maxSize);
+        int deadband = Math.max(2, currentSteady / 4);
+        int next = clamp(currentSteady, minSteadySize, maxSize);
+
+        if (++steadySamples >= steadyHold && Math.abs(target - currentSteady) > deadband)
+            next = target;
+
+        if (next != currentSteady)
+            steadySamples = 0;
+
+        return next;
+    }
+
+    /**
+     * Limits the value to the range
+     * @param value the value
+     * @param min the lower bound
+     * @param max the upper bound
+     * @return the value within the bounds
+     */
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
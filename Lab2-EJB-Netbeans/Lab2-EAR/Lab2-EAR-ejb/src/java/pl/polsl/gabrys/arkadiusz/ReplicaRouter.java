@@ -0,0 +1,177 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Routes the reads of DatabaseSession to the replica databases.
+ * The replicas are container data sources read through the container managed
+ * Lab2-EJB-Read persistence unit, whose entity managers are opened on the data source
+ * of the chosen replica. Writes always go to the Lab2-EJB primary unit.
+ * A client session which committed a write reads from the primary until its
+ * read-your-writes window ends. The routing is configured with system properties:
+ * pl.polsl.gabrys.arkadiusz.read.replicas (comma separated JNDI names of the replica
+ * data sources, default jdbc/db_read, empty to read from the primary),
+ * pl.polsl.gabrys.arkadiusz.read.selection (round-robin or least-loaded, default round-robin)
+ * and pl.polsl.gabrys.arkadiusz.read.window (default read-your-writes window in milliseconds, default 1000).
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class ReplicaRouter {
+
+    /**
+     * Data source of the Lab2-EJB-Read persistence unit in persistence.xml
+     */
+    private static final String UNIT_DATA_SOURCE = "jdbc/db_read";
+
+    /**
+     * Prefix of the configuration system properties
+     */
+    private static final String PROPERTY_PREFIX = "pl.polsl.gabrys.arkadiusz.read.";
+
+    /**
+     * Default read-your-writes window in milliseconds
+     */
+    private final long defaultWindow = Long.getLong(PROPERTY_PREFIX + "window", 1000L);
+
+    /**
+     * Registry used to record writes once the current transaction commits
+     */
+    @Resource
+    private TransactionSynchronizationRegistry synchronizationRegistry;
+
+    /**
+     * Container managed factory of the read-only persistence unit
+     */
+    @PersistenceUnit(unitName = "Lab2-EJB-Read")
+    private EntityManagerFactory replicaFactory;
+
+    /**
+     * Selector of the entity manager properties which bind the read unit to a replica data source
+     */
+    private ReplicaSelector<Map<String, Object>> selector;
+
+    /**
+     * Reads the configured replica data sources
+     * @throws IllegalArgumentException if the selection policy is unknown
+     */
+    @PostConstruct
+    public void start() throws IllegalArgumentException {
+        List<Map<String, Object>> replicas = new ArrayList<>();
+
+        for (String dataSource: System.getProperty(PROPERTY_PREFIX + "replicas", UNIT_DATA_SOURCE).split(",")) {
+            if (dataSource.trim().isEmpty())
+                continue;
+
+            // the unit's own data source needs no override
+            replicas.add(dataSource.trim().equals(UNIT_DATA_SOURCE) ? Collections.<String, Object>emptyMap()
+                    : Collections.<String, Object>singletonMap("javax.persistence.nonJtaDataSource", dataSource.trim()));
+        }
+
+        String selection = System.getProperty(PROPERTY_PREFIX + "selection", "round-robin");
+        ReplicaSelector.Policy policy = ReplicaSelector.Policy.valueOf(selection.trim().toUpperCase().replace('-', '_'));
+        selector = new ReplicaSelector<>(replicas, policy);
+
+        Logger.getLogger(ReplicaRouter.class.getName()).log(Level.INFO, "{0} read replicas, {1} selection, {2} ms read-your-writes window",
+                new Object[] {replicas.size(), policy, defaultWindow});
+    }
+
+    /**
+     * Chooses the replica for a read of the client
+     * @param client the client key or null if the client cannot be told apart from others
+     * @return the replica which must be released after the read or null if the primary has to be used
+     */
+    public ReplicaSelector.Replica<Map<String, Object>> acquire(String client) {
+        return selector.acquire(client, System.currentTimeMillis());
+    }
+
+    /**
+     * Opens an entity manager of the read-only unit on the data source of the replica
+     * @param replica the replica returned by acquire
+     * @return the entity manager which must be closed after the read
+     */
+    public EntityManager createEntityManager(ReplicaSelector.Replica<Map<String, Object>> replica) {
+        return replicaFactory.createEntityManager(replica.getTarget());
+    }
+
+    /**
+     * Opens an entity manager of the read-only unit on its own data source, the non-XA pool of the primary database
+     * @return the entity manager which must be closed after the read
+     */
+    public EntityManager createPrimaryEntityManager() {
+        return replicaFactory.createEntityManager();
+    }
+
+    /**
+     * Ends the read on the replica
+     * @param replica the replica returned by acquire or null
+     */
+    public void release(ReplicaSelector.Replica<Map<String, Object>> replica) {
+        selector.release(replica);
+    }
+
+    /**
+     * Returns the read-your-writes window used by sessions which don't set their own
+     * @return the window in milliseconds
+     */
+    public long getDefaultWindow() {
+        return defaultWindow;
+    }
+
+    /**
+     * Starts the read-your-writes window of the client when the current transaction commits,
+     * or at once when there is no transaction
+     * @param client the client key or null if the client cannot be told apart from others
+     * @param window the read-your-writes window in milliseconds, 0 disables it
+     */
+    public void recordWriteAfterCompletion(final String client, final long window) {
+        if (client == null || window <= 0)
+            return;
+
+        if (synchronizationRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            selector.recordWrite(client, window, System.currentTimeMillis());
+            return;
+        }
+
+        synchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() { }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED)
+                    selector.recordWrite(client, window, System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * Returns the number of reads sent to the primary
+     * @return the number of primary reads
+     */
+    public long getPrimaryReads() {
+        return selector.getPrimaryReads();
+    }
+}
@@ -0,0 +1,222 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chooses the replica which serves a read. A client which wrote during its
+ * read-your-writes window is sent to the primary, because the replicas may
+ * not have applied the write yet. Other reads are spread over the replicas
+ * in turn or sent to the replica with the fewest reads in progress.
+ * Reads of a client without a key are never sent to the primary.
+ * @param <T> the type of the replica handle
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ReplicaSelector<T> {
+
+    /**
+     * Replica selection policies
+     */
+    enum Policy {
+
+        /**
+         * Replicas are used in turn
+         */
+        ROUND_ROBIN,
+
+        /**
+         * The replica with the fewest reads in progress is used, ties are broken in turn
+         */
+        LEAST_LOADED
+    }
+
+    /**
+     * Number of remembered clients above which the expired ones are dropped
+     */
+    private static final int PURGE_THRESHOLD = 1024;
+
+    /**
+     * Replicas in the configured order
+     */
+    private final List<Replica<T>> replicas;
+
+    /**
+     * Selection policy
+     */
+    private final Policy policy;
+
+    /**
+     * End of the read-your-writes window by client
+     */
+    private final ConcurrentMap<String, Long> primaryUntil = new ConcurrentHashMap<>();
+
+    /**
+     * Counter choosing the next replica in turn
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Number of reads sent to the primary
+     */
+    private final LongAdder primaryReads = new LongAdder();
+
+    /**
+     * Initializes selector with given parameters
+     * @param targets the replica handles
+     * @param policy the selection policy
+     * @throws IllegalArgumentException if the targets or the policy are null
+     */
+    ReplicaSelector(List<T> targets, Policy policy) throws IllegalArgumentException {
+        if (targets == null || policy == null)
+            throw new IllegalArgumentException("Replicas and policy cannot be null");
+
+        List<Replica<T>> list = new ArrayList<>();
+
+        for (T target: targets) {
+            list.add(new Replica<>(target));
+        }
+
+        this.replicas = Collections.unmodifiableList(list);
+        this.policy = policy;
+    }
+
+    /**
+     * Records a committed write of the client, its reads go to the primary until the window ends
+     * @param client the client key or null if the client cannot be told apart from others
+     * @param window the read-your-writes window in milliseconds, 0 disables it
+     * @param now the current time in milliseconds
+     */
+    void recordWrite(String client, long window, long now) {
+        if (client == null || window <= 0)
+            return;
+
+        primaryUntil.merge(client, now + window, Math::max);
+
+        if (primaryUntil.size() > PURGE_THRESHOLD)
+            primaryUntil.values().removeIf(until -> until <= now);
+    }
+
+    /**
+     * Chooses the replica for a read of the client and counts the read as in progress
+     * @param client the client key or null
+     * @param now the current time in milliseconds
+     * @return the replica which must be released after the read or null if the primary has to be used
+     */
+    Replica<T> acquire(String client, long now) {
+        Long until = client == null ? null : primaryUntil.get(client);
+
+        if (replicas.isEmpty() || (until != null && until > now)) {
+            primaryReads.increment();
+            return null;
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        Replica<T> chosen = replicas.get(start);
+
+        if (policy == Policy.LEAST_LOADED) {
+            for (int i = 1; i < replicas.size(); ++i) {
+                Replica<T> candidate = replicas.get((start + i) % replicas.size());
+
+                if (candidate.inFlight.get() < chosen.inFlight.get())
+                    chosen = candidate;
+            }
+        }
+
+        chosen.inFlight.incrementAndGet();
+        chosen.reads.increment();
+        return chosen;
+    }
+
+    /**
+     * Ends the read on the replica
+     * @param replica the replica returned by acquire or null
+     */
+    void release(Replica<T> replica) {
+        if (replica != null)
+            replica.inFlight.decrementAndGet();
+    }
+
+    /**
+     * Returns the replicas in the configured order
+     * @return the unmodifiable list of replicas
+     */
+    List<Replica<T>> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Returns the number of reads sent to the primary
+     * @return the number of primary reads
+     */
+    long getPrimaryReads() {
+        return primaryReads.sum();
+    }
+
+    /**
+     * Returns the number of clients whose read-your-writes window is remembered
+     * @return the number of clients, expired ones included until they are purged
+     */
+    int getRememberedClients() {
+        return primaryUntil.size();
+    }
+
+    /**
+     * Single replica with its load counters
+     * @param <T> the type of the replica handle
+     */
+    public static final class Replica<T> {
+
+        /**
+         * Replica handle
+         */
+        private final T target;
+
+        /**
+         * Number of reads in progress
+         */
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        /**
+         * Number of served reads
+         */
+        private final LongAdder reads = new LongAdder();
+
+        /**
+         * Initializes replica with given handle
+         * @param target the replica handle
+         */
+        private Replica(T target) {
+            this.target = target;
+        }
+
+        /**
+         * Returns the replica handle
+         * @return the handle
+         */
+        T getTarget() {
+            return target;
+        }
+
+        /**
+         * Returns the number of reads in progress
+         * @return the number of reads in progress
+         */
+        int getInFlight() {
+            return inFlight.get();
+        }
+
+        /**
+         * Returns the number of served reads
+         * @return the number of reads
+         */
+        long getReads() {
+            return reads.sum();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.SessionContext;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+import pl.polsl.gabrys.arkadiusz.memory.TextIndex;
+
+/**
+ * In-memory token and prefix index over author names and book titles.
+ * The index is loaded on startup and kept current by CatalogChanges.
+ * Reads never lock and never touch the database.
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class SearchIndex {
+
+    /**
+     * Number of rows read per query while loading the index
+     */
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    /**
+     * Entity manager instance
+     */
+    @PersistenceContext(name="Lab2-EJB", unitName="Lab2-EJB")
+    private EntityManager entityManager;
+
+    /**
+     * Context providing the business object registered in CatalogChanges
+     */
+    @Resource
+    private SessionContext context;
+
+    /**
+     * Index of author names and last names
+     */
+    private final TextIndex<AuthorView> authors = new TextIndex<>(a -> a.getName() + " " + a.getLastName());
+
+    /**
+     * Index of book titles
+     */
+    private final TextIndex<BookView> books = new TextIndex<>(BookView::getTitle);
+
+    /**
+     * Loads all authors and books into the index and starts receiving the committed changes
+     */
+    @PostConstruct
+    public void load() {
+        for (AuthorView author: SearchIndex.loadAll(entityManager, "Author.findViewsAfter", AuthorView.class, AuthorView::getId)) {
+            putAuthor(author);
+        }
+
+        for (BookView book: SearchIndex.loadAll(entityManager, "Book.findViewsAfter", BookView.class, BookView::getId)) {
+            putBook(book);
+        }
+
+        CatalogChanges.setSearchIndex(context.getBusinessObject(SearchIndex.class));
+    }
+
+    /**
+     * Stops receiving the committed changes
+     */
+    @PreDestroy
+    public void unload() {
+        CatalogChanges.setSearchIndex(null);
+    }
+
+    /**
+     * Adds or replaces the indexed author
+     * @param author the current author state
+     */
+    public void putAuthor(AuthorView author) {
+        authors.put(author.getId(), author);
+    }
+
+    /**
+     * Removes the author from the index
+     * @param id the author id
+     */
+    public void removeAuthor(long id) {
+        authors.remove(id);
+    }
+
+    /**
+     * Adds or replaces the indexed book
+     * @param book the current book state
+     */
+    public void putBook(BookView book) {
+        books.put(book.getId(), book);
+    }
+
+    /**
+     * Removes the book from the index
+     * @param id the book id
+     */
+    public void removeBook(long id) {
+        books.remove(id);
+    }
+
+    /**
+     * Finds authors whose name or last name tokens start with every token of the given text
+     * @param text the searched text
+     * @param limit the maximum number of results
+     * @return the authors ordered by relevance
+     */
+    public List<AuthorView> searchAuthors(String text, int limit) {
+        return authors.search(text, limit);
+    }
+
+    /**
+     * Finds books whose title tokens start with every token of the given text
+     * @param text the searched text
+     * @param limit the maximum number of results
+     * @return the books ordered by relevance
+     */
+    public List<BookView> searchBooks(String text, int limit) {
+        return books.search(text, limit);
+    }
+
+    /**
+     * Reads all rows of a keyset paginated view query
+     * @param <T> the view type
+     * @param entityManager the entity manager
+     * @param namedQuery the query ordered by id with the lastId parameter
+     * @param viewClass the view class
+     * @param key the function returning the id of a view
+     * @return the list with all views
+     */
+    static <T> List<T> loadAll(EntityManager entityManager, String namedQuery, Class<T> viewClass, Function<T, Long> key) {
+        List<T> all = new ArrayList<>();
+        Long lastId = 0L;
+
+        while (true) {
+            TypedQuery<T> query = entityManager.createNamedQuery(namedQuery, viewClass);
+            query.setParameter("lastId", lastId);
+            query.setMaxResults(LOAD_PAGE_SIZE);
+            List<T> page = query.getResultList();
+            all.addAll(page);
+
+            if (page.size() < LOAD_PAGE_SIZE)
+                return all;
+
+            lastId = key.apply(page.get(page.size() - 1));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import pl.polsl.gabrys.arkadiusz.dto.AuthorView;
+import pl.polsl.gabrys.arkadiusz.dto.BookView;
+
+/**
+ * Tests of the catalog snapshot updates
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class CatalogServiceTest {
+
+    /**
+     * Checks that published changes move the views between the groups
+     */
+    @Test
+    public void publishedChangesMoveViewsBetweenGroups() {
+        CatalogService catalog = new CatalogService();
+
+        catalog.publish(authors(new AuthorView(1L, "Jan", "Kowalski"), new AuthorView(2L, "Jan", "Nowak")),
+                books(new BookView(5L, "Lalka", 300L, null, 1L), new BookView(3L, "Lalka", 200L, null, 2L)));
+
+        assertEquals(2, catalog.findAuthorsByName("JAN").size());
+        assertEquals(Arrays.asList(3L, 5L), ids(catalog.findBooksByTitle("lalka"), BookView::getId));
+        assertEquals(1L, catalog.getVersion());
+
+        Map<Long, AuthorView> removed = new HashMap<>();
+        removed.put(1L, null);
+        catalog.publish(removed, books(new BookView(5L, "Faraon", 300L, null, 2L)));
+
+        assertNull(catalog.findAuthorById(1L));
+        assertEquals(1, catalog.findAuthorsByName("jan").size());
+        assertEquals(Arrays.asList(3L), ids(catalog.findBooksByTitle("lalka"), BookView::getId));
+        assertEquals(Arrays.asList(3L, 5L), ids(catalog.findBooksByAuthor(2L), BookView::getId));
+        assertTrue(catalog.findBooksByAuthor(1L).isEmpty());
+        assertEquals(Arrays.asList(5L), ids(catalog.findBookViewsAfter(3L, 10), BookView::getId));
+        assertEquals(2L, catalog.getVersion());
+    }
+
+    /**
+     * Checks that the changes committed while the first snapshot loads are replayed over it
+     * @throws Exception if the entity manager cannot be set
+     */
+    @Test
+    public void changesDuringLoadAreReplayed() throws Exception {
+        CatalogService catalog = new CatalogService();
+        Field entityManager = CatalogService.class.getDeclaredField("entityManager");
+        entityManager.setAccessible(true);
+        entityManager.set(catalog, loadingEntityManager(catalog));
+
+        try {
+            catalog.load();
+        } finally {
+            catalog.unload();
+        }
+
+        assertNull(catalog.findAuthorById(1L));
+        assertEquals("Nowak", catalog.findAuthorById(2L).getLastName());
+        assertEquals("Wiśniewski", catalog.findAuthorById(3L).getLastName());
+        assertEquals(Arrays.asList(2L, 3L), ids(catalog.findAuthorViewsAfter(null, 10), AuthorView::getId));
+        assertEquals(1L, catalog.getVersion());
+    }
+
+    /**
+     * Creates the entity manager returning two authors and no books,
+     * it publishes a removal and an addition while the authors are read
+     * @param catalog the loading catalog
+     * @return the entity manager
+     */
+    private static EntityManager loadingEntityManager(CatalogService catalog) {
+        TypedQuery<?> authors = query(() -> {
+            Map<Long, AuthorView> changes = new HashMap<>();
+            changes.put(1L, null);
+            changes.put(3L, new AuthorView(3L, "Adam", "Wiśniewski"));
+            catalog.publish(changes, Collections.emptyMap());
+
+            return Arrays.asList(new AuthorView(1L, "Jan", "Kowalski"), new AuthorView(2L, "Jan", "Nowak"));
+        });
+        TypedQuery<?> books = query(Collections::emptyList);
+
+        return (EntityManager) Proxy.newProxyInstance(CatalogServiceTest.class.getClassLoader(),
+                new Class<?>[] {EntityManager.class},
+                (proxy, method, args) -> "Author.findViewsAfter".equals(args[0]) ? authors : books);
+    }
+
+    /**
+     * Creates the query returning the rows of given supplier
+     * @param rows the supplier of the rows
+     * @return the query
+     */
+    private static TypedQuery<?> query(Supplier<List<?>> rows) {
+        return (TypedQuery<?>) Proxy.newProxyInstance(CatalogServiceTest.class.getClassLoader(),
+                new Class<?>[] {TypedQuery.class},
+                (proxy, method, args) -> method.getName().equals("getResultList") ? rows.get() : proxy);
+    }
+
+    /**
+     * Maps the authors by id
+     * @param views the authors
+     * @return the authors by id
+     */
+    private static Map<Long, AuthorView> authors(AuthorView... views) {
+        Map<Long, AuthorView> map = new HashMap<>();
+
+        for (AuthorView view: views) {
+            map.put(view.getId(), view);
+        }
+
+        return map;
+    }
+
+    /**
+     * Maps the books by id
+     * @param views the books
+     * @return the books by id
+     */
+    private static Map<Long, BookView> books(BookView... views) {
+        Map<Long, BookView> map = new HashMap<>();
+
+        for (BookView view: views) {
+            map.put(view.getId(), view);
+        }
+
+        return map;
+    }
+
+    /**
+     * Returns the ids of the views
+     * @param <T> the view type
+     * @param views the views
+     * @param id the function returning the id of a view
+     * @return the list of ids
+     */
+    private static <T> List<Long> ids(List<T> views, ToLongFunction<T> id) {
+        List<Long> ids = new ArrayList<>();
+
+        for (T view: views) {
+            ids.add(id.applyAsLong(view));
+        }
+
+        return ids;
+    }
+}
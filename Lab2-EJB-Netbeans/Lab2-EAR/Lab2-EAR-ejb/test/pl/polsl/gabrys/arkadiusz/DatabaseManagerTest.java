@@ -0,0 +1,163 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.ejb.SessionContext;
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Status;
+import javax.transaction.TransactionSynchronizationRegistry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+import pl.polsl.gabrys.arkadiusz.model.Author;
+import pl.polsl.gabrys.arkadiusz.model.Book;
+
+/**
+ * Tests of the DatabaseManager updates run outside of the container
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class DatabaseManagerTest {
+
+    /**
+     * Checks that mergeBook applies every argument, the pages included
+     * @throws Exception if the dependencies cannot be set
+     */
+    @Test
+    public void mergeBookAppliesEveryArgument() throws Exception {
+        Author oldAuthor = new Author(1L, "Bolesław", "Prus", new ArrayList<>());
+        Author newAuthor = new Author(2L, "Henryk", "Sienkiewicz", new ArrayList<>());
+        Book book = new Book(7L, "Lalka", 300L, new Date(0L), oldAuthor);
+        Date releaseDate = new Date(86400000L);
+
+        Map<Object, Object> entities = new HashMap<>();
+        entities.put(oldAuthor.getId(), oldAuthor);
+        entities.put(newAuthor.getId(), newAuthor);
+        entities.put(book.getId(), book);
+        List<Object> merged = new ArrayList<>();
+
+        DatabaseManager db = new DatabaseManager();
+        inject(db, EntityManager.class, entityManager(entities, merged));
+        inject(db, EntityCacheManager.class, cacheManager());
+        inject(db, OptimisticRetryExecutor.class, retryExecutor());
+
+        db.mergeBook(7L, "Faraon", 450L, releaseDate, 2L);
+
+        assertEquals(1, merged.size());
+        Book result = (Book) merged.get(0);
+        assertEquals("Faraon", result.getTitle());
+        assertEquals(Long.valueOf(450L), result.getPages());
+        assertEquals(releaseDate, result.getReleaseDate());
+        assertSame(newAuthor, result.getAuthor());
+    }
+
+    /**
+     * Creates the entity manager which finds given entities in the shared cache and records the merged ones
+     * @param entities the entities by id
+     * @param merged the list receiving the merged entities
+     * @return the entity manager
+     */
+    private static EntityManager entityManager(Map<Object, Object> entities, List<Object> merged) {
+        return proxy(EntityManager.class, (method, args) -> {
+            switch (method) {
+                case "find":
+                    return entities.get(args[1]);
+                case "merge":
+                    merged.add(args[0]);
+                    return args[0];
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Creates the cache manager over an empty shared cache
+     * @return the cache manager
+     * @throws Exception if the dependencies cannot be set
+     */
+    private static EntityCacheManager cacheManager() throws Exception {
+        Cache cache = proxy(Cache.class, (method, args) -> null);
+        EntityCacheManager cacheManager = new EntityCacheManager();
+        inject(cacheManager, EntityManagerFactory.class,
+                proxy(EntityManagerFactory.class, (method, args) -> "getCache".equals(method) ? cache : null));
+        inject(cacheManager, TransactionSynchronizationRegistry.class, transaction());
+        return cacheManager;
+    }
+
+    /**
+     * Creates the registry of an active transaction which ignores the registered synchronizations
+     * @return the registry
+     */
+    private static TransactionSynchronizationRegistry transaction() {
+        return proxy(TransactionSynchronizationRegistry.class,
+                (method, args) -> "getTransactionStatus".equals(method) ? Status.STATUS_ACTIVE : null);
+    }
+
+    /**
+     * Creates the retry executor which calls its attempts directly
+     * @return the retry executor
+     * @throws Exception if the dependencies cannot be set
+     */
+    private static OptimisticRetryExecutor retryExecutor() throws Exception {
+        OptimisticRetryExecutor executor = new OptimisticRetryExecutor();
+        inject(executor, EntityManager.class, proxy(EntityManager.class, (method, args) -> null));
+        inject(executor, SessionContext.class,
+                proxy(SessionContext.class, (method, args) -> "getBusinessObject".equals(method) ? executor : null));
+        return executor;
+    }
+
+    /**
+     * Sets the field of given type declared by the class of the bean or by one of its superclasses
+     * @param bean the bean
+     * @param type the field type
+     * @param value the field value
+     * @throws Exception if there is no such field or it cannot be set
+     */
+    private static void inject(Object bean, Class<?> type, Object value) throws Exception {
+        for (Class<?> beanClass = bean.getClass(); beanClass != null; beanClass = beanClass.getSuperclass()) {
+            for (Field field: beanClass.getDeclaredFields()) {
+                if (field.getType() == type) {
+                    field.setAccessible(true);
+                    field.set(bean, value);
+                    return;
+                }
+            }
+        }
+
+        throw new NoSuchFieldException(type.getName());
+    }
+
+    /**
+     * Creates the proxy answering every call with given handler
+     * @param <T> the interface type
+     * @param type the interface
+     * @param handler the handler of the method name and the arguments
+     * @return the proxy
+     */
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(DatabaseManagerTest.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> handler.invoke(method.getName(), args)));
+    }
+
+    /**
+     * Handler of the proxy calls
+     */
+    private interface Handler {
+
+        /**
+         * Answers the call
+         * @param method the method name
+         * @param args the arguments or null
+         * @return the result
+         */
+        Object invoke(String method, Object[] args);
+    }
+}
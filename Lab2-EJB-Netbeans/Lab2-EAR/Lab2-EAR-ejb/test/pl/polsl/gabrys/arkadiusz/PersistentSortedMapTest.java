@@ -0,0 +1,90 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Tests of the persistent sorted map
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class PersistentSortedMapTest {
+
+    /**
+     * Checks that an update returns a new map and leaves the previous one unchanged
+     */
+    @Test
+    public void updatesKeepPreviousMaps() {
+        PersistentSortedMap<Long, String> empty = PersistentSortedMap.empty();
+        PersistentSortedMap<Long, String> one = empty.put(1L, "a");
+        PersistentSortedMap<Long, String> two = one.put(2L, "b").put(1L, "c");
+        PersistentSortedMap<Long, String> removed = two.remove(1L);
+
+        assertEquals(0, empty.size());
+        assertEquals("a", one.get(1L));
+        assertEquals("c", two.get(1L));
+        assertEquals(2, two.size());
+        assertNull(removed.get(1L));
+        assertEquals(1, removed.size());
+        assertSame(removed, removed.remove(7L));
+    }
+
+    /**
+     * Checks random puts and removes against a TreeMap
+     */
+    @Test
+    public void matchesTreeMap() {
+        Random random = new Random(42L);
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        PersistentSortedMap<Long, Long> map = PersistentSortedMap.empty();
+
+        for (int i = 0; i < 20000; ++i) {
+            long key = random.nextInt(2000);
+
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, (long) i);
+                map = map.put(key, (long) i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+
+        for (long key = 0; key < 2000; ++key) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        assertEquals(new ArrayList<>(expected.values()), map.valuesAfter(null, Integer.MAX_VALUE));
+
+        for (Map.Entry<Long, Long> entry: expected.entrySet()) {
+            List<Long> page = new ArrayList<>(expected.tailMap(entry.getKey(), false).values());
+            assertEquals(page.subList(0, Math.min(10, page.size())), map.valuesAfter(entry.getKey(), 10));
+        }
+    }
+
+    /**
+     * Checks the pages following keys which are not in the map
+     */
+    @Test
+    public void pagesAfterMissingKeys() {
+        PersistentSortedMap<Long, Long> map = PersistentSortedMap.empty();
+
+        for (long key = 10; key <= 50; key += 10) {
+            map = map.put(key, key);
+        }
+
+        assertEquals(Arrays.asList(10L, 20L), map.valuesAfter(5L, 2));
+        assertEquals(Arrays.asList(30L, 40L, 50L), map.valuesAfter(25L, 10));
+        assertEquals(new ArrayList<Long>(), map.valuesAfter(50L, 10));
+    }
+}
@@ -0,0 +1,95 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests of the connection pool sizing decisions
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class PoolSizingPolicyTest {
+
+    /**
+     * Checks that waiting requests and long waits grow the maximum pool size up to its bound
+     */
+    @Test
+    public void waitsGrowMaximum() {
+        PoolSizingPolicy policy = new PoolSizingPolicy(4, 64, 2, 50.0, 3, 2);
+
+        assertEquals(21, policy.nextMaxPoolSize(16, 16, 5, 0, 0));
+        assertEquals(20, policy.nextMaxPoolSize(16, 16, 0, 100, 0));
+        assertEquals(20, policy.nextMaxPoolSize(16, 16, 0, 0, 1));
+        assertEquals(64, policy.nextMaxPoolSize(60, 60, 10, 0, 0));
+    }
+
+    /**
+     * Checks that the maximum pool size shrinks only after enough calm samples in a row
+     */
+    @Test
+    public void calmSamplesShrinkMaximum() {
+        PoolSizingPolicy policy = new PoolSizingPolicy(4, 64, 2, 50.0, 3, 2);
+
+        assertEquals(16, policy.nextMaxPoolSize(16, 2, 0, 0, 0));
+        assertEquals(16, policy.nextMaxPoolSize(16, 2, 0, 0, 0));
+        // a busy sample starts the count again
+        assertEquals(16, policy.nextMaxPoolSize(16, 8, 0, 0, 0));
+        assertEquals(16, policy.nextMaxPoolSize(16, 2, 0, 0, 0));
+        assertEquals(16, policy.nextMaxPoolSize(16, 2, 0, 0, 0));
+        assertEquals(12, policy.nextMaxPoolSize(16, 2, 0, 0, 0));
+    }
+
+    /**
+     * Checks that shrinking keeps twice the connections in use and the minimum pool size
+     */
+    @Test
+    public void shrinkingKeepsHeadroom() {
+        PoolSizingPolicy policy = new PoolSizingPolicy(4, 64, 2, 50.0, 1, 1);
+
+        assertEquals(30, policy.nextMaxPoolSize(40, 15, 0, 0, 0));
+        assertEquals(4, policy.nextMaxPoolSize(5, 0, 0, 0, 0));
+    }
+
+    /**
+     * Checks that the steady pool size changes only after the hold and outside the deadband
+     */
+    @Test
+    public void steadySizeIsHeldAndDamped() {
+        PoolSizingPolicy policy = new PoolSizingPolicy(4, 64, 2, 50.0, 3, 2);
+
+        assertEquals(2, policy.nextSteadyPoolSize(2, 20, 64));
+        assertEquals(20, policy.nextSteadyPoolSize(2, 20, 64));
+        assertEquals(20, policy.nextSteadyPoolSize(20, 21, 64));
+        assertEquals(20, policy.nextSteadyPoolSize(20, 21, 64));
+    }
+
+    /**
+     * Checks that the steady pool size follows the smoothed use within its bounds
+     */
+    @Test
+    public void steadySizeFollowsSmoothedUse() {
+        PoolSizingPolicy policy = new PoolSizingPolicy(4, 64, 2, 50.0, 3, 1);
+
+        assertEquals(10, policy.nextSteadyPoolSize(2, 10, 64));
+        // the use drops to 0 but the smoothed use falls by a fifth per sample
+        assertEquals(10, policy.nextSteadyPoolSize(10, 0, 64));
+        assertEquals(7, policy.nextSteadyPoolSize(10, 0, 64));
+        assertEquals(30, new PoolSizingPolicy(4, 64, 2, 50.0, 3, 1).nextSteadyPoolSize(2, 100, 30));
+    }
+
+    /**
+     * Checks that unordered pool bounds are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnorderedBounds() {
+        new PoolSizingPolicy(8, 4, 2, 50.0, 3, 2);
+    }
+
+    /**
+     * Checks that a minimum steady size above the minimum pool size is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSteadySizeAboveMinimum() {
+        new PoolSizingPolicy(4, 64, 5, 50.0, 3, 2);
+    }
+}
@@ -0,0 +1,130 @@
+package pl.polsl.gabrys.arkadiusz;
+
+import java.util.Arrays;
+import java.util.Collections;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Tests of the replica selection and of the read-your-writes window
+ * @author Arkadiusz Gabryś
+ * @version 1.0
+ */
+public class ReplicaSelectorTest {
+
+    /**
+     * Checks that the round robin policy uses the replicas in turn
+     */
+    @Test
+    public void roundRobinUsesReplicasInTurn() {
+        ReplicaSelector<String> selector = new ReplicaSelector<>(Arrays.asList("a", "b", "c"), ReplicaSelector.Policy.ROUND_ROBIN);
+
+        for (String expected: Arrays.asList("a", "b", "c", "a", "b")) {
+            ReplicaSelector.Replica<String> replica = selector.acquire("client", 0L);
+            assertEquals(expected, replica.getTarget());
+            selector.release(replica);
+        }
+
+        assertEquals(2L, selector.getReplicas().get(0).getReads());
+        assertEquals(0, selector.getReplicas().get(0).getInFlight());
+    }
+
+    /**
+     * Checks that the least loaded policy skips the replicas with more reads in progress
+     */
+    @Test
+    public void leastLoadedSkipsBusyReplicas() {
+        ReplicaSelector<String> selector = new ReplicaSelector<>(Arrays.asList("a", "b", "c"), ReplicaSelector.Policy.LEAST_LOADED);
+
+        assertEquals("a", selector.acquire(null, 0L).getTarget());
+        ReplicaSelector.Replica<String> second = selector.acquire(null, 0L);
+        assertEquals("b", second.getTarget());
+        assertEquals("c", selector.acquire(null, 0L).getTarget());
+
+        // the turn starts at a again, but only b has no read in progress
+        selector.release(second);
+        assertEquals("b", selector.acquire(null, 0L).getTarget());
+
+        // with equal loads the turn decides
+        assertEquals("b", selector.acquire(null, 0L).getTarget());
+    }
+
+    /**
+     * Checks that the reads of a writing client go to the primary only during its window
+     */
+    @Test
+    public void writeSendsClientToPrimaryForItsWindow() {
+        ReplicaSelector<String> selector = new ReplicaSelector<>(Collections.singletonList("a"), ReplicaSelector.Policy.ROUND_ROBIN);
+
+        selector.recordWrite("writer", 100L, 1000L);
+
+        assertNull(selector.acquire("writer", 1099L));
+        assertEquals("a", selector.acquire("reader", 1099L).getTarget());
+        assertEquals("a", selector.acquire("writer", 1100L).getTarget());
+        assertEquals(1L, selector.getPrimaryReads());
+    }
+
+    /**
+     * Checks that a later write with a shorter window doesn't shorten the running window
+     */
+    @Test
+    public void shorterWindowKeepsLongerOne() {
+        ReplicaSelector<String> selector = new ReplicaSelector<>(Collections.singletonList("a"), ReplicaSelector.Policy.ROUND_ROBIN);
+
+        selector.recordWrite("writer", 1000L, 0L);
+        selector.recordWrite("writer", 10L, 100L);
+
+        assertNull(selector.acquire("writer", 500L));
+    }
+
+    /**
+     * Checks that clients without a key and empty windows never send the reads to the primary
+     */
+    @Test
+    public void clientsWithoutKeyOrWindowUseReplicas() {
+        ReplicaSelector<String> selector = new ReplicaSelector<>(Collections.singletonList("a"), ReplicaSelector.Policy.ROUND_ROBIN);
+
+        selector.recordWrite(null, 1000L, 0L);
+        selector.recordWrite("writer", 0L, 0L);
+
+        assertEquals("a", selector.acquire(null, 1L).getTarget());
+        assertEquals("a", selector.acquire("writer", 1L).getTarget());
+        assertEquals(0, selector.getRememberedClients());
+    }
+
+    /**
+     * Checks that every read goes to the primary when there are no replicas
+     */
+    @Test
+    public void noReplicasReadsFromPrimary() {
+        ReplicaSelector<String> selector = new ReplicaSelector<>(Collections.<String>emptyList(), ReplicaSelector.Policy.LEAST_LOADED);
+
+        ReplicaSelector.Replica<String> replica = selector.acquire(null, 0L);
+        assertNull(replica);
+        selector.release(replica);
+        assertEquals(1L, selector.getPrimaryReads());
+    }
+
+    /**
+     * Checks that the expired windows are dropped once too many clients are remembered
+     */
+    @Test
+    public void expiredWindowsArePurged() {
+        ReplicaSelector<String> selector = new ReplicaSelector<>(Collections.singletonList("a"), ReplicaSelector.Policy.ROUND_ROBIN);
+
+        for (int i = 0; i < 1024; ++i) {
+            selector.recordWrite("expired" + i, 10L, 0L);
+        }
+
+        selector.recordWrite("running", 10L, 5L);
+        assertEquals(1025, selector.getRememberedClients());
+
+        // above the threshold the write purges the windows which ended before it
+        selector.recordWrite("late", 10L, 10L);
+        assertEquals(2, selector.getRememberedClients());
+        assertNull(selector.acquire("running", 14L));
+        assertSame(selector.getReplicas().get(0), selector.acquire("expired0", 14L));
+    }
+}
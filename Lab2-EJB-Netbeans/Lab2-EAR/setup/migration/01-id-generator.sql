@@ -0,0 +1,15 @@
+-- Moves the author and book ids of an existing database to the ID_GENERATOR table.
+-- The ids used to come from AUTO_INCREMENT columns, now EclipseLink allocates them from
+-- ID_GENERATOR in blocks of 500, so both counters must start above the largest existing id.
+-- Run it before the new version is deployed. It can be run again, a counter is never lowered.
+-- The AUTO_INCREMENT attribute of the ID columns is left in place, the inserted ids are always given.
+
+CREATE TABLE IF NOT EXISTS ID_GENERATOR (SEQ_NAME VARCHAR(50) NOT NULL, SEQ_COUNT DECIMAL(38), PRIMARY KEY (SEQ_NAME));
+
+INSERT INTO ID_GENERATOR (SEQ_NAME, SEQ_COUNT)
+    SELECT 'Author', COALESCE(MAX(ID), 0) FROM AUTHOR
+    ON DUPLICATE KEY UPDATE SEQ_COUNT = GREATEST(COALESCE(SEQ_COUNT, 0), VALUES(SEQ_COUNT));
+
+INSERT INTO ID_GENERATOR (SEQ_NAME, SEQ_COUNT)
+    SELECT 'Book', COALESCE(MAX(ID), 0) FROM BOOK
+    ON DUPLICATE KEY UPDATE SEQ_COUNT = GREATEST(COALESCE(SEQ_COUNT, 0), VALUES(SEQ_COUNT));
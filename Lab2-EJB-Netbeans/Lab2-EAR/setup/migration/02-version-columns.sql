@@ -0,0 +1,35 @@
+-- Adds the VERSION columns used by the optimistic locking of authors and books.
+-- Existing rows get version 1, the value EclipseLink gives to a newly persisted entity.
+-- Run it before the new version is deployed. It can be run again, existing columns are left alone.
+
+DROP PROCEDURE IF EXISTS ADD_VERSION_COLUMN;
+
+DELIMITER //
+
+CREATE PROCEDURE ADD_VERSION_COLUMN(IN target VARCHAR(64))
+BEGIN
+    IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = target AND COLUMN_NAME = 'VERSION') THEN
+        SET @statement = CONCAT('ALTER TABLE ', target, ' ADD COLUMN VERSION BIGINT');
+        PREPARE statement FROM @statement;
+        EXECUTE statement;
+        DEALLOCATE PREPARE statement;
+    END IF;
+
+    SET @statement = CONCAT('UPDATE ', target, ' SET VERSION = 1 WHERE VERSION IS NULL');
+    PREPARE statement FROM @statement;
+    EXECUTE statement;
+    DEALLOCATE PREPARE statement;
+
+    SET @statement = CONCAT('ALTER TABLE ', target, ' MODIFY VERSION BIGINT NOT NULL');
+    PREPARE statement FROM @statement;
+    EXECUTE statement;
+    DEALLOCATE PREPARE statement;
+END //
+
+DELIMITER ;
+
+CALL ADD_VERSION_COLUMN('AUTHOR');
+CALL ADD_VERSION_COLUMN('BOOK');
+
+DROP PROCEDURE ADD_VERSION_COLUMN;
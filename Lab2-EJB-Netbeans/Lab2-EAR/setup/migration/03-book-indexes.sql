@@ -0,0 +1,25 @@
+-- Adds the BOOK indexes used by the release date pages and the author foreign key.
+-- New databases get them from the schema generation, existing ones only from this script.
+-- Run it before the new version is deployed. It can be run again, existing indexes are left alone.
+
+DROP PROCEDURE IF EXISTS ADD_INDEX;
+
+DELIMITER //
+
+CREATE PROCEDURE ADD_INDEX(IN target VARCHAR(64), IN name VARCHAR(64), IN columns VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = target AND INDEX_NAME = name) THEN
+        SET @statement = CONCAT('CREATE INDEX ', name, ' ON ', target, ' (', columns, ')');
+        PREPARE statement FROM @statement;
+        EXECUTE statement;
+        DEALLOCATE PREPARE statement;
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL ADD_INDEX('BOOK', 'BOOK_RELEASEDATE_IDX', 'RELEASEDATE, ID');
+CALL ADD_INDEX('BOOK', 'BOOK_AUTHOR_IDX', 'AUTHOR_ID');
+
+DROP PROCEDURE ADD_INDEX;
@@ -0,0 +1,93 @@
+-- Adds the NORMALIZEDNAME and NORMALIZEDTITLE lookup columns with their indexes and fills them
+-- for the existing rows. NORMALIZE_TEXT repeats pl.polsl.gabrys.arkadiusz.model.TextNormalizer.normalize:
+-- the text is lowercased, the diacritics of the Latin-1 and Latin Extended-A letters and the combining
+-- marks are stripped, the Polish l with stroke becomes l, quotes and whitespace runs become single
+-- spaces and the result is trimmed. Letters of other scripts are only lowercased, the application
+-- computes the same value again whenever the row is updated.
+-- Run it before the new version is deployed with the utf8 client character set, for example
+--   mysql --default-character-set=utf8 -u db_user -p db < setup/migration/04-normalized-columns.sql
+-- It can be run again, only missing values are filled.
+
+DROP PROCEDURE IF EXISTS ADD_NORMALIZED_COLUMN;
+DROP FUNCTION IF EXISTS NORMALIZE_TEXT;
+
+DELIMITER //
+
+CREATE FUNCTION NORMALIZE_TEXT(source VARCHAR(255) CHARACTER SET utf8) RETURNS VARCHAR(255) CHARACTER SET utf8 DETERMINISTIC
+BEGIN
+    DECLARE accented VARCHAR(255) CHARACTER SET utf8 DEFAULT CONCAT('ÀÁÂÃÄÅÇÈÉÊËÌÍÎÏÑÒÓÔÕÖÙÚÛÜÝ',
+                                  'àáâãäåçèéêëìíîïñòóôõöùúûüýÿ',
+                                  'ĀāĂăĄąĆćĈĉĊċČčĎďĒēĔĕĖėĘęĚěĜĝĞğĠġĢģĤĥĨĩĪīĬĭĮįİĴĵĶķĹĺĻļĽľŁłŃńŅņŇňŌōŎŏŐőŔŕŖŗŘřŚśŜŝŞşŠšŢţŤťŨũŪūŬŭŮůŰűŲųŴŵŶŷŸŹźŻżŽž');
+    DECLARE plain VARCHAR(255) CHARACTER SET utf8 DEFAULT CONCAT('aaaaaaceeeeiiiinooooouuuuy',
+                                  'aaaaaaceeeeiiiinooooouuuuyy',
+                                  'aaaaaaccccccccddeeeeeeeeeegggggggghhiiiiiiiiijjkkllllllllnnnnnnoooooorrrrrrssssssssttttuuuuuuuuuuuuwwyyyzzzzzz');
+    DECLARE result VARCHAR(255) CHARACTER SET utf8 DEFAULT '';
+    DECLARE letter VARCHAR(1) CHARACTER SET utf8;
+    DECLARE code INT;
+    DECLARE position INT;
+    DECLARE i INT DEFAULT 1;
+    DECLARE separated BOOLEAN DEFAULT FALSE;
+
+    IF source IS NULL THEN
+        RETURN '';
+    END IF;
+
+    WHILE i <= CHAR_LENGTH(source) DO
+        SET letter = SUBSTRING(source, i, 1);
+        SET code = CONV(HEX(CONVERT(letter USING utf32)), 16, 10);
+
+        IF code IN (9, 10, 11, 12, 13, 32, 34) THEN
+            SET separated = TRUE;
+        ELSEIF NOT (code BETWEEN 768 AND 879 OR code BETWEEN 6832 AND 6911 OR code BETWEEN 7616 AND 7679
+                    OR code BETWEEN 8400 AND 8447 OR code BETWEEN 65056 AND 65071) THEN
+            IF separated AND result <> '' THEN
+                SET result = CONCAT(result, ' ');
+            END IF;
+
+            SET separated = FALSE;
+            SET position = LOCATE(letter COLLATE utf8_bin, accented COLLATE utf8_bin);
+            SET result = CONCAT(result, IF(position > 0, SUBSTRING(plain, position, 1), LOWER(letter)));
+        END IF;
+
+        SET i = i + 1;
+    END WHILE;
+
+    RETURN result;
+END //
+
+CREATE PROCEDURE ADD_NORMALIZED_COLUMN(IN target VARCHAR(64), IN source VARCHAR(64), IN normalized VARCHAR(64), IN name VARCHAR(64))
+BEGIN
+    IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = target AND COLUMN_NAME = normalized) THEN
+        SET @statement = CONCAT('ALTER TABLE ', target, ' ADD COLUMN ', normalized, ' VARCHAR(255)');
+        PREPARE statement FROM @statement;
+        EXECUTE statement;
+        DEALLOCATE PREPARE statement;
+    END IF;
+
+    SET @statement = CONCAT('UPDATE ', target, ' SET ', normalized, ' = NORMALIZE_TEXT(', source, ') WHERE ', normalized, ' IS NULL');
+    PREPARE statement FROM @statement;
+    EXECUTE statement;
+    DEALLOCATE PREPARE statement;
+
+    SET @statement = CONCAT('ALTER TABLE ', target, ' MODIFY ', normalized, ' VARCHAR(255) NOT NULL');
+    PREPARE statement FROM @statement;
+    EXECUTE statement;
+    DEALLOCATE PREPARE statement;
+
+    IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = target AND INDEX_NAME = name) THEN
+        SET @statement = CONCAT('CREATE INDEX ', name, ' ON ', target, ' (', normalized, ')');
+        PREPARE statement FROM @statement;
+        EXECUTE statement;
+        DEALLOCATE PREPARE statement;
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL ADD_NORMALIZED_COLUMN('AUTHOR', 'NAME', 'NORMALIZEDNAME', 'AUTHOR_NORMALIZEDNAME_IDX');
+CALL ADD_NORMALIZED_COLUMN('BOOK', 'TITLE', 'NORMALIZEDTITLE', 'BOOK_NORMALIZEDTITLE_IDX');
+
+DROP PROCEDURE ADD_NORMALIZED_COLUMN;
+DROP FUNCTION NORMALIZE_TEXT;